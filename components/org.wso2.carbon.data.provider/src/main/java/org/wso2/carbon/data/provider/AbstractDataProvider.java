@@ -21,15 +21,16 @@ package org.wso2.carbon.data.provider;
 import com.google.gson.Gson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.wso2.carbon.data.provider.bean.DataModel;
+import org.wso2.carbon.data.provider.bean.DataProviderConfigRoot;
 import org.wso2.carbon.data.provider.bean.DataSetMetadata;
 import org.wso2.carbon.data.provider.endpoint.DataProviderEndPoint;
 import org.wso2.carbon.data.provider.exception.DataProviderException;
+import org.wso2.carbon.data.provider.utils.DataModelEncoder;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -37,14 +38,20 @@ import java.util.concurrent.TimeUnit;
  */
 public abstract class AbstractDataProvider implements DataProvider {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractDataProvider.class);
+    private static final Gson GSON = new Gson();
+    private static final SharedQueryRegistry SHARED_QUERY_REGISTRY =
+            new SharedQueryRegistry(Runtime.getRuntime().availableProcessors());
     private String topic;
     private String sessionId;
-    private ScheduledExecutorService dataPublishingExecutorService = Executors.newSingleThreadScheduledExecutor();
-    private ScheduledExecutorService dataPurgingExecutorService = Executors.newSingleThreadScheduledExecutor();
+    private String queryFingerprint;
+    private final List<ScheduledFuture<?>> scheduledTasks = new ArrayList<>();
+    private boolean isStopped;
     private long publishingInterval;
     private long purgingInterval;
     private boolean isPurgingEnable;
     private boolean isPaginationEnabled;
+    private DataProviderConfigRoot.Formats format = DataProviderConfigRoot.Formats.ROW;
+    private volatile boolean isMetadataSent;
 
     public DataProvider init(String topic, String sessionId, ProviderConfig providerConfig)
             throws DataProviderException {
@@ -55,6 +62,9 @@ public abstract class AbstractDataProvider implements DataProvider {
             this.purgingInterval = providerConfig.getPurgingInterval();
             this.isPurgingEnable = providerConfig.isPurgingEnable();
             this.isPaginationEnabled = providerConfig.isPaginationEnabled();
+            // Paginated subscriptions are driven by the client, hence their queries are not shared
+            this.queryFingerprint = isPaginationEnabled ? null
+                    : providerName() + ':' + GSON.toJson(providerConfig);
             this.setProviderConfig(providerConfig);
             return this;
         } else {
@@ -65,33 +75,160 @@ public abstract class AbstractDataProvider implements DataProvider {
 
     @Override
     public void stop() {
-        dataPublishingExecutorService.shutdown();
-        dataPurgingExecutorService.shutdown();
+        if (queryFingerprint != null) {
+            SHARED_QUERY_REGISTRY.unsubscribe(queryFingerprint, this);
+        } else {
+            cancelScheduledTasks();
+        }
     }
 
     @Override
     public void start() {
-        if (!this.isPaginationEnabled) {
-            this.dataPublishingExecutorService.scheduleAtFixedRate(() -> {
+        if (queryFingerprint != null && !SHARED_QUERY_REGISTRY.subscribe(queryFingerprint, this)) {
+            // Another provider already runs the same query, hence only the initial data set is sent by this one
+            SHARED_QUERY_REGISTRY.getScheduler().execute(this::publishInitialData);
+            return;
+        }
+        scheduleTasks();
+    }
+
+    /**
+     * Send the initial data of a subscription to a query run by another provider. The last data set published by
+     * the query is sent as it is, while a provider publishing only the data added since the previous message queries
+     * the initial data by itself.
+     */
+    private void publishInitialData() {
+        try {
+            DataModelEncoder lastDataSet = SHARED_QUERY_REGISTRY.getLastDataSet(queryFingerprint);
+            if (lastDataSet != null) {
+                deliver(lastDataSet);
+            } else {
                 this.publish(this.topic, this.sessionId);
-            }, 0L, this.publishingInterval, TimeUnit.SECONDS);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Error occurred while publishing the initial data of data provider " + providerName()
+                    + ". " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Schedule the publishing and purging tasks of the provider, which are also run on behalf of the other
+     * subscribers when the provider runs a shared query.
+     */
+    void scheduleTasks() {
+        if (!this.isPaginationEnabled) {
+            scheduleTask(() -> this.publish(this.topic, this.sessionId), this.publishingInterval);
         }
         if (isPurgingEnable) {
-            dataPublishingExecutorService.scheduleAtFixedRate(() -> {
-                purging();
-            }, 0, purgingInterval, TimeUnit.SECONDS);
+            scheduleTask(this::purging, purgingInterval);
         }
     }
 
+    private synchronized void scheduleTask(Runnable task, long interval) {
+        if (!isStopped) {
+            scheduledTasks.add(SHARED_QUERY_REGISTRY.getScheduler().scheduleAtFixedRate(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Error occurred while running the scheduled task of data provider " + providerName()
+                            + ". " + e.getMessage(), e);
+                }
+            }, 0L, interval, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Cancel the publishing and purging tasks of the provider, which are also run on behalf of the other subscribers
+     * when the provider runs a shared query.
+     */
+    synchronized void cancelScheduledTasks() {
+        isStopped = true;
+        for (ScheduledFuture<?> scheduledTask : scheduledTasks) {
+            scheduledTask.cancel(false);
+        }
+        scheduledTasks.clear();
+    }
+
     public void publishToEndPoint(ArrayList<Object[]> data, String sessionId, String topic) {
-        DataModel dataModel = new DataModel(getMetadata(), data.toArray(new Object[0][0]), -1, topic);
+        DataModelEncoder encoder = new DataModelEncoder(getMetadata(), data.toArray(new Object[0][0]));
+        if (queryFingerprint != null && SHARED_QUERY_REGISTRY.publish(queryFingerprint, this, encoder)) {
+            return;
+        }
+        deliver(encoder, sessionId, topic);
+    }
+
+    /**
+     * Send the encoded data to the session of this provider, in the format of its subscription.
+     *
+     * @param encoder encoder of the data to be sent
+     */
+    void deliver(DataModelEncoder encoder) {
+        deliver(encoder, this.sessionId, this.topic);
+    }
+
+    private void deliver(DataModelEncoder encoder, String sessionId, String topic) {
         try {
-            DataProviderEndPoint.sendText(sessionId, new Gson().toJson(dataModel));
+            // Metadata is only sent with the first message of the subscription, except in the row format
+            boolean withMetadata = !isMetadataSent;
+            // Only a message holding the complete data set may be replaced by a newer one, and a message holding
+            // the metadata must neither be replaced by a message without it nor be dropped
+            String coalescingTopic = isPublishingDataSets() ? topic : null;
+            switch (format) {
+                case COLUMNAR:
+                    DataProviderEndPoint.sendText(sessionId, withMetadata ? null : coalescingTopic,
+                            encoder.toColumnarJson(topic, withMetadata), withMetadata);
+                    break;
+                case BINARY:
+                    DataProviderEndPoint.sendBinary(sessionId, withMetadata ? null : coalescingTopic,
+                            encoder.toBinary(topic, withMetadata), withMetadata);
+                    break;
+                default:
+                    DataProviderEndPoint.sendText(sessionId, coalescingTopic, encoder.toRowJson(topic));
+            }
+            isMetadataSent = true;
         } catch (IOException e) {
             LOGGER.error("Failed to deliver message to client " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Whether each message published by the provider holds the complete data set of the subscription, so that a
+     * pending message may be replaced by a newer one when the client does not keep up. Providers publishing only the
+     * data added since the previous message must deliver every message, hence their messages are not coalesced.
+     *
+     * @return true if the published messages hold complete data sets.
+     */
+    protected boolean isPublishingDataSets() {
+        return false;
+    }
+
+    /**
+     * Get the position up to which the provider has published its data, such as the greatest value of an
+     * incremental column, so that another provider of the same query can take over publishing from it.
+     *
+     * @return high-water mark of the provider, or null if it has none.
+     */
+    protected Object getHighWaterMark() {
+        return null;
+    }
+
+    /**
+     * Continue publishing from the high-water mark of another provider of the same query, which stopped running it.
+     *
+     * @param highWaterMark high-water mark of the other provider.
+     */
+    protected void setHighWaterMark(Object highWaterMark) {
+    }
+
+    /**
+     * Set the format of the data sent to the client. Data is sent in the row format unless set otherwise.
+     *
+     * @param format format requested by the client.
+     */
+    public void setFormat(DataProviderConfigRoot.Formats format) {
+        this.format = format;
+    }
+
     @Override
     public abstract boolean configValidator(ProviderConfig providerConfig) throws DataProviderException;
 
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.data.provider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.data.provider.utils.DataModelEncoder;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registry of the queries shared by data providers subscribed with identical configurations. Each distinct query is
+ * run by the provider which subscribed to it first, and its results are encoded once per topic and format, and pushed
+ * to all the subscribed sessions. A provider subscribing to a running query is given the last data set published by
+ * it. When the provider running the query leaves, the query is passed on to another subscriber, which continues from
+ * the high-water mark of the previous one, and the query is stopped when its last subscriber leaves.
+ */
+class SharedQueryRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedQueryRegistry.class);
+    // Modified while holding the lock of the registry, and read without it when publishing, as the providers hold
+    // their own locks while publishing
+    private final Map<String, SharedQuery> sharedQueryMap = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    SharedQueryRegistry(int poolSize) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "DataProviderScheduler-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Scheduler shared by all the data providers to publish and purge data.
+     *
+     * @return shared scheduler
+     */
+    ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Subscribes the provider of a subscription to the query with the given fingerprint.
+     *
+     * @param fingerprint fingerprint of the provider configuration
+     * @param provider    provider of the subscription, which runs the query if no other provider does
+     * @return true if the given provider has to run the query, false if another provider runs it already
+     */
+    synchronized boolean subscribe(String fingerprint, AbstractDataProvider provider) {
+        SharedQuery sharedQuery = sharedQueryMap.get(fingerprint);
+        boolean isNewQuery = sharedQuery == null;
+        if (isNewQuery) {
+            sharedQuery = new SharedQuery(provider);
+            sharedQueryMap.put(fingerprint, sharedQuery);
+        }
+        sharedQuery.subscribers.add(provider);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Subscribed to " + (isNewQuery ? "a new" : "an existing") + " shared query of the provider "
+                    + provider.providerName() + ".");
+        }
+        return isNewQuery;
+    }
+
+    /**
+     * Unsubscribes the provider of a subscription from the query with the given fingerprint. The query is stopped if
+     * it has no subscribers left, or else passed on to another subscriber if the given provider runs it.
+     *
+     * @param fingerprint fingerprint of the provider configuration
+     * @param provider    provider of the subscription
+     */
+    synchronized void unsubscribe(String fingerprint, AbstractDataProvider provider) {
+        SharedQuery sharedQuery = sharedQueryMap.get(fingerprint);
+        if (sharedQuery == null || !sharedQuery.subscribers.remove(provider)) {
+            return;
+        }
+        if (sharedQuery.subscribers.isEmpty()) {
+            sharedQueryMap.remove(fingerprint);
+            sharedQuery.provider.cancelScheduledTasks();
+        } else if (sharedQuery.provider == provider) {
+            AbstractDataProvider nextProvider = sharedQuery.subscribers.iterator().next();
+            // The tasks are cancelled first, so that the high-water mark is not moved after it is passed on
+            provider.cancelScheduledTasks();
+            nextProvider.setHighWaterMark(provider.getHighWaterMark());
+            sharedQuery.provider = nextProvider;
+            nextProvider.scheduleTasks();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Passed on the shared query of the provider " + provider.providerName()
+                        + " to another subscriber.");
+            }
+        }
+    }
+
+    /**
+     * Get the last data set published by the query with the given fingerprint, to be sent to a new subscriber.
+     *
+     * @param fingerprint fingerprint of the provider configuration
+     * @return encoder of the last data set, or null if the query has not published a data set, or its provider
+     * publishes only the data added since the previous message
+     */
+    DataModelEncoder getLastDataSet(String fingerprint) {
+        SharedQuery sharedQuery = sharedQueryMap.get(fingerprint);
+        return sharedQuery == null ? null : sharedQuery.lastDataSet;
+    }
+
+    /**
+     * Publishes the results of a shared query to all of its subscribers.
+     *
+     * @param fingerprint fingerprint of the provider configuration
+     * @param provider    provider which produced the results
+     * @param encoder     encoder of the results
+     * @return true if the results were published, false if the provider does not run the shared query
+     */
+    boolean publish(String fingerprint, AbstractDataProvider provider, DataModelEncoder encoder) {
+        SharedQuery sharedQuery = sharedQueryMap.get(fingerprint);
+        if (sharedQuery == null || sharedQuery.provider != provider) {
+            return false;
+        }
+        if (provider.isPublishingDataSets()) {
+            sharedQuery.lastDataSet = encoder;
+        }
+        for (AbstractDataProvider subscriber : sharedQuery.subscribers) {
+            subscriber.deliver(encoder);
+        }
+        return true;
+    }
+
+    /**
+     * Query run by a single provider, with the providers of all of its subscriptions.
+     */
+    private static class SharedQuery {
+        private final Set<AbstractDataProvider> subscribers = ConcurrentHashMap.newKeySet();
+        private volatile AbstractDataProvider provider;
+        private volatile DataModelEncoder lastDataSet;
+
+        SharedQuery(AbstractDataProvider provider) {
+            this.provider = provider;
+        }
+    }
+}
@@ -30,6 +30,7 @@ public class DataProviderConfigRoot {
     private String dashboardId;
     private String providerName;
     private String action;
+    private String format;
     private JsonElement dataProviderConfiguration;
 
     /**
@@ -39,6 +40,13 @@ public class DataProviderConfigRoot {
         SUBSCRIBE, UNSUBSCRIBE, POLLING
     }
 
+    /**
+     * Enum for define the supportive formats of the data sent to a subscription.
+     */
+    public enum Formats {
+        ROW, COLUMNAR, BINARY
+    }
+
     public DataProviderConfigRoot() {
         this.topic = "";
         this.widgetName = "";
@@ -46,6 +54,7 @@ public class DataProviderConfigRoot {
         this.dashboardId = "";
         this.providerName = "";
         this.action = "";
+        this.format = "";
         this.dataProviderConfiguration = null;
     }
 
@@ -97,6 +106,14 @@ public class DataProviderConfigRoot {
         this.action = action;
     }
 
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
     public JsonElement getDataProviderConfiguration() {
         return dataProviderConfiguration;
     }
@@ -28,6 +28,7 @@ import org.slf4j.LoggerFactory;
 import org.wso2.carbon.analytics.idp.client.core.api.IdPClient;
 import org.wso2.carbon.analytics.idp.client.core.exception.AuthenticationException;
 import org.wso2.carbon.analytics.idp.client.core.exception.IdPClientException;
+import org.wso2.carbon.config.ConfigurationException;
 import org.wso2.carbon.config.provider.ConfigProvider;
 import org.wso2.carbon.data.provider.AbstractDataProvider;
 import org.wso2.carbon.data.provider.DataProvider;
@@ -36,14 +37,21 @@ import org.wso2.carbon.data.provider.bean.DataProviderConfigRoot;
 import org.wso2.carbon.data.provider.rdbms.bean.RDBMSDataProviderConfBean;
 import org.wso2.carbon.data.provider.siddhi.SiddhiProvider;
 import org.wso2.carbon.datasource.core.api.DataSourceService;
+import org.wso2.carbon.metrics.core.MetricService;
 import org.wso2.msf4j.websocket.WebSocketEndpoint;
 import org.wso2.transport.http.netty.contract.websocket.WebSocketConnection;
 import org.wso2.transport.http.netty.message.HttpCarbonRequest;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.websocket.OnClose;
 import javax.websocket.OnError;
 import javax.websocket.OnMessage;
@@ -62,9 +70,14 @@ import static org.wso2.carbon.data.provider.utils.DataProviderValueHolder.getDat
 @ServerEndpoint(value = "/data-provider")
 public class DataProviderEndPoint implements WebSocketEndpoint {
     private static final Logger LOGGER = LoggerFactory.getLogger(DataProviderEndPoint.class);
-    private static final Map<String, WebSocketConnection> sessionMap = new ConcurrentHashMap<>();
+    private static final Gson GSON = new Gson();
+    private static final Map<String, OutboundMessageQueue> outboundMessageQueueMap = new ConcurrentHashMap<>();
     private static final String WEB_SOCKET_CONFIG_HEADER = "data.provider.configs";
     private static final String WEB_SOCKET_AUTHORIZING_CLASS_CONFIG_HEADER = "authorizingClass";
+    private static final String OUTBOUND_QUEUE_SIZE_CONFIG_HEADER = "outboundQueueSize";
+    private static final String OUTBOUND_QUEUE_POLICY_CONFIG_HEADER = "outboundQueuePolicy";
+    private static final int DEFAULT_OUTBOUND_QUEUE_SIZE = 100;
+    private static final ExecutorService outboundMessageExecutor = createOutboundMessageExecutor();
     private static final String DEFAULT_WEBSOCKET_AUTHORIZING_CLASS
             = "org.wso2.carbon.data.provider.DefaultDataProviderAuthorizer";
     private static final Map<String, String> usernameMap = new ConcurrentHashMap<>();
@@ -126,6 +139,21 @@ public class DataProviderEndPoint implements WebSocketEndpoint {
         getDataProviderHelper().setIdpClient(null);
     }
 
+    @Reference(
+            name = "carbon.metrics.service",
+            service = MetricService.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unsetMetricService"
+    )
+    protected void setMetricService(MetricService metricService) {
+        getDataProviderHelper().setMetricService(metricService);
+    }
+
+    protected void unsetMetricService(MetricService metricService) {
+        getDataProviderHelper().setMetricService(null);
+    }
+
     /**
      * Handle initiation of the connection map the session object in the session map.
      *
@@ -147,7 +175,7 @@ public class DataProviderEndPoint implements WebSocketEndpoint {
             if ("DID".equals(cookieParts[0])) {
                 accessTokenPart2 = cookieParts[1];
             } else if ("DATA_PROVIDER_USER".equals(cookieParts[0])) {
-                accessTokenPart1 = new Gson().fromJson(cookieParts[1], Map.class).get("SDID").toString();
+                accessTokenPart1 = GSON.fromJson(cookieParts[1], Map.class).get("SDID").toString();
             }
         }
         String accessToken = accessTokenPart1 + accessTokenPart2;
@@ -159,7 +187,8 @@ public class DataProviderEndPoint implements WebSocketEndpoint {
             LOGGER.error("Unauthorised access to data provider denied.", e);
             return;
         }
-        sessionMap.put(webSocketConnection.getChannelId(), webSocketConnection);
+        outboundMessageQueueMap.put(webSocketConnection.getChannelId(),
+                createOutboundMessageQueue(webSocketConnection));
         usernameMap.put(webSocketConnection.getChannelId(), username);
     }
 
@@ -171,7 +200,7 @@ public class DataProviderEndPoint implements WebSocketEndpoint {
      */
     @OnMessage
     public void onMessage(String message, WebSocketConnection webSocketConnection) {
-        DataProviderConfigRoot dataProviderConfigRoot = new Gson().fromJson(message, DataProviderConfigRoot.class);
+        DataProviderConfigRoot dataProviderConfigRoot = GSON.fromJson(message, DataProviderConfigRoot.class);
         String authoringClassName;
 
         try {
@@ -182,7 +211,7 @@ public class DataProviderEndPoint implements WebSocketEndpoint {
                         .getConfigurationObject(WEB_SOCKET_CONFIG_HEADER);
             }
             if (webSocketConfiguration != null) {
-                JSONObject webSocketConfigJSON = new JSONObject(new Gson().toJson(webSocketConfiguration));
+                JSONObject webSocketConfigJSON = new JSONObject(GSON.toJson(webSocketConfiguration));
                 if (!webSocketConfigJSON.has(WEB_SOCKET_AUTHORIZING_CLASS_CONFIG_HEADER)) {
                     throw new Exception("Web socket authorizing class cannot be found in the deployment.yaml file.");
                 }
@@ -221,6 +250,9 @@ public class DataProviderEndPoint implements WebSocketEndpoint {
                         dataProviderConfigRoot.getTopic());
                 DataProvider dataProvider = getDataProviderHelper().getDataProvider(dataProviderConfigRoot
                         .getProviderName());
+                if (dataProvider instanceof AbstractDataProvider) {
+                    ((AbstractDataProvider) dataProvider).setFormat(getFormat(dataProviderConfigRoot));
+                }
                 dataProvider.init(dataProviderConfigRoot.getTopic(), webSocketConnection.getChannelId(),
                         dataProviderConfigRoot.getDataProviderConfiguration()).start();
                 getDataProviderHelper().addDataProviderToSessionMap(webSocketConnection.getChannelId(),
@@ -298,6 +330,11 @@ public class DataProviderEndPoint implements WebSocketEndpoint {
         }
         getDataProviderHelper().removeSessionData(webSocketConnection.getChannelId());
         usernameMap.remove(webSocketConnection.getChannelId());
+        OutboundMessageQueue outboundMessageQueue =
+                outboundMessageQueueMap.remove(webSocketConnection.getChannelId());
+        if (outboundMessageQueue != null) {
+            outboundMessageQueue.close();
+        }
     }
 
     /**
@@ -308,6 +345,27 @@ public class DataProviderEndPoint implements WebSocketEndpoint {
         LOGGER.error("Error found in method : " + throwable.toString());
     }
 
+    /**
+     * Get the format of the data requested in the subscription message.
+     *
+     * @param dataProviderConfigRoot subscription message
+     * @return requested format, or the row format if none is requested
+     * @throws Exception if the requested format is not supported
+     */
+    private static DataProviderConfigRoot.Formats getFormat(DataProviderConfigRoot dataProviderConfigRoot)
+            throws Exception {
+        String format = dataProviderConfigRoot.getFormat();
+        if (format == null || format.isEmpty()) {
+            return DataProviderConfigRoot.Formats.ROW;
+        }
+        try {
+            return DataProviderConfigRoot.Formats.valueOf(format.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new Exception("Invalid format " + format + " given in the message. Valid formats are : "
+                    + Arrays.toString(DataProviderConfigRoot.Formats.values()));
+        }
+    }
+
     /**
      * Send message to specific client.
      *
@@ -316,10 +374,110 @@ public class DataProviderEndPoint implements WebSocketEndpoint {
      * @throws IOException If there is a problem delivering the message.
      */
     public static void sendText(String sessionId, String text) throws IOException {
-        if (sessionMap.containsKey(sessionId)) {
-            if (sessionMap.get(sessionId) != null) {
-                sessionMap.get(sessionId).pushText(text);
+        sendText(sessionId, null, text);
+    }
+
+    /**
+     * Send message of a topic to specific client. The message is queued and written asynchronously, and may be
+     * dropped or replaced by a newer message of the same topic if the client does not keep up.
+     *
+     * @param sessionId sessionId of the client.
+     * @param topic     topic of the message, or null if the message must not be coalesced.
+     * @param text      String message to be sent to the client.
+     * @throws IOException If there is a problem delivering the message.
+     */
+    public static void sendText(String sessionId, String topic, String text) throws IOException {
+        sendText(sessionId, topic, text, false);
+    }
+
+    /**
+     * Send message of a topic to specific client. The message is queued and written asynchronously, and unless it is
+     * retained, may be dropped or replaced by a newer message of the same topic if the client does not keep up.
+     *
+     * @param sessionId  sessionId of the client.
+     * @param topic      topic of the message, or null if the message must not be coalesced.
+     * @param text       String message to be sent to the client.
+     * @param isRetained whether the message must not be dropped, such as a message holding the metadata.
+     * @throws IOException If there is a problem delivering the message.
+     */
+    public static void sendText(String sessionId, String topic, String text, boolean isRetained) throws IOException {
+        OutboundMessageQueue outboundMessageQueue = outboundMessageQueueMap.get(sessionId);
+        if (outboundMessageQueue != null) {
+            outboundMessageQueue.offer(topic, text, isRetained);
+        }
+    }
+
+    /**
+     * Send binary message of a topic to specific client. The message is queued and written asynchronously, and unless
+     * it is retained, may be dropped or replaced by a newer message of the same topic if the client does not keep up.
+     *
+     * @param sessionId  sessionId of the client.
+     * @param topic      topic of the message, or null if the message must not be coalesced.
+     * @param data       binary message to be sent to the client.
+     * @param isRetained whether the message must not be dropped, such as a message holding the metadata.
+     * @throws IOException If there is a problem delivering the message.
+     */
+    public static void sendBinary(String sessionId, String topic, ByteBuffer data, boolean isRetained)
+            throws IOException {
+        OutboundMessageQueue outboundMessageQueue = outboundMessageQueueMap.get(sessionId);
+        if (outboundMessageQueue != null) {
+            outboundMessageQueue.offer(topic, data, isRetained);
+        }
+    }
+
+    /**
+     * Get the metrics of the outbound message queue of each client, such as the pending, sent and dropped message
+     * counts, and the lag of the oldest pending message.
+     *
+     * @return metric values mapped by their names, mapped by the session ids of the clients.
+     */
+    public static Map<String, Map<String, Long>> getOutboundQueueMetrics() {
+        Map<String, Map<String, Long>> metrics = new HashMap<>();
+        outboundMessageQueueMap.forEach((sessionId, outboundMessageQueue) ->
+                metrics.put(sessionId, outboundMessageQueue.getMetrics()));
+        return metrics;
+    }
+
+    private static ExecutorService createOutboundMessageExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "DataProviderOutboundWriter-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Create the outbound message queue of a client, with the size and the policy given in the data provider
+     * configuration of the deployment.yaml file.
+     *
+     * @param webSocketConnection webSocketConnection object associated with the connection
+     * @return outbound message queue of the client
+     */
+    private static OutboundMessageQueue createOutboundMessageQueue(WebSocketConnection webSocketConnection) {
+        int queueSize = DEFAULT_OUTBOUND_QUEUE_SIZE;
+        OutboundMessageQueue.Policy policy = OutboundMessageQueue.Policy.DROP_OLDEST;
+        try {
+            Object webSocketConfiguration = getDataProviderHelper().getConfigProvider()
+                    .getConfigurationObject(WEB_SOCKET_CONFIG_HEADER);
+            if (webSocketConfiguration instanceof Map) {
+                Map configuration = (Map) webSocketConfiguration;
+                if (configuration.get(OUTBOUND_QUEUE_SIZE_CONFIG_HEADER) != null) {
+                    queueSize = Integer.parseInt(configuration.get(OUTBOUND_QUEUE_SIZE_CONFIG_HEADER).toString());
+                }
+                if (configuration.get(OUTBOUND_QUEUE_POLICY_CONFIG_HEADER) != null) {
+                    policy = OutboundMessageQueue.Policy.valueOf(configuration.get(OUTBOUND_QUEUE_POLICY_CONFIG_HEADER)
+                            .toString().toUpperCase(Locale.ENGLISH).replace('-', '_'));
+                }
             }
+        } catch (ConfigurationException | IllegalArgumentException e) {
+            LOGGER.error("Invalid outbound queue configuration given for the data provider. Using a queue of size "
+                    + queueSize + " with the " + policy + " policy. " + e.getMessage(), e);
+        }
+        if (queueSize <= 0) {
+            queueSize = DEFAULT_OUTBOUND_QUEUE_SIZE;
         }
+        return new OutboundMessageQueue(webSocketConnection, outboundMessageExecutor, queueSize, policy,
+                getDataProviderHelper().getMetricService());
     }
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.data.provider.endpoint;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.Gauge;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.transport.http.netty.contract.websocket.WebSocketConnection;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue of the messages to be pushed to a single web socket session. Messages are written asynchronously by
+ * the given executor, one at a time, so that a slow client holds up its own queue only. When the queue is full the
+ * oldest message which is not retained is dropped, and with {@link Policy#COALESCE} a pending message of a topic is
+ * replaced by the newer message of the same topic. The metrics of the queue, such as the number of dropped messages
+ * and the lag of the oldest pending message, are registered with the metric service when it is available.
+ */
+class OutboundMessageQueue {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboundMessageQueue.class);
+    private static final String METRIC_PREFIX = "org.wso2.data.provider.outbound";
+    private static final String METRIC_DELIMITER = ".";
+    private final WebSocketConnection webSocketConnection;
+    private final Executor executor;
+    private final int capacity;
+    private final Policy policy;
+    private final MetricService metricService;
+    private final ArrayDeque<OutboundMessage> messages = new ArrayDeque<>();
+    private boolean isWriting;
+    private boolean isClosed;
+    private long sentMessages;
+    private long failedMessages;
+    private long droppedMessages;
+    private long coalescedMessages;
+    private long lastDeliveryLagNanos;
+
+    /**
+     * Policies of handling the messages of a session which reads slower than it is being written to.
+     */
+    enum Policy {
+        DROP_OLDEST, COALESCE
+    }
+
+    /**
+     * @param webSocketConnection web socket connection of the session
+     * @param executor            executor which writes the messages
+     * @param capacity            number of pending messages after which messages are dropped
+     * @param policy              policy of handling the messages when the session does not keep up
+     * @param metricService       metric service to register the metrics of the queue with, or null if unavailable
+     */
+    OutboundMessageQueue(WebSocketConnection webSocketConnection, Executor executor, int capacity, Policy policy,
+                         MetricService metricService) {
+        this.webSocketConnection = webSocketConnection;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.metricService = metricService;
+        if (metricService != null) {
+            for (String metricName : getMetrics().keySet()) {
+                metricService.gauge(getMetricName(metricName), Level.INFO,
+                        (Gauge<Long>) () -> getMetrics().get(metricName));
+            }
+        }
+    }
+
+    /**
+     * Queue a message to be pushed to the session.
+     *
+     * @param topic      topic of the message, or null if the message must not be coalesced
+     * @param payload    message, either a String or a ByteBuffer
+     * @param isRetained whether the message must not be dropped when the queue is full, such as a message holding
+     *                   metadata which is not sent again
+     */
+    void offer(String topic, Object payload, boolean isRetained) {
+        synchronized (this) {
+            if (isClosed) {
+                return;
+            }
+            if (policy == Policy.COALESCE && topic != null) {
+                for (OutboundMessage message : messages) {
+                    if (topic.equals(message.topic)) {
+                        message.payload = payload;
+                        coalescedMessages++;
+                        return;
+                    }
+                }
+            }
+            if (messages.size() >= capacity) {
+                // The queue is let to grow beyond its capacity when all the pending messages are retained
+                Iterator<OutboundMessage> iterator = messages.iterator();
+                while (iterator.hasNext()) {
+                    if (!iterator.next().isRetained) {
+                        iterator.remove();
+                        droppedMessages++;
+                        break;
+                    }
+                }
+            }
+            messages.addLast(new OutboundMessage(topic, payload, isRetained));
+            if (isWriting) {
+                return;
+            }
+            isWriting = true;
+        }
+        executor.execute(this::writeNext);
+    }
+
+    /**
+     * Discard the pending messages and stop writing to the session.
+     */
+    synchronized void close() {
+        isClosed = true;
+        messages.clear();
+        if (metricService != null) {
+            for (String metricName : getMetrics().keySet()) {
+                metricService.remove(getMetricName(metricName));
+            }
+        }
+        if (droppedMessages > 0) {
+            LOGGER.info("Dropped " + droppedMessages + " messages to the client of session "
+                    + webSocketConnection.getChannelId() + " as it did not keep up with the published data.");
+        }
+    }
+
+    /**
+     * Get the metrics of the queue.
+     *
+     * @return metric values mapped by their names
+     */
+    synchronized Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new HashMap<>();
+        OutboundMessage oldestMessage = messages.peekFirst();
+        metrics.put("pendingMessages", (long) messages.size());
+        metrics.put("sentMessages", sentMessages);
+        metrics.put("failedMessages", failedMessages);
+        metrics.put("droppedMessages", droppedMessages);
+        metrics.put("coalescedMessages", coalescedMessages);
+        metrics.put("lagMillis", oldestMessage == null ? 0L
+                : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldestMessage.queuedTime));
+        metrics.put("lastDeliveryLagMillis", TimeUnit.NANOSECONDS.toMillis(lastDeliveryLagNanos));
+        return metrics;
+    }
+
+    private String getMetricName(String metricName) {
+        return METRIC_PREFIX + METRIC_DELIMITER + webSocketConnection.getChannelId() + METRIC_DELIMITER + metricName;
+    }
+
+    private void writeNext() {
+        OutboundMessage message;
+        synchronized (this) {
+            message = messages.pollFirst();
+            if (message == null || isClosed) {
+                isWriting = false;
+                return;
+            }
+        }
+        ChannelFuture channelFuture;
+        try {
+            if (message.payload instanceof ByteBuffer) {
+                channelFuture = webSocketConnection.pushBinary((ByteBuffer) message.payload);
+            } else {
+                channelFuture = webSocketConnection.pushText((String) message.payload);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to deliver message to client " + e.getMessage(), e);
+            onWriteComplete(message, false);
+            return;
+        }
+        channelFuture.addListener((ChannelFutureListener) future -> onWriteComplete(message, future.isSuccess()));
+    }
+
+    private void onWriteComplete(OutboundMessage message, boolean isSuccess) {
+        synchronized (this) {
+            if (isSuccess) {
+                sentMessages++;
+            } else {
+                failedMessages++;
+            }
+            lastDeliveryLagNanos = System.nanoTime() - message.queuedTime;
+        }
+        // The next message is written by the executor, as the listener is called by the I/O thread of the channel
+        executor.execute(this::writeNext);
+    }
+
+    /**
+     * Message waiting to be pushed to the session.
+     */
+    private static class OutboundMessage {
+        private final String topic;
+        private final boolean isRetained;
+        private final long queuedTime = System.nanoTime();
+        private Object payload;
+
+        OutboundMessage(String topic, Object payload, boolean isRetained) {
+            this.topic = topic;
+            this.payload = payload;
+            this.isRetained = isRetained;
+        }
+    }
+}
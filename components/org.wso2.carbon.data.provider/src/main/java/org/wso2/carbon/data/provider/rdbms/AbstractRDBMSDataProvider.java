@@ -51,6 +51,7 @@ import javax.sql.DataSource;
 
 import static org.wso2.carbon.data.provider.rdbms.utils.RDBMSProviderConstants.CUSTOM_QUERY_PLACEHOLDER;
 import static org.wso2.carbon.data.provider.rdbms.utils.RDBMSProviderConstants.INCREMENTAL_COLUMN_PLACEHOLDER;
+import static org.wso2.carbon.data.provider.rdbms.utils.RDBMSProviderConstants.LAST_RECORD_VALUE_PLACEHOLDER;
 import static org.wso2.carbon.data.provider.rdbms.utils.RDBMSProviderConstants.LIMIT_VALUE_PLACEHOLDER;
 import static org.wso2.carbon.data.provider.rdbms.utils.RDBMSProviderConstants.RECORD_DELETE_QUERY;
 import static org.wso2.carbon.data.provider.rdbms.utils.RDBMSProviderConstants.RECORD_GREATER_THAN_QUERY;
@@ -71,6 +72,8 @@ public class AbstractRDBMSDataProvider extends AbstractDataProvider {
     private String greaterThanWhereSQLQuery;
     private DataSetMetadata metadata;
     private int columnCount;
+    private int incrementalColumnIndex = -1;
+    private int incrementalColumnSqlType;
     private RDBMSDataProviderConf rdbmsProviderConfig;
     private RDBMSDataProviderConfBean rdbmsDataProviderConfBean;
 
@@ -114,7 +117,8 @@ public class AbstractRDBMSDataProvider extends AbstractDataProvider {
                         (INCREMENTAL_COLUMN_PLACEHOLDER, getRdbmsProviderConfig().getIncrementalColumn())
                         .replace(LIMIT_VALUE_PLACEHOLDER, Long.toString(rdbmsProviderConfig
                                 .getPublishingLimit())).replace(CUSTOM_QUERY_PLACEHOLDER, rdbmsProviderConfig
-                                .getQuery().getAsJsonObject().get("query").getAsString());
+                                .getQuery().getAsJsonObject().get("query").getAsString())
+                        .replace(LAST_RECORD_VALUE_PLACEHOLDER, "?");
             }
             recordLimitQuery = rdbmsQueryManager.getQuery(RECORD_LIMIT_QUERY);
             if (recordLimitQuery != null) {
@@ -134,6 +138,11 @@ public class AbstractRDBMSDataProvider extends AbstractDataProvider {
                         timeColumns = Arrays.asList(rdbmsProviderConfig.getTimeColumns().split(","));
                     }
                     for (int i = 0; i < columnCount; i++) {
+                        if (resultSetMetaData.getColumnName(i + 1)
+                                .equalsIgnoreCase(rdbmsProviderConfig.getIncrementalColumn())) {
+                            incrementalColumnIndex = i;
+                            incrementalColumnSqlType = resultSetMetaData.getColumnType(i + 1);
+                        }
                         boolean isTimeColumnFound = false;
                         if (timeColumns != null) {
                             for (String timeColumn : timeColumns) {
@@ -251,10 +260,34 @@ public class AbstractRDBMSDataProvider extends AbstractDataProvider {
         return columnCount;
     }
 
+    /**
+     * Get the query of the records having a greater incremental column value than the one bound to its only
+     * parameter.
+     *
+     * @return parameterized query, or null if the database has no such query
+     */
     public String getGreaterThanWhereSQLQuery() {
         return greaterThanWhereSQLQuery;
     }
 
+    /**
+     * Get the index of the incremental column in the results of the query.
+     *
+     * @return zero based column index, or -1 if the query does not return the incremental column
+     */
+    public int getIncrementalColumnIndex() {
+        return incrementalColumnIndex;
+    }
+
+    /**
+     * Get the SQL type of the incremental column.
+     *
+     * @return type as defined in {@link java.sql.Types}
+     */
+    public int getIncrementalColumnSqlType() {
+        return incrementalColumnSqlType;
+    }
+
     public RDBMSDataProviderConf getRdbmsProviderConfig() {
         return rdbmsProviderConfig;
     }
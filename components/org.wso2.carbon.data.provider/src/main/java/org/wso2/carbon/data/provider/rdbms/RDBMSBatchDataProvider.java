@@ -83,4 +83,9 @@ public class RDBMSBatchDataProvider extends AbstractRDBMSDataProvider {
             }
         }
     }
+
+    @Override
+    protected boolean isPublishingDataSets() {
+        return true;
+    }
 }
@@ -26,10 +26,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 
-import static org.wso2.carbon.data.provider.rdbms.utils.RDBMSProviderConstants.LAST_RECORD_VALUE_PLACEHOLDER;
-
 /**
  * RDBMS streaming data provider instance.
  */
@@ -39,13 +38,16 @@ import static org.wso2.carbon.data.provider.rdbms.utils.RDBMSProviderConstants.L
 )
 public class RDBMSStreamingDataProvider extends AbstractRDBMSDataProvider {
     private static final Logger LOGGER = LoggerFactory.getLogger(RDBMSStreamingDataProvider.class);
-    private double lastRecordValue = 0;
+    // Greatest incremental column value published so far, read with the exact type of the column. The value is
+    // shared by all the sessions subscribed to the query run by this provider.
+    private Object lastRecordValue = null;
 
     @Override
-    public void publish(String topic, String sessionId) {
+    public synchronized void publish(String topic, String sessionId) {
         String customQuery = getRecordLimitQuery();
         DataSetMetadata metadata = getMetadata();
         int columnCount = getColumnCount();
+        int incrementalColumnIndex = getIncrementalColumnIndex();
         if (customQuery != null) {
             Connection connection;
             try {
@@ -53,16 +55,17 @@ public class RDBMSStreamingDataProvider extends AbstractRDBMSDataProvider {
                 PreparedStatement statement = null;
                 ResultSet resultSet = null;
                 try {
-                    if (lastRecordValue > 0) {
-                        String greaterThanWhereQuery = getGreaterThanWhereSQLQuery().replace
-                                (LAST_RECORD_VALUE_PLACEHOLDER,
-                                        Double.toString(lastRecordValue));
-                        statement = connection.prepareStatement(greaterThanWhereQuery);
+                    if (lastRecordValue != null && getGreaterThanWhereSQLQuery() != null) {
+                        // The query text stays the same across intervals, so that the prepared statement is reused
+                        // by the statement cache of the driver or the connection pool.
+                        statement = connection.prepareStatement(getGreaterThanWhereSQLQuery());
+                        statement.setObject(1, lastRecordValue);
                     } else {
                         statement = connection.prepareStatement(customQuery);
                     }
                     resultSet = statement.executeQuery();
                     ArrayList<Object[]> data = new ArrayList<>();
+                    Object maxRecordValue = lastRecordValue;
                     while (resultSet.next()) {
                         Object[] rowData = new Object[columnCount];
                         for (int i = 0; i < columnCount; i++) {
@@ -79,25 +82,19 @@ public class RDBMSStreamingDataProvider extends AbstractRDBMSDataProvider {
                                 }
                                 rowData[i] = resultSet.getObject(i + 1);
                             }
-                            if (metadata.getNames()[i].equalsIgnoreCase(getRdbmsProviderConfig()
-                                    .getIncrementalColumn()) &&
-                                    !metadata.getTypes()[i].equals(DataSetMetadata.Types.TIME)) {
-                                double value;
-                                if (rowData[i] instanceof Integer) {
-                                    value = (int) rowData[i];
-                                } else {
-                                    value = (double) rowData[i];
-                                }
-                                if (lastRecordValue < value) {
-                                    lastRecordValue = value;
-                                }
+                        }
+                        if (incrementalColumnIndex >= 0) {
+                            Object recordValue = getIncrementalColumnValue(resultSet, incrementalColumnIndex + 1);
+                            if (isGreater(recordValue, maxRecordValue)) {
+                                maxRecordValue = recordValue;
                             }
                         }
                         data.add(rowData);
                     }
-                    if (!data.isEmpty() || lastRecordValue == 0) {
+                    if (!data.isEmpty() || lastRecordValue == null) {
                         publishToEndPoint(data, sessionId, topic);
                     }
+                    lastRecordValue = maxRecordValue;
                 } catch (SQLException e) {
                     LOGGER.error("SQL exception occurred " + e.getMessage(), e);
                 } finally {
@@ -108,4 +105,60 @@ public class RDBMSStreamingDataProvider extends AbstractRDBMSDataProvider {
             }
         }
     }
+
+    @Override
+    protected synchronized Object getHighWaterMark() {
+        return lastRecordValue;
+    }
+
+    @Override
+    protected synchronized void setHighWaterMark(Object highWaterMark) {
+        lastRecordValue = highWaterMark;
+    }
+
+    /**
+     * Read the value of the incremental column using the exact type of the column, so that the value can be bound
+     * to the next query without losing precision.
+     */
+    private Object getIncrementalColumnValue(ResultSet resultSet, int columnIndex) throws SQLException {
+        Object value;
+        switch (getIncrementalColumnSqlType()) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                value = resultSet.getLong(columnIndex);
+                break;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                value = resultSet.getBigDecimal(columnIndex);
+                break;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                value = resultSet.getDouble(columnIndex);
+                break;
+            case Types.DATE:
+            case Types.TIMESTAMP:
+                value = resultSet.getTimestamp(columnIndex);
+                break;
+            default:
+                value = resultSet.getObject(columnIndex);
+        }
+        return resultSet.wasNull() ? null : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean isGreater(Object value, Object currentValue) {
+        if (value == null) {
+            return false;
+        }
+        if (currentValue == null) {
+            return true;
+        }
+        if (value instanceof Comparable && value.getClass() == currentValue.getClass()) {
+            return ((Comparable<Object>) value).compareTo(currentValue) > 0;
+        }
+        return false;
+    }
 }
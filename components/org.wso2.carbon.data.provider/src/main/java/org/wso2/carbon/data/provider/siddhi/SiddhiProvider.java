@@ -64,6 +64,7 @@ public class SiddhiProvider extends AbstractDataProvider {
     private SiddhiDataProviderConfig siddhiDataProviderConfig;
     private DataSetMetadata metadata;
     private SiddhiAppRuntime siddhiAppRuntime;
+    private OnDemandQuery onDemandQuery;
     private String[] linearTypes = new String[]{"INT", "LONG", "FLOAT", "DOUBLE"};
     private String[] ordinalTypes = new String[]{"STRING", "BOOL"};
     private List<String> timeColumns;
@@ -78,7 +79,8 @@ public class SiddhiProvider extends AbstractDataProvider {
         super.init(topic, sessionId, siddhiDataProviderConfig);
         this.siddhiAppRuntime = SiddhiAppRuntimeHolder.
                 getSiddhiAppRuntime(siddhiDataProviderConfig.getSiddhiAppContext());
-        OnDemandQuery onDemandQuery = SiddhiCompiler.parseOnDemandQuery(siddhiDataProviderConfig.getQueryData()
+        // The query is compiled once and reused on each publish, instead of parsing the query text every time
+        this.onDemandQuery = SiddhiCompiler.parseOnDemandQuery(siddhiDataProviderConfig.getQueryData()
                 .getAsJsonObject().get(QUERY).getAsString());
         Attribute[] outputAttributeList = siddhiAppRuntime.getOnDemandQueryOutputAttributes(onDemandQuery);
         metadata = new DataSetMetadata(outputAttributeList.length);
@@ -127,8 +129,7 @@ public class SiddhiProvider extends AbstractDataProvider {
 
     @Override
     public void publish(String topic, String sessionId) {
-        Event[] events = siddhiAppRuntime.query(siddhiDataProviderConfig.getQueryData().getAsJsonObject().get
-                (QUERY).getAsString());
+        Event[] events = siddhiAppRuntime.query(onDemandQuery);
         ArrayList<Object[]> data = new ArrayList<>();
         if (events != null) {
             for (Event event : events) {
@@ -198,6 +199,11 @@ public class SiddhiProvider extends AbstractDataProvider {
         //In siddhi-store provider, we do not have a requirement to purge the data.
     }
 
+    @Override
+    protected boolean isPublishingDataSets() {
+        return true;
+    }
+
     @Override
     public void setProviderConfig(ProviderConfig providerConfig) {
         this.siddhiDataProviderConfig = (SiddhiDataProviderConfig) providerConfig;
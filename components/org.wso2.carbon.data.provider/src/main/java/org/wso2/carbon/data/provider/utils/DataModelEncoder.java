@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.data.provider.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.wso2.carbon.data.provider.bean.DataModel;
+import org.wso2.carbon.data.provider.bean.DataProviderConfigRoot;
+import org.wso2.carbon.data.provider.bean.DataSetMetadata;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes a data set in the formats supported by the data provider endpoint. Each encoding is done once and reused
+ * for all the subscriptions which ask for the same topic and format.
+ * <p>
+ * {@link DataProviderConfigRoot.Formats#ROW} is the JSON form of {@link DataModel}.
+ * {@link DataProviderConfigRoot.Formats#COLUMNAR} is a JSON object holding the topic, the row count, the metadata
+ * when requested, and an array of values per column. Linear columns hold numbers and time columns hold epoch
+ * milliseconds.
+ * {@link DataProviderConfigRoot.Formats#BINARY} is a big-endian frame made of the topic, the row count, the column
+ * count, a metadata flag followed by the name and type ordinal of each column if set, and then each column. A column
+ * starts with {@link #NUMERIC_COLUMN}, followed by a double per row (NaN for null), or with {@link #STRING_COLUMN},
+ * followed by a string per row. Strings are written as their UTF-8 byte count (-1 for null) and bytes.
+ */
+public class DataModelEncoder {
+    public static final byte NUMERIC_COLUMN = 0;
+    public static final byte STRING_COLUMN = 1;
+    private static final Gson GSON = new Gson();
+    private final DataSetMetadata metadata;
+    private final Object[][] data;
+    private final Map<String, Object> encodedData = new HashMap<>();
+
+    public DataModelEncoder(DataSetMetadata metadata, Object[][] data) {
+        this.metadata = metadata;
+        this.data = data;
+    }
+
+    /**
+     * Get the data set in the row format, which always holds the metadata.
+     *
+     * @param topic topic of the subscription
+     * @return JSON message
+     */
+    public String toRowJson(String topic) {
+        return (String) encodedData.computeIfAbsent(DataProviderConfigRoot.Formats.ROW + ":" + topic,
+                key -> GSON.toJson(new DataModel(metadata, data, -1, topic)));
+    }
+
+    /**
+     * Get the data set in the columnar format.
+     *
+     * @param topic        topic of the subscription
+     * @param withMetadata whether the metadata has to be included
+     * @return JSON message
+     * @throws IOException if the data set cannot be encoded
+     */
+    public String toColumnarJson(String topic, boolean withMetadata) throws IOException {
+        String key = DataProviderConfigRoot.Formats.COLUMNAR + ":" + withMetadata + ":" + topic;
+        String message = (String) encodedData.get(key);
+        if (message == null) {
+            StringWriter stringWriter = new StringWriter();
+            JsonWriter writer = new JsonWriter(stringWriter);
+            writer.beginObject();
+            writer.name("topic").value(topic);
+            writer.name("rowCount").value(data.length);
+            if (withMetadata) {
+                writer.name("metadata");
+                GSON.toJson(metadata, DataSetMetadata.class, writer);
+            }
+            writer.name("columns").beginArray();
+            for (int column = 0; column < metadata.getColumnCount(); column++) {
+                writer.beginArray();
+                for (Object[] row : data) {
+                    writeValue(writer, metadata.getTypes()[column], row[column]);
+                }
+                writer.endArray();
+            }
+            writer.endArray();
+            writer.endObject();
+            writer.flush();
+            message = stringWriter.toString();
+            encodedData.put(key, message);
+        }
+        return message;
+    }
+
+    /**
+     * Get the data set in the binary format.
+     *
+     * @param topic        topic of the subscription
+     * @param withMetadata whether the metadata has to be included
+     * @return read-only buffer holding the frame, which is not shared with the other callers
+     * @throws IOException if the data set cannot be encoded
+     */
+    public ByteBuffer toBinary(String topic, boolean withMetadata) throws IOException {
+        String key = DataProviderConfigRoot.Formats.BINARY + ":" + withMetadata + ":" + topic;
+        ByteBuffer frame = (ByteBuffer) encodedData.get(key);
+        if (frame == null) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            int columnCount = metadata.getColumnCount();
+            writeString(out, topic);
+            out.writeInt(data.length);
+            out.writeInt(columnCount);
+            out.writeBoolean(withMetadata);
+            if (withMetadata) {
+                for (int column = 0; column < columnCount; column++) {
+                    writeString(out, metadata.getNames()[column]);
+                    out.writeByte(metadata.getTypes()[column].ordinal());
+                }
+            }
+            for (int column = 0; column < columnCount; column++) {
+                DataSetMetadata.Types type = metadata.getTypes()[column];
+                if (type == DataSetMetadata.Types.LINEAR || type == DataSetMetadata.Types.TIME) {
+                    out.writeByte(NUMERIC_COLUMN);
+                    for (Object[] row : data) {
+                        out.writeDouble(toDouble(row[column]));
+                    }
+                } else {
+                    out.writeByte(STRING_COLUMN);
+                    for (Object[] row : data) {
+                        writeString(out, row[column] == null ? null : String.valueOf(row[column]));
+                    }
+                }
+            }
+            out.flush();
+            frame = ByteBuffer.wrap(bytes.toByteArray()).asReadOnlyBuffer();
+            encodedData.put(key, frame);
+        }
+        return frame.duplicate();
+    }
+
+    private static void writeValue(JsonWriter writer, DataSetMetadata.Types type, Object value) throws IOException {
+        if (value == null) {
+            writer.nullValue();
+        } else if (value instanceof Double || value instanceof Float) {
+            double doubleValue = ((Number) value).doubleValue();
+            if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+                writer.nullValue();
+            } else {
+                writer.value(doubleValue);
+            }
+        } else if (value instanceof Number) {
+            writer.value((Number) value);
+        } else if (value instanceof String) {
+            writer.value((String) value);
+        } else if (value instanceof Boolean) {
+            writer.value((Boolean) value);
+        } else if (value instanceof Date && type == DataSetMetadata.Types.TIME) {
+            writer.value(((Date) value).getTime());
+        } else {
+            GSON.toJson(value, value.getClass(), writer);
+        }
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        return Double.NaN;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
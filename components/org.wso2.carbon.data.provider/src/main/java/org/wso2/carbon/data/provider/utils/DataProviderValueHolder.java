@@ -23,6 +23,7 @@ import org.wso2.carbon.config.provider.ConfigProvider;
 import org.wso2.carbon.data.provider.DataProvider;
 import org.wso2.carbon.data.provider.DataProviderAuthorizer;
 import org.wso2.carbon.datasource.core.api.DataSourceService;
+import org.wso2.carbon.metrics.core.MetricService;
 
 import java.util.Map;
 import java.util.Set;
@@ -39,6 +40,7 @@ public class DataProviderValueHolder {
     private Map<String, Class> dataProviderClassMap = new ConcurrentHashMap<>();
     private Map<String, DataProviderAuthorizer> dataProviderAuthorizerClassMap = new ConcurrentHashMap<>();
     private IdPClient idpClient = null;
+    private MetricService metricService = null;
 
     public static DataProviderValueHolder getDataProviderHelper() {
         return dataProviderHelper;
@@ -126,4 +128,12 @@ public class DataProviderValueHolder {
     public void setIdpClient(IdPClient idpClient) {
         this.idpClient = idpClient;
     }
+
+    public MetricService getMetricService() {
+        return metricService;
+    }
+
+    public void setMetricService(MetricService metricService) {
+        this.metricService = metricService;
+    }
 }
@@ -53,10 +53,11 @@ import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 import java.io.IOException;
 import java.io.StringReader;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -67,7 +68,7 @@ import java.util.regex.Pattern;
 @ServerEndpoint(value = "/websocket-provider/{topic}")
 public class WebSocketProviderEndPoint implements WebSocketEndpoint {
     private static final Logger log = LoggerFactory.getLogger(WebSocketProviderEndPoint.class);
-    private static final Map<String, ArrayList<WebSocketChannel>> providerMap = new HashMap<>();
+    private static final Map<String, List<WebSocketChannel>> providerMap = new ConcurrentHashMap<>();
     private static final String JSON_REGEX_PATTERN = "\\{\"event\":\\{(.*?)}}";
     private static final String XML_PATTERN_PATH = "//events/event/*";
     private static final int ENTITY_EXPANSION_LIMIT = 0;
@@ -111,12 +112,14 @@ public class WebSocketProviderEndPoint implements WebSocketEndpoint {
 
     @OnMessage
     public void onMessage(String message, @PathParam("topic") String topic) {
-        if (providerMap.containsKey(topic)) {
-            providerMap.get(topic).forEach(channel -> {
+        List<WebSocketChannel> channels = providerMap.get(topic);
+        if (channels != null) {
+            // Messages are only queued here, and are written to the subscribed sessions by the data provider endpoint.
+            // Each message holds a single event, hence messages are not coalesced.
+            channels.forEach(channel -> {
                 try {
-                    DataProviderEndPoint
-                            .sendText(channel.getSessionId(),
-                                    formatString(message, channel.getMapType(), channel.getSubscriberTopic()).toString());
+                    DataProviderEndPoint.sendText(channel.getSessionId(), null,
+                            formatString(message, channel.getMapType(), channel.getSubscriberTopic()).toString());
                 } catch (IOException e) {
                     log.info("Failed to send the message : " + e.getMessage(), e);
                 }
@@ -136,16 +139,14 @@ public class WebSocketProviderEndPoint implements WebSocketEndpoint {
     }
 
     public static void subscribeToTopic(String topic, WebSocketChannel channel) {
-        if (providerMap.containsKey(topic)) {
-            providerMap.get(topic).add(channel);
-        } else {
-            providerMap.put(topic, new ArrayList<>());
-            providerMap.get(topic).add(channel);
-        }
+        providerMap.computeIfAbsent(topic, key -> new CopyOnWriteArrayList<>()).add(channel);
     }
 
     public static void unsubscribeFromTopic(String topic, String sessionID) {
-        providerMap.get(topic).removeIf(channel -> channel.getSessionId().equals(sessionID));
+        List<WebSocketChannel> channels = providerMap.get(topic);
+        if (channels != null) {
+            channels.removeIf(channel -> channel.getSessionId().equals(sessionID));
+        }
     }
 
     private JsonElement formatString(String message, String mapping, String topic) {
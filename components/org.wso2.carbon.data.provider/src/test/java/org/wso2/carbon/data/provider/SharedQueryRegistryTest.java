@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.data.provider;
+
+import com.google.gson.JsonElement;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.data.provider.bean.DataSetMetadata;
+import org.wso2.carbon.data.provider.utils.DataModelEncoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class SharedQueryRegistryTest {
+    private static final String FINGERPRINT = "TestProvider:{\"query\":\"SELECT * FROM TEST\"}";
+
+    private SharedQueryRegistry registry;
+
+    @BeforeMethod
+    public void setUp() {
+        registry = new SharedQueryRegistry(1);
+    }
+
+    @Test
+    public void testSubscribe() {
+        TestProvider owner = new TestProvider(true);
+        TestProvider subscriber = new TestProvider(true);
+        Assert.assertTrue(registry.subscribe(FINGERPRINT, owner));
+        Assert.assertFalse(registry.subscribe(FINGERPRINT, subscriber));
+        // A query with another fingerprint is run by its own provider
+        Assert.assertTrue(registry.subscribe(FINGERPRINT + "-other", new TestProvider(true)));
+
+        DataModelEncoder encoder = createEncoder();
+        Assert.assertTrue(registry.publish(FINGERPRINT, owner, encoder));
+        Assert.assertEquals(owner.deliveredData, Collections.singletonList(encoder));
+        Assert.assertEquals(subscriber.deliveredData, Collections.singletonList(encoder));
+        // The data published by a provider which does not run the query is sent to its own session only
+        Assert.assertFalse(registry.publish(FINGERPRINT, subscriber, createEncoder()));
+        Assert.assertEquals(owner.deliveredData.size(), 1);
+    }
+
+    @Test
+    public void testLastDataSetGivenToNewSubscribers() {
+        TestProvider owner = new TestProvider(true);
+        registry.subscribe(FINGERPRINT, owner);
+        Assert.assertNull(registry.getLastDataSet(FINGERPRINT));
+
+        registry.publish(FINGERPRINT, owner, createEncoder());
+        DataModelEncoder lastDataSet = createEncoder();
+        registry.publish(FINGERPRINT, owner, lastDataSet);
+        Assert.assertFalse(registry.subscribe(FINGERPRINT, new TestProvider(true)));
+        Assert.assertSame(registry.getLastDataSet(FINGERPRINT), lastDataSet);
+    }
+
+    @Test
+    public void testLastDataSetNotKeptForIncrementalData() {
+        TestProvider owner = new TestProvider(false);
+        registry.subscribe(FINGERPRINT, owner);
+        registry.publish(FINGERPRINT, owner, createEncoder());
+        // Data added since the previous message is not the initial data of a new subscriber
+        Assert.assertNull(registry.getLastDataSet(FINGERPRINT));
+    }
+
+    @Test
+    public void testUnsubscribe() {
+        TestProvider owner = new TestProvider(false);
+        TestProvider subscriber = new TestProvider(false);
+        registry.subscribe(FINGERPRINT, owner);
+        registry.subscribe(FINGERPRINT, subscriber);
+
+        registry.unsubscribe(FINGERPRINT, subscriber);
+        Assert.assertFalse(owner.isCancelled);
+        Assert.assertFalse(subscriber.isScheduled);
+        DataModelEncoder encoder = createEncoder();
+        Assert.assertTrue(registry.publish(FINGERPRINT, owner, encoder));
+        Assert.assertEquals(owner.deliveredData, Collections.singletonList(encoder));
+        Assert.assertTrue(subscriber.deliveredData.isEmpty());
+        // A provider which is not subscribed is ignored
+        registry.unsubscribe(FINGERPRINT, subscriber);
+        registry.unsubscribe(FINGERPRINT + "-other", owner);
+        Assert.assertFalse(owner.isCancelled);
+    }
+
+    @Test
+    public void testQueryPassedOnWhenOwnerLeaves() {
+        TestProvider owner = new TestProvider(false);
+        TestProvider subscriber = new TestProvider(false);
+        registry.subscribe(FINGERPRINT, owner);
+        registry.subscribe(FINGERPRINT, subscriber);
+        owner.highWaterMark = 9007199254740993L;
+
+        registry.unsubscribe(FINGERPRINT, owner);
+        Assert.assertTrue(owner.isCancelled);
+        Assert.assertTrue(subscriber.isScheduled);
+        Assert.assertFalse(subscriber.isCancelled);
+        Assert.assertEquals(subscriber.highWaterMark, 9007199254740993L);
+        DataModelEncoder encoder = createEncoder();
+        Assert.assertTrue(registry.publish(FINGERPRINT, subscriber, encoder));
+        Assert.assertEquals(subscriber.deliveredData, Collections.singletonList(encoder));
+        Assert.assertFalse(registry.publish(FINGERPRINT, owner, createEncoder()));
+        Assert.assertTrue(owner.deliveredData.isEmpty());
+    }
+
+    @Test
+    public void testQueryStoppedWhenLastSubscriberLeaves() {
+        TestProvider owner = new TestProvider(true);
+        TestProvider subscriber = new TestProvider(true);
+        registry.subscribe(FINGERPRINT, owner);
+        registry.subscribe(FINGERPRINT, subscriber);
+        registry.publish(FINGERPRINT, owner, createEncoder());
+
+        registry.unsubscribe(FINGERPRINT, owner);
+        registry.unsubscribe(FINGERPRINT, subscriber);
+        Assert.assertTrue(owner.isCancelled);
+        Assert.assertTrue(subscriber.isCancelled);
+        Assert.assertFalse(registry.publish(FINGERPRINT, subscriber, createEncoder()));
+        Assert.assertNull(registry.getLastDataSet(FINGERPRINT));
+        // A later subscription runs the query afresh
+        Assert.assertTrue(registry.subscribe(FINGERPRINT, new TestProvider(true)));
+    }
+
+    private static DataModelEncoder createEncoder() {
+        return new DataModelEncoder(new DataSetMetadata(1), new Object[][]{{1.0}});
+    }
+
+    /**
+     * Provider which records the calls made by the registry instead of running a query.
+     */
+    private static class TestProvider extends AbstractDataProvider {
+        private final boolean isPublishingDataSets;
+        private final List<DataModelEncoder> deliveredData = new ArrayList<>();
+        private Object highWaterMark;
+        private boolean isScheduled;
+        private boolean isCancelled;
+
+        TestProvider(boolean isPublishingDataSets) {
+            this.isPublishingDataSets = isPublishingDataSets;
+        }
+
+        @Override
+        void deliver(DataModelEncoder encoder) {
+            deliveredData.add(encoder);
+        }
+
+        @Override
+        void scheduleTasks() {
+            isScheduled = true;
+        }
+
+        @Override
+        synchronized void cancelScheduledTasks() {
+            isCancelled = true;
+        }
+
+        @Override
+        protected boolean isPublishingDataSets() {
+            return isPublishingDataSets;
+        }
+
+        @Override
+        protected Object getHighWaterMark() {
+            return highWaterMark;
+        }
+
+        @Override
+        protected void setHighWaterMark(Object highWaterMark) {
+            this.highWaterMark = highWaterMark;
+        }
+
+        @Override
+        public DataProvider init(String topic, String sessionId, JsonElement jsonElement) {
+            return this;
+        }
+
+        @Override
+        public boolean configValidator(ProviderConfig providerConfig) {
+            return true;
+        }
+
+        @Override
+        public String providerName() {
+            return "TestProvider";
+        }
+
+        @Override
+        public DataSetMetadata dataSetMetadata() {
+            return getMetadata();
+        }
+
+        @Override
+        public String providerConfig() {
+            return null;
+        }
+
+        @Override
+        public void publish(String topic, String sessionId) {
+        }
+
+        @Override
+        public void purging() {
+        }
+
+        @Override
+        public void setProviderConfig(ProviderConfig providerConfig) {
+        }
+
+        @Override
+        public DataSetMetadata getMetadata() {
+            return new DataSetMetadata(1);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.data.provider.endpoint;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.Gauge;
+import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.transport.http.netty.contract.websocket.WebSocketConnection;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class OutboundMessageQueueTest {
+    private static final String SESSION_ID = "session-1";
+
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+    private List<Object> pushedMessages;
+    private Deque<Runnable> tasks;
+    private WebSocketConnection webSocketConnection;
+
+    @BeforeMethod
+    public void setUp() {
+        pushedMessages = new ArrayList<>();
+        tasks = new ArrayDeque<>();
+        webSocketConnection = (WebSocketConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{WebSocketConnection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getChannelId":
+                            return SESSION_ID;
+                        case "pushText":
+                        case "pushBinary":
+                            pushedMessages.add(args[0]);
+                            return channel.newSucceededFuture();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @Test
+    public void testOldestMessageDropped() {
+        OutboundMessageQueue queue = createQueue(2, OutboundMessageQueue.Policy.DROP_OLDEST, null);
+        queue.offer("topic", "message-1", false);
+        queue.offer("topic", "message-2", false);
+        queue.offer("topic", "message-3", false);
+        queue.offer("topic", "message-4", false);
+        Assert.assertEquals(queue.getMetrics().get("pendingMessages"), Long.valueOf(2));
+
+        runTasks();
+        Assert.assertEquals(pushedMessages, Arrays.asList("message-3", "message-4"));
+        Map<String, Long> metrics = queue.getMetrics();
+        Assert.assertEquals(metrics.get("droppedMessages"), Long.valueOf(2));
+        Assert.assertEquals(metrics.get("sentMessages"), Long.valueOf(2));
+        Assert.assertEquals(metrics.get("pendingMessages"), Long.valueOf(0));
+        Assert.assertEquals(metrics.get("lagMillis"), Long.valueOf(0));
+    }
+
+    @Test
+    public void testPendingMessageOfTopicCoalesced() {
+        OutboundMessageQueue queue = createQueue(10, OutboundMessageQueue.Policy.COALESCE, null);
+        ByteBuffer binaryMessage = ByteBuffer.wrap(new byte[]{1, 2});
+        queue.offer("topic-1", "message-1", false);
+        queue.offer("topic-2", binaryMessage, false);
+        queue.offer("topic-1", "message-3", false);
+        // Messages without a topic are never replaced
+        queue.offer(null, "message-4", false);
+        queue.offer(null, "message-5", false);
+
+        runTasks();
+        Assert.assertEquals(pushedMessages, Arrays.asList("message-3", binaryMessage, "message-4", "message-5"));
+        Assert.assertEquals(queue.getMetrics().get("coalescedMessages"), Long.valueOf(1));
+        Assert.assertEquals(queue.getMetrics().get("droppedMessages"), Long.valueOf(0));
+    }
+
+    @Test
+    public void testRetainedMessageNotDropped() {
+        OutboundMessageQueue queue = createQueue(2, OutboundMessageQueue.Policy.DROP_OLDEST, null);
+        queue.offer(null, "metadata", true);
+        queue.offer("topic", "message-1", false);
+        queue.offer("topic", "message-2", false);
+        queue.offer("topic", "message-3", false);
+
+        runTasks();
+        Assert.assertEquals(pushedMessages, Arrays.asList("metadata", "message-3"));
+        Assert.assertEquals(queue.getMetrics().get("droppedMessages"), Long.valueOf(2));
+    }
+
+    @Test
+    public void testQueueGrowsWhenAllMessagesRetained() {
+        OutboundMessageQueue queue = createQueue(1, OutboundMessageQueue.Policy.COALESCE, null);
+        queue.offer(null, "metadata-1", true);
+        queue.offer(null, "metadata-2", true);
+        Assert.assertEquals(queue.getMetrics().get("pendingMessages"), Long.valueOf(2));
+
+        runTasks();
+        Assert.assertEquals(pushedMessages, Arrays.asList("metadata-1", "metadata-2"));
+        Assert.assertEquals(queue.getMetrics().get("droppedMessages"), Long.valueOf(0));
+    }
+
+    @Test
+    public void testMetricsRegisteredPerSession() {
+        Map<String, Gauge> gauges = new HashMap<>();
+        MetricService metricService = (MetricService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{MetricService.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "gauge":
+                            gauges.put((String) args[0], (Gauge) args[2]);
+                            return args[2];
+                        case "remove":
+                            return gauges.remove((String) args[0]) != null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        OutboundMessageQueue queue = createQueue(1, OutboundMessageQueue.Policy.DROP_OLDEST, metricService);
+        Assert.assertEquals(gauges.size(), queue.getMetrics().size());
+        queue.offer("topic", "message-1", false);
+        queue.offer("topic", "message-2", false);
+        Assert.assertEquals(gauges.get("org.wso2.data.provider.outbound." + SESSION_ID + ".droppedMessages")
+                .getValue(), 1L);
+        Assert.assertEquals(gauges.get("org.wso2.data.provider.outbound." + SESSION_ID + ".pendingMessages")
+                .getValue(), 1L);
+
+        queue.close();
+        Assert.assertTrue(gauges.isEmpty());
+        runTasks();
+        Assert.assertTrue(pushedMessages.isEmpty());
+    }
+
+    private OutboundMessageQueue createQueue(int capacity, OutboundMessageQueue.Policy policy,
+                                             MetricService metricService) {
+        // Messages are written only when the test runs the tasks, as if the client is slow
+        return new OutboundMessageQueue(webSocketConnection, tasks::add, capacity, policy, metricService);
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+}
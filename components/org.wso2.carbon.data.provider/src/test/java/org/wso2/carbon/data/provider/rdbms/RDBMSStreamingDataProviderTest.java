@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.data.provider.rdbms;
+
+import com.google.gson.JsonParser;
+import org.h2.jdbcx.JdbcDataSource;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.config.ConfigurationException;
+import org.wso2.carbon.config.provider.ConfigProvider;
+import org.wso2.carbon.data.provider.exception.DataProviderException;
+import org.wso2.carbon.data.provider.rdbms.bean.RDBMSDataProviderConfBean;
+import org.wso2.carbon.datasource.core.api.DataSourceService;
+import org.wso2.carbon.datasource.core.beans.DataSourceDefinition;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.wso2.carbon.data.provider.utils.DataProviderValueHolder.getDataProviderHelper;
+
+public class RDBMSStreamingDataProviderTest {
+    // Greater than 2^53, hence the ids are not represented exactly as doubles
+    private static final long LARGE_ID = 9007199254740993L;
+
+    private JdbcDataSource dataSource;
+    private Connection connection;
+
+    @BeforeMethod
+    public void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:streaming_provider_test;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("root");
+        dataSource.setPassword("root");
+        connection = dataSource.getConnection();
+        RDBMSDataProviderConfBean rdbmsDataProviderConfBean = new RDBMSDataProviderConfBean();
+        getDataProviderHelper().setDataSourceService(new DataSourceService() {
+            public Object getDataSource(String name) {
+                return dataSource;
+            }
+
+            public Object createDataSource(DataSourceDefinition dataSourceDefinition) {
+                return dataSource;
+            }
+        });
+        getDataProviderHelper().setConfigProvider(new ConfigProvider() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T getConfigurationObject(Class<T> configClass) throws ConfigurationException {
+                return (T) rdbmsDataProviderConfBean;
+            }
+
+            @Override
+            public Object getConfigurationObject(String namespace) throws ConfigurationException {
+                return rdbmsDataProviderConfBean;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T getConfigurationObject(String namespace, Class<T> configClass)
+                    throws ConfigurationException {
+                return (T) rdbmsDataProviderConfBean;
+            }
+
+            @Override
+            public <T> ArrayList<T> getConfigurationObjectList(String namespace, Class<T> configClass)
+                    throws ConfigurationException {
+                return null;
+            }
+        });
+    }
+
+    @AfterMethod
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DROP ALL OBJECTS");
+        }
+        connection.close();
+        getDataProviderHelper().setDataSourceService(null);
+        getDataProviderHelper().setConfigProvider(null);
+    }
+
+    @Test
+    public void testBigintColumnAboveDoublePrecision() throws SQLException, DataProviderException {
+        execute("CREATE TABLE ORDERS (ID BIGINT NOT NULL, AMOUNT DOUBLE)");
+        CapturingProvider provider = createProvider("ORDERS", "ID", "");
+        provider.publish("orders", "session-1");
+        // The initial data set is published even when the table is empty
+        Assert.assertEquals(provider.publishedData.size(), 1);
+        Assert.assertTrue(provider.publishedData.get(0).isEmpty());
+        Assert.assertNull(provider.getHighWaterMark());
+
+        insert("INSERT INTO ORDERS VALUES (?, ?)", LARGE_ID, 10.5);
+        provider.publish("orders", "session-1");
+        Assert.assertEquals(provider.publishedData.get(1).size(), 1);
+        Assert.assertEquals(provider.getHighWaterMark(), LARGE_ID);
+
+        insert("INSERT INTO ORDERS VALUES (?, ?)", LARGE_ID + 1, 20.5);
+        provider.publish("orders", "session-1");
+        // The last id would be rounded down, and published again, if it was read as a double
+        Assert.assertEquals(provider.publishedData.size(), 3);
+        List<Object[]> data = provider.publishedData.get(2);
+        Assert.assertEquals(data.size(), 1);
+        Assert.assertEquals(data.get(0)[1], 20.5);
+        Assert.assertEquals(provider.getHighWaterMark(), LARGE_ID + 1);
+
+        provider.publish("orders", "session-1");
+        // Nothing is published when no rows are added
+        Assert.assertEquals(provider.publishedData.size(), 3);
+    }
+
+    @Test
+    public void testTimestampColumn() throws SQLException, DataProviderException {
+        execute("CREATE TABLE EVENTS (EVENT_TIME TIMESTAMP NOT NULL, NAME VARCHAR(20))");
+        Timestamp firstTime = Timestamp.valueOf("2020-01-01 10:00:00.125");
+        Timestamp secondTime = Timestamp.valueOf("2020-01-01 10:00:00.126");
+        insert("INSERT INTO EVENTS VALUES (?, ?)", firstTime, "first");
+        insert("INSERT INTO EVENTS VALUES (?, ?)", secondTime, "second");
+        CapturingProvider provider = createProvider("EVENTS", "EVENT_TIME", "EVENT_TIME");
+        provider.publish("events", "session-1");
+        List<Object[]> data = provider.publishedData.get(0);
+        Assert.assertEquals(data.size(), 2);
+        Assert.assertEquals(data.get(0)[0], secondTime);
+        Assert.assertEquals(data.get(0)[1], "second");
+        Assert.assertEquals(provider.getHighWaterMark(), secondTime);
+
+        Timestamp thirdTime = Timestamp.valueOf("2020-01-01 10:00:00.127");
+        insert("INSERT INTO EVENTS VALUES (?, ?)", thirdTime, "third");
+        provider.publish("events", "session-1");
+        // Rows within the same second are told apart, as the timestamp is bound without losing its precision
+        data = provider.publishedData.get(1);
+        Assert.assertEquals(data.size(), 1);
+        Assert.assertEquals(data.get(0)[1], "third");
+        Assert.assertEquals(provider.getHighWaterMark(), thirdTime);
+    }
+
+    @Test
+    public void testDecimalColumnWithNullValues() throws SQLException, DataProviderException {
+        execute("CREATE TABLE PAYMENTS (SEQ DECIMAL(20, 0), AMOUNT DOUBLE)");
+        insert("INSERT INTO PAYMENTS VALUES (?, ?)", new BigDecimal(LARGE_ID), 1.0);
+        insert("INSERT INTO PAYMENTS VALUES (?, ?)", null, 2.0);
+        CapturingProvider provider = createProvider("PAYMENTS", "SEQ", "");
+        provider.publish("payments", "session-1");
+        Assert.assertEquals(provider.publishedData.get(0).size(), 2);
+        // Null values are not taken as greater than any value
+        Assert.assertEquals(provider.getHighWaterMark(), new BigDecimal(LARGE_ID));
+
+        insert("INSERT INTO PAYMENTS VALUES (?, ?)", new BigDecimal(LARGE_ID + 1), 3.0);
+        provider.publish("payments", "session-1");
+        List<Object[]> data = provider.publishedData.get(1);
+        Assert.assertEquals(data.size(), 1);
+        Assert.assertEquals(data.get(0)[1], 3.0);
+        Assert.assertEquals(provider.getHighWaterMark(), new BigDecimal(LARGE_ID + 1));
+    }
+
+    @Test
+    public void testHighWaterMarkTakenOver() throws SQLException, DataProviderException {
+        execute("CREATE TABLE ORDERS (ID BIGINT NOT NULL, AMOUNT DOUBLE)");
+        insert("INSERT INTO ORDERS VALUES (?, ?)", LARGE_ID, 10.5);
+        CapturingProvider provider = createProvider("ORDERS", "ID", "");
+        provider.publish("orders", "session-1");
+
+        insert("INSERT INTO ORDERS VALUES (?, ?)", LARGE_ID + 1, 20.5);
+        CapturingProvider nextProvider = createProvider("ORDERS", "ID", "");
+        nextProvider.setHighWaterMark(provider.getHighWaterMark());
+        nextProvider.publish("orders", "session-2");
+        // The provider taking over the query publishes only the rows not published by the previous one
+        Assert.assertEquals(nextProvider.publishedData.size(), 1);
+        Assert.assertEquals(nextProvider.publishedData.get(0).size(), 1);
+        Assert.assertEquals(nextProvider.publishedData.get(0).get(0)[1], 20.5);
+    }
+
+    private CapturingProvider createProvider(String tableName, String incrementalColumn, String timeColumns)
+            throws DataProviderException {
+        String configuration = "{" +
+                "\"datasourceName\": \"TEST_DB\"," +
+                "\"queryData\": {\"query\": \"SELECT * FROM " + tableName + "\"}," +
+                "\"tableName\": \"" + tableName + "\"," +
+                "\"incrementalColumn\": \"" + incrementalColumn + "\"," +
+                "\"timeColumns\": \"" + timeColumns + "\"," +
+                "\"publishingInterval\": 1," +
+                "\"publishingLimit\": 10" +
+                "}";
+        CapturingProvider provider = new CapturingProvider();
+        provider.init("topic", "session-1", new JsonParser().parse(configuration));
+        return provider;
+    }
+
+    private void execute(String query) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(query);
+        }
+    }
+
+    private void insert(String query, Object... values) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Streaming provider which keeps the published data instead of sending it to the client.
+     */
+    private static class CapturingProvider extends RDBMSStreamingDataProvider {
+        private final List<List<Object[]>> publishedData = new ArrayList<>();
+
+        @Override
+        public void publishToEndPoint(ArrayList<Object[]> data, String sessionId, String topic) {
+            publishedData.add(data);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.data.provider.utils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.data.provider.bean.DataSetMetadata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+
+public class DataModelEncoderTest {
+    private static final String TOPIC = "stocks";
+    private static final Timestamp FIRST_TIME = new Timestamp(1577872800125L);
+    private static final Timestamp SECOND_TIME = new Timestamp(1577872800126L);
+
+    @Test
+    public void testColumnarJsonWithMetadata() throws IOException {
+        JsonObject message = new JsonParser().parse(createEncoder().toColumnarJson(TOPIC, true)).getAsJsonObject();
+        Assert.assertEquals(message.get("topic").getAsString(), TOPIC);
+        Assert.assertEquals(message.get("rowCount").getAsInt(), 3);
+        JsonObject metadata = message.getAsJsonObject("metadata");
+        Assert.assertEquals(metadata.getAsJsonArray("names").get(2).getAsString(), "TIME");
+        Assert.assertEquals(metadata.getAsJsonArray("types").get(1).getAsString(), "ORDINAL");
+
+        JsonArray columns = message.getAsJsonArray("columns");
+        Assert.assertEquals(columns.size(), 3);
+        JsonArray prices = columns.get(0).getAsJsonArray();
+        Assert.assertEquals(prices.get(0).getAsDouble(), 55.5);
+        // Neither a null nor a NaN is a valid JSON number
+        Assert.assertTrue(prices.get(1).isJsonNull());
+        Assert.assertTrue(prices.get(2).isJsonNull());
+        JsonArray symbols = columns.get(1).getAsJsonArray();
+        Assert.assertEquals(symbols.get(0).getAsString(), "WSO2");
+        Assert.assertTrue(symbols.get(1).isJsonNull());
+        Assert.assertEquals(symbols.get(2).getAsString(), "\u00dcn\u00efc\u00f6d\u00e9");
+        JsonArray times = columns.get(2).getAsJsonArray();
+        Assert.assertEquals(times.get(0).getAsLong(), FIRST_TIME.getTime());
+        Assert.assertEquals(times.get(1).getAsLong(), SECOND_TIME.getTime());
+        Assert.assertTrue(times.get(2).isJsonNull());
+    }
+
+    @Test
+    public void testColumnarJsonWithoutMetadata() throws IOException {
+        DataModelEncoder encoder = createEncoder();
+        JsonObject message = new JsonParser().parse(encoder.toColumnarJson(TOPIC, false)).getAsJsonObject();
+        Assert.assertFalse(message.has("metadata"));
+        Assert.assertEquals(message.getAsJsonArray("columns").get(1).getAsJsonArray().get(0).getAsString(), "WSO2");
+        // Each encoding is reused for the same topic and metadata flag only
+        Assert.assertSame(encoder.toColumnarJson(TOPIC, false), encoder.toColumnarJson(TOPIC, false));
+        Assert.assertNotEquals(encoder.toColumnarJson(TOPIC, true), encoder.toColumnarJson(TOPIC, false));
+        Assert.assertTrue(encoder.toColumnarJson("other", false).contains("\"topic\":\"other\""));
+    }
+
+    @Test
+    public void testBinaryWithMetadata() throws IOException {
+        ByteBuffer frame = createEncoder().toBinary(TOPIC, true);
+        Assert.assertEquals(readString(frame), TOPIC);
+        Assert.assertEquals(frame.getInt(), 3);
+        Assert.assertEquals(frame.getInt(), 3);
+        Assert.assertEquals(frame.get(), 1);
+        Assert.assertEquals(readString(frame), "PRICE");
+        Assert.assertEquals(frame.get(), DataSetMetadata.Types.LINEAR.ordinal());
+        Assert.assertEquals(readString(frame), "SYMBOL");
+        Assert.assertEquals(frame.get(), DataSetMetadata.Types.ORDINAL.ordinal());
+        Assert.assertEquals(readString(frame), "TIME");
+        Assert.assertEquals(frame.get(), DataSetMetadata.Types.TIME.ordinal());
+        assertColumns(frame);
+    }
+
+    @Test
+    public void testBinaryWithoutMetadata() throws IOException {
+        ByteBuffer frame = createEncoder().toBinary(TOPIC, false);
+        Assert.assertEquals(readString(frame), TOPIC);
+        Assert.assertEquals(frame.getInt(), 3);
+        Assert.assertEquals(frame.getInt(), 3);
+        Assert.assertEquals(frame.get(), 0);
+        assertColumns(frame);
+    }
+
+    @Test
+    public void testBinaryFrameNotShared() throws IOException {
+        DataModelEncoder encoder = createEncoder();
+        ByteBuffer frame = encoder.toBinary(TOPIC, false);
+        Assert.assertTrue(frame.isReadOnly());
+        int length = frame.remaining();
+        readString(frame);
+        // Reading a frame does not move the position of the frame given to another subscriber
+        ByteBuffer otherFrame = encoder.toBinary(TOPIC, false);
+        Assert.assertEquals(otherFrame.remaining(), length);
+        Assert.assertEquals(readString(otherFrame), TOPIC);
+    }
+
+    @Test
+    public void testEmptyDataSet() throws IOException {
+        DataModelEncoder encoder = new DataModelEncoder(createMetadata(), new Object[0][]);
+        JsonObject message = new JsonParser().parse(encoder.toColumnarJson(TOPIC, false)).getAsJsonObject();
+        Assert.assertEquals(message.get("rowCount").getAsInt(), 0);
+        Assert.assertEquals(message.getAsJsonArray("columns").get(0).getAsJsonArray().size(), 0);
+        ByteBuffer frame = encoder.toBinary(TOPIC, false);
+        readString(frame);
+        Assert.assertEquals(frame.getInt(), 0);
+        Assert.assertEquals(frame.getInt(), 3);
+        Assert.assertEquals(frame.get(), 0);
+        Assert.assertEquals(frame.get(), DataModelEncoder.NUMERIC_COLUMN);
+        Assert.assertEquals(frame.get(), DataModelEncoder.STRING_COLUMN);
+        Assert.assertEquals(frame.get(), DataModelEncoder.NUMERIC_COLUMN);
+        Assert.assertFalse(frame.hasRemaining());
+    }
+
+    private static void assertColumns(ByteBuffer frame) {
+        Assert.assertEquals(frame.get(), DataModelEncoder.NUMERIC_COLUMN);
+        Assert.assertEquals(frame.getDouble(), 55.5);
+        Assert.assertTrue(Double.isNaN(frame.getDouble()));
+        Assert.assertTrue(Double.isNaN(frame.getDouble()));
+        Assert.assertEquals(frame.get(), DataModelEncoder.STRING_COLUMN);
+        Assert.assertEquals(readString(frame), "WSO2");
+        Assert.assertNull(readString(frame));
+        Assert.assertEquals(readString(frame), "\u00dcn\u00efc\u00f6d\u00e9");
+        Assert.assertEquals(frame.get(), DataModelEncoder.NUMERIC_COLUMN);
+        Assert.assertEquals(frame.getDouble(), (double) FIRST_TIME.getTime());
+        Assert.assertEquals(frame.getDouble(), (double) SECOND_TIME.getTime());
+        Assert.assertTrue(Double.isNaN(frame.getDouble()));
+        Assert.assertFalse(frame.hasRemaining());
+    }
+
+    private static String readString(ByteBuffer frame) {
+        int length = frame.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        frame.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static DataModelEncoder createEncoder() {
+        return new DataModelEncoder(createMetadata(), new Object[][]{
+                {55.5, "WSO2", FIRST_TIME},
+                {null, null, SECOND_TIME},
+                {Double.NaN, "\u00dcn\u00efc\u00f6d\u00e9", null}
+        });
+    }
+
+    private static DataSetMetadata createMetadata() {
+        DataSetMetadata metadata = new DataSetMetadata(3);
+        metadata.put(0, "PRICE", DataSetMetadata.Types.LINEAR);
+        metadata.put(1, "SYMBOL", DataSetMetadata.Types.ORDINAL);
+        metadata.put(2, "TIME", DataSetMetadata.Types.TIME);
+        return metadata;
+    }
+}
@@ -177,6 +177,27 @@ public class FeedApi implements Microservice {
         return delegate.getFeedSimulationStatus(simulationName, request);
     }
 
+    @GET
+    @Path("/{simulationName}/statistics")
+    @Produces({"application/json"})
+    @io.swagger.annotations.ApiOperation(value = "Retrieve the statistics of a running simulation by name.",
+            notes = "Number of events sent, achieved events per second and lag behind the scheduled time",
+            response = String.class, tags = {"simulator",})
+    @io.swagger.annotations.ApiResponses(value = {
+            @io.swagger.annotations.ApiResponse(code = 200, message = "Successfully sent simulation statistics.",
+                    response = String.class),
+
+            @io.swagger.annotations.ApiResponse(code = 404,
+                    message = "No simulation configuration available under simulation name",
+                    response = String.class)})
+    public Response getFeedSimulationStatistics(
+            @Context Request request,
+            @ApiParam(value = "Simulation name to get the statistics.", required = true)
+            @PathParam("simulationName") String simulationName)
+            throws NotFoundException {
+        return delegate.getFeedSimulationStatistics(simulationName, request);
+    }
+
     /**
      * This is the activation method of ServiceComponent. This will be called when it's references are fulfilled
      *
@@ -25,4 +25,7 @@ public abstract class FeedApiService {
 
     public abstract Response getFeedSimulationStatus(String simulationName, Request request) throws NotFoundException;
 
+    public abstract Response getFeedSimulationStatistics(String simulationName, Request request)
+            throws NotFoundException;
+
 }
@@ -349,6 +349,32 @@ public class FeedApiServiceImpl extends FeedApiService {
         }
     }
 
+    /**
+     * getFeedSimulationStatistics() is used to retrieve the number of events sent by a simulation and the rate and lag
+     * of sending them
+     *
+     * @param simulationName name of simulation
+     * @return response
+     */
+    public Response getFeedSimulationStatistics(String simulationName) throws NotFoundException {
+        ActiveSimulatorData activeSimulatorData = EventSimulatorMap.getInstance().getActiveSimulatorMap()
+                .get(simulationName);
+        if (activeSimulatorData != null) {
+            EventSimulator eventSimulator = activeSimulatorData.getEventSimulator();
+            return Response.ok()
+                    .header("Access-Control-Allow-Origin", "*")
+                    .entity(new ResponseMapper(Response.Status.OK,
+                            new JSONObject(eventSimulator.getStatistics()).toString()))
+                    .build();
+        } else {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .header("Access-Control-Allow-Origin", "*")
+                    .entity(new ResponseMapper(Response.Status.NOT_FOUND, "No event simulation configuration "
+                            + "available under simulation name '" + simulationName + "'."))
+                    .build();
+        }
+    }
+
     /**
      * run() is used to start a feed simulation
      *
@@ -642,6 +668,17 @@ public class FeedApiServiceImpl extends FeedApiService {
         return getFeedSimulationStatus(simulationName);
     }
 
+    @Override
+    public Response getFeedSimulationStatistics(String simulationName, Request request) throws NotFoundException {
+        if (getUserName(request) != null && !(getPermissionProvider().hasPermission(getUserName(request), new Permission
+                (PERMISSION_APP_NAME, MANAGE_SIMULATOR_PERMISSION_STRING)) || getPermissionProvider().hasPermission
+                (getUserName(request), new Permission(PERMISSION_APP_NAME, VIEW_SIMULATOR_PERMISSION_STRING)))) {
+            return Response.status(Response.Status.UNAUTHORIZED).entity("Insufficient permission to perform the action")
+                    .build();
+        }
+        return getFeedSimulationStatistics(simulationName);
+    }
+
     private static String getUserName(Request request) {
         Object username = request.getProperty("username");
         return username != null ? username.toString() : null;
@@ -23,12 +23,28 @@ package org.wso2.carbon.event.simulator.core.internal.bean;
  */
 public class RandomSimulationDTO extends StreamConfigurationDTO {
 
+    private Long seed;
+
     public RandomSimulationDTO() {
     }
 
+    /**
+     * getSeed() returns the seed used to generate reproducible random values
+     *
+     * @return seed, or null if the values are not reproducible
+     */
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
     @Override
     public String toString() {
-        return getStreamConfiguration();
+        return getStreamConfiguration() +
+                (seed != null ? "\n seed : " + seed + "\n" : "");
     }
 
 }
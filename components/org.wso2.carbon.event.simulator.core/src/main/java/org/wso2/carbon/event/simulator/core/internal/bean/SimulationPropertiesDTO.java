@@ -30,6 +30,10 @@ public class SimulationPropertiesDTO {
     private int noOfEventsRequired;
     private long startTimestamp;
     private long endTimestamp;
+    private double eventsPerSecond = -1;
+    private double speedFactor = -1;
+    private int batchSize = 1;
+    private int threads = 1;
 
     public String getSimulationName() {
         return simulationName;
@@ -78,5 +82,36 @@ public class SimulationPropertiesDTO {
     public void setEndTimestamp(long endTimestamp) {
         this.endTimestamp = endTimestamp;
     }
+    public double getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    public void setEventsPerSecond(double eventsPerSecond) {
+        this.eventsPerSecond = eventsPerSecond;
+    }
+
+    public double getSpeedFactor() {
+        return speedFactor;
+    }
+
+    public void setSpeedFactor(double speedFactor) {
+        this.speedFactor = speedFactor;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
 
 }
@@ -43,6 +43,26 @@ public interface EventGenerator {
 
     Event peek();
 
+    /**
+     * poll() fills the given range of the array with the next events of the generator, in the order of their
+     * timestamps, stopping at the first event whose timestamp is not less than the given limit
+     *
+     * @param events         array to be filled
+     * @param offset         index of the array at which the first event is filled
+     * @param length         maximum number of events to be filled
+     * @param timestampLimit timestamp before which the events are filled
+     * @return number of events filled
+     */
+    default int poll(Event[] events, int offset, int length, long timestampLimit) {
+        int count = 0;
+        Event event;
+        while (count < length && (event = peek()) != null && event.getTimestamp() < timestampLimit) {
+            events[offset + count++] = event;
+            poll();
+        }
+        return count;
+    }
+
     void getNextEvent();
 
     String getStreamName();
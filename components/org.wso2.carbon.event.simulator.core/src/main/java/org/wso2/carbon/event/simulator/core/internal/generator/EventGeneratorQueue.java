@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator;
+
+import io.siddhi.core.event.Event;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * EventGeneratorQueue merges the events of the event generators of a simulation in the order of their timestamps.
+ * The generators are kept in a heap keyed by the timestamp of their next event, hence taking the next event costs
+ * O(log n) in the number of generators. Events having the same timestamp are taken in the order of the generators.
+ * This class is not thread safe.
+ */
+public class EventGeneratorQueue {
+    private final List<EventGenerator> generators;
+    private final PriorityQueue<GeneratorHead> heads;
+
+    public EventGeneratorQueue(List<EventGenerator> generators) {
+        this.generators = generators;
+        this.heads = new PriorityQueue<>(Math.max(1, generators.size()),
+                Comparator.comparingLong((GeneratorHead head) -> head.timestamp).thenComparingInt(head -> head.index));
+    }
+
+    /**
+     * rebuild() reloads the next event of every generator. It must be called after the generators are started or
+     * resumed, since those may change the timestamps of their next events.
+     */
+    public void rebuild() {
+        heads.clear();
+        for (int i = 0; i < generators.size(); i++) {
+            Event event = generators.get(i).peek();
+            if (event != null) {
+                heads.add(new GeneratorHead(generators.get(i), i, event.getTimestamp()));
+            }
+        }
+    }
+
+    /**
+     * peek() returns the generator having the next event with least timestamp
+     *
+     * @return event generator, or null if none of the generators have more events
+     */
+    public EventGenerator peek() {
+        GeneratorHead head = heads.peek();
+        return head != null ? head.generator : null;
+    }
+
+    /**
+     * poll() removes the event with least timestamp from its generator
+     *
+     * @return event, or null if none of the generators have more events
+     */
+    public Event poll() {
+        GeneratorHead head = heads.poll();
+        if (head == null) {
+            return null;
+        }
+        Event event = head.generator.poll();
+        Event nextEvent = head.generator.peek();
+        if (nextEvent != null) {
+            head.timestamp = nextEvent.getTimestamp();
+            heads.add(head);
+        }
+        return event;
+    }
+
+    /**
+     * poll() fills the given range of the array with the events having the least timestamps, as long as they belong to
+     * the same generator. The generator fills the events at once, stopping before the next event of any other
+     * generator.
+     *
+     * @param events         array to be filled
+     * @param offset         index of the array at which the first event is filled
+     * @param length         maximum number of events to be filled
+     * @param timestampLimit timestamp before which the events are filled
+     * @return number of events filled, which is 0 only if there are no more events before the given timestamp
+     */
+    public int poll(Event[] events, int offset, int length, long timestampLimit) {
+        GeneratorHead head = heads.poll();
+        if (head == null) {
+            return 0;
+        }
+        GeneratorHead otherHead = heads.peek();
+        if (otherHead != null) {
+            // events having the timestamp of the next event of another generator are filled only if they precede it
+            long otherLimit = head.index < otherHead.index ? otherHead.timestamp + 1 : otherHead.timestamp;
+            timestampLimit = Math.min(timestampLimit, otherLimit);
+        }
+        int count = head.generator.poll(events, offset, length, timestampLimit);
+        Event nextEvent = head.generator.peek();
+        if (nextEvent != null) {
+            head.timestamp = nextEvent.getTimestamp();
+            heads.add(head);
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return heads.isEmpty();
+    }
+
+    /**
+     * Generator in the heap, along with the timestamp of its next event when it was added.
+     */
+    private static class GeneratorHead {
+        private final EventGenerator generator;
+        private final int index;
+        private long timestamp;
+
+        GeneratorHead(EventGenerator generator, int index, long timestamp) {
+            this.generator = generator;
+            this.index = index;
+            this.timestamp = timestamp;
+        }
+    }
+}
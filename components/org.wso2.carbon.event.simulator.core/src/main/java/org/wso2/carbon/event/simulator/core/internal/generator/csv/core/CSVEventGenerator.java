@@ -40,7 +40,6 @@ import io.siddhi.query.api.definition.Attribute;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.TreeMap;
 
 import static org.wso2.carbon.event.simulator.core.internal.util.CommonOperations.checkAvailability;
 
@@ -59,8 +58,6 @@ public class CSVEventGenerator implements EventGenerator {
      */
     private Event nextEvent;
     private CSVReader csvReader;
-    private List<Event> currentTimestampEvents;
-    private TreeMap<Long, ArrayList<Event>> eventsMap;
 
 
     public CSVEventGenerator() {
@@ -120,8 +117,8 @@ public class CSVEventGenerator implements EventGenerator {
         /*
          * if the CSV file is ordered by timestamp, create the first event and assign it as the nextEvent of
          * the generator.
-         * else, create a treeMap of events. Retrieve the list of events with least timestamp as currentTimestampEvents
-         * and assign the first event of the least timestamp as the nextEvent of the generator
+         * else, sort the records of the CSV file by timestamp and assign the event with the least timestamp as the
+         * nextEvent of the generator
          * */
         try {
             if (startTimestamp == -1 && "-1".equals(csvConfiguration.getTimestampAttribute())) {
@@ -132,18 +129,8 @@ public class CSVEventGenerator implements EventGenerator {
                 nextEvent = csvReader.getNextEvent(csvConfiguration, streamAttributes, startTimestamp,
                         endTimestamp);
             } else {
-                currentTimestampEvents = new ArrayList<>();
-                eventsMap = new TreeMap<>();
-                eventsMap = csvReader.getEventsMap(csvConfiguration, streamAttributes, startTimestamp,
-                        endTimestamp);
-                if (!eventsMap.isEmpty()) {
-                    currentTimestampEvents = eventsMap.pollFirstEntry().getValue();
-                    nextEvent = currentTimestampEvents.get(0);
-                    currentTimestampEvents.remove(0);
-                } else {
-                    currentTimestampEvents = null;
-                    nextEvent = null;
-                }
+                csvReader.sortRecords(csvConfiguration, startTimestamp, endTimestamp);
+                nextEvent = csvReader.getNextSortedEvent(csvConfiguration, streamAttributes);
             }
             if (log.isDebugEnabled()) {
                 log.debug("Start CSV generator for file '" + csvConfiguration.getFileName() + "' for simulation "
@@ -245,74 +232,18 @@ public class CSVEventGenerator implements EventGenerator {
     public void getNextEvent() {
         /*
          * if the CSV file is ordered by timestamp, create next event and assign it as the nextEvent of generator
-         * else, assign the next event with current timestamp as nextEvent of generator
+         * else, assign the event of the next sorted record as nextEvent of generator
          */
         startTimestamp += csvConfiguration.getTimestampInterval();
         if (csvConfiguration.getIsOrdered()) {
             nextEvent = csvReader.getNextEvent(csvConfiguration, streamAttributes, startTimestamp,
                     endTimestamp);
-        } else {
-            getNextEventForCurrentTimestamp();
-        }
-    }
-
-
-    /**
-     * getEventsForNextTimestamp() is used to get list of events with the next least timestamp
-     */
-    private void getEventsForNextTimestamp() {
-        /*
-         * if the events map is not empty, it implies that there are more event. Hence, retrieve the list of events with
-         * the next least timestamp
-         * else, there are no more events, hence list of events with current timestamp is set to null
-         * */
-        if (!eventsMap.isEmpty()) {
-            currentTimestampEvents = eventsMap.pollFirstEntry().getValue();
-        } else {
-            currentTimestampEvents = null;
-        }
-        if (log.isDebugEnabled()) {
-            log.debug("Get events for next timestamp from CSV generator for file '" + csvConfiguration.getFileName()
-                    + "' for stream '" + csvConfiguration.getStreamName() + "'.");
+        } else if (nextEvent != null) {
+            nextEvent = csvReader.getNextSortedEvent(csvConfiguration, streamAttributes);
         }
     }
 
 
-    /**
-     * getNextEventForCurrentTimestamp() method is used to retrieve an event with the least timestamp
-     */
-    private void getNextEventForCurrentTimestamp() {
-        /*
-         * if currentTimestampEvents != null , it implies that more events will be created by the generator
-         * if currentTimestampEvents list is not empty, get the next event in list as nextEvent and remove that even
-         * from the list.
-         * else, call getEventsForNextTimestamp() to retrieve a list of events with the next least timestamp.
-         * if currentTimestampEvents != null after the method call, it implies that more events will be generated.
-         * assign the first event in list as nextEvent and remove it from the list.
-         * else if currentTimestampEvents == null, it implies that no more events will be created, hence assign null
-         * to nextEvent.
-         * */
-        if (currentTimestampEvents != null) {
-            if (!currentTimestampEvents.isEmpty()) {
-                nextEvent = currentTimestampEvents.get(0);
-                currentTimestampEvents.remove(0);
-            } else {
-                getEventsForNextTimestamp();
-                if (currentTimestampEvents != null) {
-                    nextEvent = currentTimestampEvents.get(0);
-                    currentTimestampEvents.remove(0);
-                } else {
-                    nextEvent = null;
-                }
-            }
-        }
-        if (log.isDebugEnabled()) {
-            log.debug("Get next event for current timestamp from CSV generator for file '"
-                              + csvConfiguration.getFileName() + "' for stream '"
-                              + csvConfiguration.getStreamName() + "'.");
-        }
-    }
-
     /**
      * validateCSVConfiguration() validates the source configuration provided for csv simulation
      *
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.csv.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * CSVLineTokenizer reads the lines of a delimited file and splits each line into fields.
+ * The same buffers are used for every line, hence no objects are created per line unless the value of a field is
+ * retrieved as a string.
+ * When the delimiter is a comma, a semicolon or a tab, a field may be enclosed in double quotes, as in the formats
+ * used to parse files which are not ordered by timestamp. A quoted field may contain the delimiter and line breaks,
+ * and a double quote within it is escaped by another double quote.
+ */
+public class CSVLineTokenizer {
+    private static final int BUFFER_SIZE = 8192;
+    private static final char QUOTE = '"';
+    private Reader reader;
+    private char[] delimiter;
+    private boolean isQuoting;
+    private char[] buffer = new char[BUFFER_SIZE];
+    private int bufferPosition = 0;
+    private int bufferLimit = 0;
+    private boolean skipLineFeed = false;
+    private char[] line = new char[256];
+    private int lineLength = 0;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount = 0;
+
+    /**
+     * @param reader    reader of the file
+     * @param delimiter delimiter separating the fields, where '\t' denotes a tab
+     */
+    public CSVLineTokenizer(Reader reader, String delimiter) {
+        this.reader = reader;
+        this.delimiter = ("\\t".equals(delimiter) ? "\t" : delimiter).toCharArray();
+        this.isQuoting = ",".equals(delimiter) || ";".equals(delimiter) || "\\t".equals(delimiter);
+    }
+
+    /**
+     * nextLine() reads the next line of the file and splits it into fields
+     *
+     * @return false if the end of the file is reached
+     * @throws IOException if an error occurs when reading the file
+     */
+    public boolean nextLine() throws IOException {
+        return isQuoting ? readQuotedLine() : readLine();
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * getField() returns the value of a field of the current line
+     *
+     * @param index index of the field
+     * @return value of the field
+     * @throws IndexOutOfBoundsException if the line does not have a field at the given index
+     */
+    public String getField(int index) {
+        checkIndex(index);
+        return new String(line, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+    }
+
+    /**
+     * getLong() parses the value of a field of the current line, ignoring the surrounding horizontal whitespace
+     *
+     * @param index index of the field
+     * @return value of the field
+     * @throws IndexOutOfBoundsException if the line does not have a field at the given index
+     * @throws NumberFormatException     if the value of the field is not a long
+     */
+    public long getLong(int index) {
+        checkIndex(index);
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        while (start < end && isHorizontalWhitespace(line[start])) {
+            start++;
+        }
+        while (end > start && isHorizontalWhitespace(line[end - 1])) {
+            end--;
+        }
+        int position = start;
+        boolean isNegative = false;
+        if (position < end && (line[position] == '-' || line[position] == '+')) {
+            isNegative = line[position] == '-';
+            position++;
+        }
+        if (position == end) {
+            throw newNumberFormatException(start, end);
+        }
+        // Accumulates negatively, as the range of negative longs is larger, similar to Long.parseLong()
+        long limit = isNegative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplicationLimit = limit / 10;
+        long result = 0;
+        for (; position < end; position++) {
+            int digit = Character.digit(line[position], 10);
+            if (digit < 0 || result < multiplicationLimit) {
+                throw newNumberFormatException(start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw newNumberFormatException(start, end);
+            }
+            result -= digit;
+        }
+        return isNegative ? result : -result;
+    }
+
+    /**
+     * getLine() returns the current line, to be used when logging
+     *
+     * @return current line
+     */
+    public String getLine() {
+        return new String(line, 0, lineLength);
+    }
+
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        boolean isLineRead = false;
+        while (bufferPosition < bufferLimit || fillBuffer()) {
+            char c = buffer[bufferPosition++];
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (c == '\n') {
+                    continue;
+                }
+            }
+            isLineRead = true;
+            if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                skipLineFeed = true;
+                break;
+            }
+            appendToLine(c);
+        }
+        if (!isLineRead) {
+            return false;
+        }
+        tokenize();
+        return true;
+    }
+
+    /**
+     * readQuotedLine() reads a line whose fields may be quoted, splitting it into fields as it is read. The quotes
+     * enclosing a field are left out of the line, and the delimiter is kept between the fields.
+     */
+    private boolean readQuotedLine() throws IOException {
+        lineLength = 0;
+        fieldCount = 0;
+        int fieldStart = 0;
+        boolean isLineRead = false;
+        boolean isFieldStart = true;
+        boolean isQuoted = false;
+        boolean isQuoteClosing = false;
+        char delimiterChar = delimiter[0];
+        while (bufferPosition < bufferLimit || fillBuffer()) {
+            char c = buffer[bufferPosition++];
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (c == '\n') {
+                    continue;
+                }
+            }
+            isLineRead = true;
+            if (isQuoted) {
+                if (!isQuoteClosing) {
+                    if (c == QUOTE) {
+                        isQuoteClosing = true;
+                    } else {
+                        appendToLine(c);
+                    }
+                    continue;
+                }
+                isQuoteClosing = false;
+                if (c == QUOTE) {
+                    // a double quote escaped by another
+                    appendToLine(c);
+                    continue;
+                }
+                isQuoted = false;
+            }
+            if (c == delimiterChar) {
+                addField(fieldStart, lineLength);
+                appendToLine(c);
+                fieldStart = lineLength;
+                isFieldStart = true;
+            } else if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                skipLineFeed = true;
+                break;
+            } else if (c == QUOTE && isFieldStart) {
+                isQuoted = true;
+                isFieldStart = false;
+            } else {
+                appendToLine(c);
+                isFieldStart = false;
+            }
+        }
+        if (!isLineRead) {
+            return false;
+        }
+        addField(fieldStart, lineLength);
+        return true;
+    }
+
+    private boolean fillBuffer() throws IOException {
+        bufferLimit = reader.read(buffer, 0, buffer.length);
+        bufferPosition = 0;
+        if (bufferLimit <= 0) {
+            bufferLimit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private void appendToLine(char c) {
+        if (lineLength == line.length) {
+            char[] newLine = new char[line.length * 2];
+            System.arraycopy(line, 0, newLine, 0, lineLength);
+            line = newLine;
+        }
+        line[lineLength++] = c;
+    }
+
+    private void tokenize() {
+        fieldCount = 0;
+        int fieldStart = 0;
+        if (delimiter.length > 0) {
+            int position = 0;
+            while (position <= lineLength - delimiter.length) {
+                if (isDelimiterAt(position)) {
+                    addField(fieldStart, position);
+                    position += delimiter.length;
+                    fieldStart = position;
+                } else {
+                    position++;
+                }
+            }
+        }
+        addField(fieldStart, lineLength);
+    }
+
+    private boolean isDelimiterAt(int position) {
+        for (int i = 0; i < delimiter.length; i++) {
+            if (line[position + i] != delimiter[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            int[] newFieldStarts = new int[fieldCount * 2];
+            int[] newFieldEnds = new int[fieldCount * 2];
+            System.arraycopy(fieldStarts, 0, newFieldStarts, 0, fieldCount);
+            System.arraycopy(fieldEnds, 0, newFieldEnds, 0, fieldCount);
+            fieldStarts = newFieldStarts;
+            fieldEnds = newFieldEnds;
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Number of fields: " + fieldCount);
+        }
+    }
+
+    private NumberFormatException newNumberFormatException(int start, int end) {
+        return new NumberFormatException("For input string: \"" + new String(line, start, end - start) + "\"");
+    }
+
+    private static boolean isHorizontalWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\u00A0' || c == '\u1680' || c == '\u180E' ||
+                (c >= '\u2000' && c <= '\u200A') || c == '\u202F' || c == '\u205F' || c == '\u3000';
+    }
+}
@@ -32,7 +32,6 @@ import org.wso2.carbon.streaming.integrator.common.exception.ResourceNotFoundExc
 import io.siddhi.core.event.Event;
 import io.siddhi.query.api.definition.Attribute;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -41,10 +40,7 @@ import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.TreeMap;
 
 
 /**
@@ -52,16 +48,19 @@ import java.util.TreeMap;
  */
 public class CSVReader {
     private final Logger log = LoggerFactory.getLogger(CSVReader.class);
+    private static final int SORT_CHUNK_SIZE = 100000;
     private Reader fileReader = null;
-    private BufferedReader bufferedReader = null;
+    private CSVLineTokenizer lineTokenizer = null;
     private CSVParser csvParser = null;
+    private CSVRecordSorter recordSorter = null;
+    private int[] indices;
+    private Object[] eventData;
     private long lineNumber = 0;
     private long eventNumber = 0;
 
     /**
      * Constructor CSVReader is used to initialize an instance of class CSVReader
      * Initialize a file reader for the CSV file.
-     * If the CSV file is ordered by timestamp it will create a bufferedReader for the file reader.
      * @throws ResourceNotFoundException if the CSV file is not found
      */
     public CSVReader(String fileName, boolean isOrdered) throws ResourceNotFoundException {
@@ -76,9 +75,6 @@ public class CSVReader {
                     if (log.isDebugEnabled()) {
                         log.debug("Initialize a File reader for CSV file '" + fileName + "'.");
                     }
-                    if (isOrdered) {
-                        bufferedReader = new BufferedReader(fileReader);
-                    }
                 } else {
                     closeStreams = true;
                     throw new EventGenerationException("File '" + fileName + "' is empty.");
@@ -112,70 +108,68 @@ public class CSVReader {
                               long endTimestamp) {
         Event event = null;
         int timestampPosition = Integer.parseInt(csvConfig.getTimestampAttribute());
-        List<Integer> indices = csvConfig.getIndices();
+        if (lineTokenizer == null) {
+            lineTokenizer = new CSVLineTokenizer(fileReader, csvConfig.getDelimiter());
+            initializeIndices(csvConfig);
+        }
         try {
-            while (true) {
+            while (lineTokenizer.nextLine()) {
                 lineNumber++;
-                String line = bufferedReader.readLine();
-                if (line != null) {
-                    ArrayList<String> attributes = new ArrayList<>(Arrays.asList(line.split(csvConfig.getDelimiter())));
-                    long timestamp;
-//                    if the line does not have sufficient data to produce an event, move to next line
-                    if (timestampPosition == -1) {
-                        /*
-                         * if timestamp attribute is not specified, take startTimestamp as the first event
-                         * timestamp and the successive timestamps will be lastTimetstamp + timeInterval
-                         * */
-                        timestamp = startTimestamp;
-                        if (endTimestamp != -1 && timestamp > endTimestamp) {
-                            break;
-                        }
-                    } else {
-                        /*
-                         * retrieve the value at the position specified by timestamp attribute as the timestamp
-                         * if the timestamp is within the range specified by the startTimestamp and endTimestamp,
-                         * proceed to creating an event, else ignore record and proceed to next record
-                         * */
-                        try {
-                            timestamp = Long.parseLong(attributes.get(timestampPosition).replaceAll("(^\\h*)|(\\h*$)" +
-                                    "",""));
-                            if (timestamp >= startTimestamp) {
-                                if (endTimestamp != -1 && timestamp > endTimestamp) {
-                                    continue;
-                                }
-                            } else {
+                long timestamp;
+//                if the line does not have sufficient data to produce an event, move to next line
+                if (timestampPosition == -1) {
+                    /*
+                     * if timestamp attribute is not specified, take startTimestamp as the first event
+                     * timestamp and the successive timestamps will be lastTimetstamp + timeInterval
+                     * */
+                    timestamp = startTimestamp;
+                    if (endTimestamp != -1 && timestamp > endTimestamp) {
+                        break;
+                    }
+                } else {
+                    /*
+                     * retrieve the value at the position specified by timestamp attribute as the timestamp
+                     * if the timestamp is within the range specified by the startTimestamp and endTimestamp,
+                     * proceed to creating an event, else ignore record and proceed to next record
+                     * */
+                    try {
+                        timestamp = lineTokenizer.getLong(timestampPosition);
+                        if (timestamp >= startTimestamp) {
+                            if (endTimestamp != -1 && timestamp > endTimestamp) {
                                 continue;
                             }
-                        } catch (NumberFormatException e) {
-                            log.warn("Invalid data '" + attributes.get(timestampPosition) + "' provided for timestamp" +
-                                    "attribute in line " + lineNumber + ". Line content : " + attributes + ". " +
-                                    "Ignore line and read next line. Source configuration : " + csvConfig.toString());
-                            continue;
-                        } catch (IndexOutOfBoundsException e) {
-                            log.warn("Cannot retrieve data elements from line " + lineNumber + " for all indices " +
-                                    indices + ". Line content : " + attributes + ". Ignore line and read next line." +
-                                    " Source configuration : " + csvConfig.toString());
+                        } else {
                             continue;
                         }
-                    }
-                    try {
-                        List<String> eventData = new ArrayList<>();
-//                      retrieve the data elements required for event using record using the indices specified
-                        indices.forEach(index -> eventData.add(attributes.get(index)));
-                        event = EventConverter.eventConverter(streamAttributes, eventData.toArray(), timestamp);
-                        eventNumber++;
-                        break;
+                    } catch (NumberFormatException e) {
+                        log.warn("Invalid data '" + lineTokenizer.getField(timestampPosition) + "' provided for " +
+                                "timestamp attribute in line " + lineNumber + ". Line content : " +
+                                lineTokenizer.getLine() + ". Ignore line and read next line. Source configuration : " +
+                                csvConfig.toString());
+                        continue;
                     } catch (IndexOutOfBoundsException e) {
-                        log.warn("Cannot retrieve data elements from line " + lineNumber + " for all indices "  +
-                                indices + ". Line content : " + attributes + ". Ignore line and read next line." +
-                                " Source configuration : " + csvConfig.toString());
-                    } catch (EventGenerationException e) {
-                        log.error("Error occurred when generating event using CSV event " +
-                                "generator to simulate stream '" + csvConfig.getStreamName() + "' using source " +
-                                "configuration : " + csvConfig.toString() + "Drop event and create next event.", e);
+                        log.warn("Cannot retrieve data elements from line " + lineNumber + " for all indices " +
+                                csvConfig.getIndices() + ". Line content : " + lineTokenizer.getLine() + ". Ignore " +
+                                "line and read next line. Source configuration : " + csvConfig.toString());
+                        continue;
                     }
-                } else {
+                }
+                try {
+//                  retrieve the data elements required for event using record using the indices specified
+                    for (int i = 0; i < indices.length; i++) {
+                        eventData[i] = lineTokenizer.getField(indices[i]);
+                    }
+                    event = EventConverter.eventConverter(streamAttributes, eventData, timestamp);
+                    eventNumber++;
                     break;
+                } catch (IndexOutOfBoundsException e) {
+                    log.warn("Cannot retrieve data elements from line " + lineNumber + " for all indices "  +
+                            csvConfig.getIndices() + ". Line content : " + lineTokenizer.getLine() + ". Ignore line " +
+                            "and read next line. Source configuration : " + csvConfig.toString());
+                } catch (EventGenerationException e) {
+                    log.error("Error occurred when generating event using CSV event " +
+                            "generator to simulate stream '" + csvConfig.getStreamName() + "' using source " +
+                            "configuration : " + csvConfig.toString() + "Drop event and create next event.", e);
                 }
             }
         } catch (IOException e) {
@@ -191,29 +185,67 @@ public class CSVReader {
 
 
     /**
-     * If the CSV is not ordered by timestamp, getEventsMap() method is used to create a treeMap of events.
+     * If the CSV is not ordered by timestamp, sortRecords() method is used to sort the records within the timestamp
+     * range by their timestamps, after which getNextSortedEvent() produces the events in that order.
+     * Only a bounded number of records is held in memory, while the rest are sorted in chunks written to temporary
+     * files.
      *
-     * @param csvConfig        configuration of csv simulation
-     * @param streamAttributes list of attributes of the stream to which events are produced
-     * @param startTimestamp   start timestamp of event simulation
-     * @param endTimestamp     end timestamp of event simulation
-     * @return treeMap of events
+     * @param csvConfig      configuration of csv simulation
+     * @param startTimestamp start timestamp of event simulation
+     * @param endTimestamp   end timestamp of event simulation
      */
-    public TreeMap<Long, ArrayList<Event>> getEventsMap(CSVSimulationDTO csvConfig, List<Attribute> streamAttributes,
-                                                        long startTimestamp, long endTimestamp) {
+    public void sortRecords(CSVSimulationDTO csvConfig, long startTimestamp, long endTimestamp) {
         try {
             csvParser = parseFile(csvConfig.getDelimiter());
-            return createEventsMap(csvConfig, streamAttributes, startTimestamp,
-                    endTimestamp);
+            initializeIndices(csvConfig);
+            recordSorter = new CSVRecordSorter(SORT_CHUNK_SIZE);
+            addRecords(csvConfig, startTimestamp, endTimestamp);
+            recordSorter.sort();
         } catch (IOException e) {
-            log.error("Error occurred when initializing CSVParser for CSV file '" + csvConfig.getFileName() + "' to " +
+            log.error("Error occurred when sorting the records of CSV file '" + csvConfig.getFileName() + "' to " +
                     "simulate stream '" + csvConfig.getStreamName() + "' using source configuration : " +
                     csvConfig.toString(), e);
-            throw new EventGenerationException("Error occurred when initializing CSVParser for CSV file '" +
+            closeParser(csvConfig.getFileName(), false);
+            throw new EventGenerationException("Error occurred when sorting the records of CSV file '" +
                     csvConfig.getFileName() + "' to simulate stream '" + csvConfig.getStreamName() + "' using source " +
                     "configuration : " + csvConfig.toString(), e);
         } finally {
+            closeFileParser(csvConfig.getFileName());
+        }
+    }
+
+
+    /**
+     * If the CSV is not ordered by timestamp, this method produces the event with the next least timestamp, once the
+     * records are sorted using sortRecords()
+     *
+     * @param csvConfig        configuration of csv simulation
+     * @param streamAttributes list of attributes of the stream to which events are produced
+     * @return event produced, or null if there are no more events
+     */
+    public Event getNextSortedEvent(CSVSimulationDTO csvConfig, List<Attribute> streamAttributes) {
+        try {
+            while (recordSorter.next()) {
+                try {
+                    Event event = EventConverter.eventConverter(streamAttributes, recordSorter.getValues(),
+                            recordSorter.getTimestamp());
+                    eventNumber++;
+                    return event;
+                } catch (EventGenerationException e) {
+                    log.error("Error occurred when generating event using CSV event generator to simulate" +
+                            " stream '" + csvConfig.getStreamName() + "' using source configuration : " +
+                            csvConfig.toString() + "Drop event and create next event.", e);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            log.error("Error occurred when reading the sorted records of CSV file '" + csvConfig.getFileName() +
+                    "' to simulate stream '" + csvConfig.getStreamName() + "' using source configuration : " +
+                    csvConfig.toString(), e);
             closeParser(csvConfig.getFileName(), false);
+            throw new EventGenerationException("Error occurred when reading the sorted records of CSV file '" +
+                    csvConfig.getFileName() + "' to simulate stream '" + csvConfig.getStreamName() + "' using source " +
+                    "configuration : " + csvConfig.toString(), e);
         }
     }
 
@@ -239,75 +271,68 @@ public class CSVReader {
 
 
     /**
-     * createEventsMap() methods creates a treeMap of events using the data in the CSV file.
-     * The key of the treeMap will be the event timestamp and the value will be an array list of events belonging to
-     * the timestamp.
+     * addRecords() method adds the records of the CSV file to the record sorter.
+     * Only the records within the timestamp range are added, along with the data elements required for events.
      *
-     * @param csvConfig        configuration of csv simulation
-     * @param streamAttributes list of attributes of the stream to which events are produced
-     * @param startTimestamp   start timestamp of event simulation
-     * @param endTimestamp     end timestamp of event simulation
-     * @return a treeMap of events
+     * @param csvConfig      configuration of csv simulation
+     * @param startTimestamp start timestamp of event simulation
+     * @param endTimestamp   end timestamp of event simulation
+     * @throws IOException if an error occurs when writing the sorted records to a temporary file
      */
-    private TreeMap<Long, ArrayList<Event>> createEventsMap(CSVSimulationDTO csvConfig,
-                                                            List<Attribute> streamAttributes,
-                                                            long startTimestamp, long endTimestamp) {
-        TreeMap<Long, ArrayList<Event>> eventsMap = new TreeMap<>();
+    private void addRecords(CSVSimulationDTO csvConfig, long startTimestamp, long endTimestamp) throws IOException {
         int timestampPosition = Integer.parseInt(csvConfig.getTimestampAttribute());
         long lineNumber;
         long timestamp;
-        List<Integer> indices = csvConfig.getIndices();
-        Event event;
-        if (csvParser != null) {
-            for (CSVRecord record : csvParser) {
-                lineNumber = csvParser.getCurrentLineNumber();
-                ArrayList<String> attributes = new ArrayList<>();
-                for (String attribute : record) {
-                    attributes.add(attribute);
-                }
-                /*
-                 * retrieve the value at the position specified by timestamp attribute as the timestamp
-                 * if the timestamp is within the range specified by the startTimestamp and endTimestamp, proceed to
-                 * creating an event, else ignore record and proceed to next record
-                 * retrieve the data elements required for event using record using the indices specified
-                 * */
-                try {
-                    timestamp = Long.parseLong(attributes.get(timestampPosition));
-                    if (timestamp >= startTimestamp) {
-                        if (endTimestamp == -1 || timestamp <= endTimestamp) {
-                            List<String> eventData = new ArrayList<>();
-                            indices.forEach(index -> eventData.add(attributes.get(index)));
-                            try {
-                                event = EventConverter.eventConverter(streamAttributes, eventData.toArray(), timestamp);
-                            } catch (EventGenerationException e) {
-                                log.error("Error occurred when generating event using CSV event generator to simulate" +
-                                        " stream '" + csvConfig.getStreamName() + "' using source configuration : " +
-                                        csvConfig.toString() + "Drop event and create next event.", e);
-                                continue;
-                            }
-                            if (!eventsMap.containsKey(timestamp)) {
-                                eventsMap.put(timestamp, new ArrayList<>(Collections.singletonList(event)));
-                            } else {
-                                eventsMap.get(timestamp).add(event);
-                            }
-                        }
+        for (CSVRecord record : csvParser) {
+            lineNumber = csvParser.getCurrentLineNumber();
+            /*
+             * retrieve the value at the position specified by timestamp attribute as the timestamp
+             * if the timestamp is within the range specified by the startTimestamp and endTimestamp, proceed to
+             * sorting the record, else ignore record and proceed to next record
+             * retrieve the data elements required for event using record using the indices specified
+             * */
+            try {
+                timestamp = Long.parseLong(record.get(timestampPosition));
+                if (timestamp >= startTimestamp && (endTimestamp == -1 || timestamp <= endTimestamp)) {
+                    String[] values = new String[indices.length];
+                    for (int i = 0; i < indices.length; i++) {
+                        values[i] = record.get(indices[i]);
                     }
-                } catch (NumberFormatException e) {
-                    log.warn("Invalid data '" + attributes.get(timestampPosition) + "' provided for timestamp" +
-                            "attribute in line " + lineNumber + ". Line content : " + attributes + ". " +
-                            "Ignore line and read next line. Source configuration : " + csvConfig.toString());
-                } catch (IndexOutOfBoundsException e) {
-                    log.warn("Cannot retrieve data elements from line " + lineNumber + " for all indices "  +
-                            indices + ". Line content : " + attributes + ". Ignore line and read next line." +
-                            " Source configuration : " + csvConfig.toString());
+                    recordSorter.add(timestamp, values);
                 }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid data '" + record.get(timestampPosition) + "' provided for timestamp" +
+                        "attribute in line " + lineNumber + ". Line content : " + getValues(record) + ". " +
+                        "Ignore line and read next line. Source configuration : " + csvConfig.toString());
+            } catch (IndexOutOfBoundsException e) {
+                log.warn("Cannot retrieve data elements from line " + lineNumber + " for all indices "  +
+                        csvConfig.getIndices() + ". Line content : " + getValues(record) + ". Ignore line and " +
+                        "read next line. Source configuration : " + csvConfig.toString());
             }
         }
         if (log.isDebugEnabled()) {
-            log.debug("Create an ordered events map from CSV file '" + csvConfig.getFileName() + "' to simulate " +
-                    "stream '" + csvConfig.getStreamName() + "'.");
+            log.debug("Sort the records of CSV file '" + csvConfig.getFileName() + "' to simulate stream '" +
+                    csvConfig.getStreamName() + "'.");
+        }
+    }
+
+
+    private void initializeIndices(CSVSimulationDTO csvConfig) {
+        List<Integer> indexList = csvConfig.getIndices();
+        indices = new int[indexList.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = indexList.get(i);
         }
-        return eventsMap;
+        eventData = new Object[indices.length];
+    }
+
+
+    private static List<String> getValues(CSVRecord record) {
+        List<String> values = new ArrayList<>(record.size());
+        for (String value : record) {
+            values.add(value);
+        }
+        return values;
     }
 
 
@@ -317,25 +342,40 @@ public class CSVReader {
      * @param isOrdered bool indicating whether the entries in CSV file are ordered or not
      */
     public void closeParser(String fileName, boolean isOrdered) {
+        if (isOrdered) {
+            try {
+                if (fileReader != null) {
+                    fileReader.close();
+                }
+            } catch (IOException e) {
+                log.error("Error occurred when closing CSV resources used for CSV file '" + fileName + "'", e);
+            }
+        } else {
+            closeFileParser(fileName);
+            if (recordSorter != null) {
+                recordSorter.close();
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Close resources used for CSV file '" + fileName + "'.");
+        }
+    }
+
+
+    /**
+     * closeFileParser() method is used to close the CSV file, once its records are sorted
+     */
+    private void closeFileParser(String fileName) {
         try {
             if (fileReader != null) {
                 fileReader.close();
             }
-            if (isOrdered) {
-                if (bufferedReader != null) {
-                    bufferedReader.close();
-                }
-            } else {
-                if (csvParser != null && !csvParser.isClosed()) {
-                    csvParser.close();
-                }
+            if (csvParser != null && !csvParser.isClosed()) {
+                csvParser.close();
             }
         } catch (IOException e) {
             log.error("Error occurred when closing CSV resources used for CSV file '" + fileName + "'", e);
         }
-        if (log.isDebugEnabled()) {
-            log.debug("Close resources used for CSV file '" + fileName + "'.");
-        }
     }
 
 }
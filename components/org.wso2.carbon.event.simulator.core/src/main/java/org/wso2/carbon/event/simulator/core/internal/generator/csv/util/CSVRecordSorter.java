@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.csv.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * CSVRecordSorter sorts the records of a CSV file which is not ordered by timestamp, using a bounded amount of
+ * memory. Records are collected in chunks of a fixed number of records. Unless the whole file fits in a single
+ * chunk, each chunk is sorted by timestamp and written to a temporary file, and the sorted chunks are merged by
+ * reading a record at a time from each of them. Records having the same timestamp are kept in the order they appear
+ * in the file.
+ */
+public class CSVRecordSorter implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(CSVRecordSorter.class);
+    private static final int FILE_BUFFER_SIZE = 16384;
+    private static final Comparator<SortedRecord> RECORD_COMPARATOR = Comparator.comparingLong(record ->
+            record.timestamp);
+
+    private int chunkSize;
+    private List<SortedRecord> chunk = new ArrayList<>();
+    private List<File> chunkFiles = new ArrayList<>();
+    private List<Integer> chunkRecordCounts = new ArrayList<>();
+    private int nextRecordIndex = 0;
+    private PriorityQueue<ChunkCursor> chunkCursors;
+    private List<ChunkCursor> openChunkCursors = new ArrayList<>();
+    private SortedRecord currentRecord;
+
+    /**
+     * @param chunkSize maximum number of records held in memory
+     */
+    public CSVRecordSorter(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * add() adds a record to be sorted
+     *
+     * @param timestamp timestamp of the record
+     * @param values    values of the record
+     * @throws IOException if an error occurs when writing the sorted chunk to a temporary file
+     */
+    public void add(long timestamp, String[] values) throws IOException {
+        chunk.add(new SortedRecord(timestamp, values));
+        if (chunk.size() == chunkSize) {
+            writeChunk();
+        }
+    }
+
+    /**
+     * sort() sorts the records added, after which the records can be retrieved in the order of their timestamps
+     *
+     * @throws IOException if an error occurs when writing or reading the sorted chunks
+     */
+    public void sort() throws IOException {
+        if (chunkFiles.isEmpty()) {
+            chunk.sort(RECORD_COMPARATOR);
+            return;
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk();
+        }
+        // Records of the earlier chunks take precedence when the timestamps are equal, which keeps the sort stable
+        chunkCursors = new PriorityQueue<>(chunkFiles.size(), Comparator.<ChunkCursor>comparingLong(cursor ->
+                cursor.record.timestamp).thenComparingInt(cursor -> cursor.chunkIndex));
+        for (int i = 0; i < chunkFiles.size(); i++) {
+            ChunkCursor chunkCursor = new ChunkCursor(i, chunkFiles.get(i), chunkRecordCounts.get(i));
+            openChunkCursors.add(chunkCursor);
+            if (chunkCursor.next()) {
+                chunkCursors.add(chunkCursor);
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Merging " + chunkFiles.size() + " sorted chunks of CSV records.");
+        }
+    }
+
+    /**
+     * next() moves to the record with the next least timestamp
+     *
+     * @return false if there are no more records
+     * @throws IOException if an error occurs when reading the sorted chunks
+     */
+    public boolean next() throws IOException {
+        if (chunkCursors == null) {
+            if (nextRecordIndex < chunk.size()) {
+                currentRecord = chunk.get(nextRecordIndex);
+                // Releases the records already retrieved
+                chunk.set(nextRecordIndex++, null);
+                return true;
+            }
+            currentRecord = null;
+            return false;
+        }
+        ChunkCursor chunkCursor = chunkCursors.poll();
+        if (chunkCursor == null) {
+            currentRecord = null;
+            return false;
+        }
+        currentRecord = chunkCursor.record;
+        if (chunkCursor.next()) {
+            chunkCursors.add(chunkCursor);
+        }
+        return true;
+    }
+
+    public long getTimestamp() {
+        return currentRecord.timestamp;
+    }
+
+    public String[] getValues() {
+        return currentRecord.values;
+    }
+
+    /**
+     * close() releases the records and deletes the temporary files
+     */
+    @Override
+    public void close() {
+        chunk.clear();
+        currentRecord = null;
+        for (ChunkCursor chunkCursor : openChunkCursors) {
+            chunkCursor.close();
+        }
+        openChunkCursors.clear();
+        for (File chunkFile : chunkFiles) {
+            if (!chunkFile.delete()) {
+                chunkFile.deleteOnExit();
+            }
+        }
+        chunkFiles.clear();
+        chunkCursors = null;
+    }
+
+    private void writeChunk() throws IOException {
+        chunk.sort(RECORD_COMPARATOR);
+        File chunkFile = File.createTempFile("csv-simulation-", ".chunk");
+        chunkFiles.add(chunkFile);
+        chunkRecordCounts.add(chunk.size());
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(chunkFile), FILE_BUFFER_SIZE))) {
+            for (SortedRecord record : chunk) {
+                outputStream.writeLong(record.timestamp);
+                outputStream.writeInt(record.values.length);
+                for (String value : record.values) {
+                    if (value == null) {
+                        outputStream.writeInt(-1);
+                    } else {
+                        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                        outputStream.writeInt(bytes.length);
+                        outputStream.write(bytes);
+                    }
+                }
+            }
+        }
+        chunk.clear();
+    }
+
+    /**
+     * Record along with its timestamp.
+     */
+    private static class SortedRecord {
+        private long timestamp;
+        private String[] values;
+
+        SortedRecord(long timestamp, String[] values) {
+            this.timestamp = timestamp;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Reads the records of a sorted chunk one at a time.
+     */
+    private static class ChunkCursor {
+        private int chunkIndex;
+        private File chunkFile;
+        private int remainingRecords;
+        private DataInputStream inputStream;
+        private SortedRecord record;
+
+        ChunkCursor(int chunkIndex, File chunkFile, int recordCount) {
+            this.chunkIndex = chunkIndex;
+            this.chunkFile = chunkFile;
+            this.remainingRecords = recordCount;
+        }
+
+        boolean next() throws IOException {
+            if (remainingRecords == 0) {
+                close();
+                return false;
+            }
+            if (inputStream == null) {
+                inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(chunkFile),
+                        FILE_BUFFER_SIZE));
+            }
+            long timestamp = inputStream.readLong();
+            String[] values = new String[inputStream.readInt()];
+            for (int i = 0; i < values.length; i++) {
+                int length = inputStream.readInt();
+                if (length >= 0) {
+                    byte[] bytes = new byte[length];
+                    inputStream.readFully(bytes);
+                    values[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+            }
+            record = new SortedRecord(timestamp, values);
+            remainingRecords--;
+            return true;
+        }
+
+        void close() {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    log.error("Error occurred when closing the sorted chunk of CSV records '" +
+                            chunkFile.getName() + "'", e);
+                }
+                inputStream = null;
+            }
+        }
+    }
+}
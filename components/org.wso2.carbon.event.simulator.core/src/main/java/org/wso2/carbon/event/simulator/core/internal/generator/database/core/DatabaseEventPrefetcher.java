@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.database.core;
+
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.event.simulator.core.exception.EventGenerationException;
+import org.wso2.carbon.event.simulator.core.internal.bean.DBSimulationDTO;
+import org.wso2.carbon.event.simulator.core.internal.generator.database.util.DatabaseConnector;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DatabaseEventPrefetcher reads the rows of a database simulation source in a background thread and queues them as
+ * events, so that the simulation does not wait on the database. At most fetchSize events are queued at a time.
+ * If a timestamp column is given, the rows are retrieved in pages of fetchSize rows ordered by the timestamp column,
+ * each page starting after the last timestamp of the previous page. Else the rows are streamed by a single query.
+ */
+class DatabaseEventPrefetcher implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(DatabaseEventPrefetcher.class);
+    private static final Event END_OF_EVENTS = new Event();
+    private final DatabaseConnector databaseConnection;
+    private final DBSimulationDTO dbSimulationConfig;
+    private final List<Attribute> streamAttributes;
+    private final long startTimestamp;
+    private final long endTimestamp;
+    private final int fetchSize;
+    private final BlockingQueue<Event> events;
+    private volatile boolean stopped = false;
+    private volatile Exception failure;
+    private Thread thread;
+
+    DatabaseEventPrefetcher(DatabaseConnector databaseConnection, DBSimulationDTO dbSimulationConfig,
+                            List<Attribute> streamAttributes, long startTimestamp, long endTimestamp) {
+        this.databaseConnection = databaseConnection;
+        this.dbSimulationConfig = dbSimulationConfig;
+        this.streamAttributes = streamAttributes;
+        this.startTimestamp = startTimestamp;
+        this.endTimestamp = endTimestamp;
+        this.fetchSize = dbSimulationConfig.getFetchSize();
+        this.events = new ArrayBlockingQueue<>(fetchSize);
+    }
+
+    void start() {
+        thread = new Thread(this, "DatabaseEventPrefetcher-" + dbSimulationConfig.getStreamName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * stop() stops reading rows and waits until the database resources are no longer used by the prefetcher, so that
+     * the connection is not closed while a query is being executed. The query being executed is cancelled, since
+     * interrupting the thread does not stop a driver waiting on the database.
+     */
+    void stop() {
+        stopped = true;
+        if (thread != null) {
+            thread.interrupt();
+            databaseConnection.cancelQuery();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+                while (thread.isAlive()) {
+                    log.warn("Waiting for the query of the simulation of stream '" +
+                            dbSimulationConfig.getStreamName() + "' to be cancelled.");
+                    // a query may have started after the previous attempt to cancel it
+                    databaseConnection.cancelQuery();
+                    thread.join(TimeUnit.SECONDS.toMillis(5));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        events.clear();
+    }
+
+    /**
+     * next() waits until the next event is read
+     *
+     * @return next event, or null if there are no more events
+     */
+    Event next() {
+        try {
+            Event event = events.take();
+            if (event == END_OF_EVENTS) {
+                // keep the marker so that later calls return null as well
+                events.offer(END_OF_EVENTS);
+                if (failure != null) {
+                    throw new EventGenerationException("Error occurred when accessing result set to simulate "
+                                                               + "stream '" + dbSimulationConfig.getStreamName()
+                                                               + "' using source configuration "
+                                                               + dbSimulationConfig.toString(), failure);
+                }
+                return null;
+            }
+            return event;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            try {
+                if (dbSimulationConfig.getTimestampAttribute() != null) {
+                    readPages();
+                } else {
+                    readAll();
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (stopped) {
+                    return;
+                }
+                failure = e;
+            }
+            events.put(END_OF_EVENTS);
+        } catch (InterruptedException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Stop reading rows to simulate stream '" + dbSimulationConfig.getStreamName() + "'");
+            }
+        }
+    }
+
+    private void readAll() throws SQLException, InterruptedException {
+        ResultSet resultSet = databaseConnection.getDatabaseEventItems(dbSimulationConfig.getTableName(),
+                dbSimulationConfig.getColumnNames(), null, startTimestamp, endTimestamp);
+        while (!stopped && resultSet.next()) {
+            events.put(new Event(-1, readAttributeValues(resultSet, 1)));
+        }
+    }
+
+    /**
+     * readPages() reads the rows in pages ordered by the timestamp column. Rows having the same timestamp may span
+     * two pages, hence the rows having the last timestamp of a full page are read again with the next page. If all
+     * the rows of a full page have the same timestamp, all the rows having that timestamp are read at once.
+     */
+    private void readPages() throws SQLException, InterruptedException {
+        long afterTimestamp = startTimestamp - 1;
+        List<Event> page = new ArrayList<>(fetchSize);
+        while (!stopped) {
+            page.clear();
+            ResultSet resultSet = databaseConnection.getDatabaseEventPage(afterTimestamp, endTimestamp, fetchSize);
+            while (resultSet.next()) {
+                page.add(new Event(resultSet.getLong(1), readAttributeValues(resultSet, 2)));
+            }
+            if (page.size() < fetchSize) {
+                for (Event event : page) {
+                    events.put(event);
+                }
+                return;
+            }
+            long lastTimestamp = page.get(page.size() - 1).getTimestamp();
+            if (page.get(0).getTimestamp() == lastTimestamp) {
+                resultSet = databaseConnection.getDatabaseEventsAt(lastTimestamp);
+                while (!stopped && resultSet.next()) {
+                    events.put(new Event(lastTimestamp, readAttributeValues(resultSet, 2)));
+                }
+                afterTimestamp = lastTimestamp;
+            } else {
+                for (Event event : page) {
+                    if (event.getTimestamp() == lastTimestamp) {
+                        break;
+                    }
+                    events.put(event);
+                    afterTimestamp = event.getTimestamp();
+                }
+            }
+        }
+    }
+
+    /**
+     * readAttributeValues() reads the stream attribute values of the current row, using the getter of the type of
+     * each attribute
+     *
+     * @param resultSet   result set positioned at a row
+     * @param firstColumn index of the column of the first attribute
+     * @return attribute values
+     */
+    private Object[] readAttributeValues(ResultSet resultSet, int firstColumn) throws SQLException {
+        Object[] attributeValues = new Object[streamAttributes.size()];
+        for (int i = 0; i < attributeValues.length; i++) {
+            int column = firstColumn + i;
+            switch (streamAttributes.get(i).getType()) {
+                case STRING:
+                    attributeValues[i] = resultSet.getString(column);
+                    break;
+                case INT:
+                    attributeValues[i] = resultSet.getInt(column);
+                    break;
+                case DOUBLE:
+                    attributeValues[i] = resultSet.getDouble(column);
+                    break;
+                case FLOAT:
+                    attributeValues[i] = resultSet.getFloat(column);
+                    break;
+                case BOOL:
+                    attributeValues[i] = resultSet.getBoolean(column);
+                    break;
+                case LONG:
+                    attributeValues[i] = resultSet.getLong(column);
+                    break;
+                default:
+//                this statement is never reached since attribute type is an enum
+            }
+        }
+        return attributeValues;
+    }
+}
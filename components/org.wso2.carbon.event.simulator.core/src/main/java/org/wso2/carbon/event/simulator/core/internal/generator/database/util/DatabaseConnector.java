@@ -25,6 +25,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.event.simulator.core.exception.EventGenerationException;
 import org.wso2.carbon.event.simulator.core.exception.SimulatorInitializationException;
+import org.wso2.carbon.event.simulator.core.internal.util.EventSimulatorConstants;
 import org.wso2.carbon.event.simulator.core.model.DBConnectionModel;
 import org.wso2.carbon.event.simulator.core.util.LogEncoder;
 
@@ -33,6 +34,7 @@ import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
@@ -53,11 +55,18 @@ public class DatabaseConnector {
     private static final String query_attribute_WithBothLimits = "SELECT %s,%s FROM %s WHERE %s >= %d AND %s <= %d " +
             "ORDER BY ABS(%s);";
     private static final String query_interval = "SELECT %s FROM %s;";
+    private static final String query_attribute_Page = "SELECT %s,%s FROM %s WHERE %s > ? AND %s <= ? ORDER BY %s";
+    private static final String query_attribute_AtTimestamp = "SELECT %s,%s FROM %s WHERE %s = ?";
     private HikariDataSource dataSource;
     private Connection dbConnection;
     private String dataSourceLocation;
     private PreparedStatement preparedStatement = null;
     private ResultSet resultSet = null;
+    private PreparedStatement pageStatement = null;
+    private PreparedStatement atTimestampStatement = null;
+    // statement of the last query, which may be cancelled by another thread
+    private volatile Statement executingStatement = null;
+    private int fetchSize = EventSimulatorConstants.DEFAULT_FETCH_SIZE;
 
 
     public DatabaseConnector() {
@@ -89,6 +98,13 @@ public class DatabaseConnector {
                 if (checkTableExists(tableName) && validateColumns(tableName, columnNames)) {
                     prepareSQLstatement(tableName, columnNames, timestampAttribute, timestampStartTime,
                             timestampEndTime);
+                    /*
+                     * some drivers such as PostgreSQL only read the result set in chunks of the fetch size within a
+                     * transaction, instead of buffering the whole result set
+                     * */
+                    dbConnection.setAutoCommit(false);
+                    preparedStatement.setFetchSize(fetchSize);
+                    executingStatement = preparedStatement;
                     this.resultSet = preparedStatement.executeQuery();
                 }
             } else {
@@ -113,6 +129,109 @@ public class DatabaseConnector {
         return resultSet;
     }
 
+    /**
+     * prepareEventPageQueries() validates the table and columns, and prepares the queries used to retrieve the rows
+     * of a table in pages ordered by the timestamp column
+     *
+     * @param tableName          table from which data must be retrieved
+     * @param columnNames        list of columns to be retrieved
+     * @param timestampAttribute column containing timestamp
+     */
+    @SuppressWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    public void prepareEventPageQueries(String tableName, List<String> columnNames, String timestampAttribute) {
+        String columns = String.join(",", columnNames);
+        try {
+            if (dbConnection != null && !dbConnection.isClosed()) {
+                if (checkTableExists(tableName) && validateColumns(tableName, columnNames)) {
+                    pageStatement = dbConnection.prepareStatement(String.format(query_attribute_Page,
+                            timestampAttribute, columns, tableName, timestampAttribute, timestampAttribute,
+                            timestampAttribute));
+                    pageStatement.setFetchSize(fetchSize);
+                    atTimestampStatement = dbConnection.prepareStatement(String.format(query_attribute_AtTimestamp,
+                            timestampAttribute, columns, tableName, timestampAttribute));
+                    atTimestampStatement.setFetchSize(fetchSize);
+                }
+            } else {
+                throw new EventGenerationException("Unable to connect to source '" + dataSourceLocation + "' to " +
+                        "retrieve data for the configuration, table name : '" + tableName + "', column names : '" +
+                        columnNames + "' and timestamp attribute : '" + timestampAttribute + "'.");
+            }
+        } catch (SQLException e) {
+            log.error("Error occurred when forming prepared statements for the configuration table name : '" +
+                    tableName + "', columns : '" + columns + "' and timestamp attribute : '" + timestampAttribute +
+                    "'. ", e);
+            closeConnection();
+            throw new EventGenerationException("Error occurred when forming prepared statements for the " +
+                    "configuration table name : '" + tableName + "', columns : '" + columns + "' and timestamp " +
+                    "attribute : '" + timestampAttribute + "'. ", e);
+        }
+    }
+
+    /**
+     * getDatabaseEventPage() retrieves the rows having timestamps after the given timestamp, in the order of their
+     * timestamps. Only the index of the timestamp column is needed to skip the rows retrieved earlier, unlike
+     * paginating using offsets.
+     *
+     * @param afterTimestamp   timestamp of the last row retrieved earlier
+     * @param timestampEndTime maximum possible timestamp
+     * @param maxRows          maximum number of rows to be retrieved
+     * @return resultset containing the timestamp column followed by the columns to be retrieved
+     * @throws SQLException if an error occurs when executing the query
+     */
+    public ResultSet getDatabaseEventPage(long afterTimestamp, long timestampEndTime, int maxRows)
+            throws SQLException {
+        closeResultSet();
+        pageStatement.setLong(1, afterTimestamp);
+        pageStatement.setLong(2, timestampEndTime == -1 ? Long.MAX_VALUE : timestampEndTime);
+        pageStatement.setMaxRows(maxRows);
+        executingStatement = pageStatement;
+        this.resultSet = pageStatement.executeQuery();
+        return resultSet;
+    }
+
+    /**
+     * getDatabaseEventsAt() retrieves all the rows having the given timestamp
+     *
+     * @param timestamp timestamp of the rows
+     * @return resultset containing the timestamp column followed by the columns to be retrieved
+     * @throws SQLException if an error occurs when executing the query
+     */
+    public ResultSet getDatabaseEventsAt(long timestamp) throws SQLException {
+        closeResultSet();
+        atTimestampStatement.setLong(1, timestamp);
+        executingStatement = atTimestampStatement;
+        this.resultSet = atTimestampStatement.executeQuery();
+        return resultSet;
+    }
+
+    /**
+     * cancelQuery() cancels the last query from another thread, so that the thread executing the query or reading
+     * its result set stops using the connection. The query is cancelled by the driver, and the thread using it gets
+     * an SQLException.
+     */
+    public void cancelQuery() {
+        Statement statement = executingStatement;
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                log.warn("Error occurred when cancelling the query executed on data source '" + dataSourceLocation +
+                        "'. ", e);
+            }
+        }
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    private void closeResultSet() throws SQLException {
+        if (resultSet != null) {
+            resultSet.close();
+            resultSet = null;
+        }
+    }
+
     /**
      * This method loads the JDBC driver and creates a database connection
      *
@@ -336,6 +455,12 @@ public class DatabaseConnector {
             if (preparedStatement != null) {
                 preparedStatement.close();
             }
+            if (pageStatement != null) {
+                pageStatement.close();
+            }
+            if (atTimestampStatement != null) {
+                atTimestampStatement.close();
+            }
             if (dbConnection != null && !dbConnection.isClosed()) {
                 dbConnection.close();
                 dataSource.close();
@@ -21,10 +21,13 @@ package org.wso2.carbon.event.simulator.core.internal.generator.random;
 import org.json.JSONObject;
 import io.siddhi.query.api.definition.Attribute;
 
+import java.util.SplittableRandom;
+
 /**
  * RandomAttrGenAbstractImpl class overloads the createRandomAttributeDTO() of RandomAttributeGenerator
  */
 public abstract class RandomAttrGenAbstractImpl implements RandomAttributeGenerator {
+    protected SplittableRandom random = new SplittableRandom();
 
     public void createRandomAttributeDTO(Attribute.Type attributeType, JSONObject attributeConfig) {
         createRandomAttributeDTO(attributeConfig);
@@ -32,4 +35,9 @@ public abstract class RandomAttrGenAbstractImpl implements RandomAttributeGenera
 
     public abstract void createRandomAttributeDTO(JSONObject attributeConfig);
 
+    @Override
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
 }
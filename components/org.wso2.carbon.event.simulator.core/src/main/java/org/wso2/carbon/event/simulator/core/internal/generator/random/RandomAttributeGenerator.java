@@ -22,6 +22,8 @@ import org.json.JSONObject;
 import org.wso2.carbon.event.simulator.core.exception.InvalidConfigException;
 import io.siddhi.query.api.definition.Attribute;
 
+import java.util.SplittableRandom;
+
 /**
  * RandomAttributeGenerator interface defines common methods used by all random attribute generators
  * This interface is implemented by
@@ -42,6 +44,14 @@ public interface RandomAttributeGenerator {
 
     void createRandomAttributeDTO(Attribute.Type attributeType, JSONObject attributeConfig);
 
+    /**
+     * setRandom() sets the source of random values used by the generator. The generator is only used by one thread
+     * at a time, hence it is not shared with other generators.
+     *
+     * @param random source of random values
+     */
+    void setRandom(SplittableRandom random);
+
     /**
      * enum RandomDataGeneratorType specifies the random simulation types supported
      **/
@@ -40,6 +40,7 @@ import io.siddhi.query.api.definition.Attribute;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
 
 import static org.wso2.carbon.event.simulator.core.internal.util.CommonOperations.checkAvailability;
 import static org.wso2.carbon.event.simulator.core.internal.util.CommonOperations.checkAvailabilityOfArray;
@@ -158,6 +159,38 @@ public class RandomEventGenerator implements EventGenerator {
     }
 
 
+    /**
+     * poll() method fills the given array with the next events of the generator, in the order of their timestamps
+     *
+     * @param events array to be filled
+     * @return number of events filled, which is less than the length of the array only if the generator will not
+     * produce any more events
+     */
+    public int poll(Event[] events) {
+        return poll(events, 0, events.length, Long.MAX_VALUE);
+    }
+
+    /**
+     * poll() method fills the given range of the array with the next events of the generator, without going through
+     * peek() and poll() for each event
+     *
+     * @param events         array to be filled
+     * @param offset         index of the array at which the first event is filled
+     * @param length         maximum number of events to be filled
+     * @param timestampLimit timestamp before which the events are filled
+     * @return number of events filled
+     */
+    @Override
+    public int poll(Event[] events, int offset, int length, long timestampLimit) {
+        int count = 0;
+        while (count < length && nextEvent != null && nextEvent.getTimestamp() < timestampLimit) {
+            events[offset + count++] = nextEvent;
+            getNextEvent();
+        }
+        return count;
+    }
+
+
     /**
      * peek() method is used to access the nextEvent of generator
      *
@@ -362,17 +395,28 @@ public class RandomEventGenerator implements EventGenerator {
     private RandomSimulationDTO createRandomConfiguration(JSONObject sourceConfig, String simulationName)
             throws InvalidConfigException {
         try {
-//            create attribute generators for each attribute configuration
+//            create a RandomSimulationDTO object containing random simulation configuration
+            RandomSimulationDTO randomSimulationDTO = new RandomSimulationDTO();
+            if (checkAvailability(sourceConfig, EventSimulatorConstants.RANDOM_SEED)) {
+                randomSimulationDTO.setSeed(sourceConfig.getLong(EventSimulatorConstants.RANDOM_SEED));
+            }
+            /*
+             * create attribute generators for each attribute configuration.
+             * each attribute generator is given its own random number generator split from the random number
+             * generator of the source, hence the values are reproducible when a seed is given
+             * */
+            SplittableRandom random = randomSimulationDTO.getSeed() != null ?
+                    new SplittableRandom(randomSimulationDTO.getSeed()) : new SplittableRandom();
             RandomAttrGeneratorFactoryImpl attrGeneratorFactory = new RandomAttrGeneratorFactoryImpl();
             randomAttrGenerators = new ArrayList<>();
             for (int i = 0; i < sourceConfig.getJSONArray(EventSimulatorConstants.ATTRIBUTE_CONFIGURATION).
                     length(); i++) {
-                randomAttrGenerators.add(attrGeneratorFactory.createRandomAttrGenerator(
+                RandomAttributeGenerator randomAttributeGenerator = attrGeneratorFactory.createRandomAttrGenerator(
                         sourceConfig.getJSONArray(EventSimulatorConstants.ATTRIBUTE_CONFIGURATION).
-                                getJSONObject(i), streamAttributes.get(i).getType()));
+                                getJSONObject(i), streamAttributes.get(i).getType());
+                randomAttributeGenerator.setRandom(random.split());
+                randomAttrGenerators.add(randomAttributeGenerator);
             }
-//            create a RandomSimulationDTO object containing random simulation configuration
-            RandomSimulationDTO randomSimulationDTO = new RandomSimulationDTO();
             randomSimulationDTO.setStreamName(sourceConfig.getString(EventSimulatorConstants.STREAM_NAME));
             randomSimulationDTO.setSiddhiAppName(sourceConfig
                                                          .getString(EventSimulatorConstants.EXECUTION_PLAN_NAME));
@@ -27,7 +27,6 @@ import org.wso2.carbon.event.simulator.core.internal.util.EventSimulatorConstant
 import org.wso2.carbon.streaming.integrator.common.exception.ResourceNotFoundException;
 import io.siddhi.query.api.definition.Attribute;
 
-import java.security.SecureRandom;
 import java.util.ArrayList;
 
 import static org.wso2.carbon.event.simulator.core.internal.util.CommonOperations.checkAvailabilityOfArray;
@@ -101,7 +100,6 @@ public class CustomBasedAttrGenerator extends RandomAttrGenAbstractImpl {
          * randomElementSelector will be assigned a pseudoRandom integer value from 0 to (datalist.length - 1)
          * the data element in the randomElementSelector's position will be assigned to result and returned
          * */
-        SecureRandom random = new SecureRandom();
         int randomElementSelector = random.nextInt(customBasedAttrConfig.getCustomDataList().size());
         return customBasedAttrConfig.getCustomDataList().get(randomElementSelector);
     }
@@ -28,10 +28,8 @@ import org.wso2.carbon.event.simulator.core.internal.util.EventSimulatorConstant
 import org.wso2.carbon.streaming.integrator.common.exception.ResourceNotFoundException;
 import io.siddhi.query.api.definition.Attribute;
 
-import fabricator.Alphanumeric;
-import fabricator.Fabricator;
-
 import java.text.DecimalFormat;
+import java.util.SplittableRandom;
 
 import static org.wso2.carbon.event.simulator.core.internal.util.CommonOperations.checkAvailability;
 
@@ -40,8 +38,17 @@ import static org.wso2.carbon.event.simulator.core.internal.util.CommonOperation
  */
 public class PrimitiveBasedAttrGenerator implements RandomAttributeGenerator {
     private static final Logger log = LoggerFactory.getLogger(PrimitiveBasedAttrGenerator.class);
-    private static final Alphanumeric alpha = Fabricator.alphaNumeric();
+    private static final char[] ALPHANUMERIC_CHARACTERS =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
     private PrimitiveBasedAttributeDTO primitiveBasedAttrConfig = new PrimitiveBasedAttributeDTO();
+    private SplittableRandom random = new SplittableRandom();
+    // bounds and format of the configuration, parsed when the first value is generated
+    private boolean boundsParsed = false;
+    private long minLong;
+    private long maxLong;
+    private double min;
+    private double max;
+    private DecimalFormat format;
 
     /**
      * PrimitiveBasedAttrGenerator() constructor
@@ -173,45 +180,52 @@ public class PrimitiveBasedAttrGenerator implements RandomAttributeGenerator {
             switch (primitiveBasedAttrConfig.getAttrType()) {
                 case INT:
 //                    generate a random integer between the minimum and maximum value specified
-                    dataValue = alpha.randomInt(Integer.parseInt(primitiveBasedAttrConfig.getMin()),
-                            Integer.parseInt(primitiveBasedAttrConfig.getMax()));
+                    if (!boundsParsed) {
+                        minLong = Integer.parseInt(primitiveBasedAttrConfig.getMin());
+                        maxLong = Integer.parseInt(primitiveBasedAttrConfig.getMax());
+                        boundsParsed = true;
+                    }
+                    dataValue = (int) nextLong(minLong, maxLong);
                     break;
                 case LONG:
 //                    generate a random long between the minimum and maximum value specified
-                    dataValue = alpha.randomLong(Long.parseLong(primitiveBasedAttrConfig.getMin()),
-                            Long.parseLong(primitiveBasedAttrConfig.getMax()));
+                    if (!boundsParsed) {
+                        minLong = Long.parseLong(primitiveBasedAttrConfig.getMin());
+                        maxLong = Long.parseLong(primitiveBasedAttrConfig.getMax());
+                        boundsParsed = true;
+                    }
+                    dataValue = nextLong(minLong, maxLong);
                     break;
                 case FLOAT:
-                    /**
-                     * generate a random float between the minimum and maximum value specified.
-                     * the length defines the number of decimal places the float will have.
-                     * */
-                    DecimalFormat format = new DecimalFormat();
-                    format.setMaximumFractionDigits(primitiveBasedAttrConfig.getLength());
-//                    Format value to given no of decimals
-                    dataValue = (format.format(alpha.randomFloat(Float.parseFloat(primitiveBasedAttrConfig.getMin()),
-                            Float.parseFloat(primitiveBasedAttrConfig.getMax())))).replace(",", "");
-                    break;
                 case DOUBLE:
                     /**
-                     * generate a random float between the minimum and maximum value specified.
-                     * the length defines the number of decimal places the float will have.
-                     * the float value will then be parsed to a double
+                     * generate a random float or double between the minimum and maximum value specified.
+                     * the length defines the number of decimal places the value will have.
                      * */
-                    DecimalFormat formatDouble = new DecimalFormat();
-                    formatDouble.setMaximumFractionDigits(primitiveBasedAttrConfig.getLength());
+                    if (!boundsParsed) {
+                        min = Double.parseDouble(primitiveBasedAttrConfig.getMin());
+                        max = Double.parseDouble(primitiveBasedAttrConfig.getMax());
+                        format = new DecimalFormat();
+                        format.setMaximumFractionDigits(primitiveBasedAttrConfig.getLength());
+                        format.setGroupingUsed(false);
+                        boundsParsed = true;
+                    }
+                    double value = min < max ? random.nextDouble(min, max) : min;
 //                    Format value to given no of decimals
-                    dataValue = (formatDouble.format(alpha.randomDouble(
-                            Double.parseDouble(primitiveBasedAttrConfig.getMin()),
-                            Double.parseDouble(primitiveBasedAttrConfig.getMax())))).replace(",", "");
+                    dataValue = format.format(primitiveBasedAttrConfig.getAttrType() == Attribute.Type.FLOAT ?
+                            (float) value : value);
                     break;
                 case STRING:
 //                    generate a random string of length specified
-                    dataValue = alpha.randomString(primitiveBasedAttrConfig.getLength());
+                    char[] characters = new char[primitiveBasedAttrConfig.getLength()];
+                    for (int i = 0; i < characters.length; i++) {
+                        characters[i] = ALPHANUMERIC_CHARACTERS[random.nextInt(ALPHANUMERIC_CHARACTERS.length)];
+                    }
+                    dataValue = new String(characters);
                     break;
                 case BOOL:
 //                    generate a random boolean
-                    dataValue = alpha.randomBoolean();
+                    dataValue = random.nextBoolean();
                     break;
                 default:
 //                    this statement is never reached since attribute type is an enum
@@ -220,13 +234,28 @@ public class PrimitiveBasedAttrGenerator implements RandomAttributeGenerator {
             log.error("Error occurred when creating a primitive based random data attribute " +
                     "of primitive type '" + primitiveBasedAttrConfig.getAttrType() + "' for attribute" +
                             " configuration:" + primitiveBasedAttrConfig.toString() + "'. ", e);
-//            throw new EventGenerationException("Error occurred when creating a primitive based random " +
-//                    "data attribute of primitive type '" + primitiveBasedAttrConfig.getAttrType() + "' for" +
-//                    " attribute configuration:" + primitiveBasedAttrConfig.toString() + "'. ", e);
         }
         return dataValue;
     }
 
+    /**
+     * nextLong() generates a random long between the minimum and maximum value, both inclusive
+     */
+    private long nextLong(long min, long max) {
+        if (min >= max) {
+            return min;
+        }
+        if (max == Long.MAX_VALUE) {
+            return min == Long.MIN_VALUE ? random.nextLong() : random.nextLong(min - 1, max) + 1;
+        }
+        return random.nextLong(min, max + 1);
+    }
+
+    @Override
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
     @Override
     public String getAttributeConfiguration() {
         return primitiveBasedAttrConfig.toString();
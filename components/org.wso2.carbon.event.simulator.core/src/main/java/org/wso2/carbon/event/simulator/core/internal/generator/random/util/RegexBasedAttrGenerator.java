@@ -41,6 +41,8 @@ import static org.wso2.carbon.event.simulator.core.internal.util.CommonOperation
 public class RegexBasedAttrGenerator extends RandomAttrGenAbstractImpl {
     private static final Logger log = LoggerFactory.getLogger(RegexBasedAttrGenerator.class);
     private RegexBasedAttributeDTO regexBasedAttrConfig = new RegexBasedAttributeDTO();
+    // automaton of the pattern, which is built once since building it costs far more than generating a value
+    private Generex generex;
 
 
     public RegexBasedAttrGenerator() {
@@ -101,6 +103,7 @@ public class RegexBasedAttrGenerator extends RandomAttrGenAbstractImpl {
     public void createRandomAttributeDTO(JSONObject attributeConfig) {
         regexBasedAttrConfig.setPattern(attributeConfig
                 .getString(EventSimulatorConstants.REGEX_BASED_ATTRIBUTE_PATTERN));
+        generex = new Generex(regexBasedAttrConfig.getPattern());
     }
 
     /**
@@ -110,9 +113,7 @@ public class RegexBasedAttrGenerator extends RandomAttrGenAbstractImpl {
      */
     @Override
     public String generateAttribute() {
-        Generex generex = new Generex(regexBasedAttrConfig.getPattern());
         return generex.random();
-//        return null;
     }
 
     @Override
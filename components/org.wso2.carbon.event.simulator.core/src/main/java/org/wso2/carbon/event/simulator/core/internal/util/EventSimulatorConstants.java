@@ -38,6 +38,11 @@ public class EventSimulatorConstants {
     public static final String END_TIMESTAMP = "endTimestamp";
     public static final String SIMULATION_TIME_INTERVAL = "timeInterval";
     public static final String NUMBER_OF_EVENTS_REQUIRED = "noOfEvents";
+    public static final String EVENTS_PER_SECOND = "eventsPerSecond";
+    public static final String SPEED_FACTOR = "speedFactor";
+    public static final String BATCH_SIZE = "batchSize";
+    public static final String SIMULATION_THREADS = "threads";
+    public static final int DEFAULT_BATCH_SIZE = 100;
 
     public static final String JSON_CONFIGURATION_RESOURCE_NAME = "JSON configuration";
     public static final String PROPERTIES_RESOURCE_NAME = "properties";
@@ -66,6 +71,7 @@ public class EventSimulatorConstants {
     //Random data simulation constants
     public static final String ATTRIBUTE_CONFIGURATION = "attributeConfiguration";
     public static final String RANDOM_DATA_GENERATOR_TYPE = "type";
+    public static final String RANDOM_SEED = "seed";
     public static final String CUSTOM_DATA_BASED_ATTRIBUTE_LIST = "list";
     public static final String PRIMITIVE_BASED_ATTRIBUTE_MIN = "min";
     public static final String PRIMITIVE_BASED_ATTRIBUTE_MAX = "max";
@@ -81,4 +87,6 @@ public class EventSimulatorConstants {
     public static final String PASSWORD = "password";
     public static final String TABLE_NAME = "tableName";
     public static final String COLUMN_NAMES_LIST = "columnNamesList";
+    public static final String FETCH_SIZE = "fetchSize";
+    public static final int DEFAULT_FETCH_SIZE = 1000;
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * SimulationPacer computes when each event of a load generating simulation is due, and waits until then.
+ * Events are either due at a fixed rate, or as per their timestamps scaled by a speed factor. Rather than sleeping
+ * for every event, the caller waits once for a batch of events, parking the thread for most of the wait and spinning
+ * only for the last few microseconds so that the events are sent on time.
+ */
+public class SimulationPacer {
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private double nanosPerEvent;
+    private double speedFactor;
+    private long originNanos = -1;
+    private long originEventIndex;
+    private long originTimestamp;
+
+    /**
+     * @param eventsPerSecond number of events due per second, or a non positive value to pace by timestamps
+     * @param speedFactor     speed at which the timestamps are replayed, used when events per second is not set
+     */
+    public SimulationPacer(double eventsPerSecond, double speedFactor) {
+        this.nanosPerEvent = eventsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / eventsPerSecond : -1;
+        this.speedFactor = speedFactor;
+    }
+
+    /**
+     * getDueNanos() returns the time at which an event is due, as per System.nanoTime()
+     *
+     * @param eventIndex number of events of the simulation preceding the event
+     * @param timestamp  timestamp of the event
+     * @return time at which the event is due
+     */
+    public long getDueNanos(long eventIndex, long timestamp) {
+        if (originNanos == -1) {
+            originNanos = System.nanoTime();
+            originEventIndex = eventIndex;
+            originTimestamp = timestamp;
+        }
+        if (nanosPerEvent > 0) {
+            return originNanos + (long) ((eventIndex - originEventIndex) * nanosPerEvent);
+        }
+        return originNanos + (long) (TimeUnit.MILLISECONDS.toNanos(timestamp - originTimestamp) / speedFactor);
+    }
+
+    /**
+     * getEventsDueWithin() returns the number of consecutive events due within the given span after the first of them
+     *
+     * @param spanNanos span in nanoseconds
+     * @return number of events, which is at least 1, or Integer.MAX_VALUE if the events are paced by their timestamps
+     */
+    public int getEventsDueWithin(long spanNanos) {
+        if (nanosPerEvent > 0) {
+            return (int) Math.max(1, Math.min(Integer.MAX_VALUE, (long) Math.ceil(spanNanos / nanosPerEvent)));
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * getTimestampDueAfter() returns the least timestamp of the events which are due the given span or later after an
+     * event having the given timestamp
+     *
+     * @param timestamp timestamp of the first event
+     * @param spanNanos span in nanoseconds
+     * @return timestamp greater than the given timestamp, or Long.MAX_VALUE if the events are due at a fixed rate
+     */
+    public long getTimestampDueAfter(long timestamp, long spanNanos) {
+        if (nanosPerEvent > 0) {
+            return Long.MAX_VALUE;
+        }
+        double spanMillis = spanNanos * speedFactor / TimeUnit.MILLISECONDS.toNanos(1);
+        return timestamp + Math.max(1, (long) Math.min(Long.MAX_VALUE - timestamp, Math.ceil(spanMillis)));
+    }
+
+    /**
+     * reset() makes the next event due immediately, so that the events are not sent in a burst to catch up after the
+     * simulation is resumed
+     */
+    public void reset() {
+        originNanos = -1;
+    }
+
+    /**
+     * awaitDue() waits until the given time
+     *
+     * @param dueNanos time to wait until, as per System.nanoTime()
+     * @return time in nanoseconds by which the given time had already passed, if it had
+     * @throws InterruptedException if the thread is interrupted when waiting
+     */
+    public static long awaitDue(long dueNanos) throws InterruptedException {
+        long remainingNanos = dueNanos - System.nanoTime();
+        while (remainingNanos > SPIN_THRESHOLD_NANOS) {
+            LockSupport.parkNanos(remainingNanos - SPIN_THRESHOLD_NANOS);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            remainingNanos = dueNanos - System.nanoTime();
+        }
+        while (remainingNanos > 0) {
+            Thread.yield();
+            remainingNanos = dueNanos - System.nanoTime();
+        }
+        return -remainingNanos;
+    }
+}
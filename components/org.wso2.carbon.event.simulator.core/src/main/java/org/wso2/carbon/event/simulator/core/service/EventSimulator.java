@@ -26,19 +26,24 @@ import org.slf4j.LoggerFactory;
 import org.wso2.carbon.event.simulator.core.exception.*;
 import org.wso2.carbon.event.simulator.core.internal.bean.SimulationPropertiesDTO;
 import org.wso2.carbon.event.simulator.core.internal.generator.EventGenerator;
+import org.wso2.carbon.event.simulator.core.internal.generator.EventGeneratorQueue;
 import org.wso2.carbon.event.simulator.core.internal.util.EventGeneratorFactoryImpl;
 import org.wso2.carbon.event.simulator.core.internal.util.EventSimulatorConstants;
+import org.wso2.carbon.event.simulator.core.internal.util.SimulationPacer;
+import org.wso2.carbon.event.simulator.core.service.bean.SimulationStatistics;
 import org.wso2.carbon.event.simulator.core.util.LogEncoder;
 import org.wso2.carbon.streaming.integrator.common.exception.ResourceNotFoundException;
+import io.siddhi.core.event.Event;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.concurrent.NotThreadSafe;
 
-import edu.umd.cs.findbugs.annotations.SuppressWarnings;
 
 import static org.wso2.carbon.event.simulator.core.internal.util.CommonOperations.checkAvailability;
 import static org.wso2.carbon.event.simulator.core.internal.util.CommonOperations.checkAvailabilityOfArray;
@@ -50,15 +55,27 @@ import static org.wso2.carbon.event.simulator.core.internal.util.CommonOperation
 @NotThreadSafe
 public class EventSimulator implements Runnable {
     private static final Logger log = LoggerFactory.getLogger(EventSimulator.class);
+    private static final long MAX_BATCH_SPAN_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
     private List<EventGenerator> generators = new ArrayList<>();
     private SimulationPropertiesDTO simulationProperties;
     private String simulationName;
-    private Status status = Status.STOP;
+    private volatile Status status = Status.STOP;
     private String statusMessage = null;
     // lock is used to pause a simulation
     private final Semaphore lock = new Semaphore(1, true);
-    // lockStop is used to ensure that stop() will not be called in the middle of an event generation(avoid IOException)
-    private final ReentrantLock lockStop = new ReentrantLock();
+    // statusLock makes the changes of status and simulating atomic, the simulation thread only reads status otherwise
+    private final Object statusLock = new Object();
+    // simulating is true while the simulation thread sends events, and only that thread stops the generators then
+    private volatile boolean simulating = false;
+    // generatorsResumed tells the simulation thread to reload the next events of the generators
+    private volatile boolean generatorsResumed = false;
+    private EventGeneratorQueue generatorQueue;
+    // queueLock guards the generator queue, pacer, remainingEvents and sentEventIndex when generating load
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final SimulationStatistics statistics = new SimulationStatistics();
+    private SimulationPacer pacer;
+    private int remainingEvents;
+    private long sentEventIndex;
 
 
     /**
@@ -245,6 +262,32 @@ public class EventSimulator implements Runnable {
                     }
                 }
             }
+            String[] positiveProperties = {EventSimulatorConstants.EVENTS_PER_SECOND,
+                    EventSimulatorConstants.SPEED_FACTOR, EventSimulatorConstants.BATCH_SIZE,
+                    EventSimulatorConstants.SIMULATION_THREADS};
+            for (String property : positiveProperties) {
+                if (checkAvailability(simulationPropertiesConfig, property)
+                        && simulationPropertiesConfig.getDouble(property) <= 0) {
+                    throw new InvalidConfigException(
+                                    ResourceNotFoundException.ResourceType.SIMULATION,
+                                    property,
+                                    "'" + property + "' of simulation '" +
+                                    simulationPropertiesConfig.
+                                            getString(EventSimulatorConstants.EVENT_SIMULATION_NAME) +
+                                    "' must be a positive value. Invalid simulation configuration provided: " +
+                                    simulationPropertiesConfig.toString());
+                }
+            }
+            if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.EVENTS_PER_SECOND)
+                    && checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.SPEED_FACTOR)) {
+                throw new InvalidConfigException(
+                                ResourceNotFoundException.ResourceType.SIMULATION,
+                                EventSimulatorConstants.SPEED_FACTOR,
+                                "Simulation '" +
+                                simulationPropertiesConfig.getString(EventSimulatorConstants.EVENT_SIMULATION_NAME) +
+                                "' must have either eventsPerSecond or speedFactor, but not both. Invalid " +
+                                "simulation configuration provided: " + simulationPropertiesConfig.toString());
+            }
         } catch (JSONException e) {
             log.error("Error occurred when accessing simulation configuration of simulation '" +
                         simulationPropertiesConfig.getString(EventSimulatorConstants.EVENT_SIMULATION_NAME) +
@@ -265,10 +308,7 @@ public class EventSimulator implements Runnable {
      * order of their timestamps
      * Events will be sent at time intervals equal to the delay
      */
-    @SuppressWarnings("SWL_SLEEP_WITH_LOCK_HELD")
     private void eventSimulation() {
-        long minTimestamp;
-        EventGenerator generator;
         int eventsRemaining = simulationProperties.getNoOfEventsRequired();
         try {
             while (!status.equals(Status.STOP) && !status.equals(Status.PENDING_STOP)) {
@@ -277,67 +317,39 @@ public class EventSimulator implements Runnable {
                     lock.acquire();
                     lock.release();
                 }
+                refreshGeneratorQueue();
 
                 /*
                  * if there is no limit to the number of events to be sent or is the number of event remaining to be
                  * sent is > 0, send an event, else stop event simulation
                  * */
                 if (eventsRemaining == -1 || eventsRemaining > 0) {
-                    minTimestamp = -1L;
-                    generator = null;
                     /*
-                     * 1. for each event generator peek the next event (i.e. the next event with least timestamp)
-                     * 2. take the first event generator will a not null nextEvent as the first refferal value for
-                     * generator with minimum timestamp event, and take the events timestamp as the minimum
-                     * timestamp refferal value
-                     * 3. then compare the timestamp of the remaining not null nextEvents with the minimum timestamp
-                     * and update the minimum timestamp refferal value accordingly.
-                     * 4. once all generators are iterated and the event with minimum timestamp if obtained, send
-                     * event.
-                     * 5. if all generators has nextEvent == null, then stop event simulation
+                     * the generator queue orders the generators by the timestamp of their next event, hence the
+                     * generator at its head has the event with least timestamp. If none of the generators have more
+                     * events, stop event simulation
                      * */
-                    lockStop.lock();
-                    try {
-                        for (EventGenerator eventGenerator : generators) {
-                            if (eventGenerator.peek() != null) {
-                                if (minTimestamp == -1L) {
-                                    minTimestamp = eventGenerator.peek().getTimestamp();
-                                    generator = eventGenerator;
-                                } else if (eventGenerator.peek().getTimestamp() < minTimestamp) {
-                                    minTimestamp = eventGenerator.peek().getTimestamp();
-                                    generator = eventGenerator;
-                                }
-                            } else {
-                                generator = null;
-                            }
-                        }
-                        if (minTimestamp >= 0L && generator != null) {
-                            if (log.isDebugEnabled()) {
-                                log.debug("Input Event (Simulation : '" + simulationName + "') : "
-                                                  + Arrays.deepToString(generator.peek().getData()));
-                            }
-                            EventSimulatorDataHolder.getInstance().getEventStreamService()
-                                    .pushEvent(generator.getSiddhiAppName(), generator.getStreamName(),
-                                               generator.poll());
-                        } else {
-                            break;
-                        }
-                        if (eventsRemaining > 0) {
-                            eventsRemaining--;
-                        }
-                    } finally {
-                        lockStop.unlock();
+                    EventGenerator generator = generatorQueue.peek();
+                    if (generator == null) {
+                        break;
+                    }
+                    if (log.isDebugEnabled()) {
+                        log.debug("Input Event (Simulation : '" + simulationName + "') : "
+                                          + Arrays.deepToString(generator.peek().getData()));
+                    }
+                    EventSimulatorDataHolder.getInstance().getEventStreamService()
+                            .pushEvent(generator.getSiddhiAppName(), generator.getStreamName(),
+                                       generatorQueue.poll());
+                    statistics.record(1, 0);
+                    if (eventsRemaining > 0) {
+                        eventsRemaining--;
                     }
                     Thread.sleep(simulationProperties.getTimeInterval());
                 } else {
                     break;
                 }
             }
-
-            if(status.equals(Status.PENDING_STOP)){
-                status = Status.STOP;
-            }
-            stop();
+            finishSimulation();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         } catch (EventGenerationException e) {
@@ -345,12 +357,153 @@ public class EventSimulator implements Runnable {
              * catch exception so that any resources opened could be closed and rethrow an exception indicating which
              * simulation failed
              * */
-            stop();
+            finishSimulation();
+            throw new EventGenerationException("Error occurred when generating an event for simulation '" +
+                                                       simulationProperties.getSimulationName() + "'. ", e);
+        }
+    }
+
+    /**
+     * loadGeneration() method is responsible for sending the events of a simulation as fast as the configured events
+     * per second or speed factor permits, in the order of their timestamps.
+     * Events are sent in batches using the configured number of threads. Each thread takes the next batch of events
+     * of the same stream, waits once until the batch is due and sends it, hence the batches of different threads may
+     * be received out of order.
+     */
+    private void loadGeneration() {
+        remainingEvents = simulationProperties.getNoOfEventsRequired();
+        sentEventIndex = 0;
+        pacer = new SimulationPacer(simulationProperties.getEventsPerSecond(), simulationProperties.getSpeedFactor());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 1; i < simulationProperties.getThreads(); i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    sendBatches();
+                } catch (EventGenerationException e) {
+                    log.error("Error occurred when generating an event for simulation '" +
+                            simulationProperties.getSimulationName() + "'. ", e);
+                    stop();
+                }
+            }, "EventSimulator-" + simulationName + "-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        try {
+            try {
+                sendBatches();
+            } finally {
+                // let the other threads complete sending their batches before the generators are stopped
+                if (!threads.isEmpty()) {
+                    stop();
+                }
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            }
+            finishSimulation();
+        } catch (InterruptedException e) {
+            threads.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
+        } catch (EventGenerationException e) {
+            finishSimulation();
             throw new EventGenerationException("Error occurred when generating an event for simulation '" +
                                                        simulationProperties.getSimulationName() + "'. ", e);
         }
     }
 
+    /**
+     * sendBatches() sends batches of events until there are no more events or the simulation is stopped
+     */
+    private void sendBatches() {
+        int batchSize = simulationProperties.getBatchSize();
+        Event[] batch = new Event[batchSize];
+        try {
+            while (!status.equals(Status.STOP) && !status.equals(Status.PENDING_STOP)) {
+//                if the simulator is paused, wait till it is resumed
+                if (status.equals(Status.PAUSE)) {
+                    lock.acquire();
+                    lock.release();
+                }
+                String siddhiAppName;
+                String streamName;
+                int batchLength = 0;
+                long dueNanos;
+                queueLock.lock();
+                try {
+                    refreshGeneratorQueue();
+                    EventGenerator generator = generatorQueue.peek();
+                    if (generator == null || remainingEvents == 0 || status.equals(Status.STOP)
+                            || status.equals(Status.PENDING_STOP)) {
+                        break;
+                    }
+                    siddhiAppName = generator.getSiddhiAppName();
+                    streamName = generator.getStreamName();
+                    long timestamp = generator.peek().getTimestamp();
+                    dueNanos = pacer.getDueNanos(sentEventIndex, timestamp);
+                    int maxBatchLength = remainingEvents > 0 ? Math.min(batchSize, remainingEvents) : batchSize;
+                    maxBatchLength = Math.min(maxBatchLength, pacer.getEventsDueWithin(MAX_BATCH_SPAN_NANOS));
+                    long timestampLimit = pacer.getTimestampDueAfter(timestamp, MAX_BATCH_SPAN_NANOS);
+                    /*
+                     * take the events of the same stream in the order of their timestamps, as long as they are due
+                     * within a short span after the first event of the batch. each generator fills its run of
+                     * events into the batch at once
+                     * */
+                    int count;
+                    do {
+                        count = generatorQueue.poll(batch, batchLength, maxBatchLength - batchLength, timestampLimit);
+                        batchLength += count;
+                        generator = generatorQueue.peek();
+                    } while (count > 0 && batchLength < maxBatchLength && generator != null
+                            && generator.getSiddhiAppName().equals(siddhiAppName)
+                            && generator.getStreamName().equals(streamName));
+                    sentEventIndex += batchLength;
+                    if (remainingEvents > 0) {
+                        remainingEvents -= batchLength;
+                    }
+                } finally {
+                    queueLock.unlock();
+                }
+                long lagNanos = SimulationPacer.awaitDue(dueNanos);
+                EventSimulatorDataHolder.getInstance().getEventStreamService()
+                        .pushEvents(siddhiAppName, streamName, Arrays.copyOf(batch, batchLength));
+                statistics.record(batchLength, lagNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * refreshGeneratorQueue() reloads the next events of the generators if the simulation was resumed, since resuming
+     * may change their timestamps
+     */
+    private void refreshGeneratorQueue() {
+        if (generatorsResumed) {
+            generatorsResumed = false;
+            generatorQueue.rebuild();
+            if (pacer != null) {
+                pacer.reset();
+            }
+        }
+    }
+
+    /**
+     * finishSimulation() is called by the simulation thread once it stops sending events, to release the resources
+     * of the generators
+     */
+    private void finishSimulation() {
+        synchronized (statusLock) {
+            generators.forEach(EventGenerator::stop);
+            statistics.stop();
+            simulating = false;
+            status = Status.STOP;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Stop simulation '" + simulationName + "'");
+        }
+    }
+
     /**
      * validateSimulationConfiguration() is used to parse the simulation configuration
      *
@@ -420,6 +573,28 @@ public class EventSimulator implements Runnable {
             simulationPropertiesDTO.setStartTimestamp(startTimestamp);
             simulationPropertiesDTO.setEndTimestamp(endTimestamp);
             simulationPropertiesDTO.setNoOfEventsRequired(noOfEventsRequired);
+            /*
+             * if eventsPerSecond or speedFactor is set, the events are sent in batches as fast as they permit,
+             * instead of sending an event per time interval
+             * */
+            if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.EVENTS_PER_SECOND)) {
+                simulationPropertiesDTO.setEventsPerSecond(
+                        simulationPropertiesConfig.getDouble(EventSimulatorConstants.EVENTS_PER_SECOND));
+            } else if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.SPEED_FACTOR)) {
+                simulationPropertiesDTO.setSpeedFactor(
+                        simulationPropertiesConfig.getDouble(EventSimulatorConstants.SPEED_FACTOR));
+            }
+            if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.BATCH_SIZE)) {
+                simulationPropertiesDTO.setBatchSize(
+                        simulationPropertiesConfig.getInt(EventSimulatorConstants.BATCH_SIZE));
+            } else if (simulationPropertiesDTO.getEventsPerSecond() > 0
+                    || simulationPropertiesDTO.getSpeedFactor() > 0) {
+                simulationPropertiesDTO.setBatchSize(EventSimulatorConstants.DEFAULT_BATCH_SIZE);
+            }
+            if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.SIMULATION_THREADS)) {
+                simulationPropertiesDTO.setThreads(
+                        simulationPropertiesConfig.getInt(EventSimulatorConstants.SIMULATION_THREADS));
+            }
             return simulationPropertiesDTO;
 
         } catch (JSONException e) {
@@ -443,18 +618,30 @@ public class EventSimulator implements Runnable {
     @Override
     public void run() {
         try {
+            synchronized (statusLock) {
+                // from here on stop() leaves stopping the generators to this thread, even while they are started
+                simulating = true;
+                status = Status.RUN;
+            }
             generators.forEach(EventGenerator::start);
+            generatorQueue = new EventGeneratorQueue(generators);
+            generatorQueue.rebuild();
             if (log.isDebugEnabled()) {
                 log.debug("Event generators started. Begin event simulation of '" + simulationName + "'");
             }
-            status = Status.RUN;
-            eventSimulation();
+            if (isLoadGeneration()) {
+                statistics.start(simulationProperties.getEventsPerSecond());
+                loadGeneration();
+            } else {
+                statistics.start(-1);
+                eventSimulation();
+            }
         } catch (SimulatorInitializationException e) {
             /*
              * catch exception so that any resources opened could be closed and rethrow an exception indicating which
              * simulation failed
              * */
-            stop();
+            finishSimulation();
             throw new SimulatorInitializationException("Error occurred when initializing event generators for "
                                                                + "simulation '"
                                                                + simulationProperties.getSimulationName() + "'. ", e);
@@ -468,17 +655,29 @@ public class EventSimulator implements Runnable {
      * @see EventGenerator#stop()
      */
     public void stop() {
-        if (!status.equals(Status.STOP)) {
-            if(!lockStop.tryLock()){
+        synchronized (statusLock) {
+            if (status.equals(Status.STOP) || status.equals(Status.PENDING_STOP)) {
+                return;
+            }
+            if (simulating) {
+                /*
+                 * let the simulation thread stop the generators once it completes sending the current event, and wake
+                 * it up if it is paused. Since the simulation thread finishes while holding statusLock, it cannot
+                 * finish in between and leave the simulation in PENDING_STOP
+                 * */
+                boolean paused = status.equals(Status.PAUSE);
                 status = Status.PENDING_STOP;
-            } else{
-                status = Status.STOP;
-                lockStop.unlock();
+                if (paused) {
+                    lock.release();
+                }
+                return;
             }
+            status = Status.STOP;
             generators.forEach(EventGenerator::stop);
-            if (log.isDebugEnabled()) {
-                log.debug("Stop simulation '" + simulationName + "'");
-            }
+            statistics.stop();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Stop simulation '" + simulationName + "'");
         }
     }
 
@@ -489,17 +688,22 @@ public class EventSimulator implements Runnable {
      * @see org.wso2.carbon.event.simulator.core.impl.FeedApiServiceImpl#pause(String)
      */
     public void pause() {
-        if (!status.equals(Status.PAUSE)) {
+        synchronized (statusLock) {
+            // a simulation which is stopping is not paused, as the simulation thread would then never finish
+            if (!status.equals(Status.RUN)) {
+                return;
+            }
             try {
                 lock.acquire();
                 status = Status.PAUSE;
-                if (log.isDebugEnabled()) {
-                    log.debug("Pause event simulation '" + simulationName + "'");
-                }
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
+                return;
             }
         }
+        if (log.isDebugEnabled()) {
+            log.debug("Pause event simulation '" + simulationName + "'");
+        }
     }
 
 
@@ -509,13 +713,17 @@ public class EventSimulator implements Runnable {
      * @see org.wso2.carbon.event.simulator.core.impl.FeedApiServiceImpl#resume(String)
      */
     public void resume() {
-        if (status.equals(Status.PAUSE)) {
+        synchronized (statusLock) {
+            if (!status.equals(Status.PAUSE)) {
+                return;
+            }
             generators.forEach(EventGenerator::resume);
-            lock.release();
+            generatorsResumed = true;
             status = Status.RUN;
-            if (log.isDebugEnabled()) {
-                log.debug("Resume event simulation '" + simulationName + "'");
-            }
+            lock.release();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Resume event simulation '" + simulationName + "'");
         }
     }
 
@@ -523,6 +731,20 @@ public class EventSimulator implements Runnable {
         return status;
     }
 
+    /**
+     * getStatistics() returns the number of events sent by the simulation, the rate achieved and the time by which
+     * the events were sent after they were due
+     *
+     * @return statistics of the simulation
+     */
+    public Map<String, Object> getStatistics() {
+        return statistics.toMap();
+    }
+
+    private boolean isLoadGeneration() {
+        return simulationProperties.getEventsPerSecond() > 0 || simulationProperties.getSpeedFactor() > 0;
+    }
+
     public String getStatusMessage() {
         return statusMessage;
     }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.service.bean;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SimulationStatistics holds the number of events sent by a simulation, and how late they were sent
+ */
+public class SimulationStatistics {
+    private volatile long startNanos = -1;
+    private volatile long endNanos = -1;
+    private double targetEventsPerSecond;
+    private AtomicLong sentEvents = new AtomicLong();
+    private AtomicLong sentBatches = new AtomicLong();
+    private volatile long lagNanos = 0;
+    private AtomicLong maxLagNanos = new AtomicLong();
+
+    /**
+     * start() resets the statistics when the simulation starts
+     *
+     * @param targetEventsPerSecond number of events per second the simulation is configured to send, if any
+     */
+    public void start(double targetEventsPerSecond) {
+        this.targetEventsPerSecond = targetEventsPerSecond;
+        sentEvents.set(0);
+        sentBatches.set(0);
+        lagNanos = 0;
+        maxLagNanos.set(0);
+        endNanos = -1;
+        startNanos = System.nanoTime();
+    }
+
+    public void stop() {
+        if (startNanos != -1 && endNanos == -1) {
+            endNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * record() records a batch of events sent
+     *
+     * @param events   number of events sent
+     * @param lagNanos time by which the events were sent after they were due
+     */
+    public void record(int events, long lagNanos) {
+        sentEvents.addAndGet(events);
+        sentBatches.incrementAndGet();
+        this.lagNanos = lagNanos;
+        maxLagNanos.accumulateAndGet(lagNanos, Math::max);
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        long elapsedNanos = startNanos == -1 ? 0 : (endNanos == -1 ? System.nanoTime() : endNanos) - startNanos;
+        statistics.put("sentEvents", sentEvents.get());
+        statistics.put("sentBatches", sentBatches.get());
+        statistics.put("elapsedMillis", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        statistics.put("achievedEventsPerSecond",
+                elapsedNanos == 0 ? 0 : sentEvents.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+        if (targetEventsPerSecond > 0) {
+            statistics.put("targetEventsPerSecond", targetEventsPerSecond);
+        }
+        statistics.put("lagMillis", lagNanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+        statistics.put("maxLagMillis", maxLagNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1));
+        return statistics;
+    }
+}
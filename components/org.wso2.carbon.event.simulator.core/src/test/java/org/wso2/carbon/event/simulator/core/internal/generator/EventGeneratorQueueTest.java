@@ -0,0 +1,188 @@
+/*
+ * Copyright (c)  2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator;
+
+import io.siddhi.core.event.Event;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * EventGeneratorQueueTest verifies that the events of the generators of a simulation are merged in the order of
+ * their timestamps
+ */
+public class EventGeneratorQueueTest {
+
+    @Test
+    public void testOrderByTimestamp() {
+        EventGeneratorQueue queue = createQueue(new long[]{1, 4, 7}, new long[]{2, 3, 9}, new long[]{5, 6, 8});
+        Assert.assertEquals(pollAll(queue), Arrays.asList("0:1", "1:2", "1:3", "0:4", "2:5", "2:6", "0:7", "2:8",
+                "1:9"));
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertNull(queue.peek());
+        Assert.assertNull(queue.poll());
+    }
+
+    @Test
+    public void testEqualTimestamps() {
+        // Events having the same timestamp are taken in the order of the generators
+        EventGeneratorQueue queue = createQueue(new long[]{5, 5, 6}, new long[]{1, 5}, new long[]{5, 6});
+        Assert.assertEquals(pollAll(queue), Arrays.asList("1:1", "0:5", "0:5", "1:5", "2:5", "0:6", "2:6"));
+    }
+
+    @Test
+    public void testExhaustedGenerators() {
+        // A generator without events, and generators running out of events before the others, are skipped
+        EventGeneratorQueue queue = createQueue(new long[0], new long[]{1}, new long[]{2, 3, 4}, new long[]{3});
+        Assert.assertEquals(queue.peek().getStreamName(), "Stream1");
+        Assert.assertEquals(pollAll(queue), Arrays.asList("1:1", "2:2", "2:3", "3:3", "2:4"));
+
+        Assert.assertTrue(createQueue().isEmpty());
+        Assert.assertTrue(createQueue(new long[0], new long[0]).isEmpty());
+    }
+
+    @Test
+    public void testRebuild() {
+        ListEventGenerator firstGenerator = new ListEventGenerator(0, 10, 20);
+        ListEventGenerator secondGenerator = new ListEventGenerator(1, 15, 25);
+        EventGeneratorQueue queue = new EventGeneratorQueue(Arrays.asList(firstGenerator, secondGenerator));
+        queue.rebuild();
+        Assert.assertEquals(queue.poll().getTimestamp(), 10);
+        // The timestamps of the next events change when a generator is resumed, hence the queue is rebuilt
+        firstGenerator.events.getFirst().setTimestamp(30);
+        queue.rebuild();
+        Assert.assertEquals(pollAll(queue), Arrays.asList("1:15", "1:25", "0:30"));
+    }
+
+    @Test
+    public void testBatchPoll() {
+        EventGeneratorQueue queue = createQueue(new long[]{1, 2, 3, 5, 6}, new long[]{4, 5, 9});
+        Event[] events = new Event[10];
+        // A generator fills its events until the next event of another generator
+        Assert.assertEquals(queue.poll(events, 0, 10, Long.MAX_VALUE), 3);
+        Assert.assertEquals(queue.peek().getStreamName(), "Stream1");
+        // Events having the same timestamp are filled in the order of the generators
+        Assert.assertEquals(queue.poll(events, 3, 10, Long.MAX_VALUE), 1);
+        Assert.assertEquals(queue.poll(events, 4, 10, Long.MAX_VALUE), 1);
+        Assert.assertEquals(queue.peek().getStreamName(), "Stream1");
+        Assert.assertEquals(queue.poll(events, 5, 10, Long.MAX_VALUE), 1);
+        Assert.assertEquals(events[3].getTimestamp(), 4);
+        Assert.assertEquals(events[5].getTimestamp(), 5);
+        // The number of events, and their timestamps, are limited as given
+        Assert.assertEquals(queue.poll(events, 6, 10, 6), 0);
+        Assert.assertEquals(queue.poll(events, 6, 10, 7), 1);
+        Assert.assertEquals(events[6].getTimestamp(), 6);
+        Assert.assertEquals(queue.poll(events, 7, 0, Long.MAX_VALUE), 0);
+        Assert.assertEquals(queue.poll(events, 7, 3, Long.MAX_VALUE), 1);
+        Assert.assertEquals(events[7].getTimestamp(), 9);
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertEquals(queue.poll(events, 0, 10, Long.MAX_VALUE), 0);
+    }
+
+    private static EventGeneratorQueue createQueue(long[]... timestamps) {
+        List<EventGenerator> generators = new ArrayList<>();
+        for (int i = 0; i < timestamps.length; i++) {
+            generators.add(new ListEventGenerator(i, timestamps[i]));
+        }
+        EventGeneratorQueue queue = new EventGeneratorQueue(generators);
+        queue.rebuild();
+        return queue;
+    }
+
+    /**
+     * pollAll() takes all the events of the queue, denoting each by the index of its generator and its timestamp
+     */
+    private static List<String> pollAll(EventGeneratorQueue queue) {
+        List<String> events = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            EventGenerator generator = queue.peek();
+            Event event = queue.poll();
+            events.add(generator.getStreamName().substring("Stream".length()) + ":" + event.getTimestamp());
+        }
+        return events;
+    }
+
+    /**
+     * ListEventGenerator generates the events having the given timestamps
+     */
+    private static class ListEventGenerator implements EventGenerator {
+        private final LinkedList<Event> events = new LinkedList<>();
+        private final String streamName;
+
+        ListEventGenerator(int index, long... timestamps) {
+            this.streamName = "Stream" + index;
+            for (long timestamp : timestamps) {
+                events.add(new Event(timestamp, new Object[]{timestamp}));
+            }
+        }
+
+        @Override
+        public void init(JSONObject sourceConfig, long startTimestamp, long endTimestamp, String simulationName) {
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void resume() {
+        }
+
+        @Override
+        public Event poll() {
+            return events.poll();
+        }
+
+        @Override
+        public Event peek() {
+            return events.peek();
+        }
+
+        @Override
+        public void getNextEvent() {
+        }
+
+        @Override
+        public String getStreamName() {
+            return streamName;
+        }
+
+        @Override
+        public String getSiddhiAppName() {
+            return "TestApp";
+        }
+
+        @Override
+        public void validateSourceConfiguration(JSONObject sourceConfig, String simulationName) {
+        }
+
+        @Override
+        public void setStartTimestamp(long startTimestamp) {
+        }
+    }
+}
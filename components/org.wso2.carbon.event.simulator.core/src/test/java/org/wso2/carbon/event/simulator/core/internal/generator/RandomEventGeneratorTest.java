@@ -0,0 +1,138 @@
+/*
+ * Copyright (c)  2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator;
+
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.event.simulator.core.exception.SimulationValidationException;
+import org.wso2.carbon.event.simulator.core.internal.generator.random.core.RandomEventGenerator;
+import org.wso2.carbon.event.simulator.core.service.EventSimulatorDataHolder;
+import org.wso2.carbon.streaming.integrator.common.exception.ResourceNotFoundException;
+import util.StreamProcessorUtil;
+
+import java.util.Arrays;
+
+/**
+ * RandomEventGeneratorTest verifies that random events are reproducible when a seed is given, and that they are
+ * polled in batches
+ */
+public class RandomEventGeneratorTest {
+    private static final long START_TIMESTAMP = 1000;
+    private static final long TIMESTAMP_INTERVAL = 10;
+
+    @BeforeClass
+    public void setUp() {
+        StreamProcessorUtil streamProcessorUtil = new StreamProcessorUtil();
+        streamProcessorUtil.addStreamAttributes("TestSiddhiApp", "FooStream", Arrays.asList(
+                new Attribute("symbol", Attribute.Type.STRING),
+                new Attribute("price", Attribute.Type.DOUBLE),
+                new Attribute("volume", Attribute.Type.LONG),
+                new Attribute("active", Attribute.Type.BOOL)));
+        EventSimulatorDataHolder.getInstance().setEventStreamService(streamProcessorUtil);
+    }
+
+    @AfterClass
+    public void tearDown() {
+        EventSimulatorDataHolder.getInstance().setEventStreamService(null);
+    }
+
+    @Test
+    public void testSameSequenceForSeed() throws SimulationValidationException, ResourceNotFoundException {
+        Event[] events = pollAll(createGenerator(42L, 100));
+        Event[] otherEvents = pollAll(createGenerator(42L, 100));
+        Assert.assertEquals(events.length, 100);
+        Assert.assertEquals(otherEvents.length, 100);
+        for (int i = 0; i < events.length; i++) {
+            Assert.assertEquals(events[i].getTimestamp(), START_TIMESTAMP + i * TIMESTAMP_INTERVAL);
+            Assert.assertEquals(otherEvents[i].getTimestamp(), events[i].getTimestamp());
+            Assert.assertEquals(otherEvents[i].getData(), events[i].getData());
+        }
+        // Each attribute is generated from its own random number generator, hence the values are not all alike
+        Assert.assertNotEquals(events[0].getData(1), events[1].getData(1));
+    }
+
+    @Test
+    public void testDifferentSequenceForOtherSeed() throws SimulationValidationException, ResourceNotFoundException {
+        Event[] events = pollAll(createGenerator(42L, 100));
+        Event[] otherEvents = pollAll(createGenerator(43L, 100));
+        boolean isDifferent = false;
+        for (int i = 0; i < events.length; i++) {
+            isDifferent |= !Arrays.equals(otherEvents[i].getData(), events[i].getData());
+        }
+        Assert.assertTrue(isDifferent);
+    }
+
+    @Test
+    public void testBatchPoll() throws SimulationValidationException, ResourceNotFoundException {
+        RandomEventGenerator generator = createGenerator(7L, 10);
+        Event[] events = new Event[4];
+        Assert.assertEquals(generator.poll(events), 4);
+        Assert.assertEquals(events[3].getTimestamp(), START_TIMESTAMP + 3 * TIMESTAMP_INTERVAL);
+        Assert.assertEquals(generator.peek().getTimestamp(), START_TIMESTAMP + 4 * TIMESTAMP_INTERVAL);
+
+        // Events are filled only before the given timestamp
+        Assert.assertEquals(generator.poll(events, 1, 3, START_TIMESTAMP + 6 * TIMESTAMP_INTERVAL), 2);
+        Assert.assertEquals(events[1].getTimestamp(), START_TIMESTAMP + 4 * TIMESTAMP_INTERVAL);
+        Assert.assertEquals(events[2].getTimestamp(), START_TIMESTAMP + 5 * TIMESTAMP_INTERVAL);
+        Assert.assertEquals(events[3].getTimestamp(), START_TIMESTAMP + 3 * TIMESTAMP_INTERVAL);
+
+        // Fewer events are filled only when the generator does not produce any more events
+        Assert.assertEquals(generator.poll(events), 4);
+        Assert.assertNull(generator.peek());
+        Assert.assertEquals(generator.poll(events), 0);
+        Assert.assertNull(generator.poll());
+    }
+
+    /**
+     * createGenerator() creates a started generator producing the given number of events
+     */
+    private static RandomEventGenerator createGenerator(long seed, int noOfEvents)
+            throws SimulationValidationException, ResourceNotFoundException {
+        JSONArray attributeConfiguration = new JSONArray()
+                .put(new JSONObject().put("type", "PRIMITIVE_BASED").put("length", "8"))
+                .put(new JSONObject().put("type", "PRIMITIVE_BASED").put("min", "1").put("max", "1000")
+                        .put("precision", "3"))
+                .put(new JSONObject().put("type", "PRIMITIVE_BASED").put("min", "-100").put("max", "100"))
+                .put(new JSONObject().put("type", "PRIMITIVE_BASED"));
+        JSONObject sourceConfig = new JSONObject()
+                .put("simulationType", "RANDOM_DATA_SIMULATION")
+                .put("streamName", "FooStream")
+                .put("siddhiAppName", "TestSiddhiApp")
+                .put("timestampInterval", String.valueOf(TIMESTAMP_INTERVAL))
+                .put("seed", String.valueOf(seed))
+                .put("attributeConfiguration", attributeConfiguration);
+        RandomEventGenerator generator = new RandomEventGenerator();
+        generator.validateSourceConfiguration(sourceConfig, "TestSimulation");
+        generator.init(sourceConfig, START_TIMESTAMP, START_TIMESTAMP + (noOfEvents - 1) * TIMESTAMP_INTERVAL,
+                "TestSimulation");
+        generator.start();
+        return generator;
+    }
+
+    private static Event[] pollAll(RandomEventGenerator generator) {
+        Event[] events = new Event[1000];
+        return Arrays.copyOf(events, generator.poll(events));
+    }
+}
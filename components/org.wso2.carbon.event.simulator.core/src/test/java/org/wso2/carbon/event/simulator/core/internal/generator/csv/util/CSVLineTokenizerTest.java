@@ -0,0 +1,123 @@
+/*
+ * Copyright (c)  2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.csv.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * CSVLineTokenizerTest verifies that the lines of a delimited file are split into fields
+ */
+public class CSVLineTokenizerTest {
+
+    @Test
+    public void testLineBreaks() throws IOException {
+        List<List<String>> lines = readAll("1,a\n2,b\r\n3,c\r\n4,d", ",");
+        Assert.assertEquals(lines, Arrays.asList(Arrays.asList("1", "a"), Arrays.asList("2", "b"),
+                Arrays.asList("3", "c"), Arrays.asList("4", "d")));
+        // An empty line has a single empty field, and a line break at the end of the file does not add a line
+        Assert.assertEquals(readAll("1,,3\n\n5\n", ","), Arrays.asList(Arrays.asList("1", "", "3"),
+                Collections.singletonList(""), Collections.singletonList("5")));
+        Assert.assertEquals(readAll("", ","), Collections.emptyList());
+    }
+
+    @Test
+    public void testQuotedFields() throws IOException {
+        List<List<String>> lines = readAll("1,\"a,b\",\"say \"\"hi\"\"\",\"\"\n2,\"first\r\nsecond\",c", ",");
+        Assert.assertEquals(lines, Arrays.asList(Arrays.asList("1", "a,b", "say \"hi\"", ""),
+                Arrays.asList("2", "first\r\nsecond", "c")));
+        // A double quote which does not start a field is a part of its value
+        Assert.assertEquals(readAll("ab\"c,\"d\"e\"", ","), Collections.singletonList(Arrays.asList("ab\"c",
+                "de\"")));
+        // Quoted fields of tab and semicolon delimited files
+        Assert.assertEquals(readAll("\"a\tb\"\tc", "\\t"), Collections.singletonList(Arrays.asList("a\tb", "c")));
+        Assert.assertEquals(readAll("\"a;b\";c", ";"), Collections.singletonList(Arrays.asList("a;b", "c")));
+    }
+
+    @Test
+    public void testQuotesOfOtherDelimitersNotParsed() throws IOException {
+        Assert.assertEquals(readAll("\"a|b\"|c", "|"), Collections.singletonList(Arrays.asList("\"a", "b\"", "c")));
+        // Delimiters of more than one character are matched literally
+        Assert.assertEquals(readAll("1::a:b::::c", "::"), Collections.singletonList(Arrays.asList("1", "a:b", "",
+                "c")));
+    }
+
+    @Test
+    public void testQuotedFieldAcrossBufferBoundary() throws IOException {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            value.append(i % 100 == 0 ? "\"\"" : "x");
+        }
+        String escapedValue = value.toString();
+        List<String> fields = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            fields.add(String.valueOf(i));
+        }
+        fields.add(escapedValue.replace("\"\"", "\""));
+        List<List<String>> lines = readAll(String.join(",", fields.subList(0, 40)) + ",\"" + escapedValue +
+                "\"\n1", ",");
+        // The line and the number of fields grow beyond their initial capacity
+        Assert.assertEquals(lines, Arrays.asList(fields, Collections.singletonList("1")));
+    }
+
+    @Test
+    public void testGetLong() throws IOException {
+        CSVLineTokenizer tokenizer = new CSVLineTokenizer(new StringReader(" 42\t,-9223372036854775808,+7,"
+                + "9223372036854775808,4x,,-"), ",");
+        Assert.assertTrue(tokenizer.nextLine());
+        // Surrounding whitespace is ignored
+        Assert.assertEquals(tokenizer.getLong(0), 42);
+        Assert.assertEquals(tokenizer.getLong(1), Long.MIN_VALUE);
+        Assert.assertEquals(tokenizer.getLong(2), 7);
+        for (int i = 3; i < 7; i++) {
+            try {
+                tokenizer.getLong(i);
+                Assert.fail("Field " + i + " is not a long");
+            } catch (NumberFormatException e) {
+                Assert.assertTrue(e.getMessage().contains(tokenizer.getField(i)));
+            }
+        }
+        try {
+            tokenizer.getLong(7);
+            Assert.fail("The line does not have a field at index 7");
+        } catch (IndexOutOfBoundsException e) {
+            Assert.assertFalse(tokenizer.nextLine());
+        }
+    }
+
+    private static List<List<String>> readAll(String content, String delimiter) throws IOException {
+        CSVLineTokenizer tokenizer = new CSVLineTokenizer(new StringReader(content), delimiter);
+        List<List<String>> lines = new ArrayList<>();
+        while (tokenizer.nextLine()) {
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < tokenizer.getFieldCount(); i++) {
+                fields.add(tokenizer.getField(i));
+            }
+            lines.add(fields);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c)  2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.csv.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CSVRecordSorterTest verifies that the records of a CSV file are sorted by timestamp, in memory and by merging
+ * sorted chunks written to temporary files
+ */
+public class CSVRecordSorterTest {
+    private static final long[] TIMESTAMPS = {50, 10, 40, 10, 30, 20, 10, 50, 0, 20, 40};
+
+    @Test
+    public void testSortInMemory() throws IOException {
+        Set<File> chunkFiles = listChunkFiles();
+        try (CSVRecordSorter sorter = new CSVRecordSorter(TIMESTAMPS.length + 1)) {
+            addRecords(sorter);
+            sorter.sort();
+            // The records fit in a single chunk, hence no temporary files are written
+            Assert.assertEquals(listChunkFiles(), chunkFiles);
+            assertSorted(sorter);
+        }
+    }
+
+    @Test
+    public void testMergeChunks() throws IOException {
+        Set<File> chunkFiles = listChunkFiles();
+        CSVRecordSorter sorter = new CSVRecordSorter(3);
+        addRecords(sorter);
+        sorter.sort();
+        Set<File> newChunkFiles = listChunkFiles();
+        newChunkFiles.removeAll(chunkFiles);
+        Assert.assertEquals(newChunkFiles.size(), 4);
+        assertSorted(sorter);
+
+        sorter.close();
+        for (File chunkFile : newChunkFiles) {
+            Assert.assertFalse(chunkFile.exists(), chunkFile + " is not deleted");
+        }
+    }
+
+    @Test
+    public void testChunkFilesDeletedWhenClosedBeforeMerged() throws IOException {
+        Set<File> chunkFiles = listChunkFiles();
+        CSVRecordSorter sorter = new CSVRecordSorter(2);
+        addRecords(sorter);
+        sorter.sort();
+        Assert.assertTrue(sorter.next());
+        Assert.assertEquals(sorter.getTimestamp(), 0);
+
+        sorter.close();
+        Assert.assertEquals(listChunkFiles(), chunkFiles);
+        Assert.assertFalse(sorter.next());
+    }
+
+    @Test
+    public void testValuesWrittenToChunks() throws IOException {
+        List<String[]> records = Arrays.asList(
+                new String[]{"3", "a,b", "say \"hi\""},
+                new String[]{"1", null, ""},
+                new String[]{"2", "first\r\nsecond", "\u00dcn\u00efc\u00f6d\u00e9 \ud83d\ude00"},
+                new String[]{"0"});
+        try (CSVRecordSorter sorter = new CSVRecordSorter(1)) {
+            for (String[] values : records) {
+                sorter.add(Long.parseLong(values[0]), values);
+            }
+            sorter.sort();
+            for (int i : new int[]{3, 1, 2, 0}) {
+                Assert.assertTrue(sorter.next());
+                Assert.assertEquals(sorter.getValues(), records.get(i));
+            }
+            Assert.assertFalse(sorter.next());
+        }
+    }
+
+    @Test
+    public void testNoRecords() throws IOException {
+        try (CSVRecordSorter sorter = new CSVRecordSorter(2)) {
+            sorter.sort();
+            Assert.assertFalse(sorter.next());
+        }
+    }
+
+    /**
+     * addRecords() adds a record for each timestamp, with the position of the record in the file as its value
+     */
+    private static void addRecords(CSVRecordSorter sorter) throws IOException {
+        for (int i = 0; i < TIMESTAMPS.length; i++) {
+            sorter.add(TIMESTAMPS[i], new String[]{String.valueOf(i)});
+        }
+    }
+
+    /**
+     * assertSorted() verifies that the records are ordered by timestamp, and that the records having the same
+     * timestamp are in the order they were added
+     */
+    private static void assertSorted(CSVRecordSorter sorter) throws IOException {
+        List<Integer> positions = new ArrayList<>();
+        while (sorter.next()) {
+            int position = Integer.parseInt(sorter.getValues()[0]);
+            Assert.assertEquals(sorter.getTimestamp(), TIMESTAMPS[position]);
+            positions.add(position);
+        }
+        Assert.assertEquals(positions, Arrays.asList(8, 1, 3, 6, 5, 9, 4, 2, 10, 0, 7));
+    }
+
+    private static Set<File> listChunkFiles() {
+        File[] files = new File(System.getProperty("java.io.tmpdir")).listFiles((directory, name) ->
+                name.startsWith("csv-simulation-") && name.endsWith(".chunk"));
+        return files != null ? new HashSet<>(Arrays.asList(files)) : new HashSet<>(Collections.emptyList());
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c)  2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.database.core;
+
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.event.simulator.core.internal.bean.DBSimulationDTO;
+import org.wso2.carbon.event.simulator.core.internal.generator.database.util.DatabaseConnector;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * DatabaseEventPrefetcherTest verifies that the rows of a database simulation source are read in keyset pages, and
+ * that stopping the prefetcher cancels the query being executed
+ */
+public class DatabaseEventPrefetcherTest {
+    private static final List<Attribute> STREAM_ATTRIBUTES = Collections.singletonList(
+            new Attribute("name", Attribute.Type.STRING));
+
+    @Test
+    public void testReadPages() {
+        TableConnector connector = new TableConnector(1, 2, 2, 3, 3, 3, 3, 4, 5, 5);
+        DatabaseEventPrefetcher prefetcher = createPrefetcher(connector, "TIMESTAMP", 0, -1, 3);
+        prefetcher.start();
+        List<Event> events = takeAll(prefetcher);
+        prefetcher.stop();
+        // Rows having the same timestamp are read once even if they span two pages
+        Assert.assertEquals(events.stream().map(Event::getTimestamp).collect(Collectors.toList()),
+                Arrays.asList(1L, 2L, 2L, 3L, 3L, 3L, 3L, 4L, 5L, 5L));
+        Assert.assertEquals(events.stream().map(event -> event.getData(0)).collect(Collectors.toList()),
+                Arrays.asList("row-0", "row-1", "row-2", "row-3", "row-4", "row-5", "row-6", "row-7", "row-8",
+                        "row-9"));
+        // Each page starts after the last timestamp read completely, and a full page of a single timestamp is
+        // followed by reading all the rows having that timestamp
+        Assert.assertEquals(connector.pageStartTimestamps, Arrays.asList(-1L, 1L, 2L, 3L, 4L));
+        Assert.assertEquals(connector.timestampsRead, Collections.singletonList(3L));
+    }
+
+    @Test
+    public void testReadPagesWithinTimestampRange() {
+        TableConnector connector = new TableConnector(1, 2, 3, 4, 5, 6, 7);
+        DatabaseEventPrefetcher prefetcher = createPrefetcher(connector, "TIMESTAMP", 3, 6, 2);
+        prefetcher.start();
+        List<Event> events = takeAll(prefetcher);
+        // Later calls return null as well
+        Assert.assertNull(prefetcher.next());
+        prefetcher.stop();
+        Assert.assertEquals(events.stream().map(Event::getTimestamp).collect(Collectors.toList()),
+                Arrays.asList(3L, 4L, 5L, 6L));
+        Assert.assertEquals(connector.pageStartTimestamps, Arrays.asList(2L, 3L, 4L, 5L));
+    }
+
+    @Test
+    public void testReadAllWithoutTimestampColumn() {
+        TableConnector connector = new TableConnector(9, 2, 5);
+        DatabaseEventPrefetcher prefetcher = createPrefetcher(connector, null, 0, -1, 2);
+        prefetcher.start();
+        List<Event> events = takeAll(prefetcher);
+        prefetcher.stop();
+        Assert.assertEquals(events.stream().map(event -> event.getData(0)).collect(Collectors.toList()),
+                Arrays.asList("row-0", "row-1", "row-2"));
+        Assert.assertTrue(connector.pageStartTimestamps.isEmpty());
+    }
+
+    @Test(timeOut = 10000)
+    public void testStopCancelsQuery() throws InterruptedException {
+        BlockingConnector connector = new BlockingConnector();
+        DatabaseEventPrefetcher prefetcher = createPrefetcher(connector, "TIMESTAMP", 0, -1, 2);
+        prefetcher.start();
+        Assert.assertTrue(connector.queryStarted.await(5, TimeUnit.SECONDS));
+        prefetcher.stop();
+        // The prefetcher no longer uses the connection once stopped, hence it can be closed
+        Assert.assertTrue(connector.isCancelled);
+        Assert.assertTrue(connector.isQueryEnded);
+    }
+
+    private static DatabaseEventPrefetcher createPrefetcher(DatabaseConnector connector, String timestampAttribute,
+                                                            long startTimestamp, long endTimestamp, int fetchSize) {
+        DBSimulationDTO dbSimulationConfig = new DBSimulationDTO();
+        dbSimulationConfig.setStreamName("FooStream");
+        dbSimulationConfig.setTableName("FOO");
+        dbSimulationConfig.setColumnNames(Collections.singletonList("NAME"));
+        dbSimulationConfig.setTimestampAttribute(timestampAttribute);
+        dbSimulationConfig.setFetchSize(fetchSize);
+        return new DatabaseEventPrefetcher(connector, dbSimulationConfig, STREAM_ATTRIBUTES, startTimestamp,
+                endTimestamp);
+    }
+
+    private static List<Event> takeAll(DatabaseEventPrefetcher prefetcher) {
+        List<Event> events = new ArrayList<>();
+        Event event;
+        while ((event = prefetcher.next()) != null) {
+            events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * createResultSet() creates a result set of the given rows
+     */
+    private static ResultSet createResultSet(List<Object[]> rows) {
+        Iterator<Object[]> iterator = rows.iterator();
+        Object[][] row = new Object[1][];
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            row[0] = iterator.hasNext() ? iterator.next() : null;
+                            return row[0] != null;
+                        case "getLong":
+                            return ((Number) row[0][(int) args[0] - 1]).longValue();
+                        case "getString":
+                            return (String) row[0][(int) args[0] - 1];
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * TableConnector queries a table held in memory, whose rows have the given timestamps
+     */
+    private static class TableConnector extends DatabaseConnector {
+        private final long[] timestamps;
+        private final List<Long> pageStartTimestamps = new ArrayList<>();
+        private final List<Long> timestampsRead = new ArrayList<>();
+
+        TableConnector(long... timestamps) {
+            this.timestamps = timestamps;
+        }
+
+        @Override
+        public ResultSet getDatabaseEventItems(String tableName, List<String> columnNames, String timestampAttribute,
+                                               long timestampStartTime, long timestampEndTime) {
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = 0; i < timestamps.length; i++) {
+                rows.add(new Object[]{"row-" + i});
+            }
+            return createResultSet(rows);
+        }
+
+        @Override
+        public ResultSet getDatabaseEventPage(long afterTimestamp, long timestampEndTime, int maxRows) {
+            pageStartTimestamps.add(afterTimestamp);
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = 0; i < timestamps.length && rows.size() < maxRows; i++) {
+                if (timestamps[i] > afterTimestamp && (timestampEndTime == -1 || timestamps[i] <= timestampEndTime)) {
+                    rows.add(new Object[]{timestamps[i], "row-" + i});
+                }
+            }
+            return createResultSet(rows);
+        }
+
+        @Override
+        public ResultSet getDatabaseEventsAt(long timestamp) {
+            timestampsRead.add(timestamp);
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = 0; i < timestamps.length; i++) {
+                if (timestamps[i] == timestamp) {
+                    rows.add(new Object[]{timestamps[i], "row-" + i});
+                }
+            }
+            return createResultSet(rows);
+        }
+    }
+
+    /**
+     * BlockingConnector executes a query which, like a driver waiting on the database, is not stopped by interrupting
+     * the thread but only by cancelling it
+     */
+    private static class BlockingConnector extends DatabaseConnector {
+        private final CountDownLatch queryStarted = new CountDownLatch(1);
+        private final CountDownLatch cancelled = new CountDownLatch(1);
+        private volatile boolean isCancelled;
+        private volatile boolean isQueryEnded;
+
+        @Override
+        public ResultSet getDatabaseEventPage(long afterTimestamp, long timestampEndTime, int maxRows)
+                throws SQLException {
+            queryStarted.countDown();
+            try {
+                while (true) {
+                    try {
+                        cancelled.await();
+                        throw new SQLException("Query was cancelled");
+                    } catch (InterruptedException e) {
+                        // ignore the interrupt, as a driver waiting on the database would
+                    }
+                }
+            } finally {
+                isQueryEnded = true;
+            }
+        }
+
+        @Override
+        public void cancelQuery() {
+            isCancelled = true;
+            cancelled.countDown();
+        }
+    }
+}
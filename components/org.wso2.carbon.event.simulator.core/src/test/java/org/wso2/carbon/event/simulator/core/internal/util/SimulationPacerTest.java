@@ -0,0 +1,114 @@
+/*
+ * Copyright (c)  2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SimulationPacerTest verifies the times at which the events of a load generating simulation are due
+ */
+public class SimulationPacerTest {
+
+    @Test
+    public void testDueNanosAtFixedRate() {
+        SimulationPacer pacer = new SimulationPacer(4000, 1);
+        // The first event is due immediately, irrespective of its index and timestamp
+        long beforeNanos = System.nanoTime();
+        long originNanos = pacer.getDueNanos(10, 5000);
+        Assert.assertTrue(originNanos >= beforeNanos && originNanos <= System.nanoTime());
+        // Events are due every 250 microseconds, irrespective of their timestamps
+        Assert.assertEquals(pacer.getDueNanos(11, 0) - originNanos, TimeUnit.MICROSECONDS.toNanos(250));
+        Assert.assertEquals(pacer.getDueNanos(14, 100000) - originNanos, TimeUnit.MILLISECONDS.toNanos(1));
+        Assert.assertEquals(pacer.getDueNanos(4010, 5000) - originNanos, TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void testDueNanosOfFractionalRate() {
+        SimulationPacer pacer = new SimulationPacer(3, 1);
+        long originNanos = pacer.getDueNanos(0, 0);
+        Assert.assertEquals(pacer.getDueNanos(1, 0) - originNanos, 333333333L);
+        // The schedule is computed from the first event, so that rounding errors do not accumulate
+        Assert.assertEquals(pacer.getDueNanos(300, 0) - originNanos, TimeUnit.SECONDS.toNanos(100));
+    }
+
+    @Test
+    public void testDueNanosBySpeedFactor() {
+        SimulationPacer pacer = new SimulationPacer(0, 4);
+        long originNanos = pacer.getDueNanos(0, 1000);
+        // Timestamps are replayed four times faster, irrespective of the event indexes
+        Assert.assertEquals(pacer.getDueNanos(1, 1000) - originNanos, 0);
+        Assert.assertEquals(pacer.getDueNanos(1, 3000) - originNanos, TimeUnit.MILLISECONDS.toNanos(500));
+        Assert.assertEquals(pacer.getDueNanos(100, 5000) - originNanos, TimeUnit.SECONDS.toNanos(1));
+
+        SimulationPacer slowPacer = new SimulationPacer(-1, 0.5);
+        originNanos = slowPacer.getDueNanos(0, 0);
+        Assert.assertEquals(slowPacer.getDueNanos(1, 10) - originNanos, TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    public void testBatchLimits() {
+        SimulationPacer pacer = new SimulationPacer(4000, 1);
+        // Events 0, 250, 500 and 750 microseconds after the first event are due within a millisecond
+        Assert.assertEquals(pacer.getEventsDueWithin(TimeUnit.MILLISECONDS.toNanos(1)), 4);
+        Assert.assertEquals(pacer.getEventsDueWithin(TimeUnit.MICROSECONDS.toNanos(1001)), 5);
+        Assert.assertEquals(new SimulationPacer(10, 1).getEventsDueWithin(TimeUnit.MILLISECONDS.toNanos(1)), 1);
+        Assert.assertEquals(pacer.getTimestampDueAfter(100, TimeUnit.MILLISECONDS.toNanos(1)), Long.MAX_VALUE);
+
+        SimulationPacer speedPacer = new SimulationPacer(0, 4);
+        Assert.assertEquals(speedPacer.getEventsDueWithin(TimeUnit.MILLISECONDS.toNanos(1)), Integer.MAX_VALUE);
+        // Timestamps less than 4 milliseconds after the first event are due within a millisecond
+        Assert.assertEquals(speedPacer.getTimestampDueAfter(100, TimeUnit.MILLISECONDS.toNanos(1)), 104);
+        // The first event is always due within the span
+        Assert.assertEquals(new SimulationPacer(0, 0.25).getTimestampDueAfter(100, TimeUnit.MILLISECONDS.toNanos(1)),
+                101);
+    }
+
+    @Test
+    public void testReset() throws InterruptedException {
+        SimulationPacer pacer = new SimulationPacer(10, 1);
+        long originNanos = pacer.getDueNanos(0, 0);
+        Thread.sleep(20);
+        // After a pause, the next event is due immediately instead of all the events which were due meanwhile
+        pacer.reset();
+        long resetNanos = pacer.getDueNanos(5, 0);
+        Assert.assertTrue(resetNanos - originNanos >= TimeUnit.MILLISECONDS.toNanos(20));
+        Assert.assertEquals(pacer.getDueNanos(6, 0) - resetNanos, TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void testAwaitDue() throws InterruptedException {
+        long dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20);
+        long lagNanos = SimulationPacer.awaitDue(dueNanos);
+        Assert.assertTrue(System.nanoTime() >= dueNanos);
+        Assert.assertTrue(lagNanos >= 0);
+
+        // Does not wait for a time which has passed, and returns how long ago it was
+        long pastNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(50);
+        Assert.assertTrue(SimulationPacer.awaitDue(pastNanos) >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test(expectedExceptions = InterruptedException.class)
+    public void testAwaitDueInterrupted() throws InterruptedException {
+        Thread.currentThread().interrupt();
+        SimulationPacer.awaitDue(System.nanoTime() + TimeUnit.SECONDS.toNanos(10));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c)  2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.service.bean;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+/**
+ * SimulationStatisticsTest verifies the rate and lag reported for a load generating simulation
+ */
+public class SimulationStatisticsTest {
+
+    @Test
+    public void testAchievedRate() throws InterruptedException {
+        SimulationStatistics statistics = new SimulationStatistics();
+        Assert.assertEquals(statistics.toMap().get("achievedEventsPerSecond"), 0.0);
+
+        statistics.start(500);
+        statistics.record(100, 0);
+        statistics.record(50, 0);
+        Thread.sleep(100);
+        statistics.stop();
+        Map<String, Object> map = statistics.toMap();
+        Assert.assertEquals(map.get("sentEvents"), 150L);
+        Assert.assertEquals(map.get("sentBatches"), 2L);
+        Assert.assertEquals(map.get("targetEventsPerSecond"), 500.0);
+        long elapsedMillis = (Long) map.get("elapsedMillis");
+        Assert.assertTrue(elapsedMillis >= 100);
+        double achievedEventsPerSecond = (Double) map.get("achievedEventsPerSecond");
+        // Elapsed milliseconds are truncated, hence the rate lies between the rates of the adjacent milliseconds
+        Assert.assertTrue(achievedEventsPerSecond <= 150 * 1000.0 / elapsedMillis);
+        Assert.assertTrue(achievedEventsPerSecond > 150 * 1000.0 / (elapsedMillis + 1));
+
+        // Stopped statistics do not change as time passes
+        Thread.sleep(20);
+        Assert.assertEquals(statistics.toMap(), map);
+    }
+
+    @Test
+    public void testLag() {
+        SimulationStatistics statistics = new SimulationStatistics();
+        statistics.start(0);
+        Assert.assertFalse(statistics.toMap().containsKey("targetEventsPerSecond"));
+        statistics.record(10, 2000000);
+        statistics.record(10, 500000);
+        Map<String, Object> map = statistics.toMap();
+        // The lag of the last batch, and the maximum lag of all the batches
+        Assert.assertEquals(map.get("lagMillis"), 0.5);
+        Assert.assertEquals(map.get("maxLagMillis"), 2.0);
+
+        // Restarting the simulation resets the statistics
+        statistics.start(0);
+        map = statistics.toMap();
+        Assert.assertEquals(map.get("sentEvents"), 0L);
+        Assert.assertEquals(map.get("lagMillis"), 0.0);
+        Assert.assertEquals(map.get("maxLagMillis"), 0.0);
+    }
+}
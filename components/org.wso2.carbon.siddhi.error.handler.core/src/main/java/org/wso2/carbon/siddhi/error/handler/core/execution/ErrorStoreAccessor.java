@@ -24,6 +24,7 @@ import org.wso2.carbon.siddhi.error.handler.core.exception.SiddhiErrorHandlerExc
 import org.wso2.carbon.siddhi.error.handler.core.internal.SiddhiErrorHandlerDataHolder;
 import org.wso2.carbon.siddhi.error.handler.core.util.ErrorEntryWrapper;
 import org.wso2.carbon.siddhi.error.handler.core.util.SiddhiErrorHandlerUtils;
+import org.wso2.carbon.streaming.integrator.common.PageableErrorStore;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -88,6 +89,16 @@ public class ErrorStoreAccessor {
         throw new SiddhiErrorHandlerException(ERROR_STORE_IS_UNAVAILABLE_MESSAGE);
     }
 
+    public static PageableErrorStore getPageableErrorStore() throws SiddhiErrorHandlerException {
+        ErrorStore errorStore = SiddhiErrorHandlerDataHolder.getInstance().getErrorStore();
+        if (errorStore instanceof PageableErrorStore) {
+            return (PageableErrorStore) errorStore;
+        } else if (errorStore != null) {
+            throw new SiddhiErrorHandlerException("Error store does not support reading error entries by pages.");
+        }
+        throw new SiddhiErrorHandlerException(ERROR_STORE_IS_UNAVAILABLE_MESSAGE);
+    }
+
     public static ErrorEntryWrapper getWrappedErrorEntry(int id) throws SiddhiErrorHandlerException {
         ErrorStore errorStore = SiddhiErrorHandlerDataHolder.getInstance().getErrorStore();
         if (errorStore != null) {
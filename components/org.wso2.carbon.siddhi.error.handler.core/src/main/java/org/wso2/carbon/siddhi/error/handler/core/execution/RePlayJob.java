@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.siddhi.error.handler.core.execution;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.error.handler.model.ErrorEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.siddhi.error.handler.core.exception.SiddhiErrorHandlerException;
+import org.wso2.carbon.siddhi.error.handler.core.internal.SiddhiErrorHandlerDataHolder;
+import org.wso2.carbon.siddhi.error.handler.core.util.SiddhiErrorHandlerUtils;
+import org.wso2.carbon.streaming.integrator.common.ErrorEntryFilter;
+import org.wso2.carbon.streaming.integrator.common.PageableErrorStore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-plays the error entries matching a filter, reading them from the error store page by page. Consecutive entries
+ * of a stream are sent to Siddhi as a single batch of events, and the re-played entries of a page are discarded
+ * together.
+ */
+public class RePlayJob implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(RePlayJob.class);
+
+    /**
+     * Status of a re-play job.
+     */
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    private final String id;
+    private final PageableErrorStore errorStore;
+    private final ErrorEntryFilter filter;
+    private final int eventsPerSecond;
+    private final int batchSize;
+    private volatile Status status = Status.PENDING;
+    private volatile boolean cancelled = false;
+    private volatile long rePlayedEntries = 0;
+    private volatile long rePlayedEvents = 0;
+    private volatile long failedEntries = 0;
+    private volatile long startTime = -1;
+    private volatile long endTime = -1;
+    private volatile String message;
+    private long nextSendTime;
+
+    /**
+     * @param id              id of the job
+     * @param errorStore      error store to read the entries from
+     * @param filter          entries to be re-played, the limit of which is used as the page size
+     * @param eventsPerSecond maximum rate at which events are sent to Siddhi, or zero if unlimited
+     * @param batchSize       maximum number of events sent to Siddhi at once
+     */
+    public RePlayJob(String id, PageableErrorStore errorStore, ErrorEntryFilter filter, int eventsPerSecond,
+                     int batchSize) {
+        this.id = id;
+        this.errorStore = errorStore;
+        this.filter = filter;
+        this.eventsPerSecond = eventsPerSecond;
+        // Keeps the wait between two batches within a second when the rate is limited
+        this.batchSize = eventsPerSecond > 0 ? Math.min(batchSize, eventsPerSecond) : batchSize;
+    }
+
+    @Override
+    public void run() {
+        if (cancelled) {
+            return;
+        }
+        status = Status.RUNNING;
+        startTime = System.currentTimeMillis();
+        nextSendTime = System.nanoTime();
+        if (filter.getToTimestamp() == null) {
+            // Entries stored by events which fail again while being re-played are left for a later job
+            filter.setToTimestamp(startTime);
+        }
+        try {
+            while (!cancelled) {
+                SiddhiAppRuntime siddhiAppRuntime = SiddhiErrorHandlerDataHolder.getInstance()
+                    .getSiddhiAppRuntimeService().getActiveSiddhiAppRuntimes().get(filter.getSiddhiAppName());
+                if (siddhiAppRuntime == null) {
+                    throw new SiddhiErrorHandlerException(
+                        String.format("Siddhi app: %s is not active.", filter.getSiddhiAppName()));
+                }
+                List<ErrorEntry> errorEntries = new ArrayList<>(filter.getLimit());
+                int readRows = errorStore.loadErrorEntries(filter, errorEntries::add);
+                if (!errorEntries.isEmpty()) {
+                    List<Integer> rePlayedIds = new ArrayList<>(errorEntries.size());
+                    try {
+                        rePlay(siddhiAppRuntime, errorEntries, rePlayedIds);
+                    } finally {
+                        if (!errorStore.discardErrorEntries(rePlayedIds)) {
+                            throw new SiddhiErrorHandlerException(
+                                String.format("Failed to discard %s re-played error entries.", rePlayedIds.size()));
+                        }
+                    }
+                }
+                // Entries which failed to re-play, and rows which could not be read as entries, are retained in the
+                // store, hence the next page starts after the last row read, where the store has moved the filter to
+                if (readRows < filter.getLimit()) {
+                    break;
+                }
+            }
+            status = cancelled ? Status.CANCELLED : Status.COMPLETED;
+        } catch (IOException | SiddhiErrorHandlerException e) {
+            log.error(String.format("Re-play job: %s of Siddhi app: %s failed.", id, filter.getSiddhiAppName()), e);
+            message = e.getMessage();
+            status = Status.FAILED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = Status.CANCELLED;
+        } catch (RuntimeException e) {
+            // Such as the errors thrown by Siddhi while the events are sent, which would otherwise leave the job
+            // running forever
+            log.error(String.format("Re-play job: %s of Siddhi app: %s failed unexpectedly.", id,
+                filter.getSiddhiAppName()), e);
+            message = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+            status = Status.FAILED;
+        } finally {
+            endTime = System.currentTimeMillis();
+        }
+    }
+
+    private void rePlay(SiddhiAppRuntime siddhiAppRuntime, List<ErrorEntry> errorEntries, List<Integer> rePlayedIds)
+        throws InterruptedException {
+        List<Event> events = new ArrayList<>();
+        List<Integer> batchedIds = new ArrayList<>();
+        String streamName = null;
+        for (ErrorEntry errorEntry : errorEntries) {
+            if (cancelled) {
+                break;
+            }
+            Event[] entryEvents;
+            try {
+                entryEvents = getEvents(errorEntry);
+            } catch (SiddhiErrorHandlerException e) {
+                failedEntries++;
+                log.error(String.format("Failed to re-play error entry with id: %s.", errorEntry.getId()), e);
+                continue;
+            }
+            if (entryEvents != null) {
+                if (!errorEntry.getStreamName().equals(streamName) ||
+                    (!events.isEmpty() && events.size() + entryEvents.length > batchSize)) {
+                    send(siddhiAppRuntime, streamName, events, batchedIds, rePlayedIds);
+                    streamName = errorEntry.getStreamName();
+                }
+                Collections.addAll(events, entryEvents);
+                batchedIds.add(errorEntry.getId());
+            } else {
+                // Entries other than events keep their order with respect to the batched events
+                send(siddhiAppRuntime, streamName, events, batchedIds, rePlayedIds);
+                try {
+                    acquire(1);
+                    RePlayer.rePlay(errorEntry);
+                    rePlayedIds.add(errorEntry.getId());
+                    rePlayedEntries++;
+                } catch (SiddhiErrorHandlerException e) {
+                    failedEntries++;
+                    log.error(String.format("Failed to re-play error entry with id: %s.", errorEntry.getId()), e);
+                }
+            }
+        }
+        send(siddhiAppRuntime, streamName, events, batchedIds, rePlayedIds);
+    }
+
+    private void send(SiddhiAppRuntime siddhiAppRuntime, String streamName, List<Event> events,
+                      List<Integer> batchedIds, List<Integer> rePlayedIds) throws InterruptedException {
+        if (events.isEmpty()) {
+            batchedIds.clear();
+            return;
+        }
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler(streamName);
+        if (inputHandler != null) {
+            acquire(events.size());
+            inputHandler.send(events.toArray(new Event[0]));
+            rePlayedIds.addAll(batchedIds);
+            rePlayedEntries += batchedIds.size();
+            rePlayedEvents += events.size();
+        } else {
+            failedEntries += batchedIds.size();
+            log.error(String.format("Input handler was not found for stream: %s.", streamName));
+        }
+        events.clear();
+        batchedIds.clear();
+    }
+
+    /**
+     * Returns the events of an error entry which can be sent to the input handler of its stream.
+     *
+     * @return events of the entry, or null if the entry has to be re-played on its own
+     */
+    private Event[] getEvents(ErrorEntry errorEntry) throws SiddhiErrorHandlerException {
+        switch (errorEntry.getEventType()) {
+            case EVENT:
+            case EVENT_ARRAY:
+            case EVENT_LIST:
+                break;
+            default:
+                return null;
+        }
+        Object event;
+        try {
+            event = SiddhiErrorHandlerUtils.getAsObject(errorEntry.getEventAsBytes());
+        } catch (IOException | ClassNotFoundException e) {
+            throw new SiddhiErrorHandlerException("Failed to get bytes as events.", e);
+        }
+        if (event instanceof Event) {
+            return new Event[]{(Event) event};
+        } else if (event instanceof Event[]) {
+            return (Event[]) event;
+        } else if (event instanceof List) {
+            return ((List<?>) event).toArray(new Event[0]);
+        }
+        throw new SiddhiErrorHandlerException(String.format("eventAsBytes present in the entry is invalid. It is " +
+            "expected to represent events of type: %s.", errorEntry.getEventType()));
+    }
+
+    private void acquire(int permits) throws InterruptedException {
+        if (eventsPerSecond <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (nextSendTime < now) {
+            nextSendTime = now;
+        }
+        long waitTime = nextSendTime - now;
+        nextSendTime += TimeUnit.SECONDS.toNanos(permits) / eventsPerSecond;
+        if (waitTime > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitTime);
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+        if (status == Status.PENDING) {
+            status = Status.CANCELLED;
+        }
+    }
+
+    public boolean isFinished() {
+        return status != Status.PENDING && status != Status.RUNNING;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Map<String, Object> getProgress() {
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("id", id);
+        progress.put("siddhiApp", filter.getSiddhiAppName());
+        progress.put("status", status.name());
+        progress.put("rePlayedEntries", rePlayedEntries);
+        progress.put("rePlayedEvents", rePlayedEvents);
+        progress.put("failedEntries", failedEntries);
+        progress.put("startTime", startTime);
+        progress.put("endTime", endTime);
+        if (message != null) {
+            progress.put("message", message);
+        }
+        return progress;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.siddhi.error.handler.core.execution;
+
+import org.wso2.carbon.siddhi.error.handler.core.exception.SiddhiErrorHandlerException;
+import org.wso2.carbon.streaming.integrator.common.ErrorEntryFilter;
+import org.wso2.carbon.streaming.integrator.common.PageableErrorStore;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the re-play jobs one after the other in the background, so that the entries of a Siddhi app are not re-played
+ * twice by concurrent jobs.
+ */
+public class RePlayJobManager {
+    private static final int MAX_RETAINED_JOBS = 100;
+
+    private static final Map<String, RePlayJob> jobs = new LinkedHashMap<String, RePlayJob>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RePlayJob> eldest) {
+            return size() > MAX_RETAINED_JOBS && eldest.getValue().isFinished();
+        }
+    };
+    private static ExecutorService executorService;
+
+    private RePlayJobManager() {
+    }
+
+    public static synchronized RePlayJob submit(ErrorEntryFilter filter, int eventsPerSecond, int batchSize)
+        throws SiddhiErrorHandlerException {
+        PageableErrorStore errorStore = ErrorStoreAccessor.getPageableErrorStore();
+        if (executorService == null) {
+            executorService = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "SiddhiErrorHandlerRePlayer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        filter.setDescriptive(true);
+        RePlayJob job = new RePlayJob(UUID.randomUUID().toString(), errorStore, filter, eventsPerSecond, batchSize);
+        jobs.put(job.getId(), job);
+        executorService.execute(job);
+        return job;
+    }
+
+    public static synchronized RePlayJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    public static synchronized List<RePlayJob> getJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    public static synchronized void shutdown() {
+        for (RePlayJob job : jobs.values()) {
+            job.cancel();
+        }
+        if (executorService != null) {
+            executorService.shutdownNow();
+            executorService = null;
+        }
+    }
+}
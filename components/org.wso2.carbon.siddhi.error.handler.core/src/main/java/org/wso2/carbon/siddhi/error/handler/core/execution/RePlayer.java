@@ -26,10 +26,10 @@ import io.siddhi.core.stream.input.source.Source;
 import io.siddhi.core.util.error.handler.model.ErrorEntry;
 import io.siddhi.core.util.error.handler.model.ReplayableTableRecord;
 import io.siddhi.core.util.error.handler.store.ErrorStore;
-import io.siddhi.core.util.error.handler.util.ErrorHandlerUtils;
 import io.siddhi.core.util.error.handler.util.ErrorOccurrence;
 import org.wso2.carbon.siddhi.error.handler.core.exception.SiddhiErrorHandlerException;
 import org.wso2.carbon.siddhi.error.handler.core.internal.SiddhiErrorHandlerDataHolder;
+import org.wso2.carbon.siddhi.error.handler.core.util.SiddhiErrorHandlerUtils;
 
 import java.io.IOException;
 import java.util.List;
@@ -59,7 +59,7 @@ public class RePlayer {
         }
     }
 
-    private static void rePlay(ErrorEntry errorEntry) throws SiddhiErrorHandlerException, InterruptedException {
+    static void rePlay(ErrorEntry errorEntry) throws SiddhiErrorHandlerException, InterruptedException {
         SiddhiAppRuntime siddhiAppRuntime = SiddhiErrorHandlerDataHolder.getInstance()
             .getSiddhiAppRuntimeService().getActiveSiddhiAppRuntimes().get(errorEntry.getSiddhiAppName());
         if (siddhiAppRuntime != null) {
@@ -90,7 +90,8 @@ public class RePlayer {
     private static void rePlayTableRecord(ErrorEntry complexEventErrorEntry, SiddhiAppRuntime siddhiAppRuntime)
         throws SiddhiErrorHandlerException, InterruptedException {
         try {
-            Object deserializedTableRecord = ErrorHandlerUtils.getAsObject(complexEventErrorEntry.getEventAsBytes());
+            Object deserializedTableRecord =
+                SiddhiErrorHandlerUtils.getAsObject(complexEventErrorEntry.getEventAsBytes());
             if (deserializedTableRecord instanceof ReplayableTableRecord) {
                 ReplayableTableRecord replayableTableRecord = (ReplayableTableRecord) deserializedTableRecord;
                 switch (complexEventErrorEntry.getErrorOccurrence()) {
@@ -134,7 +135,7 @@ public class RePlayer {
     private static void rePlayComplexEvent(ErrorEntry complexEventErrorEntry, SiddhiAppRuntime siddhiAppRuntime)
         throws SiddhiErrorHandlerException, InterruptedException {
         try {
-            Object complexEvent = ErrorHandlerUtils.getAsObject(complexEventErrorEntry.getEventAsBytes());
+            Object complexEvent = SiddhiErrorHandlerUtils.getAsObject(complexEventErrorEntry.getEventAsBytes());
             if (complexEvent instanceof ComplexEvent) {
                 InputHandler inputHandler = siddhiAppRuntime.getInputHandler(complexEventErrorEntry.getStreamName());
                 if (inputHandler != null) {
@@ -159,7 +160,7 @@ public class RePlayer {
     private static void rePlayEvent(ErrorEntry eventErrorEntry, SiddhiAppRuntime siddhiAppRuntime)
         throws SiddhiErrorHandlerException, InterruptedException {
         try {
-            Object event = ErrorHandlerUtils.getAsObject(eventErrorEntry.getEventAsBytes());
+            Object event = SiddhiErrorHandlerUtils.getAsObject(eventErrorEntry.getEventAsBytes());
             if (event instanceof Event) {
                 InputHandler inputHandler = siddhiAppRuntime.getInputHandler(eventErrorEntry.getStreamName());
                 if (inputHandler != null) {
@@ -180,7 +181,7 @@ public class RePlayer {
     private static void rePlayEventArray(ErrorEntry eventArrayErrorEntry, SiddhiAppRuntime siddhiAppRuntime)
         throws SiddhiErrorHandlerException, InterruptedException {
         try {
-            Object eventArray = ErrorHandlerUtils.getAsObject(eventArrayErrorEntry.getEventAsBytes());
+            Object eventArray = SiddhiErrorHandlerUtils.getAsObject(eventArrayErrorEntry.getEventAsBytes());
             if (eventArray instanceof Event[]) {
                 InputHandler inputHandler = siddhiAppRuntime.getInputHandler(eventArrayErrorEntry.getStreamName());
                 if (inputHandler != null) {
@@ -201,7 +202,7 @@ public class RePlayer {
     private static void rePlayEventList(ErrorEntry eventListErrorEntry, SiddhiAppRuntime siddhiAppRuntime)
         throws SiddhiErrorHandlerException, InterruptedException {
         try {
-            Object eventList = ErrorHandlerUtils.getAsObject(eventListErrorEntry.getEventAsBytes());
+            Object eventList = SiddhiErrorHandlerUtils.getAsObject(eventListErrorEntry.getEventAsBytes());
             if (eventList instanceof List) {
                 InputHandler inputHandler = siddhiAppRuntime.getInputHandler(eventListErrorEntry.getStreamName());
                 if (inputHandler != null) {
@@ -224,7 +225,7 @@ public class RePlayer {
     private static void rePlayPayloadString(ErrorEntry payloadStringErrorEntry, SiddhiAppRuntime siddhiAppRuntime)
         throws SiddhiErrorHandlerException {
         try {
-            Object payloadString = ErrorHandlerUtils.getAsObject(payloadStringErrorEntry.getEventAsBytes());
+            Object payloadString = SiddhiErrorHandlerUtils.getAsObject(payloadStringErrorEntry.getEventAsBytes());
             if (payloadString instanceof String) {
                 if (payloadStringErrorEntry.getErrorOccurrence() == ErrorOccurrence.BEFORE_SOURCE_MAPPING) {
                     // Get sources of the appropriate stream.
@@ -28,9 +28,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.siddhi.error.handler.core.exception.SiddhiErrorHandlerException;
 import org.wso2.carbon.siddhi.error.handler.core.execution.ErrorStoreAccessor;
+import org.wso2.carbon.siddhi.error.handler.core.execution.RePlayJob;
+import org.wso2.carbon.siddhi.error.handler.core.execution.RePlayJobManager;
 import org.wso2.carbon.siddhi.error.handler.core.execution.RePlayer;
 import org.wso2.carbon.siddhi.error.handler.core.util.SiddhiErrorHandlerUtils;
+import org.wso2.carbon.streaming.integrator.common.ErrorEntryFilter;
 import org.wso2.carbon.streaming.integrator.common.ErrorStoreListener;
+import org.wso2.carbon.streaming.integrator.common.PageableErrorStore;
 import org.wso2.msf4j.Microservice;
 
 import javax.ws.rs.Consumes;
@@ -43,9 +47,12 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Exposes Siddhi Error Handler as a micro-service.
@@ -61,6 +68,7 @@ public class SiddhiErrorHandlerMicroservice implements ErrorStoreListener, Micro
     private static final Logger logger = LoggerFactory.getLogger(SiddhiErrorHandlerMicroservice.class);
 
     private static final String ENTRIES_COUNT_KEY = "entriesCount";
+    private static final int DEFAULT_RE_PLAY_BATCH_SIZE = 500;
 
     @GET
     @Path("/error-entries/count")
@@ -100,6 +108,38 @@ public class SiddhiErrorHandlerMicroservice implements ErrorStoreListener, Micro
         }
     }
 
+    @GET
+    @Path("/error-entries/page")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getErrorEntriesPage(@QueryParam("siddhiApp") String siddhiAppName,
+                                        @QueryParam("descriptive") String isDescriptive,
+                                        @QueryParam("limit") String limit, @QueryParam("cursor") String cursor,
+                                        @QueryParam("streamName") String streamName,
+                                        @QueryParam("errorType") String errorType,
+                                        @QueryParam("fromTimestamp") String fromTimestamp,
+                                        @QueryParam("toTimestamp") String toTimestamp) {
+        if (siddhiAppName == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity("Mandatory query parameter 'siddhiApp' is not found.").build();
+        }
+        ErrorEntryFilter filter;
+        try {
+            filter = SiddhiErrorHandlerUtils.createErrorEntryFilter(siddhiAppName, isDescriptive, limit, cursor,
+                streamName, errorType, fromTimestamp, toTimestamp);
+        } catch (SiddhiErrorHandlerException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+        try {
+            PageableErrorStore errorStore = ErrorStoreAccessor.getPageableErrorStore();
+            StreamingOutput streamingOutput =
+                outputStream -> SiddhiErrorHandlerUtils.writeErrorEntries(errorStore, filter, outputStream);
+            return Response.ok().entity(streamingOutput).type(MediaType.APPLICATION_JSON).build();
+        } catch (SiddhiErrorHandlerException e) {
+            logger.error("Failed to get erroneous events.", e);
+            return Response.serverError().entity("Failed to get erroneous events.").build();
+        }
+    }
+
     @GET
     @Path("/error-entries/{id}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -127,6 +167,77 @@ public class SiddhiErrorHandlerMicroservice implements ErrorStoreListener, Micro
         }
     }
 
+    @POST
+    @Path("/replay-jobs")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response submitRePlayJob(@QueryParam("siddhiApp") String siddhiAppName,
+                                    @QueryParam("streamName") String streamName,
+                                    @QueryParam("errorType") String errorType,
+                                    @QueryParam("fromTimestamp") String fromTimestamp,
+                                    @QueryParam("toTimestamp") String toTimestamp,
+                                    @QueryParam("pageSize") String pageSize,
+                                    @QueryParam("batchSize") String batchSize,
+                                    @QueryParam("eventsPerSecond") String eventsPerSecond) {
+        if (siddhiAppName == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity("Mandatory query parameter 'siddhiApp' is not found.").build();
+        }
+        ErrorEntryFilter filter;
+        int rate;
+        int maxBatchSize;
+        try {
+            filter = SiddhiErrorHandlerUtils.createErrorEntryFilter(siddhiAppName, null, pageSize, null,
+                streamName, errorType, fromTimestamp, toTimestamp);
+            rate = SiddhiErrorHandlerUtils.getNonNegativeInt(eventsPerSecond, "eventsPerSecond", 0);
+            maxBatchSize = Math.max(1,
+                SiddhiErrorHandlerUtils.getNonNegativeInt(batchSize, "batchSize", DEFAULT_RE_PLAY_BATCH_SIZE));
+        } catch (SiddhiErrorHandlerException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+        try {
+            RePlayJob job = RePlayJobManager.submit(filter, rate, maxBatchSize);
+            return Response.status(Response.Status.ACCEPTED).entity(job.getProgress())
+                .type(MediaType.APPLICATION_JSON).build();
+        } catch (SiddhiErrorHandlerException e) {
+            logger.error("Failed to submit the re-play job.", e);
+            return Response.serverError().entity("Failed to submit the re-play job.").build();
+        }
+    }
+
+    @GET
+    @Path("/replay-jobs")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getRePlayJobs() {
+        List<Map<String, Object>> response = RePlayJobManager.getJobs().stream().map(RePlayJob::getProgress)
+            .collect(Collectors.toList());
+        return Response.ok().entity(response).type(MediaType.APPLICATION_JSON).build();
+    }
+
+    @GET
+    @Path("/replay-jobs/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getRePlayJob(@PathParam("id") String id) {
+        RePlayJob job = RePlayJobManager.getJob(id);
+        if (job == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                .entity(String.format("Re-play job: %s is not found.", id)).build();
+        }
+        return Response.ok().entity(job.getProgress()).type(MediaType.APPLICATION_JSON).build();
+    }
+
+    @DELETE
+    @Path("/replay-jobs/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response cancelRePlayJob(@PathParam("id") String id) {
+        RePlayJob job = RePlayJobManager.getJob(id);
+        if (job == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                .entity(String.format("Re-play job: %s is not found.", id)).build();
+        }
+        job.cancel();
+        return Response.ok().entity(job.getProgress()).type(MediaType.APPLICATION_JSON).build();
+    }
+
     @DELETE
     @Path("/error-entries/{id}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -190,7 +301,7 @@ public class SiddhiErrorHandlerMicroservice implements ErrorStoreListener, Micro
      */
     @Deactivate
     protected void stop() throws Exception {
-
+        RePlayJobManager.shutdown();
     }
 
     @Override
@@ -20,7 +20,6 @@ package org.wso2.carbon.siddhi.error.handler.core.util;
 
 import io.siddhi.core.util.error.handler.model.ErrorEntry;
 import io.siddhi.core.util.error.handler.util.ErroneousEventType;
-import io.siddhi.core.util.error.handler.util.ErrorHandlerUtils;
 
 import java.io.IOException;
 
@@ -44,7 +43,7 @@ public class ErrorEntryWrapper {
 
     private String constructModifiablePayloadString(ErrorEntry errorEntry) throws IOException, ClassNotFoundException {
         if (errorEntry.getEventType() == ErroneousEventType.PAYLOAD_STRING) {
-            return (String) ErrorHandlerUtils.getAsObject(errorEntry.getEventAsBytes());
+            return (String) SiddhiErrorHandlerUtils.getAsObject(errorEntry.getEventAsBytes());
         } else if (errorEntry.getEventType() == ErroneousEventType.REPLAYABLE_TABLE_RECORD) {
             return errorEntry.getOriginalPayload();
         }
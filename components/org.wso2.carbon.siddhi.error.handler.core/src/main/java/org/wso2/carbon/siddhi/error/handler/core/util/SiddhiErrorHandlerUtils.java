@@ -24,6 +24,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 import io.siddhi.core.event.ComplexEvent;
 import io.siddhi.core.event.ComplexEventChunk;
 import io.siddhi.core.event.stream.StreamEvent;
@@ -32,9 +33,15 @@ import io.siddhi.core.util.error.handler.model.ReplayableTableRecord;
 import io.siddhi.core.util.error.handler.util.ErroneousEventType;
 import io.siddhi.core.util.error.handler.util.ErrorHandlerUtils;
 import org.wso2.carbon.siddhi.error.handler.core.exception.SiddhiErrorHandlerException;
+import org.wso2.carbon.streaming.integrator.common.ErrorEntryFilter;
+import org.wso2.carbon.streaming.integrator.common.PageableErrorStore;
+import org.wso2.carbon.streaming.integrator.common.utils.ErroneousEventCodec;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -42,6 +49,8 @@ import java.util.List;
  * Contains utility methods related to Siddhi Error Handler.
  */
 public class SiddhiErrorHandlerUtils {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String CURSOR_SEPARATOR = "_";
     private static Gson gson = new GsonBuilder().disableHtmlEscaping().create();
     private static JsonParser jsonParser = new JsonParser();
 
@@ -60,7 +69,7 @@ public class SiddhiErrorHandlerUtils {
                     if (errorEntry.getEventType() == ErroneousEventType.PAYLOAD_STRING) {
                         eventAsBytes = ErrorHandlerUtils.getAsBytes(payloadString);
                     } else if (errorEntry.getEventType() == ErroneousEventType.REPLAYABLE_TABLE_RECORD) {
-                        ReplayableTableRecord deserializedTableRecord = (ReplayableTableRecord) ErrorHandlerUtils
+                        ReplayableTableRecord deserializedTableRecord = (ReplayableTableRecord) SiddhiErrorHandlerUtils
                                 .getAsObject(errorEntry.getEventAsBytes());
                         ComplexEventChunk eventChunk = modifyComplexEventChunk(deserializedTableRecord
                                 .getComplexEventChunk(), payloadString, gson, errorEntry);
@@ -137,4 +146,92 @@ public class SiddhiErrorHandlerUtils {
     public static long getRetentionStartTimestamp(long currentTimestamp, int retentionDays) {
         return currentTimestamp - (1000L * 60 * 60 * 24 * retentionDays);
     }
+
+    /**
+     * Converts the bytes of an erroneous event to the event, which are either in the compact format of
+     * {@link ErroneousEventCodec} or Java serialized.
+     */
+    public static Object getAsObject(byte[] eventAsBytes) throws IOException, ClassNotFoundException {
+        if (ErroneousEventCodec.isEncoded(eventAsBytes)) {
+            return ErroneousEventCodec.decode(eventAsBytes);
+        }
+        return ErrorHandlerUtils.getAsObject(eventAsBytes);
+    }
+
+    public static ErrorEntryFilter createErrorEntryFilter(String siddhiAppName, String isDescriptive, String limit,
+                                                          String cursor, String streamName, String errorType,
+                                                          String fromTimestamp, String toTimestamp)
+        throws SiddhiErrorHandlerException {
+        ErrorEntryFilter filter = new ErrorEntryFilter(siddhiAppName);
+        filter.setDescriptive(Boolean.parseBoolean(isDescriptive));
+        filter.setStreamName(streamName);
+        filter.setErrorType(errorType);
+        try {
+            if (limit != null) {
+                int pageSize = Integer.parseInt(limit);
+                if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+                    throw new SiddhiErrorHandlerException(
+                        String.format("Limit should be between 1 and %s.", MAX_PAGE_SIZE));
+                }
+                filter.setLimit(pageSize);
+            }
+            if (fromTimestamp != null) {
+                filter.setFromTimestamp(Long.parseLong(fromTimestamp));
+            }
+            if (toTimestamp != null) {
+                filter.setToTimestamp(Long.parseLong(toTimestamp));
+            }
+            if (cursor != null) {
+                String[] cursorParts = cursor.split(CURSOR_SEPARATOR);
+                if (cursorParts.length != 2) {
+                    throw new SiddhiErrorHandlerException(String.format("Invalid cursor: %s.", cursor));
+                }
+                filter.setAfter(Long.parseLong(cursorParts[0]), Integer.parseInt(cursorParts[1]));
+            }
+        } catch (NumberFormatException e) {
+            throw new SiddhiErrorHandlerException("Invalid numeric query parameter. " + e.getMessage(), e);
+        }
+        return filter;
+    }
+
+    public static int getNonNegativeInt(String value, String name, int defaultValue)
+        throws SiddhiErrorHandlerException {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int intValue = Integer.parseInt(value);
+            if (intValue >= 0) {
+                return intValue;
+            }
+        } catch (NumberFormatException e) {
+            // Handled below
+        }
+        throw new SiddhiErrorHandlerException(String.format("Query parameter '%s' should be a non-negative integer.",
+            name));
+    }
+
+    /**
+     * Writes a page of error entries as a JSON object, while the entries are being read from the error store. The
+     * object contains the entries and the cursor to the next page, which is null when there are no more entries.
+     */
+    public static void writeErrorEntries(PageableErrorStore errorStore, ErrorEntryFilter filter,
+                                         OutputStream outputStream) throws IOException {
+        JsonWriter jsonWriter = new JsonWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        jsonWriter.beginObject();
+        jsonWriter.name("entries");
+        jsonWriter.beginArray();
+        int count = errorStore.loadErrorEntries(filter,
+                errorEntry -> gson.toJson(errorEntry, ErrorEntry.class, jsonWriter));
+        jsonWriter.endArray();
+        jsonWriter.name("nextCursor");
+        if (count == filter.getLimit()) {
+            // The filter has been moved past the last row read, including a row which could not be converted
+            jsonWriter.value(filter.getAfterTimestamp() + CURSOR_SEPARATOR + filter.getAfterId());
+        } else {
+            jsonWriter.nullValue();
+        }
+        jsonWriter.endObject();
+        jsonWriter.flush();
+    }
 }
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.siddhi.error.handler.core.execution;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.stream.output.StreamCallback;
+import io.siddhi.core.util.error.handler.model.ErrorEntry;
+import io.siddhi.core.util.error.handler.util.ErroneousEventType;
+import io.siddhi.core.util.error.handler.util.ErrorHandlerUtils;
+import io.siddhi.core.util.error.handler.util.ErrorOccurrence;
+import io.siddhi.core.util.error.handler.util.ErrorType;
+import io.siddhi.core.util.statistics.metrics.Level;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.siddhi.error.handler.core.internal.SiddhiErrorHandlerDataHolder;
+import org.wso2.carbon.streaming.integrator.common.ErrorEntryFilter;
+import org.wso2.carbon.streaming.integrator.common.PageableErrorStore;
+import org.wso2.carbon.streaming.integrator.common.SiddhiAppRuntimeService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RePlayJobTest {
+    private static final String SIDDHI_APP_NAME = "TestApp";
+    private static final String STREAM_NAME = "StockStream";
+
+    private SiddhiManager siddhiManager;
+    private SiddhiAppRuntime siddhiAppRuntime;
+    private Map<String, SiddhiAppRuntime> activeSiddhiAppRuntimes;
+    private List<Event> receivedEvents;
+
+    @BeforeMethod
+    public void setUp() {
+        siddhiManager = new SiddhiManager();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime("@App:name('" + SIDDHI_APP_NAME + "') " +
+            "define stream " + STREAM_NAME + " (symbol string, price float);");
+        receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        siddhiAppRuntime.addCallback(STREAM_NAME, new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                Collections.addAll(receivedEvents, events);
+            }
+        });
+        siddhiAppRuntime.start();
+        activeSiddhiAppRuntimes = new HashMap<>();
+        activeSiddhiAppRuntimes.put(SIDDHI_APP_NAME, siddhiAppRuntime);
+        SiddhiErrorHandlerDataHolder.getInstance().setSiddhiAppRuntimeService(new SiddhiAppRuntimeService() {
+            @Override
+            public Map<String, SiddhiAppRuntime> getActiveSiddhiAppRuntimes() {
+                return activeSiddhiAppRuntimes;
+            }
+
+            @Override
+            public void enableSiddhiAppStatistics(Level enabledStatsLevel) {
+            }
+        });
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        SiddhiErrorHandlerDataHolder.getInstance().setSiddhiAppRuntimeService(null);
+        siddhiManager.shutdown();
+    }
+
+    @Test
+    public void testCompletedJob() throws IOException {
+        PagedErrorStore errorStore = new PagedErrorStore(createErrorEntries(5));
+        RePlayJob job = new RePlayJob("job-1", errorStore, createFilter(2), 0, 100);
+        Assert.assertEquals(job.getStatus(), RePlayJob.Status.PENDING);
+        Assert.assertFalse(job.isFinished());
+
+        job.run();
+        Assert.assertEquals(job.getStatus(), RePlayJob.Status.COMPLETED);
+        Assert.assertTrue(job.isFinished());
+        Assert.assertEquals(errorStore.discardedIds, createIds(5));
+        Assert.assertEquals(receivedEvents.size(), 5);
+        Map<String, Object> progress = job.getProgress();
+        Assert.assertEquals(progress.get("rePlayedEntries"), 5L);
+        Assert.assertEquals(progress.get("rePlayedEvents"), 5L);
+        Assert.assertEquals(progress.get("failedEntries"), 0L);
+        Assert.assertTrue((Long) progress.get("endTime") >= (Long) progress.get("startTime"));
+        Assert.assertNull(progress.get("message"));
+    }
+
+    @Test
+    public void testJobFailedByUnexpectedError() throws IOException {
+        PagedErrorStore errorStore = new PagedErrorStore(createErrorEntries(5));
+        errorStore.failedPage = 2;
+        RePlayJob job = new RePlayJob("job-2", errorStore, createFilter(2), 0, 100);
+
+        job.run();
+        Assert.assertEquals(job.getStatus(), RePlayJob.Status.FAILED);
+        Assert.assertTrue(job.isFinished());
+        // The entries of the first page are re-played and discarded before the failure
+        Assert.assertEquals(errorStore.discardedIds, createIds(2));
+        Map<String, Object> progress = job.getProgress();
+        Assert.assertEquals(progress.get("rePlayedEntries"), 2L);
+        Assert.assertEquals(progress.get("message"), "Connection to the error store was lost.");
+        Assert.assertNotEquals(progress.get("endTime"), -1L);
+    }
+
+    @Test
+    public void testJobFailedAsSiddhiAppIsNotActive() throws IOException {
+        activeSiddhiAppRuntimes.clear();
+        PagedErrorStore errorStore = new PagedErrorStore(createErrorEntries(1));
+        RePlayJob job = new RePlayJob("job-3", errorStore, createFilter(2), 0, 100);
+
+        job.run();
+        Assert.assertEquals(job.getStatus(), RePlayJob.Status.FAILED);
+        Assert.assertEquals(job.getProgress().get("message"), "Siddhi app: " + SIDDHI_APP_NAME + " is not active.");
+        Assert.assertTrue(errorStore.discardedIds.isEmpty());
+    }
+
+    @Test
+    public void testJobCancelledBeforeRunning() throws IOException {
+        PagedErrorStore errorStore = new PagedErrorStore(createErrorEntries(3));
+        RePlayJob job = new RePlayJob("job-4", errorStore, createFilter(2), 0, 100);
+        job.cancel();
+        Assert.assertEquals(job.getStatus(), RePlayJob.Status.CANCELLED);
+        Assert.assertTrue(job.isFinished());
+
+        job.run();
+        Assert.assertEquals(job.getStatus(), RePlayJob.Status.CANCELLED);
+        Assert.assertEquals(errorStore.loadedPages, 0);
+        Assert.assertEquals(job.getProgress().get("startTime"), -1L);
+    }
+
+    @Test
+    public void testJobCancelledWhileRunning() throws IOException {
+        PagedErrorStore errorStore = new PagedErrorStore(createErrorEntries(6));
+        RePlayJob job = new RePlayJob("job-5", errorStore, createFilter(2), 0, 100);
+        errorStore.onLoad = () -> {
+            if (errorStore.loadedPages == 2) {
+                job.cancel();
+            }
+        };
+
+        job.run();
+        Assert.assertEquals(job.getStatus(), RePlayJob.Status.CANCELLED);
+        Assert.assertTrue(job.isFinished());
+        // Entries of the page being re-played when cancelled are neither re-played nor discarded
+        Assert.assertEquals(errorStore.loadedPages, 2);
+        Assert.assertEquals(errorStore.discardedIds, createIds(2));
+        Assert.assertEquals(receivedEvents.size(), 2);
+    }
+
+    private static ErrorEntryFilter createFilter(int limit) {
+        ErrorEntryFilter filter = new ErrorEntryFilter(SIDDHI_APP_NAME);
+        filter.setLimit(limit);
+        return filter;
+    }
+
+    private static List<ErrorEntry> createErrorEntries(int count) throws IOException {
+        List<ErrorEntry> errorEntries = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            errorEntries.add(new ErrorEntry(i, 1000L + i, SIDDHI_APP_NAME, STREAM_NAME,
+                ErrorHandlerUtils.getAsBytes(new Event(1000L + i, new Object[]{"WSO2", 55.6f + i})),
+                "Error in processing the event.", null, null, ErrorOccurrence.STORE_ON_STREAM_ERROR,
+                ErroneousEventType.EVENT, ErrorType.TRANSPORT));
+        }
+        return errorEntries;
+    }
+
+    private static List<Integer> createIds(int count) {
+        List<Integer> ids = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+
+    /**
+     * Error store which pages through the given entries in memory.
+     */
+    private static class PagedErrorStore implements PageableErrorStore {
+        private final List<ErrorEntry> errorEntries;
+        private final List<Integer> discardedIds = new ArrayList<>();
+        private int loadedPages = 0;
+        private int failedPage = -1;
+        private Runnable onLoad;
+        private int nextIndex = 0;
+
+        PagedErrorStore(List<ErrorEntry> errorEntries) {
+            this.errorEntries = errorEntries;
+        }
+
+        @Override
+        public int loadErrorEntries(ErrorEntryFilter filter, ErrorEntryConsumer consumer) throws IOException {
+            loadedPages++;
+            if (loadedPages == failedPage) {
+                throw new IllegalStateException("Connection to the error store was lost.");
+            }
+            if (onLoad != null) {
+                onLoad.run();
+            }
+            int readRows = 0;
+            while (readRows < filter.getLimit() && nextIndex < errorEntries.size()) {
+                consumer.accept(errorEntries.get(nextIndex++));
+                readRows++;
+            }
+            return readRows;
+        }
+
+        @Override
+        public boolean discardErrorEntries(List<Integer> ids) {
+            discardedIds.addAll(ids);
+            return true;
+        }
+    }
+}
@@ -34,6 +34,8 @@ public class Query {
     private String appName = null;
     @JsonProperty("details")
     private boolean details = false;
+    @JsonProperty("cacheTtl")
+    private long cacheTtl = 0;
 
     public Query query(String appName, String query) {
         this.query = query;
@@ -77,6 +79,16 @@ public class Query {
         this.details = details;
     }
 
+    @ApiModelProperty(example = "5000", value = "Maximum age in milliseconds of the cached results which may be " +
+                                "returned for the query. Results are not served from the cache if not positive.")
+    public long getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public void setCacheTtl(long cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -97,6 +109,9 @@ public class Query {
         if (details != query1.details) {
             return false;
         }
+        if (cacheTtl != query1.cacheTtl) {
+            return false;
+        }
 
         return true;
     }
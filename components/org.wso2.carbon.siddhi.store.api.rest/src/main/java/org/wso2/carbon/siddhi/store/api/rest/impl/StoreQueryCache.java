@@ -0,0 +1,167 @@
+/*
+ *   Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+
+package org.wso2.carbon.siddhi.store.api.rest.impl;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import io.siddhi.query.api.execution.query.OnDemandQuery;
+import io.siddhi.query.compiler.SiddhiCompiler;
+
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the on-demand queries compiled for the Siddhi apps, keyed by the app name and the query text, from which
+ * the least recently used queries are evicted. The results of a query can also be cached, to be served to the
+ * requests which accept results of the given age.
+ * <p>
+ * A cached query is only used with the Siddhi app runtime it was compiled for, hence the queries of an app are
+ * compiled again when the app is redeployed. The runtime is only weakly referenced, so that the cache does not keep
+ * an undeployed app in memory. The cached results of an app are dropped when a query modifying its stores is run
+ * through the cache.
+ */
+public class StoreQueryCache {
+    private final Map<String, CachedQuery> cachedQueries;
+
+    /**
+     * @param maxQueries maximum number of queries to be cached
+     */
+    public StoreQueryCache(int maxQueries) {
+        this.cachedQueries = new LinkedHashMap<String, CachedQuery>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedQuery> eldest) {
+                return size() > maxQueries;
+            }
+        };
+    }
+
+    /**
+     * Runs a query against the given Siddhi app runtime.
+     *
+     * @param appName          name of the Siddhi app
+     * @param siddhiAppRuntime active runtime of the Siddhi app
+     * @param query            on-demand query
+     * @param resultTtl        maximum age in milliseconds of the cached results which may be returned, or 0 if the
+     *                         query has to be run against the stores
+     * @return events returned by the query
+     */
+    public Event[] query(String appName, SiddhiAppRuntime siddhiAppRuntime, String query, long resultTtl) {
+        CachedQuery cachedQuery = getCachedQuery(appName, siddhiAppRuntime, query);
+        if (!cachedQuery.isReadOnly) {
+            Event[] events = siddhiAppRuntime.query(cachedQuery.onDemandQuery);
+            invalidateResults(appName);
+            return events;
+        }
+        CachedResult cachedResult = cachedQuery.cachedResult;
+        long currentTime = System.currentTimeMillis();
+        if (resultTtl > 0 && cachedResult != null && currentTime - cachedResult.time < resultTtl) {
+            return cachedResult.events;
+        }
+        Event[] events = siddhiAppRuntime.query(cachedQuery.onDemandQuery);
+        if (resultTtl > 0) {
+            cachedQuery.cachedResult = new CachedResult(events, currentTime);
+        }
+        return events;
+    }
+
+    /**
+     * Gets the attributes of the events returned by a query.
+     *
+     * @param appName          name of the Siddhi app
+     * @param siddhiAppRuntime active runtime of the Siddhi app
+     * @param query            on-demand query
+     * @return output attributes of the query
+     */
+    public Attribute[] getOutputAttributes(String appName, SiddhiAppRuntime siddhiAppRuntime, String query) {
+        CachedQuery cachedQuery = getCachedQuery(appName, siddhiAppRuntime, query);
+        if (cachedQuery.outputAttributes == null) {
+            cachedQuery.outputAttributes = siddhiAppRuntime.getOnDemandQueryOutputAttributes(cachedQuery
+                    .onDemandQuery);
+        }
+        return cachedQuery.outputAttributes;
+    }
+
+    /**
+     * Removes the cached queries of a Siddhi app, such as when the app is no longer active.
+     *
+     * @param appName name of the Siddhi app
+     */
+    public synchronized void invalidate(String appName) {
+        cachedQueries.values().removeIf(cachedQuery -> cachedQuery.appName.equals(appName));
+    }
+
+    private synchronized CachedQuery getCachedQuery(String appName, SiddhiAppRuntime siddhiAppRuntime,
+                                                    String query) {
+        String key = appName + '\u0000' + query;
+        CachedQuery cachedQuery = cachedQueries.get(key);
+        if (cachedQuery == null || cachedQuery.siddhiAppRuntime.get() != siddhiAppRuntime) {
+            if (cachedQuery != null) {
+                // The app has been redeployed, hence none of the queries compiled for it can be used
+                invalidate(appName);
+            }
+            cachedQuery = new CachedQuery(appName, siddhiAppRuntime, SiddhiCompiler.parseOnDemandQuery(query));
+            cachedQueries.put(key, cachedQuery);
+        }
+        return cachedQuery;
+    }
+
+    private synchronized void invalidateResults(String appName) {
+        for (CachedQuery cachedQuery : cachedQueries.values()) {
+            if (cachedQuery.appName.equals(appName)) {
+                cachedQuery.cachedResult = null;
+            }
+        }
+    }
+
+    /**
+     * Query compiled for a Siddhi app runtime.
+     */
+    private static class CachedQuery {
+        private final String appName;
+        private final WeakReference<SiddhiAppRuntime> siddhiAppRuntime;
+        private final OnDemandQuery onDemandQuery;
+        private final boolean isReadOnly;
+        private volatile Attribute[] outputAttributes;
+        private volatile CachedResult cachedResult;
+
+        CachedQuery(String appName, SiddhiAppRuntime siddhiAppRuntime, OnDemandQuery onDemandQuery) {
+            this.appName = appName;
+            this.siddhiAppRuntime = new WeakReference<>(siddhiAppRuntime);
+            this.onDemandQuery = onDemandQuery;
+            this.isReadOnly = onDemandQuery.getType() == OnDemandQuery.OnDemandQueryType.FIND
+                    || onDemandQuery.getType() == OnDemandQuery.OnDemandQueryType.SELECT;
+        }
+    }
+
+    /**
+     * Events returned by a query, with the time the query was run.
+     */
+    private static class CachedResult {
+        private final Event[] events;
+        private final long time;
+
+        CachedResult(Event[] events, long time) {
+            this.events = events;
+            this.time = time;
+        }
+    }
+}
@@ -45,6 +45,9 @@ import java.util.Map;
 public class StoresApiServiceImpl extends StoresApiService {
 
     private static final Logger log = LoggerFactory.getLogger(StoresApiServiceImpl.class);
+    private static final int MAX_CACHED_QUERIES = 1000;
+    private final StoreQueryCache storeQueryCache = new StoreQueryCache(MAX_CACHED_QUERIES);
+
     @Override
     public Response query(Query body) throws NotFoundException {
         if (body.getQuery() == null || body.getQuery().isEmpty()) {
@@ -61,16 +64,20 @@ public class StoresApiServiceImpl extends StoresApiService {
         Map<String, SiddhiAppRuntime> siddhiAppRuntimes = siddhiAppRuntimeService.getActiveSiddhiAppRuntimes();
         SiddhiAppRuntime siddhiAppRuntime = siddhiAppRuntimes.get(body.getAppName());
         if (siddhiAppRuntime == null) {
+            // The app is no longer active, hence the queries cached for it cannot be used again
+            storeQueryCache.invalidate(body.getAppName());
             return Response.status(Response.Status.NOT_FOUND).entity(new ApiResponseMessage(ApiResponseMessage
                     .ERROR, "Cannot find an active SiddhiApp with name: " + body.getAppName())).build();
         } else {
             try {
-                Event[] events = siddhiAppRuntime.query(body.getQuery());
+                Event[] events = storeQueryCache.query(body.getAppName(), siddhiAppRuntime, body.getQuery(),
+                        body.getCacheTtl());
                 List<Record> records = getRecords(events);
                 ModelApiResponse response = new ModelApiResponse();
                 response.setRecords(records);
                 if (body.isDetails()) {
-                    Attribute[] attributes = siddhiAppRuntime.getStoreQueryOutputAttributes(body.getQuery());
+                    Attribute[] attributes = storeQueryCache.getOutputAttributes(body.getAppName(), siddhiAppRuntime,
+                            body.getQuery());
                     response.setDetails(getRecordDetails(attributes));
                 }
                 return Response.ok().entity(response).build();
@@ -0,0 +1,135 @@
+/*
+ *   Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+
+package org.wso2.carbon.siddhi.store.api.rest.impl;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.stream.input.InputHandler;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class StoreQueryCacheTest {
+    private static final String APP_NAME = "StoreQueryCacheTestApp";
+    private static final String SIDDHI_APP = "@App:name('" + APP_NAME + "') " +
+            "define stream StockStream (symbol string, price float); " +
+            "define table StockTable (symbol string, price float); " +
+            "from StockStream insert into StockTable;";
+    private static final String SELECT_QUERY = "from StockTable select symbol, price";
+    private static final String SELECT_SYMBOL_QUERY = "from StockTable select symbol";
+    private static final String SELECT_PRICE_QUERY = "from StockTable select price";
+    private static final long RESULT_TTL = 60000;
+
+    private SiddhiManager siddhiManager;
+    private SiddhiAppRuntime siddhiAppRuntime;
+    private InputHandler stockStream;
+
+    @BeforeMethod
+    public void setUp() throws InterruptedException {
+        siddhiManager = new SiddhiManager();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(SIDDHI_APP);
+        siddhiAppRuntime.start();
+        stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        stockStream.send(new Object[]{"WSO2", 55.6f});
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        siddhiManager.shutdown();
+    }
+
+    @Test
+    public void testResultTtl() throws InterruptedException {
+        StoreQueryCache storeQueryCache = new StoreQueryCache(10);
+        Assert.assertEquals(count(storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_QUERY, RESULT_TTL)), 1);
+        stockStream.send(new Object[]{"IBM", 75.6f});
+        // Served from the cache within the given age, and from the store otherwise
+        Assert.assertEquals(count(storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_QUERY, RESULT_TTL)), 1);
+        Assert.assertEquals(count(storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_QUERY, 0)), 2);
+
+        // The result of a query run with no accepted age is not cached
+        stockStream.send(new Object[]{"ORACLE", 45.6f});
+        Assert.assertEquals(count(storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_QUERY, RESULT_TTL)), 3);
+
+        stockStream.send(new Object[]{"MSFT", 65.6f});
+        Thread.sleep(100);
+        Assert.assertEquals(count(storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_QUERY, RESULT_TTL)), 3);
+        Assert.assertEquals(count(storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_QUERY, 50)), 4);
+    }
+
+    @Test
+    public void testModifyingQueryInvalidatesResults() {
+        StoreQueryCache storeQueryCache = new StoreQueryCache(10);
+        Assert.assertEquals(count(storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_QUERY, RESULT_TTL)), 1);
+        storeQueryCache.query(APP_NAME, siddhiAppRuntime, "select 'IBM' as symbol, 75.6f as price " +
+                "insert into StockTable", RESULT_TTL);
+        Assert.assertEquals(count(storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_QUERY, RESULT_TTL)), 2);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedQueryEviction() throws InterruptedException {
+        StoreQueryCache storeQueryCache = new StoreQueryCache(2);
+        storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_QUERY, RESULT_TTL);
+        storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_SYMBOL_QUERY, RESULT_TTL);
+        // Uses the first query, so that the second one is the least recently used
+        storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_QUERY, RESULT_TTL);
+        storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_PRICE_QUERY, RESULT_TTL);
+        stockStream.send(new Object[]{"IBM", 75.6f});
+
+        Assert.assertEquals(count(storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_QUERY, RESULT_TTL)), 1);
+        Assert.assertEquals(count(storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_PRICE_QUERY, RESULT_TTL)),
+                1);
+        Assert.assertEquals(count(storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_SYMBOL_QUERY, RESULT_TTL)),
+                2);
+    }
+
+    @Test
+    public void testInvalidation() throws InterruptedException {
+        StoreQueryCache storeQueryCache = new StoreQueryCache(10);
+        storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_QUERY, RESULT_TTL);
+        stockStream.send(new Object[]{"IBM", 75.6f});
+        storeQueryCache.invalidate("AnotherApp");
+        Assert.assertEquals(count(storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_QUERY, RESULT_TTL)), 1);
+        storeQueryCache.invalidate(APP_NAME);
+        Assert.assertEquals(count(storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_QUERY, RESULT_TTL)), 2);
+    }
+
+    @Test
+    public void testRedeployedApp() {
+        StoreQueryCache storeQueryCache = new StoreQueryCache(10);
+        Assert.assertEquals(count(storeQueryCache.query(APP_NAME, siddhiAppRuntime, SELECT_QUERY, RESULT_TTL)), 1);
+        Assert.assertEquals(storeQueryCache.getOutputAttributes(APP_NAME, siddhiAppRuntime, SELECT_QUERY).length, 2);
+
+        // The results cached for the previous runtime of the app are not returned for the redeployed app
+        siddhiAppRuntime.shutdown();
+        SiddhiAppRuntime redeployedSiddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(SIDDHI_APP);
+        redeployedSiddhiAppRuntime.start();
+        Assert.assertEquals(count(storeQueryCache.query(APP_NAME, redeployedSiddhiAppRuntime, SELECT_QUERY,
+                RESULT_TTL)), 0);
+        Assert.assertEquals(storeQueryCache.getOutputAttributes(APP_NAME, redeployedSiddhiAppRuntime,
+                SELECT_SYMBOL_QUERY).length, 1);
+    }
+
+    private static int count(Event[] events) {
+        return events == null ? 0 : events.length;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.common;
+
+/**
+ * Conditions and the page of the error entries read from a {@link PageableErrorStore}. Entries are ordered by their
+ * timestamp and id, and a page starts after the entry denoted by {@code afterTimestamp} and {@code afterId}.
+ */
+public class ErrorEntryFilter {
+    private String siddhiAppName;
+    private String streamName;
+    private String errorType;
+    private Long fromTimestamp;
+    private Long toTimestamp;
+    private Long afterTimestamp;
+    private int afterId;
+    private int limit = 100;
+    private boolean isDescriptive;
+
+    public ErrorEntryFilter(String siddhiAppName) {
+        this.siddhiAppName = siddhiAppName;
+    }
+
+    public String getSiddhiAppName() {
+        return siddhiAppName;
+    }
+
+    public String getStreamName() {
+        return streamName;
+    }
+
+    public void setStreamName(String streamName) {
+        this.streamName = streamName;
+    }
+
+    public String getErrorType() {
+        return errorType;
+    }
+
+    public void setErrorType(String errorType) {
+        this.errorType = errorType;
+    }
+
+    /**
+     * @return Inclusive lower bound of the timestamps of the entries, or null if unbounded.
+     */
+    public Long getFromTimestamp() {
+        return fromTimestamp;
+    }
+
+    public void setFromTimestamp(Long fromTimestamp) {
+        this.fromTimestamp = fromTimestamp;
+    }
+
+    /**
+     * @return Exclusive upper bound of the timestamps of the entries, or null if unbounded.
+     */
+    public Long getToTimestamp() {
+        return toTimestamp;
+    }
+
+    public void setToTimestamp(Long toTimestamp) {
+        this.toTimestamp = toTimestamp;
+    }
+
+    /**
+     * @return Timestamp of the last entry of the previous page, or null to read the first page.
+     */
+    public Long getAfterTimestamp() {
+        return afterTimestamp;
+    }
+
+    public int getAfterId() {
+        return afterId;
+    }
+
+    public void setAfter(long afterTimestamp, int afterId) {
+        this.afterTimestamp = afterTimestamp;
+        this.afterId = afterId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public boolean isDescriptive() {
+        return isDescriptive;
+    }
+
+    public void setDescriptive(boolean descriptive) {
+        isDescriptive = descriptive;
+    }
+}
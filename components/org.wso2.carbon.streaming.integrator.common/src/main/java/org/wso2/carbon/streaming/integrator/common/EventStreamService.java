@@ -35,4 +35,13 @@ public interface EventStreamService {
             ResourceNotFoundException;
 
     public void pushEvent(String siddhiAppName, String streamName, Event event);
+
+    /**
+     * Pushes a batch of events to the given stream. Implementations should send the batch to the stream at once.
+     */
+    default void pushEvents(String siddhiAppName, String streamName, Event[] events) {
+        for (Event event : events) {
+            pushEvent(siddhiAppName, streamName, event);
+        }
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.common;
+
+import io.siddhi.core.util.error.handler.model.ErrorEntry;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Describes an Error Store which can read error entries page by page, ordered by their timestamp and id.
+ */
+public interface PageableErrorStore {
+
+    /**
+     * Reads a page of the error entries matching the filter, and hands them to the consumer once the page is read, so
+     * that a slow consumer does not hold the resources of the store. Once read, the filter is moved past the last row
+     * read, so that it denotes the next page. Rows which cannot be converted to
+     * entries are skipped, but are counted and moved past as well.
+     *
+     * @param filter   Conditions and the page of the entries to be read.
+     * @param consumer Consumer of the read entries.
+     * @return Number of rows read, which is less than the limit of the filter only on the last page.
+     * @throws IOException If the entries cannot be read from the store, or the consumer fails to consume an entry.
+     */
+    int loadErrorEntries(ErrorEntryFilter filter, ErrorEntryConsumer consumer) throws IOException;
+
+    /**
+     * Discards the error entries with the given ids in a single transaction.
+     *
+     * @param ids Ids of the error entries.
+     * @return True if the entries are discarded.
+     */
+    boolean discardErrorEntries(List<Integer> ids);
+
+    /**
+     * Consumes the error entries read by a {@link PageableErrorStore}.
+     */
+    interface ErrorEntryConsumer {
+
+        void accept(ErrorEntry errorEntry) throws IOException;
+    }
+}
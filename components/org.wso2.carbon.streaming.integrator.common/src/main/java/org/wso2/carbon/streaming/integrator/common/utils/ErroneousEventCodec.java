@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.common.utils;
+
+import io.siddhi.core.event.Event;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary format of the erroneous events kept in the error store, used instead of Java serialization for
+ * events and payload strings. The attribute types of a set of events are written once, followed by the values of
+ * each event without any type information. Encoded bytes start with a magic number and a version, which can never
+ * be the start of Java serialized bytes.
+ */
+public class ErroneousEventCodec {
+    public static final byte VERSION = 1;
+
+    private static final byte MAGIC_1 = 'S';
+    private static final byte MAGIC_2 = 'E';
+
+    private static final byte KIND_EVENT = 0;
+    private static final byte KIND_EVENT_ARRAY = 1;
+    private static final byte KIND_EVENT_LIST = 2;
+    private static final byte KIND_STRING = 3;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_FLOAT = 4;
+    private static final byte TYPE_DOUBLE = 5;
+    private static final byte TYPE_BOOL = 6;
+
+    private ErroneousEventCodec() {
+    }
+
+    public static boolean isEncoded(byte[] bytes) {
+        return bytes != null && bytes.length >= 4 && bytes[0] == MAGIC_1 && bytes[1] == MAGIC_2;
+    }
+
+    /**
+     * Encodes an erroneous event.
+     *
+     * @param object an {@link Event}, an array or a list of events, or a payload string
+     * @return encoded bytes, or null if the object cannot be represented in the compact format
+     */
+    public static byte[] encode(Object object) {
+        try {
+            if (object instanceof Event) {
+                return encodeEvents(KIND_EVENT, new Event[]{(Event) object});
+            } else if (object instanceof Event[]) {
+                return encodeEvents(KIND_EVENT_ARRAY, (Event[]) object);
+            } else if (object instanceof List) {
+                List<?> list = (List<?>) object;
+                for (Object element : list) {
+                    if (!(element instanceof Event)) {
+                        return null;
+                    }
+                }
+                return encodeEvents(KIND_EVENT_LIST, list.toArray(new Event[0]));
+            } else if (object instanceof String) {
+                ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+                DataOutputStream outputStream = new DataOutputStream(byteArrayOutputStream);
+                writeHeader(outputStream, KIND_STRING);
+                writeString(outputStream, (String) object);
+                return byteArrayOutputStream.toByteArray();
+            }
+        } catch (IOException e) {
+            // Not thrown when writing to a byte array
+        }
+        return null;
+    }
+
+    /**
+     * Decodes bytes encoded by {@link #encode(Object)}.
+     *
+     * @param bytes encoded bytes
+     * @return an {@link Event}, an array or a list of events, or a payload string, as it was encoded
+     * @throws IOException if the bytes are not in a supported version of the format
+     */
+    public static Object decode(byte[] bytes) throws IOException {
+        if (!isEncoded(bytes)) {
+            throw new IOException("Bytes are not in the compact erroneous event format.");
+        }
+        if (bytes[2] != VERSION) {
+            throw new IOException("Unsupported version: " + bytes[2] + " of the compact erroneous event format.");
+        }
+        DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(bytes, 4, bytes.length - 4));
+        byte kind = bytes[3];
+        if (kind == KIND_STRING) {
+            return readString(inputStream);
+        }
+        int eventCount = inputStream.readInt();
+        byte[] types = new byte[inputStream.readUnsignedShort()];
+        inputStream.readFully(types);
+        Event[] events = new Event[eventCount];
+        for (int i = 0; i < eventCount; i++) {
+            events[i] = readEvent(inputStream, types);
+        }
+        switch (kind) {
+            case KIND_EVENT:
+                return events[0];
+            case KIND_EVENT_ARRAY:
+                return events;
+            case KIND_EVENT_LIST:
+                return new ArrayList<>(Arrays.asList(events));
+            default:
+                throw new IOException("Unknown kind: " + kind + " of the compact erroneous event format.");
+        }
+    }
+
+    private static byte[] encodeEvents(byte kind, Event[] events) throws IOException {
+        if (events.length == 0 || (kind == KIND_EVENT && events[0] == null)) {
+            return null;
+        }
+        int attributeCount = events[0].getData() == null ? 0 : events[0].getData().length;
+        byte[] types = new byte[attributeCount];
+        for (Event event : events) {
+            if (event == null || event.getData() == null || event.getData().length != attributeCount) {
+                return null;
+            }
+            for (int i = 0; i < attributeCount; i++) {
+                byte type = getType(event.getData()[i]);
+                if (type < 0 || (type != TYPE_NULL && types[i] != TYPE_NULL && types[i] != type)) {
+                    return null;
+                }
+                if (type != TYPE_NULL) {
+                    types[i] = type;
+                }
+            }
+        }
+        if (attributeCount > 0xFFFF) {
+            return null;
+        }
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        DataOutputStream outputStream = new DataOutputStream(byteArrayOutputStream);
+        writeHeader(outputStream, kind);
+        outputStream.writeInt(events.length);
+        outputStream.writeShort(attributeCount);
+        outputStream.write(types);
+        for (Event event : events) {
+            writeEvent(outputStream, event, types);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private static void writeHeader(DataOutputStream outputStream, byte kind) throws IOException {
+        outputStream.writeByte(MAGIC_1);
+        outputStream.writeByte(MAGIC_2);
+        outputStream.writeByte(VERSION);
+        outputStream.writeByte(kind);
+    }
+
+    private static void writeEvent(DataOutputStream outputStream, Event event, byte[] types) throws IOException {
+        Object[] data = event.getData();
+        outputStream.writeLong(event.getTimestamp());
+        outputStream.writeBoolean(event.isExpired());
+        byte[] nullBits = new byte[(data.length + 7) / 8];
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == null) {
+                nullBits[i / 8] |= 1 << (i % 8);
+            }
+        }
+        outputStream.write(nullBits);
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == null) {
+                continue;
+            }
+            switch (types[i]) {
+                case TYPE_STRING:
+                    writeString(outputStream, (String) data[i]);
+                    break;
+                case TYPE_INT:
+                    outputStream.writeInt((Integer) data[i]);
+                    break;
+                case TYPE_LONG:
+                    outputStream.writeLong((Long) data[i]);
+                    break;
+                case TYPE_FLOAT:
+                    outputStream.writeFloat((Float) data[i]);
+                    break;
+                case TYPE_DOUBLE:
+                    outputStream.writeDouble((Double) data[i]);
+                    break;
+                case TYPE_BOOL:
+                    outputStream.writeBoolean((Boolean) data[i]);
+                    break;
+                default:
+                    // Only null values have the null type
+            }
+        }
+    }
+
+    private static Event readEvent(DataInputStream inputStream, byte[] types) throws IOException {
+        long timestamp = inputStream.readLong();
+        boolean isExpired = inputStream.readBoolean();
+        byte[] nullBits = new byte[(types.length + 7) / 8];
+        inputStream.readFully(nullBits);
+        Object[] data = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            if ((nullBits[i / 8] & (1 << (i % 8))) != 0) {
+                continue;
+            }
+            switch (types[i]) {
+                case TYPE_STRING:
+                    data[i] = readString(inputStream);
+                    break;
+                case TYPE_INT:
+                    data[i] = inputStream.readInt();
+                    break;
+                case TYPE_LONG:
+                    data[i] = inputStream.readLong();
+                    break;
+                case TYPE_FLOAT:
+                    data[i] = inputStream.readFloat();
+                    break;
+                case TYPE_DOUBLE:
+                    data[i] = inputStream.readDouble();
+                    break;
+                case TYPE_BOOL:
+                    data[i] = inputStream.readBoolean();
+                    break;
+                default:
+                    throw new IOException("Unknown attribute type: " + types[i] + " of the compact erroneous " +
+                        "event format.");
+            }
+        }
+        Event event = new Event(timestamp, data);
+        event.setIsExpired(isExpired);
+        return event;
+    }
+
+    private static byte getType(Object value) {
+        if (value == null) {
+            return TYPE_NULL;
+        } else if (value instanceof String) {
+            return TYPE_STRING;
+        } else if (value instanceof Integer) {
+            return TYPE_INT;
+        } else if (value instanceof Long) {
+            return TYPE_LONG;
+        } else if (value instanceof Float) {
+            return TYPE_FLOAT;
+        } else if (value instanceof Double) {
+            return TYPE_DOUBLE;
+        } else if (value instanceof Boolean) {
+            return TYPE_BOOL;
+        }
+        // Objects are left to Java serialization
+        return -1;
+    }
+
+    private static void writeString(DataOutputStream outputStream, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+    private static String readString(DataInputStream inputStream) throws IOException {
+        byte[] bytes = new byte[inputStream.readInt()];
+        inputStream.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.common.utils;
+
+import io.siddhi.core.event.Event;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ErroneousEventCodecTest {
+
+    @Test
+    public void testEventRoundTrip() throws IOException {
+        Event event = createEvent(1000L, false, "WSO2", 55, 100L, 55.6f, 55.62, true);
+        byte[] bytes = ErroneousEventCodec.encode(event);
+        Assert.assertTrue(ErroneousEventCodec.isEncoded(bytes));
+        Object decoded = ErroneousEventCodec.decode(bytes);
+        Assert.assertTrue(decoded instanceof Event);
+        assertEvent((Event) decoded, event);
+    }
+
+    @Test
+    public void testEventArrayRoundTrip() throws IOException {
+        // The type of an attribute is taken from the events in which it is not null
+        Event[] events = {createEvent(1000L, false, "WSO2", null, 100L),
+                createEvent(2000L, true, null, 75, null),
+                createEvent(3000L, false, null, null, null)};
+        Object decoded = ErroneousEventCodec.decode(ErroneousEventCodec.encode(events));
+        Assert.assertTrue(decoded instanceof Event[]);
+        Event[] decodedEvents = (Event[]) decoded;
+        Assert.assertEquals(decodedEvents.length, events.length);
+        for (int i = 0; i < events.length; i++) {
+            assertEvent(decodedEvents[i], events[i]);
+        }
+    }
+
+    @Test
+    public void testEventListRoundTrip() throws IOException {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            events.add(createEvent(i, i % 2 == 0, "symbol-" + i, (double) i));
+        }
+        Object decoded = ErroneousEventCodec.decode(ErroneousEventCodec.encode(events));
+        Assert.assertTrue(decoded instanceof List);
+        List<?> decodedEvents = (List<?>) decoded;
+        Assert.assertEquals(decodedEvents.size(), events.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertEvent((Event) decodedEvents.get(i), events.get(i));
+        }
+    }
+
+    @Test
+    public void testEventWithoutAttributesRoundTrip() throws IOException {
+        Event event = createEvent(1000L, true);
+        assertEvent((Event) ErroneousEventCodec.decode(ErroneousEventCodec.encode(event)), event);
+    }
+
+    @Test
+    public void testPayloadStringRoundTrip() throws IOException {
+        for (String payload : new String[]{"", "{\"symbol\":\"WSO2\",\"price\":55.6}",
+                "\u0dc3\u0dd2\u0d82 \u0ba4\u0bae\u0bbf\u0bb4\u0bcd \u0000"}) {
+            byte[] bytes = ErroneousEventCodec.encode(payload);
+            Assert.assertTrue(ErroneousEventCodec.isEncoded(bytes));
+            Assert.assertEquals(ErroneousEventCodec.decode(bytes), payload);
+        }
+    }
+
+    @Test
+    public void testUnsupportedObjects() {
+        // Left to Java serialization
+        Assert.assertNull(ErroneousEventCodec.encode(createEvent(1000L, false, "WSO2", new Object())));
+        Assert.assertNull(ErroneousEventCodec.encode(new Event[]{createEvent(1000L, false, "WSO2"),
+                createEvent(2000L, false, 55)}));
+        Assert.assertNull(ErroneousEventCodec.encode(new Event[]{createEvent(1000L, false, "WSO2"),
+                createEvent(2000L, false, "IBM", 75)}));
+        Assert.assertNull(ErroneousEventCodec.encode(Arrays.asList(createEvent(1000L, false, "WSO2"), "WSO2")));
+        Assert.assertNull(ErroneousEventCodec.encode(new Event[0]));
+        Assert.assertNull(ErroneousEventCodec.encode(new Object[]{"WSO2"}));
+        Assert.assertNull(ErroneousEventCodec.encode(null));
+    }
+
+    @Test
+    public void testJavaSerializedBytesAreNotEncoded() throws IOException {
+        for (Object object : new Object[]{createEvent(1000L, false, "WSO2", 55.6f), "{\"symbol\":\"WSO2\"}"}) {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            try (ObjectOutputStream outputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+                outputStream.writeObject(object);
+            }
+            byte[] bytes = byteArrayOutputStream.toByteArray();
+            Assert.assertFalse(ErroneousEventCodec.isEncoded(bytes));
+            try {
+                ErroneousEventCodec.decode(bytes);
+                Assert.fail("Java serialized bytes were decoded as the compact format.");
+            } catch (IOException e) {
+                // Expected, as they are read by Java deserialization instead
+            }
+        }
+        Assert.assertFalse(ErroneousEventCodec.isEncoded(null));
+        Assert.assertFalse(ErroneousEventCodec.isEncoded(new byte[]{'S', 'E'}));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testUnsupportedVersion() throws IOException {
+        byte[] bytes = ErroneousEventCodec.encode("WSO2");
+        bytes[2] = ErroneousEventCodec.VERSION + 1;
+        ErroneousEventCodec.decode(bytes);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testTruncatedBytes() throws IOException {
+        byte[] bytes = ErroneousEventCodec.encode(createEvent(1000L, false, "WSO2", 55.6f));
+        ErroneousEventCodec.decode(Arrays.copyOf(bytes, bytes.length - 2));
+    }
+
+    private static Event createEvent(long timestamp, boolean isExpired, Object... data) {
+        Event event = new Event(timestamp, data);
+        event.setIsExpired(isExpired);
+        return event;
+    }
+
+    private static void assertEvent(Event actual, Event expected) {
+        Assert.assertEquals(actual.getTimestamp(), expected.getTimestamp());
+        Assert.assertEquals(actual.isExpired(), expected.isExpired());
+        Assert.assertEquals(actual.getData(), expected.getData());
+        for (int i = 0; i < expected.getData().length; i++) {
+            if (expected.getData()[i] != null) {
+                Assert.assertEquals(actual.getData()[i].getClass(), expected.getData()[i].getClass());
+            }
+        }
+    }
+}
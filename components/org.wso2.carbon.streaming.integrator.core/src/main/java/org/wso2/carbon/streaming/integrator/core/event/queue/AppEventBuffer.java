@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.event.queue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffer of the events replicated to the passive node for a single Siddhi app. Events are kept per source handler in
+ * fixed size segments, so that trimming the buffer after a checkpoint of the active node drops whole segments.
+ */
+public class AppEventBuffer {
+    private static final int SEGMENT_SIZE = 1024;
+
+    private String siddhiAppName;
+    private Map<String, SourceEventBuffer> sourceEventBufferMap = new HashMap<>();
+    private long lastControlMessageSequenceId = -1;
+    private long size = 0;
+    private AtomicLong totalSize;
+    private long capacity;
+
+    /**
+     * @param siddhiAppName name of the Siddhi app
+     * @param totalSize     number of events buffered across all Siddhi apps, shared by the buffers of all apps
+     * @param capacity      maximum number of events buffered across all Siddhi apps
+     */
+    public AppEventBuffer(String siddhiAppName, AtomicLong totalSize, long capacity) {
+        this.siddhiAppName = siddhiAppName;
+        this.totalSize = totalSize;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds the events which are newer than the last checkpoint of the Siddhi app.
+     *
+     * @param queuedEvents events of the Siddhi app
+     * @return number of events evicted to keep the buffer within its capacity
+     */
+    public synchronized int add(QueuedEvent... queuedEvents) {
+        int evictedEvents = 0;
+        for (QueuedEvent queuedEvent : queuedEvents) {
+            if (queuedEvent.getSequenceID() <= lastControlMessageSequenceId) {
+                continue;
+            }
+            if (totalSize.get() >= capacity) {
+                evictedEvents += evictOldestSegment();
+            }
+            SourceEventBuffer sourceEventBuffer = sourceEventBufferMap.get(queuedEvent.getSourceHandlerElementId());
+            if (sourceEventBuffer == null) {
+                sourceEventBuffer = new SourceEventBuffer();
+                sourceEventBufferMap.put(queuedEvent.getSourceHandlerElementId(), sourceEventBuffer);
+            }
+            sourceEventBuffer.add(queuedEvent);
+            size++;
+            totalSize.incrementAndGet();
+        }
+        return evictedEvents;
+    }
+
+    /**
+     * Drops the events older than the given sequence id, which is the sequence id of the last event processed by the
+     * active node before persisting the state of the Siddhi app.
+     *
+     * @param sequenceId sequence id of the checkpoint
+     * @return number of events dropped
+     */
+    public synchronized long trim(long sequenceId) {
+        if (sequenceId > lastControlMessageSequenceId) {
+            lastControlMessageSequenceId = sequenceId;
+        }
+        long trimmedEvents = 0;
+        for (SourceEventBuffer sourceEventBuffer : sourceEventBufferMap.values()) {
+            trimmedEvents += sourceEventBuffer.trim(sequenceId);
+        }
+        size -= trimmedEvents;
+        totalSize.addAndGet(-trimmedEvents);
+        return trimmedEvents;
+    }
+
+    /**
+     * Removes all the buffered events of the Siddhi app.
+     *
+     * @return buffered events of all the source handlers, in the ascending order of their sequence ids
+     */
+    public synchronized List<QueuedEvent> drain() {
+        List<QueuedEvent> queuedEvents = new ArrayList<>((int) size);
+        for (SourceEventBuffer sourceEventBuffer : sourceEventBufferMap.values()) {
+            sourceEventBuffer.drainTo(queuedEvents, lastControlMessageSequenceId);
+        }
+        // Events of each source are mostly in order already, which the merge sort makes use of
+        queuedEvents.sort(Comparator.comparingLong(QueuedEvent::getSequenceID));
+        clear();
+        return queuedEvents;
+    }
+
+    public synchronized void clear() {
+        sourceEventBufferMap.clear();
+        totalSize.addAndGet(-size);
+        size = 0;
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized long getLastControlMessageSequenceId() {
+        return lastControlMessageSequenceId;
+    }
+
+    public String getSiddhiAppName() {
+        return siddhiAppName;
+    }
+
+    private int evictOldestSegment() {
+        SourceEventBuffer oldestSourceEventBuffer = null;
+        for (SourceEventBuffer sourceEventBuffer : sourceEventBufferMap.values()) {
+            if (sourceEventBuffer.segments.size() > 1 && (oldestSourceEventBuffer == null ||
+                    sourceEventBuffer.segments.peekFirst().maxSequenceId <
+                            oldestSourceEventBuffer.segments.peekFirst().maxSequenceId)) {
+                oldestSourceEventBuffer = sourceEventBuffer;
+            }
+        }
+        if (oldestSourceEventBuffer == null) {
+            return 0;
+        }
+        int evictedEvents = oldestSourceEventBuffer.segments.pollFirst().size;
+        size -= evictedEvents;
+        totalSize.addAndGet(-evictedEvents);
+        return evictedEvents;
+    }
+
+    /**
+     * Segments of the events of a single source handler, in the order they were received.
+     */
+    private static class SourceEventBuffer {
+        private ArrayDeque<EventSegment> segments = new ArrayDeque<>();
+
+        void add(QueuedEvent queuedEvent) {
+            EventSegment segment = segments.peekLast();
+            if (segment == null || segment.size == SEGMENT_SIZE) {
+                segment = new EventSegment();
+                segments.addLast(segment);
+            }
+            segment.add(queuedEvent);
+        }
+
+        long trim(long sequenceId) {
+            long trimmedEvents = 0;
+            while (!segments.isEmpty() && segments.peekFirst().maxSequenceId < sequenceId) {
+                trimmedEvents += segments.pollFirst().size;
+            }
+            if (!segments.isEmpty()) {
+                // Only the first remaining segment can hold events of either side of the checkpoint, unless the
+                // events were received out of order, in which case the rest are skipped when draining.
+                trimmedEvents += segments.peekFirst().removeBefore(sequenceId);
+            }
+            return trimmedEvents;
+        }
+
+        void drainTo(List<QueuedEvent> queuedEvents, long lastControlMessageSequenceId) {
+            for (EventSegment segment : segments) {
+                for (int i = 0; i < segment.size; i++) {
+                    if (segment.events[i].getSequenceID() >= lastControlMessageSequenceId) {
+                        queuedEvents.add(segment.events[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Fixed size chunk of events.
+     */
+    private static class EventSegment {
+        private QueuedEvent[] events = new QueuedEvent[SEGMENT_SIZE];
+        private int size = 0;
+        private long maxSequenceId = Long.MIN_VALUE;
+
+        void add(QueuedEvent queuedEvent) {
+            events[size++] = queuedEvent;
+            if (queuedEvent.getSequenceID() > maxSequenceId) {
+                maxSequenceId = queuedEvent.getSequenceID();
+            }
+        }
+
+        int removeBefore(long sequenceId) {
+            int retained = 0;
+            for (int i = 0; i < size; i++) {
+                if (events[i].getSequenceID() >= sequenceId) {
+                    events[retained++] = events[i];
+                }
+            }
+            int removed = size - retained;
+            for (int i = retained; i < size; i++) {
+                events[i] = null;
+            }
+            size = retained;
+            return removed;
+        }
+    }
+}
@@ -18,12 +18,19 @@
 
 package org.wso2.carbon.streaming.integrator.core.event.queue;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.siddhi.core.event.Event;
 import io.siddhi.core.stream.input.source.Source;
+import io.siddhi.core.stream.input.source.SourceHandler;
 import io.siddhi.core.util.SiddhiConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.Counter;
+import org.wso2.carbon.metrics.core.Gauge;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.MetricService;
 import org.wso2.carbon.si.metrics.core.ThroughputMetric;
+import org.wso2.carbon.si.metrics.core.internal.MetricsDataHolder;
 import org.wso2.carbon.streaming.integrator.core.ha.HACoordinationSourceHandler;
 import org.wso2.carbon.streaming.integrator.core.ha.exception.InvalidByteMessageException;
 import org.wso2.carbon.streaming.integrator.core.ha.tcp.SiddhiEventConverter;
@@ -35,17 +42,28 @@ import org.wso2.carbon.streaming.integrator.core.util.BinaryMessageConverterUtil
 
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class EventListMapManager {
-    private static ConcurrentSkipListMap<Long,QueuedEvent> eventListMap;
-    private static Map<String,Long> perAppLastControlMessageSequenceNumberList = new HashMap<>();
+    private static final long DEFAULT_EVENT_BUFFER_CAPACITY = 1000000;
+    private static ConcurrentMap<String, AppEventBuffer> appEventBufferMap = new ConcurrentHashMap<>();
+    private static AtomicLong bufferedEventCount = new AtomicLong();
+    private static long eventBufferCapacity = DEFAULT_EVENT_BUFFER_CAPACITY;
+    private static MetricService metricService;
+    private static Counter evictedEventsCounter;
+    private static Counter replayedEventsCounter;
     private static final Logger log = LoggerFactory.getLogger(EventListMapManager.class);
     private static long startTime = new Date().getTime();;
     private static long endTime;
@@ -64,16 +82,72 @@ public class EventListMapManager {
         }
     }
 
-    public static void initializeEventListMap() {
-        eventListMap = new ConcurrentSkipListMap<Long, QueuedEvent>();
+    /**
+     * Clears the events buffered on the passive node and sets the maximum number of events buffered across all the
+     * Siddhi apps. The limit is approximate, as the segment currently filled by each source is never evicted.
+     *
+     * @param capacity maximum number of buffered events
+     */
+    public static synchronized void initializeEventListMap(long capacity) {
+        for (AppEventBuffer appEventBuffer : appEventBufferMap.values()) {
+            appEventBuffer.clear();
+            if (metricService != null) {
+                metricService.remove(getBufferSizeMetricName(appEventBuffer.getSiddhiAppName()));
+            }
+        }
+        appEventBufferMap.clear();
+        eventBufferCapacity = capacity;
+        if (StreamProcessorDataHolder.isStatisticsEnabled()) {
+            metricService = MetricsDataHolder.getInstance().getMetricService();
+        }
+        if (metricService != null && evictedEventsCounter == null) {
+            evictedEventsCounter = metricService.counter(SiddhiAppProcessorConstants.HA_METRICS_PREFIX +
+                    SiddhiConstants.METRIC_DELIMITER +
+                    SiddhiAppProcessorConstants.HA_METRICS_EVENT_BUFFER_EVICTED_EVENTS, Level.INFO);
+            replayedEventsCounter = metricService.counter(SiddhiAppProcessorConstants.HA_METRICS_PREFIX +
+                    SiddhiConstants.METRIC_DELIMITER + SiddhiAppProcessorConstants.HA_METRICS_REPLAYED_EVENTS,
+                    Level.INFO);
+        }
     }
 
-    public void parseControlMessage(byte[] controlMessageContentByteArray) throws UnsupportedEncodingException {
+    /**
+     * Returns the number of events buffered for a Siddhi app on the passive node.
+     *
+     * @param siddhiAppName name of the Siddhi app
+     * @return number of buffered events
+     */
+    public static long getBufferedEventCount(String siddhiAppName) {
+        AppEventBuffer appEventBuffer = appEventBufferMap.get(siddhiAppName);
+        return appEventBuffer == null ? 0 : appEventBuffer.size();
+    }
+
+    /**
+     * Returns the sequence id of the last checkpoint of a Siddhi app received from the active node.
+     *
+     * @param siddhiAppName name of the Siddhi app
+     * @return sequence id of the checkpoint, or -1 if no checkpoint is received
+     */
+    public static long getLastControlMessageSequenceId(String siddhiAppName) {
+        AppEventBuffer appEventBuffer = appEventBufferMap.get(siddhiAppName);
+        return appEventBuffer == null ? -1 : appEventBuffer.getLastControlMessageSequenceId();
+    }
+
+    /**
+     * Drops the buffered events of a Siddhi app older than the given sequence id.
+     *
+     * @param siddhiAppName name of the Siddhi app
+     * @param sequenceId    sequence id of the checkpoint
+     */
+    public static void trimEventBuffer(String siddhiAppName, long sequenceId) {
+        getAppEventBuffer(siddhiAppName).trim(sequenceId);
+    }
+
+    public void parseControlMessage(ByteBuffer controlMessageContent) {
         if (log.isDebugEnabled()) {
             log.debug("Received a control message");
         }
-        String message = null;
-        message = new String(controlMessageContentByteArray, HAConstants.DEFAULT_CHARSET);
+        String message = BinaryMessageConverterUtil.getUTF8String(controlMessageContent,
+                controlMessageContent.remaining());
         if (!message.isEmpty()) {
             message = message.replace ("[", "");
             message = message.replace ("]", "");
@@ -82,9 +156,8 @@ public class EventListMapManager {
         }
     }
 
-    public void parseMessage(byte[] eventContentByteArray) {
+    public void parseMessage(ByteBuffer eventContent) {
         try {
-            ByteBuffer eventContent = ByteBuffer.wrap(eventContentByteArray);
             int noOfEvents = eventContent.getInt();
             if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
                 throughputTracker.eventsIn(noOfEvents);
@@ -125,129 +198,237 @@ public class EventListMapManager {
                         }
                     }
                 }
-                long lastSequenceIdForApp = -1;
-
-                if (perAppLastControlMessageSequenceNumberList.size() != 0) {
-                    if (perAppLastControlMessageSequenceNumberList.get(siddhiAppName) != null) {
-                        lastSequenceIdForApp = perAppLastControlMessageSequenceNumberList.get(siddhiAppName);
-                    }
+                String attributes;
+                int attributeLength = eventContent.getInt();
+                if (attributeLength == 0) {
+                    throw new InvalidByteMessageException("Invalid attributeLength size = 0");
+                } else {
+                    attributes = BinaryMessageConverterUtil.getString(eventContent, attributeLength);
                 }
-                synchronized (this) {
-                    //we need this block synchronized to ensure if last remembered siddhi app id is smaller than the
-                    // event id then add it to the tree map synchronously, else older event may add to the tree map
-                    if (sequenceID > lastSequenceIdForApp) {
-                        String attributes;
-                        int attributeLength = eventContent.getInt();
-                        if (attributeLength == 0) {
-                            throw new InvalidByteMessageException("Invalid attributeLength size = 0");
-                        } else {
-                            attributes = BinaryMessageConverterUtil.getString(eventContent, attributeLength);
-                        }
-                        String[] attributeTypes = attributes.substring(1, attributes.length() - 1).split(", ");
-                        events[i] = SiddhiEventConverter.getEvent(eventContent, attributeTypes);
-                        queuedEvent = new QueuedEvent(siddhiAppName, sourceHandlerElementId, sequenceID, events[i],
-                                transportSyncProperties);
-                        this.addToEventListMap(sequenceID, queuedEvent);
-                    }
-                    if (log.isDebugEnabled()) {
-                        count++;
-                        if (count % TPS_EVENT_THRESHOLD == 0) {
-                            endTime = new Date().getTime();
-                            log.debug("# of events batch : " + TPS_EVENT_THRESHOLD + " start timestamp : " + startTime +
-                                    " end time stamp : " + endTime + " Throughput is (events / sec) : " +
-                                    (((TPS_EVENT_THRESHOLD * 1000) / (endTime - startTime))) +
-                                    " Total Event Count : " + count +
-                                    ". current eventListMap size: " + eventListMap.size());
-                            startTime = new Date().getTime();
-                        }
+                String[] attributeTypes = attributes.substring(1, attributes.length() - 1).split(", ");
+                events[i] = SiddhiEventConverter.getEvent(eventContent, attributeTypes);
+                queuedEvent = new QueuedEvent(siddhiAppName, sourceHandlerElementId, sequenceID, events[i],
+                        transportSyncProperties);
+                addToEventBuffer(siddhiAppName, queuedEvent);
+            }
+            if (log.isDebugEnabled()) {
+                synchronized (EventListMapManager.class) {
+                    count += noOfEvents;
+                    if (count >= TPS_EVENT_THRESHOLD) {
+                        endTime = new Date().getTime();
+                        log.debug("# of events batch : " + count + " start timestamp : " + startTime +
+                                " end time stamp : " + endTime + " Throughput is (events / sec) : " +
+                                (((count * 1000L) / Math.max(1, endTime - startTime))) +
+                                ". current buffered event count: " + bufferedEventCount.get());
+                        count = 0;
+                        startTime = new Date().getTime();
                     }
                 }
-
-
             }
         } catch (UnsupportedEncodingException e) {
             log.error("Error when converting bytes " + e.getMessage(), e);
         }
     }
 
+    public void parseCompactMessage(ByteBuffer eventContent) {
+        QueuedEvent[] queuedEvents = SiddhiEventConverter.getQueuedEvents(eventContent);
+        if (queuedEvents.length == 0) {
+            return;
+        }
+        if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
+            throughputTracker.eventsIn(queuedEvents.length);
+        }
+        String siddhiAppName = queuedEvents[0].getSiddhiAppName();
+        addToEventBuffer(siddhiAppName, queuedEvents);
+        if (log.isDebugEnabled()) {
+            log.debug("Received " + queuedEvents.length + " events of Siddhi app " + siddhiAppName +
+                    ". current buffered event count of the app: " + getBufferedEventCount(siddhiAppName));
+        }
+    }
+
+    /**
+     * Replays the buffered events to the sources of their Siddhi apps when the passive node becomes active. Siddhi
+     * apps are replayed concurrently, while the events of each app are replayed in the order they were received by
+     * the active node, in batches of consecutive events of the same source.
+     */
     public void trimAndSendToInputHandler() throws InterruptedException {
         Map<String, SiddhiAppData> siddhiAppMap = StreamProcessorDataHolder.getStreamProcessorService().
                 getSiddhiAppMap();
+        List<AppEventReplayer> appEventReplayers = new ArrayList<>();
+        AtomicLong remainingEventCount = new AtomicLong();
+        for (AppEventBuffer appEventBuffer : appEventBufferMap.values()) {
+            List<QueuedEvent> queuedEvents = appEventBuffer.drain();
+            SiddhiAppData siddhiAppData = siddhiAppMap.get(appEventBuffer.getSiddhiAppName());
+            if (siddhiAppData != null && !queuedEvents.isEmpty()) {
+                remainingEventCount.addAndGet(queuedEvents.size());
+                appEventReplayers.add(new AppEventReplayer(appEventBuffer.getSiddhiAppName(), siddhiAppData,
+                        queuedEvents, remainingEventCount));
+            }
+        }
+        initializeEventListMap(eventBufferCapacity);
+        if (appEventReplayers.isEmpty()) {
+            return;
+        }
 
-        for(Map.Entry<Long,QueuedEvent> listMapValue : eventListMap.entrySet()) {
-            long key = listMapValue.getKey();
-            QueuedEvent queuedEvent = listMapValue.getValue();
-            SiddhiAppData siddhiAppData = siddhiAppMap.get(queuedEvent.getSiddhiAppName());
-            if (siddhiAppData != null) {
-                Collection<List<Source>> sourceCollection = siddhiAppData.getSiddhiAppRuntime().getSources();
-                for (List<Source> sources : sourceCollection) {
-                    boolean isFound = false;
-                    for (Source source : sources) {
-                        if(queuedEvent.getSourceHandlerElementId().equals(source.getMapper().
-                                getHandler().getId())){
-                            source.getMapper().getHandler().sendEvent(queuedEvent.getEvent(),
-                                    queuedEvent.getTransportSyncProperties());
-                            if (null != queuedEvent.getTransportSyncProperties() &&
-                                    queuedEvent.getTransportSyncProperties().length != 0) {
-                                if (source.getMapper().getHandler() instanceof HACoordinationSourceHandler) {
-                                    ((HACoordinationSourceHandler)source.getMapper().getHandler()).
-                                            updateTransportSyncProperties(queuedEvent.getTransportSyncProperties());
-                                }
-                            }
-                            eventListMap.remove(key);
-                            isFound = true;
-                            break;
-                        }
-                    }
-                    if (isFound) {
-                        break;
-                    }
+        log.info("Replaying " + remainingEventCount.get() + " buffered events of " + appEventReplayers.size() +
+                " Siddhi apps");
+        long startTime = System.currentTimeMillis();
+        String remainingEventsMetricName = SiddhiAppProcessorConstants.HA_METRICS_PREFIX +
+                SiddhiConstants.METRIC_DELIMITER + SiddhiAppProcessorConstants.HA_METRICS_REPLAY_REMAINING_EVENTS;
+        if (metricService != null) {
+            metricService.gauge(remainingEventsMetricName, Level.INFO, new Gauge<Long>() {
+                @Override
+                public Long getValue() {
+                    return remainingEventCount.get();
                 }
+            });
+        }
+        ExecutorService replayExecutorService = Executors.newFixedThreadPool(
+                Math.min(appEventReplayers.size(), HAConstants.EVENT_REPLAY_THREAD_POOL_SIZE),
+                new ThreadFactoryBuilder().setNameFormat("EventReplayer-%d").build());
+        try {
+            List<Future<Long>> futures = replayExecutorService.invokeAll(appEventReplayers);
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    log.error("Error in replaying the buffered events of Siddhi app '" +
+                            appEventReplayers.get(i).siddhiAppName + "'. " + e.getCause().getMessage(),
+                            e.getCause());
+                }
+            }
+        } finally {
+            replayExecutorService.shutdownNow();
+            if (metricService != null) {
+                metricService.remove(remainingEventsMetricName);
             }
         }
-        eventListMap.clear();
-        perAppLastControlMessageSequenceNumberList.clear();
+        log.info("Replayed the buffered events of " + appEventReplayers.size() + " Siddhi apps in " +
+                (System.currentTimeMillis() - startTime) + " ms");
     }
 
-    public void trimQueue(String[] persistedAppDetails){
-        synchronized (this) {
-            //need to synchronize to make sure to finish remembering last control message seq id for siddhi app and
-            // trim accordingly
-            if (eventListMap.size() != 0 && persistedAppDetails.length != 0){
-                long eventListMapSize = eventListMap.size();
-                if (log.isDebugEnabled()) {
-                    log.debug("eventListMapSize before trimming:  " + eventListMapSize);
-                }
-                for(String appDetail : persistedAppDetails) {
-                    String[] details = appDetail.split(HAConstants.PERSISTED_APP_SPLIT_DELIMITER);
-                    long seqId = Long.parseLong(details[0].trim());
-                    String appName = details[2].trim();
-                    if (perAppLastControlMessageSequenceNumberList.get(appName) != null) {
-                        long existingId = perAppLastControlMessageSequenceNumberList.get(appName);
-                        if (existingId < seqId) {
-                            perAppLastControlMessageSequenceNumberList.put(appName, seqId);
-                        }
-                    } else {
-                        perAppLastControlMessageSequenceNumberList.put(appName, seqId);
-                    }
-                    Iterator<Map.Entry<Long, QueuedEvent>> iterator = eventListMap.entrySet().iterator();
-                    while (iterator.hasNext()) {
-                        Map.Entry<Long, QueuedEvent> listMapValue = iterator.next();
-                        long key = listMapValue.getKey();
-                        if (appName.equals(listMapValue.getValue().getSiddhiAppName()) && seqId > key) {
-                            iterator.remove();
+    public void trimQueue(String[] persistedAppDetails) {
+        long trimmedEvents = 0;
+        for (String appDetail : persistedAppDetails) {
+            String[] details = appDetail.split(HAConstants.PERSISTED_APP_SPLIT_DELIMITER);
+            long seqId = Long.parseLong(details[0].trim());
+            String appName = details[2].trim();
+            trimmedEvents += getAppEventBuffer(appName).trim(seqId);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Trimmed " + trimmedEvents + " messages from the event buffer. Current buffered event " +
+                    "count: " + bufferedEventCount.get());
+        }
+    }
+
+    public void addToEventBuffer(String siddhiAppName, QueuedEvent... queuedEvents) {
+        int evictedEvents = getAppEventBuffer(siddhiAppName).add(queuedEvents);
+        if (evictedEvents > 0) {
+            log.warn("Event buffer of the passive node reached its capacity of " + eventBufferCapacity +
+                    " events, hence evicted " + evictedEvents + " oldest events of Siddhi app '" + siddhiAppName +
+                    "'");
+            if (evictedEventsCounter != null) {
+                evictedEventsCounter.inc(evictedEvents);
+            }
+        }
+    }
+
+    private static AppEventBuffer getAppEventBuffer(String siddhiAppName) {
+        AppEventBuffer appEventBuffer = appEventBufferMap.get(siddhiAppName);
+        if (appEventBuffer == null) {
+            appEventBuffer = appEventBufferMap.computeIfAbsent(siddhiAppName, appName -> {
+                AppEventBuffer eventBuffer = new AppEventBuffer(appName, bufferedEventCount, eventBufferCapacity);
+                if (metricService != null) {
+                    metricService.gauge(getBufferSizeMetricName(appName), Level.INFO, new Gauge<Long>() {
+                        @Override
+                        public Long getValue() {
+                            return eventBuffer.size();
                         }
+                    });
+                }
+                return eventBuffer;
+            });
+        }
+        return appEventBuffer;
+    }
+
+    private static String getBufferSizeMetricName(String siddhiAppName) {
+        return SiddhiAppProcessorConstants.HA_METRICS_PREFIX + SiddhiConstants.METRIC_DELIMITER + siddhiAppName +
+                SiddhiConstants.METRIC_DELIMITER + SiddhiAppProcessorConstants.HA_METRICS_EVENT_BUFFER_SIZE;
+    }
+
+    /**
+     * Replays the buffered events of a single Siddhi app to its sources.
+     */
+    private static class AppEventReplayer implements Callable<Long> {
+        private String siddhiAppName;
+        private SiddhiAppData siddhiAppData;
+        private List<QueuedEvent> queuedEvents;
+        private AtomicLong remainingEventCount;
+
+        AppEventReplayer(String siddhiAppName, SiddhiAppData siddhiAppData, List<QueuedEvent> queuedEvents,
+                         AtomicLong remainingEventCount) {
+            this.siddhiAppName = siddhiAppName;
+            this.siddhiAppData = siddhiAppData;
+            this.queuedEvents = queuedEvents;
+            this.remainingEventCount = remainingEventCount;
+        }
+
+        @Override
+        public Long call() throws InterruptedException {
+            Map<String, SourceHandler> sourceHandlerMap = new HashMap<>();
+            for (List<Source> sources : siddhiAppData.getSiddhiAppRuntime().getSources()) {
+                for (Source source : sources) {
+                    SourceHandler sourceHandler = source.getMapper().getHandler();
+                    if (sourceHandler != null) {
+                        sourceHandlerMap.put(sourceHandler.getId(), sourceHandler);
                     }
                 }
-                if (log.isDebugEnabled()) {
-                    log.debug("Trimmed " + (eventListMapSize - eventListMap.size()) +
-                            " messages from eventListMap. Current eventListMap:" + eventListMap.size());
+            }
+            long replayedEvents = 0;
+            List<Event> batch = new ArrayList<>(HAConstants.EVENT_REPLAY_BATCH_SIZE);
+            SourceHandler batchSourceHandler = null;
+            for (QueuedEvent queuedEvent : queuedEvents) {
+                SourceHandler sourceHandler = sourceHandlerMap.get(queuedEvent.getSourceHandlerElementId());
+                if (sourceHandler == null) {
+                    remainingEventCount.decrementAndGet();
+                    continue;
+                }
+                if (sourceHandler != batchSourceHandler && !batch.isEmpty()) {
+                    replayedEvents += sendBatch(batchSourceHandler, batch, null);
+                }
+                batchSourceHandler = sourceHandler;
+                batch.add(queuedEvent.getEvent());
+                String[] transportSyncProperties = queuedEvent.getTransportSyncProperties();
+                if (transportSyncProperties != null && transportSyncProperties.length != 0) {
+                    // Transport sync properties apply to the last event of the batch they are sent with
+                    replayedEvents += sendBatch(sourceHandler, batch, transportSyncProperties);
+                } else if (batch.size() == HAConstants.EVENT_REPLAY_BATCH_SIZE) {
+                    replayedEvents += sendBatch(sourceHandler, batch, null);
                 }
             }
+            if (!batch.isEmpty()) {
+                replayedEvents += sendBatch(batchSourceHandler, batch, null);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Replayed " + replayedEvents + " buffered events of Siddhi app '" + siddhiAppName + "'");
+            }
+            return replayedEvents;
         }
-    }
 
-    public void addToEventListMap(long sequenceNum, QueuedEvent queuedEvent){
-        eventListMap.put(sequenceNum, queuedEvent);
+        private int sendBatch(SourceHandler sourceHandler, List<Event> batch, String[] transportSyncProperties)
+                throws InterruptedException {
+            int batchSize = batch.size();
+            sourceHandler.sendEvent(batch.toArray(new Event[batchSize]), transportSyncProperties);
+            if (transportSyncProperties != null && sourceHandler instanceof HACoordinationSourceHandler) {
+                ((HACoordinationSourceHandler) sourceHandler).updateTransportSyncProperties(transportSyncProperties);
+            }
+            batch.clear();
+            remainingEventCount.addAndGet(-batchSize);
+            if (replayedEventsCounter != null) {
+                replayedEventsCounter.inc(batchSize);
+            }
+            return batchSize;
+        }
     }
 }
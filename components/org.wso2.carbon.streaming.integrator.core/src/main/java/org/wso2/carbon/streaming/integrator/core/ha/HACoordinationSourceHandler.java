@@ -20,30 +20,27 @@ package org.wso2.carbon.streaming.integrator.core.ha;
 
 import io.siddhi.core.config.SiddhiAppContext;
 import io.siddhi.core.event.Event;
-import io.siddhi.core.exception.ConnectionUnavailableException;
 import io.siddhi.core.stream.input.InputHandler;
 import io.siddhi.core.stream.input.source.SourceHandler;
 import io.siddhi.core.stream.input.source.SourceSyncCallback;
 import io.siddhi.core.util.snapshot.state.State;
 import io.siddhi.core.util.snapshot.state.StateFactory;
 import io.siddhi.core.util.statistics.ThroughputTracker;
+import io.siddhi.query.api.definition.Attribute;
 import io.siddhi.query.api.definition.StreamDefinition;
-import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
 import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
-import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnection;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSchemaRegistry;
 import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnectionPoolManager;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncReplicationPipeline;
 import org.wso2.carbon.streaming.integrator.core.ha.util.CoordinationConstants;
-import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
-import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
 
-import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -57,11 +54,11 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
     private AtomicLong sequenceIDGenerator;
     private volatile boolean passiveNodeAdded;
     private SourceSyncCallback sourceSyncCallback;
+    private StreamDefinition streamDefinition;
+    private volatile EventSchema eventSchema;
     private ThroughputTracker throughputTracker;
     private static final String IGNORING_SOURCE_TYPE = "inMemory";
     private String sourceType;
-    private AtomicBoolean isWaitingForPassiveNode = new AtomicBoolean(false);
-    private AtomicLong lastConnRefusedTimestamp = new AtomicLong(-1);
 
     private static final Logger log = LoggerFactory.getLogger(HACoordinationSourceHandler.class);
 
@@ -76,6 +73,7 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
                                           StreamDefinition streamDefinition, SiddhiAppContext siddhiAppContext) {
         this.siddhiAppName = siddhiAppName;
         this.sourceSyncCallback = sourceSyncCallback;
+        this.streamDefinition = streamDefinition;
         return SourceState::new;
     }
 
@@ -113,7 +111,7 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
                           InputHandler inputHandler) throws InterruptedException {
         if (isActiveNode) {
             state.lastProcessedEventTimestamp = events[events.length - 1].getTimestamp();
-            if (passiveNodeAdded && !IGNORING_SOURCE_TYPE.equalsIgnoreCase(sourceType)) {
+            if (!playBack && passiveNodeAdded && !IGNORING_SOURCE_TYPE.equalsIgnoreCase(sourceType)) {
                 sendEventsToPassiveNode(events, transportSyncProperties);
             }
             inputHandler.send(events);
@@ -122,7 +120,6 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
 
     public void setPassiveNodeAdded(boolean passiveNodeAdded) {
         this.passiveNodeAdded = passiveNodeAdded;
-        setIsWaitingForPassiveNode(passiveNodeAdded);
     }
 
     public void setPlayBack(boolean playBack) {
@@ -143,152 +140,57 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
         isActiveNode = false;
     }
 
-    private void sendEventsToPassiveNode(Event event, String[] transportSyncProperties) {
-        if (!isWaitingForPassiveNode.get() || lastConnRefusedTimestamp.get() + 5000 < System.currentTimeMillis()) {
-            isWaitingForPassiveNode.set(false);
-            GenericKeyedObjectPool objectPool = EventSyncConnectionPoolManager.getConnectionPool();
-            if (objectPool != null) {
-                EventSyncConnection.Connection connection = null;
-                try {
-                    connection = (EventSyncConnection.Connection)
-                            objectPool.borrowObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID);
-                    if (connection != null) {
-                        QueuedEvent queuedEvent = new QueuedEvent(siddhiAppName, getId(),
-                                sequenceIDGenerator.incrementAndGet(), event, transportSyncProperties);
-                        ByteBuffer messageBuffer = null;
-                        try {
-                            messageBuffer = BinaryEventConverter.convertToBinaryMessage(new QueuedEvent[]{queuedEvent});
-                        } catch (IOException e) {
-                            log.error("Error in converting events to binary message. " +
-                                    "Hence not sending message to the passive node", e);
-                            return;
-                        }
-                        if (messageBuffer != null) {
-                            try {
-                                connection.send(HAConstants.CHANNEL_ID_MESSAGE, messageBuffer.array());
-                                if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
-                                    throughputTracker.eventIn();
-                                }
-                            } catch (ConnectionUnavailableException e) {
-                                log.error("Connection unavailable to sending events to the passive node. " +
-                                        e.getMessage(), e);
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    synchronized (this) {
-                        if (e.getMessage().contains("Connection refused")) {
-                            if (!isWaitingForPassiveNode.get()) {
-                                log.warn("Error in sending event to the passive node." +
-                                        " Event syncing will start to retry again in 5 seconds. " + e.getMessage(), e);
-                                lastConnRefusedTimestamp.set(System.currentTimeMillis());
-                                isWaitingForPassiveNode.set(true);
-                            }
-                        } else {
-                            log.error("Error in sending event to the passive node." + e.getMessage(), e);
-                        }
-                    }
-                } finally {
-                    if (connection != null) {
-                        try {
-                            objectPool.returnObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID, connection);
-                        } catch (Exception e) {
-                            log.error("Error in returning the tcpClient connection object to the pool. " +
-                                    e.getMessage(), e);
-                        }
-                    }
-                }
-            } else {
-                log.error("Error in obtaining connection pool to send events to passive node, " +
-                        "hence dropping the events.");
+    private void sendEventsToPassiveNode(Event event, String[] transportSyncProperties) throws InterruptedException {
+        EventSyncReplicationPipeline replicationPipeline = EventSyncConnectionPoolManager.getReplicationPipeline();
+        if (replicationPipeline != null) {
+            replicationPipeline.send(getEventSchema(), new QueuedEvent(siddhiAppName, getId(),
+                    sequenceIDGenerator.incrementAndGet(), event, transportSyncProperties));
+            if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
+                throughputTracker.eventIn();
             }
+        } else {
+            log.error("Error in obtaining the replication pipeline to send events to passive node, " +
+                    "hence dropping the events.");
         }
     }
 
-    private void sendEventsToPassiveNode(Event[] events, String[] transportSyncProperties) {
-        if (!isWaitingForPassiveNode.get() || lastConnRefusedTimestamp.get() + 5000 < System.currentTimeMillis()) {
-            isWaitingForPassiveNode.set(false);
-            GenericKeyedObjectPool objectPool = EventSyncConnectionPoolManager.getConnectionPool();
-            if (objectPool != null) {
-                EventSyncConnection.Connection connection = null;
-                try {
-                    connection = (EventSyncConnection.Connection)
-                            objectPool.borrowObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID);
-                    if (connection != null) {
-                        QueuedEvent[] queuedEvents = new QueuedEvent[events.length];
-                        int i = 0;
-                        for (Event event : events) {
-                            QueuedEvent queuedEvent;
-                            if (i == 0) {
-                                queuedEvent = new QueuedEvent(siddhiAppName, getId(), sequenceIDGenerator
-                                        .incrementAndGet(), event, transportSyncProperties);
-                            } else {
-                                queuedEvent = new QueuedEvent(siddhiAppName, getId(), sequenceIDGenerator
-                                        .incrementAndGet(), event, null);
-                            }
-                            queuedEvents[i] = queuedEvent;
-                            i++;
-                        }
-                        ByteBuffer messageBuffer = null;
-                        try {
-                            messageBuffer = BinaryEventConverter.convertToBinaryMessage(queuedEvents);
-                        } catch (IOException e) {
-                            log.error("Error in converting events to binary message. " +
-                                    "Hence not sending message to the passive node", e);
-                            return;
-                        }
-                        if (messageBuffer != null) {
-                            try {
-                                connection.send(HAConstants.CHANNEL_ID_MESSAGE, messageBuffer.array());
-                                if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
-                                    throughputTracker.eventsIn(events.length);
-                                }
-                            } catch (ConnectionUnavailableException e) {
-                                log.error("Connection unavailable to sending events to the passive node. " +
-                                        e.getMessage(), e);
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    synchronized (this) {
-                        if (e.getMessage().contains("Connection refused")) {
-                            if (!isWaitingForPassiveNode.get()) {
-                                log.warn("Error in sending events to the passive node." +
-                                        " Event syncing will start to retry again in 5 seconds. " + e.getMessage(), e);
-                                lastConnRefusedTimestamp.set(System.currentTimeMillis());
-                                isWaitingForPassiveNode.set(true);
-                            }
-                        } else {
-                            log.error("Error in sending events to the passive node." + e.getMessage(), e);
-                        }
-                    }
-                } finally {
-                    if (connection != null) {
-                        try {
-                            objectPool.returnObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID, connection);
-                        } catch (Exception e) {
-                            log.error("Error in returning the tcpClient connection object to the pool. " +
-                                    e.getMessage(), e);
-                        }
-                    }
-                }
-            } else {
-                log.error("Error in obtaining connection pool to send events to passive node, " +
-                        "hence dropping the events.");
+    private void sendEventsToPassiveNode(Event[] events, String[] transportSyncProperties)
+            throws InterruptedException {
+        EventSyncReplicationPipeline replicationPipeline = EventSyncConnectionPoolManager.getReplicationPipeline();
+        if (replicationPipeline != null) {
+            QueuedEvent[] queuedEvents = new QueuedEvent[events.length];
+            for (int i = 0; i < events.length; i++) {
+                queuedEvents[i] = new QueuedEvent(siddhiAppName, getId(), sequenceIDGenerator.incrementAndGet(),
+                        events[i], i == 0 ? transportSyncProperties : null);
+            }
+            replicationPipeline.send(getEventSchema(), queuedEvents);
+            if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
+                throughputTracker.eventsIn(events.length);
             }
+        } else {
+            log.error("Error in obtaining the replication pipeline to send events to passive node, " +
+                    "hence dropping the events.");
         }
     }
 
+    private EventSchema getEventSchema() {
+        if (eventSchema == null) {
+            List<Attribute> attributeList = streamDefinition.getAttributeList();
+            Attribute.Type[] attributeTypes = new Attribute.Type[attributeList.size()];
+            for (int i = 0; i < attributeTypes.length; i++) {
+                attributeTypes[i] = attributeList.get(i).getType();
+            }
+            eventSchema = EventSchemaRegistry.getLocalSchema(siddhiAppName, getId(), attributeTypes);
+        }
+        return eventSchema;
+    }
+
     public void updateTransportSyncProperties(String[] transportSyncProperties) {
         if (null != sourceSyncCallback) {
             sourceSyncCallback.update(transportSyncProperties);
         }
     }
 
-    public void setIsWaitingForPassiveNode(boolean passiveNodeAdded) {
-        this.isWaitingForPassiveNode.set(!passiveNodeAdded);
-    }
-
     class SourceState extends State {
         private long lastProcessedEventTimestamp = 0L;
 
@@ -40,6 +40,7 @@ import org.wso2.carbon.streaming.integrator.core.NodeInfo;
 import org.wso2.carbon.streaming.integrator.core.event.queue.EventListMapManager;
 import org.wso2.carbon.streaming.integrator.core.ha.tcp.TCPServer;
 import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnectionPoolManager;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.SnapshotReplicaStore;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 import org.wso2.carbon.streaming.integrator.core.internal.SiddhiAppData;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
@@ -155,7 +156,7 @@ public class HAManager {
             passiveNodeDetailsPropertiesMap.put(HAConstants.ADVERTISED_PORT, deploymentConfig.eventSyncServerConfigs()
                     .getAdvertisedPort());
             clusterCoordinator.setPropertiesMap(passiveNodeDetailsPropertiesMap);
-            EventListMapManager.initializeEventListMap();
+            EventListMapManager.initializeEventListMap(deploymentConfig.getEventBufferCapacity());
 
             //notify the HAStateChangeListener as becamePassive
             List<HAStateChangeListener> listeners = StreamProcessorDataHolder.getHaStateChangeListenerList();
@@ -202,9 +203,8 @@ public class HAManager {
             changeSiddhiAppState(true);
             NodeInfo nodeInfo = StreamProcessorDataHolder.getNodeInfo();
             nodeInfo.setActiveNode(isActiveNode);
-            syncState();
 
-            //Give time for byte buffer queue to be empty
+            //Give time for byte buffer queue to be empty, including the snapshots replicated by the active node
             if (null != tcpServerInstance.getEventSyncServer().getEventByteBufferQueue()) {
                 while (tcpServerInstance.getEventSyncServer().getEventByteBufferQueue().peek() != null) {
                     try {
@@ -215,6 +215,7 @@ public class HAManager {
                 }
             }
             log.info("Successfully retrieved all the events from event sync server");
+            syncState();
 
             //change the system clock to work with event time
             enableEventTimeClock(true);
@@ -335,7 +336,8 @@ public class HAManager {
         setPassiveNodeAdded(false);
 
         //initialize event list map
-        EventListMapManager.initializeEventListMap();
+        EventListMapManager.initializeEventListMap(deploymentConfig.getEventBufferCapacity());
+        tcpServerInstance.getEventSyncServer().getSnapshotReplicaStore().clear();
 
         NodeInfo nodeInfo = StreamProcessorDataHolder.getNodeInfo();
         nodeInfo.setActiveNode(isActiveNode);
@@ -387,6 +389,7 @@ public class HAManager {
     private void syncState() {
         ConcurrentMap<String, SiddhiAppRuntime> siddhiAppRuntimeMap
                 = StreamProcessorDataHolder.getSiddhiManager().getSiddhiAppRuntimeMap();
+        SnapshotReplicaStore snapshotReplicaStore = tcpServerInstance.getEventSyncServer().getSnapshotReplicaStore();
 
         siddhiAppRuntimeMap.forEach((siddhiAppName, siddhiAppRuntime) -> {
             if (log.isDebugEnabled()) {
@@ -394,16 +397,43 @@ public class HAManager {
                         siddhiAppRuntime.getName());
             }
             try {
-                siddhiAppRuntime.restoreLastRevision();
+                if (!restoreReplicatedSnapshot(siddhiAppRuntime, snapshotReplicaStore)) {
+                    siddhiAppRuntime.restoreLastRevision();
+                }
                 StreamProcessorDataHolder.getNodeInfo().setLastSyncedTimestamp(System.currentTimeMillis());
                 StreamProcessorDataHolder.getNodeInfo().setInSync(true);
             } catch (CannotRestoreSiddhiAppStateException e) {
                 log.error("Error in restoring Siddhi Application: " + siddhiAppRuntime.getName(), e);
             }
         });
+        snapshotReplicaStore.clear();
         log.info("Successfully Synced the state");
     }
 
+    /**
+     * Restores the state of the Siddhi app from the snapshot replicated by the active node, if the snapshot is not
+     * older than the last checkpoint received for the app. The buffered events reflected by the snapshot are dropped.
+     */
+    private boolean restoreReplicatedSnapshot(SiddhiAppRuntime siddhiAppRuntime,
+                                              SnapshotReplicaStore snapshotReplicaStore) {
+        SnapshotReplicaStore.SnapshotReplica snapshotReplica = snapshotReplicaStore.remove(siddhiAppRuntime.getName());
+        if (snapshotReplica == null || snapshotReplica.getSequenceId() <
+                EventListMapManager.getLastControlMessageSequenceId(siddhiAppRuntime.getName())) {
+            return false;
+        }
+        try {
+            siddhiAppRuntime.restore(snapshotReplica.getSnapshot());
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            log.warn("Error in restoring Siddhi Application: " + siddhiAppRuntime.getName() + " from the snapshot " +
+                    "replicated by the active node. Hence restoring from the persistence store", e);
+            return false;
+        }
+        EventListMapManager.trimEventBuffer(siddhiAppRuntime.getName(), snapshotReplica.getSequenceId());
+        log.info("Restored the state of Siddhi Application: " + siddhiAppRuntime.getName() + " from the snapshot " +
+                "replicated by the active node");
+        return true;
+    }
+
     private void enableEventTimeClock(boolean enablePlayBack) {
         ConcurrentMap<String, SiddhiAppRuntime> siddhiAppRuntimeMap
                 = StreamProcessorDataHolder.getSiddhiManager().getSiddhiAppRuntimeMap();
@@ -31,14 +31,14 @@ import io.netty.channel.socket.nio.NioServerSocketChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.streaming.integrator.core.event.queue.EventListMapManager;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncMessage;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.SnapshotChunk;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.SnapshotReplicaStore;
 import org.wso2.carbon.streaming.integrator.core.ha.transport.handlers.MessageDecoder;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 import org.wso2.carbon.streaming.integrator.core.internal.beans.DeploymentConfig;
 import org.wso2.carbon.streaming.integrator.core.internal.beans.EventSyncServerConfig;
-import org.wso2.carbon.streaming.integrator.core.util.BinaryMessageConverterUtil;
 
-import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -59,16 +59,17 @@ public class EventSyncServer {
     private EventSyncServerConfig serverConfig;
     private static final Logger log = LoggerFactory.getLogger(EventSyncServer.class);
     private EventListMapManager eventListMapManager = new EventListMapManager();
-    private BlockingQueue<ByteBuffer> eventByteBufferQueue;
+    private BlockingQueue<EventSyncMessage> eventSyncMessageQueue;
     private ExecutorService eventBufferExtractorExecutorService;
     private EventBufferExtractor eventBufferExtractor = new EventBufferExtractor();
+    private SnapshotReplicaStore snapshotReplicaStore = new SnapshotReplicaStore();
 
     public void start(DeploymentConfig deploymentConfig) {
         ThreadFactory namedThreadFactory = new ThreadFactoryBuilder()
                 .setNameFormat("EventSyncServer-%d").build();
         eventBufferExtractorExecutorService = Executors.newFixedThreadPool(
                 HAConstants.EVENT_BUFFER_EXTRACTOR_THREAD_POOL_SIZE, namedThreadFactory);
-        eventByteBufferQueue = new LinkedBlockingQueue<>(deploymentConfig.
+        eventSyncMessageQueue = new LinkedBlockingQueue<>(deploymentConfig.
                 getEventByteBufferQueueCapacity());
         serverConfig = deploymentConfig.eventSyncServerConfigs();
         bossGroup = new NioEventLoopGroup(serverConfig.getBossThreads());
@@ -83,7 +84,7 @@ public class EventSyncServer {
                     @Override
                     protected void initChannel(Channel channel) throws Exception {
                         ChannelPipeline p = channel.pipeline();
-                        p.addLast(new MessageDecoder(eventByteBufferQueue));
+                        p.addLast(new MessageDecoder(eventSyncMessageQueue));
                     }
                 })
                 .option(ChannelOption.TCP_NODELAY, true)
@@ -119,7 +120,11 @@ public class EventSyncServer {
     public void clearResources() {
         eventBufferExtractor.run = false;
         eventBufferExtractorExecutorService.shutdownNow();
-        eventByteBufferQueue.clear();
+        EventSyncMessage message;
+        while ((message = eventSyncMessageQueue.poll()) != null) {
+            message.release();
+        }
+        snapshotReplicaStore.clear();
     }
 
     /**
@@ -131,25 +136,28 @@ public class EventSyncServer {
         public void run() {
             try {
                 while (run) {
-                    ByteBuffer in = eventByteBufferQueue.take();
+                    EventSyncMessage message = eventSyncMessageQueue.take();
                     try {
-                        int channelIdSize = in.getInt();
-                        String channelId = BinaryMessageConverterUtil.getString(in, channelIdSize);
-                        int dataLength = in.getInt();
-                        byte[] bytes = new byte[dataLength];
-                        in.get(bytes);
-                        if (channelId.equals(HAConstants.CHANNEL_ID_CONTROL_MESSAGE)) {
-                            eventListMapManager.parseControlMessage(bytes);
+                        String channelId = message.getChannelId();
+                        if (channelId.equals(HAConstants.CHANNEL_ID_COMPACT_MESSAGE)) {
+                            if (log.isDebugEnabled()) {
+                                log.debug("Received a compact event message");
+                            }
+                            eventListMapManager.parseCompactMessage(message.getPayload());
+                        } else if (channelId.equals(HAConstants.CHANNEL_ID_CONTROL_MESSAGE)) {
+                            eventListMapManager.parseControlMessage(message.getPayload());
                         } else if (channelId.equals(HAConstants.CHANNEL_ID_MESSAGE)) {
                             if (log.isDebugEnabled()) {
                                 log.debug("Received a event message");
                             }
-                            eventListMapManager.parseMessage(bytes);
+                            eventListMapManager.parseMessage(message.getPayload());
+                        } else if (channelId.equals(HAConstants.CHANNEL_ID_SNAPSHOT_MESSAGE)) {
+                            snapshotReplicaStore.addChunk(SnapshotChunk.fromByteBuffer(message.getPayload()));
                         }
-                    } catch (UnsupportedEncodingException e) {
-                        log.warn("Error when converting bytes " + e.getMessage(), e);
                     } catch (Throwable t) {
-                        log.error("Error occurred while processing eventByteBufferQueue " + t.getMessage(), t);
+                        log.error("Error occurred while processing eventSyncMessageQueue " + t.getMessage(), t);
+                    } finally {
+                        message.release();
                     }
                 }
             } catch (InterruptedException e) {
@@ -162,7 +170,11 @@ public class EventSyncServer {
         }
     }
 
-    public BlockingQueue<ByteBuffer> getEventByteBufferQueue() {
-        return eventByteBufferQueue;
+    public BlockingQueue<EventSyncMessage> getEventByteBufferQueue() {
+        return eventSyncMessageQueue;
+    }
+
+    public SnapshotReplicaStore getSnapshotReplicaStore() {
+        return snapshotReplicaStore;
     }
 }
@@ -18,9 +18,14 @@
 package org.wso2.carbon.streaming.integrator.core.ha.tcp;
 
 
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
+import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
+import org.wso2.carbon.streaming.integrator.core.ha.exception.InvalidByteMessageException;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSchemaRegistry;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 import org.wso2.carbon.streaming.integrator.core.util.BinaryMessageConverterUtil;
 import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -63,6 +68,99 @@ public class SiddhiEventConverter {
         return event;
     }
 
+    /**
+     * Creates the event schema from a schema registration message sent by the active node.
+     *
+     * @param byteBuffer schema registration message
+     * @return the event schema
+     */
+    public static EventSchema getEventSchema(ByteBuffer byteBuffer) {
+        checkProtocolVersion(byteBuffer.get());
+        int schemaId = byteBuffer.getInt();
+        String siddhiAppName = BinaryMessageConverterUtil.getUTF8String(byteBuffer, byteBuffer.getInt());
+        String sourceHandlerElementId = BinaryMessageConverterUtil.getUTF8String(byteBuffer, byteBuffer.getInt());
+        Attribute.Type[] attributeTypes = new Attribute.Type[byteBuffer.getInt()];
+        for (int i = 0; i < attributeTypes.length; i++) {
+            attributeTypes[i] = Attribute.Type.valueOf(
+                    BinaryMessageConverterUtil.getUTF8String(byteBuffer, byteBuffer.getInt()));
+        }
+        return new EventSchema(schemaId, siddhiAppName, sourceHandlerElementId, attributeTypes);
+    }
+
+    /**
+     * Creates the queued events from a compact binary message, resolving its schema from the
+     * {@link EventSchemaRegistry}.
+     *
+     * @param byteBuffer compact binary message
+     * @return the queued events in the order they were sent
+     */
+    public static QueuedEvent[] getQueuedEvents(ByteBuffer byteBuffer) {
+        checkProtocolVersion(byteBuffer.get());
+        int schemaId = byteBuffer.getInt();
+        EventSchema eventSchema = EventSchemaRegistry.getRemoteSchema(schemaId);
+        if (eventSchema == null) {
+            throw new InvalidByteMessageException("Received events for unregistered schema id " + schemaId);
+        }
+        int attributeCount = eventSchema.getAttributeCount();
+        int nullBitmapSize = (attributeCount + 7) / 8;
+        QueuedEvent[] queuedEvents = new QueuedEvent[byteBuffer.getInt()];
+        long sequenceId = byteBuffer.getLong();
+        for (int i = 0; i < queuedEvents.length; i++) {
+            sequenceId += BinaryMessageConverterUtil.getVarLong(byteBuffer);
+            long timestamp = byteBuffer.getLong();
+            String[] transportSyncProperties = null;
+            int transportSyncPropertiesCount = (int) BinaryMessageConverterUtil.getVarLong(byteBuffer);
+            if (transportSyncPropertiesCount != 0) {
+                transportSyncProperties = new String[transportSyncPropertiesCount];
+                for (int j = 0; j < transportSyncPropertiesCount; j++) {
+                    transportSyncProperties[j] = BinaryMessageConverterUtil.getUTF8String(byteBuffer,
+                            (int) BinaryMessageConverterUtil.getVarLong(byteBuffer));
+                }
+            }
+            int nullBitmapPosition = byteBuffer.position();
+            byteBuffer.position(nullBitmapPosition + nullBitmapSize);
+            Object[] data = new Object[attributeCount];
+            for (int j = 0; j < attributeCount; j++) {
+                if ((byteBuffer.get(nullBitmapPosition + (j >>> 3)) & (1 << (j & 7))) != 0) {
+                    continue;
+                }
+                switch (eventSchema.getAttributeType(j)) {
+                    case STRING:
+                        data[j] = BinaryMessageConverterUtil.getUTF8String(byteBuffer,
+                                (int) BinaryMessageConverterUtil.getVarLong(byteBuffer));
+                        break;
+                    case INT:
+                        data[j] = byteBuffer.getInt();
+                        break;
+                    case LONG:
+                        data[j] = byteBuffer.getLong();
+                        break;
+                    case FLOAT:
+                        data[j] = byteBuffer.getFloat();
+                        break;
+                    case DOUBLE:
+                        data[j] = byteBuffer.getDouble();
+                        break;
+                    case BOOL:
+                        data[j] = byteBuffer.get() == 1;
+                        break;
+                    default:
+                        // will not occur
+                }
+            }
+            queuedEvents[i] = new QueuedEvent(eventSchema.getSiddhiAppName(),
+                    eventSchema.getSourceHandlerElementId(), sequenceId, new Event(timestamp, data),
+                    transportSyncProperties);
+        }
+        return queuedEvents;
+    }
+
+    private static void checkProtocolVersion(byte protocolVersion) {
+        if (protocolVersion != HAConstants.COMPACT_EVENT_PROTOCOL_VERSION) {
+            throw new InvalidByteMessageException("Unsupported event sync protocol version " + protocolVersion);
+        }
+    }
+
     static Object[] toObjectArray(ByteBuffer byteBuffer,
                                   String[] attributeTypeOrder) throws UnsupportedEncodingException {
         if (attributeTypeOrder != null) {
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.ha.transport;
+
+import io.siddhi.query.api.definition.Attribute;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
+import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the event schemas used by the HA event sync protocol. The active node assigns the schema ids and the passive
+ * node keeps the schemas registered by the active node.
+ */
+public class EventSchemaRegistry {
+    private static AtomicInteger schemaIdGenerator = new AtomicInteger();
+    private static ConcurrentMap<String, EventSchema> localSchemaMap = new ConcurrentHashMap<>();
+    private static ConcurrentMap<Integer, EventSchema> remoteSchemaMap = new ConcurrentHashMap<>();
+
+    public static EventSchema getLocalSchema(String siddhiAppName, String sourceHandlerElementId,
+                                             Attribute.Type[] attributeTypes) {
+        String schemaKey = siddhiAppName + HAConstants.PERSISTED_APP_SPLIT_DELIMITER + sourceHandlerElementId +
+                HAConstants.PERSISTED_APP_SPLIT_DELIMITER + Arrays.toString(attributeTypes);
+        return localSchemaMap.computeIfAbsent(schemaKey, key -> new EventSchema(schemaIdGenerator.incrementAndGet(),
+                siddhiAppName, sourceHandlerElementId, attributeTypes));
+    }
+
+    public static void registerRemoteSchema(EventSchema eventSchema) {
+        remoteSchemaMap.put(eventSchema.getSchemaId(), eventSchema);
+    }
+
+    public static EventSchema getRemoteSchema(int schemaId) {
+        return remoteSchemaMap.get(schemaId);
+    }
+}
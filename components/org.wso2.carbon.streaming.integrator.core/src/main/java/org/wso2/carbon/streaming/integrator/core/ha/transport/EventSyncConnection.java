@@ -32,9 +32,14 @@ import io.netty.channel.socket.nio.NioSocketChannel;
 import io.siddhi.core.exception.ConnectionUnavailableException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
 import org.wso2.carbon.streaming.integrator.core.ha.transport.handlers.MessageEncoder;
+import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
+import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
 
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Tcp Netty Client.
@@ -79,6 +84,7 @@ public class EventSyncConnection {
         private String hostAndPort;
         private Channel channel;
         private String sessionId;
+        private Set<Integer> registeredSchemaIds = ConcurrentHashMap.newKeySet();
 
         public Connection (String hostAndPort, Channel channel, String sessionId) {
             this.hostAndPort = hostAndPort;
@@ -87,8 +93,34 @@ public class EventSyncConnection {
         }
 
         public ChannelFuture send(final String channelId, final byte[] message) throws ConnectionUnavailableException {
+            ChannelFuture future = write(channelId, message, true);
+            if (future.isDone() && !future.isSuccess()) {
+                throw new ConnectionUnavailableException("Error sending events to '" + hostAndPort +
+                        "' on channel '" + channelId + "', " + hostAndPort + ", " + future.cause().getMessage(),
+                        future.cause());
+            }
+            return future;
+        }
+
+        /**
+         * Writes the message to the channel without flushing it, so that several messages can be sent to the passive
+         * node with a single {@link #flush()}.
+         *
+         * @param channelId id of the channel of the message
+         * @param message   message to be written
+         * @return future of the write operation
+         */
+        public ChannelFuture write(final String channelId, final byte[] message) {
+            return write(channelId, message, false);
+        }
+
+        public void flush() {
+            channel.flush();
+        }
+
+        private ChannelFuture write(final String channelId, final byte[] message, boolean flush) {
             EventComposite eventComposite = new EventComposite(sessionId, channelId, message);
-            ChannelFuture future = channel.writeAndFlush(eventComposite);
+            ChannelFuture future = flush ? channel.writeAndFlush(eventComposite) : channel.write(eventComposite);
             future.addListener(new ChannelFutureListener() {
                 @Override
                 public void operationComplete(ChannelFuture future) throws Exception {
@@ -98,14 +130,27 @@ public class EventSyncConnection {
                     }
                 }
             });
-            if (future.isDone() && !future.isSuccess()) {
-                throw new ConnectionUnavailableException("Error sending events to '" + hostAndPort +
-                        "' on channel '" + channelId + "', " + hostAndPort + ", " + future.cause().getMessage(),
-                        future.cause());
-            }
             return future;
         }
 
+        /**
+         * Registers the given schema with the passive node, if it is not already registered through this connection.
+         *
+         * @param eventSchema schema of the events that are going to be sent through this connection
+         * @throws ConnectionUnavailableException if the schema registration message cannot be sent
+         */
+        public void registerSchema(EventSchema eventSchema) throws ConnectionUnavailableException {
+            if (registeredSchemaIds.add(eventSchema.getSchemaId())) {
+                try {
+                    send(HAConstants.CHANNEL_ID_SCHEMA_MESSAGE,
+                            BinaryEventConverter.convertToSchemaMessage(eventSchema).array());
+                } catch (ConnectionUnavailableException e) {
+                    registeredSchemaIds.remove(eventSchema.getSchemaId());
+                    throw e;
+                }
+            }
+        }
+
         public boolean isActive() {
             return channel != null && channel.isActive();
         }
@@ -21,6 +21,8 @@ package org.wso2.carbon.streaming.integrator.core.ha.transport;
 import org.apache.commons.pool.BaseKeyedPoolableObjectFactory;
 import io.siddhi.core.exception.ConnectionUnavailableException;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * The abstract class that needs to be implemented when supporting a new non-secure transport
  * to mainly create, validate and terminate  the client to the endpoint.
@@ -30,6 +32,7 @@ public class EventSyncConnectionPoolFactory extends BaseKeyedPoolableObjectFacto
     private String hostname;
     private int port;
     private EventSyncConnection eventSyncConnection;
+    private AtomicLong closedConnectionCount = new AtomicLong();
 
     public EventSyncConnectionPoolFactory(String host, int port) {
         this.hostname = host;
@@ -44,7 +47,21 @@ public class EventSyncConnectionPoolFactory extends BaseKeyedPoolableObjectFacto
 
     @Override
     public boolean validateObject(Object key, Object obj) {
-        return obj != null && ((EventSyncConnection.Connection) obj).isActive();
+        if (obj != null && ((EventSyncConnection.Connection) obj).isActive()) {
+            return true;
+        }
+        closedConnectionCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Returns the number of connections found closed when they were borrowed. A change in the count means that the
+     * passive node may have restarted, and lost the state sent to it through the earlier connections.
+     *
+     * @return number of closed connections found
+     */
+    public long getClosedConnectionCount() {
+        return closedConnectionCount.get();
     }
 
     public void destroyObject(Object key, Object obj) {
@@ -30,15 +30,26 @@ import java.util.concurrent.atomic.AtomicLong;
 
 public class EventSyncConnectionPoolManager {
     private static GenericKeyedObjectPool connectionPool;
+    private static EventSyncReplicationPipeline replicationPipeline;
+    private static SnapshotReplicator snapshotReplicator;
     private static AtomicLong sequenceID = new AtomicLong();
 
 
-    public static void initializeConnectionPool(String host, int port, DeploymentConfig deploymentConfig) {
+    public synchronized static void initializeConnectionPool(String host, int port,
+                                                             DeploymentConfig deploymentConfig) {
         EventSyncClientPoolConfig eventSyncClientPoolConfig = deploymentConfig.getTcpClientPoolConfig();
         EventSyncConnectionPoolFactory eventSyncConnectionPoolFactory = new EventSyncConnectionPoolFactory(host, port);
         initializeConnectionPool(eventSyncConnectionPoolFactory, eventSyncClientPoolConfig.getMaxActive(), eventSyncClientPoolConfig.getMaxTotal(),
                 eventSyncClientPoolConfig.getMaxIdle(), eventSyncClientPoolConfig.getMaxWait(),
                 eventSyncClientPoolConfig.getMinEvictableIdleTimeMillis());
+        if (replicationPipeline == null) {
+            replicationPipeline = new EventSyncReplicationPipeline(connectionPool,
+                    deploymentConfig.getEventSyncReplicationConfig());
+        }
+        if (snapshotReplicator == null && deploymentConfig.getStateReplicationConfig().isEnabled()) {
+            snapshotReplicator = new SnapshotReplicator(connectionPool, eventSyncConnectionPoolFactory,
+                    deploymentConfig.getStateReplicationConfig());
+        }
     }
 
     public synchronized static void initializeConnectionPool(EventSyncConnectionPoolFactory factory,
@@ -65,7 +76,25 @@ public class EventSyncConnectionPoolManager {
         return connectionPool;
     }
 
-    public static void uninitializeConnectionPool() {
+    public static EventSyncReplicationPipeline getReplicationPipeline() {
+        return replicationPipeline;
+    }
+
+    /**
+     * Returns the replicator of the state snapshots to the passive node.
+     *
+     * @return the snapshot replicator, or null if the state snapshots are not replicated
+     */
+    public static SnapshotReplicator getSnapshotReplicator() {
+        return snapshotReplicator;
+    }
+
+    public synchronized static void uninitializeConnectionPool() {
+        snapshotReplicator = null;
+        if (replicationPipeline != null) {
+            replicationPipeline.shutdown();
+            replicationPipeline = null;
+        }
         connectionPool = null;
     }
 
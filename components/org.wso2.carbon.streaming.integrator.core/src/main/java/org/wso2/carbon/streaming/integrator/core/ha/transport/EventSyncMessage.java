@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.ha.transport;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Message received by the passive node, holding the channel id and a retained slice of the received frame as the
+ * payload. The payload must be released once the message is processed.
+ */
+public class EventSyncMessage {
+    private String channelId;
+    private ByteBuf payload;
+
+    public EventSyncMessage(String channelId, ByteBuf payload) {
+        this.channelId = channelId;
+        this.payload = payload;
+    }
+
+    public String getChannelId() {
+        return channelId;
+    }
+
+    /**
+     * Returns a view of the payload which shares its content, hence it is only valid until the message is released.
+     *
+     * @return payload of the message
+     */
+    public ByteBuffer getPayload() {
+        return payload.nioBuffer();
+    }
+
+    public void release() {
+        payload.release();
+    }
+}
@@ -0,0 +1,519 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.ha.transport;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.siddhi.core.exception.ConnectionUnavailableException;
+import io.siddhi.core.util.SiddhiConstants;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.Counter;
+import org.wso2.carbon.metrics.core.Gauge;
+import org.wso2.carbon.metrics.core.Histogram;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.si.metrics.core.internal.MetricsDataHolder;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
+import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
+import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
+import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.internal.beans.EventSyncReplicationConfig;
+import org.wso2.carbon.streaming.integrator.core.internal.util.SiddhiAppProcessorConstants;
+import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
+import org.wso2.carbon.streaming.integrator.core.util.SpillFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replicates the events of the active node to the passive node off the source threads. Source handlers add the
+ * events to a bounded queue per Siddhi app, and a small set of writer threads drain those queues and write the
+ * events to the passive node in frames, flushing the connection once per frame. A frame is written when a queue has
+ * {@code maxEventsPerFrame} events or when its events have waited for {@code frameFlushIntervalMillis}.
+ * <p>
+ * In {@link BackPressureMode#SPILL_TO_DISK} mode, the events of a full queue are moved to a spill file followed by
+ * the new event, and the events added afterwards are appended to the spill file until it is drained, so that the
+ * events of a Siddhi app are always replicated in the order they were added.
+ */
+public class EventSyncReplicationPipeline {
+    private static final Logger log = LoggerFactory.getLogger(EventSyncReplicationPipeline.class);
+    private static final long CONNECTION_RETRY_INTERVAL_MILLIS = 5000;
+
+    private GenericKeyedObjectPool connectionPool;
+    private BackPressureMode backPressureMode;
+    private int queueCapacity;
+    private int maxEventsPerFrame;
+    private long frameFlushIntervalNanos;
+    private File spillDirectory;
+    private FrameWriter[] frameWriters;
+    private ExecutorService writerExecutorService;
+    private ConcurrentMap<String, AppEventQueue> appEventQueueMap = new ConcurrentHashMap<>();
+    private AtomicInteger writerAssignmentCount = new AtomicInteger();
+    private volatile boolean running = true;
+    private MetricService metricService;
+    private Histogram frameSizeHistogram;
+    private Counter droppedEventsCounter;
+    private Counter failedFramesCounter;
+
+    public EventSyncReplicationPipeline(GenericKeyedObjectPool connectionPool,
+                                        EventSyncReplicationConfig replicationConfig) {
+        this.connectionPool = connectionPool;
+        this.backPressureMode = BackPressureMode.fromString(replicationConfig.getBackPressureMode());
+        this.queueCapacity = replicationConfig.getQueueCapacity();
+        this.maxEventsPerFrame = replicationConfig.getMaxEventsPerFrame();
+        this.frameFlushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(replicationConfig.getFrameFlushIntervalMillis());
+        String spillDirectoryPath = replicationConfig.getSpillDirectory();
+        this.spillDirectory = new File(spillDirectoryPath == null || spillDirectoryPath.isEmpty() ?
+                System.getProperty("java.io.tmpdir") : spillDirectoryPath);
+        if (StreamProcessorDataHolder.isStatisticsEnabled()) {
+            metricService = MetricsDataHolder.getInstance().getMetricService();
+        }
+        if (metricService != null) {
+            frameSizeHistogram = metricService.histogram(getMetricName(
+                    SiddhiAppProcessorConstants.HA_METRICS_REPLICATION_FRAME_SIZE), Level.INFO);
+            droppedEventsCounter = metricService.counter(getMetricName(
+                    SiddhiAppProcessorConstants.HA_METRICS_REPLICATION_DROPPED_EVENTS), Level.INFO);
+            failedFramesCounter = metricService.counter(getMetricName(
+                    SiddhiAppProcessorConstants.HA_METRICS_REPLICATION_FAILED_FRAMES), Level.INFO);
+        }
+
+        int writerThreads = Math.max(1, replicationConfig.getWriterThreads());
+        writerExecutorService = Executors.newFixedThreadPool(writerThreads, new ThreadFactoryBuilder()
+                .setNameFormat("EventSyncReplicationWriter-%d").build());
+        frameWriters = new FrameWriter[writerThreads];
+        for (int i = 0; i < writerThreads; i++) {
+            frameWriters[i] = new FrameWriter();
+            writerExecutorService.submit(frameWriters[i]);
+        }
+        log.info("Event sync replication pipeline started with " + writerThreads + " writers in '" +
+                backPressureMode + "' back pressure mode");
+    }
+
+    public void send(EventSchema eventSchema, QueuedEvent queuedEvent) throws InterruptedException {
+        AppEventQueue appEventQueue = getAppEventQueue(eventSchema);
+        appEventQueue.add(eventSchema, queuedEvent);
+        appEventQueue.signalIfFrameFull();
+    }
+
+    public void send(EventSchema eventSchema, QueuedEvent[] queuedEvents) throws InterruptedException {
+        AppEventQueue appEventQueue = getAppEventQueue(eventSchema);
+        for (QueuedEvent queuedEvent : queuedEvents) {
+            appEventQueue.add(eventSchema, queuedEvent);
+        }
+        appEventQueue.signalIfFrameFull();
+    }
+
+    public void shutdown() {
+        running = false;
+        writerExecutorService.shutdownNow();
+        for (AppEventQueue appEventQueue : appEventQueueMap.values()) {
+            appEventQueue.close();
+        }
+        appEventQueueMap.clear();
+        if (metricService != null) {
+            metricService.remove(getMetricName(SiddhiAppProcessorConstants.HA_METRICS_REPLICATION_FRAME_SIZE));
+            metricService.remove(getMetricName(SiddhiAppProcessorConstants.HA_METRICS_REPLICATION_DROPPED_EVENTS));
+            metricService.remove(getMetricName(SiddhiAppProcessorConstants.HA_METRICS_REPLICATION_FAILED_FRAMES));
+        }
+        log.info("Event sync replication pipeline stopped");
+    }
+
+    private AppEventQueue getAppEventQueue(EventSchema eventSchema) {
+        AppEventQueue appEventQueue = appEventQueueMap.get(eventSchema.getSiddhiAppName());
+        if (appEventQueue == null) {
+            appEventQueue = appEventQueueMap.computeIfAbsent(eventSchema.getSiddhiAppName(), AppEventQueue::new);
+        }
+        if (!appEventQueue.schemaMap.containsKey(eventSchema.getSourceHandlerElementId())) {
+            appEventQueue.schemaIdMap.put(eventSchema.getSchemaId(), eventSchema);
+            appEventQueue.schemaMap.put(eventSchema.getSourceHandlerElementId(), eventSchema);
+        }
+        return appEventQueue;
+    }
+
+    private void markDropped(int droppedEvents) {
+        if (droppedEventsCounter != null && droppedEvents > 0) {
+            droppedEventsCounter.inc(droppedEvents);
+        }
+    }
+
+    private static String getMetricName(String... names) {
+        StringBuilder metricName = new StringBuilder(SiddhiAppProcessorConstants.HA_METRICS_PREFIX);
+        for (String name : names) {
+            metricName.append(SiddhiConstants.METRIC_DELIMITER).append(name);
+        }
+        return metricName.toString();
+    }
+
+    /**
+     * Action taken when the queue of a Siddhi app is full.
+     */
+    public enum BackPressureMode {
+        BLOCK, DROP_OLDEST, SPILL_TO_DISK;
+
+        public static BackPressureMode fromString(String mode) {
+            if (mode == null || mode.isEmpty() || "block".equalsIgnoreCase(mode)) {
+                return BLOCK;
+            } else if ("dropOldest".equalsIgnoreCase(mode)) {
+                return DROP_OLDEST;
+            } else if ("spillToDisk".equalsIgnoreCase(mode)) {
+                return SPILL_TO_DISK;
+            }
+            log.warn("Unsupported event sync back pressure mode '" + mode + "', hence using 'block'");
+            return BLOCK;
+        }
+    }
+
+    /**
+     * Bounded queue of the events of a single Siddhi app, which is drained by one of the frame writers.
+     */
+    private class AppEventQueue {
+        private String siddhiAppName;
+        private BlockingQueue<QueuedEvent> eventQueue = new LinkedBlockingQueue<>(queueCapacity);
+        private ConcurrentMap<String, EventSchema> schemaMap = new ConcurrentHashMap<>();
+        private ConcurrentMap<Integer, EventSchema> schemaIdMap = new ConcurrentHashMap<>();
+        // The spill file is only used in the spill to disk mode, while holding the lock of this queue
+        private SpillFile spillFile;
+        private volatile boolean spilling;
+        private FrameWriter frameWriter;
+        private long lastFlushNanos = System.nanoTime();
+        private String queueSizeMetricName;
+
+        AppEventQueue(String siddhiAppName) {
+            this.siddhiAppName = siddhiAppName;
+            this.frameWriter = frameWriters[writerAssignmentCount.getAndIncrement() % frameWriters.length];
+            this.frameWriter.appEventQueues.add(this);
+            if (metricService != null) {
+                queueSizeMetricName = getMetricName(siddhiAppName,
+                        SiddhiAppProcessorConstants.HA_METRICS_REPLICATION_QUEUE_SIZE);
+                metricService.gauge(queueSizeMetricName, Level.INFO, new Gauge<Integer>() {
+                    @Override
+                    public Integer getValue() {
+                        return eventQueue.size();
+                    }
+                });
+            }
+        }
+
+        void add(EventSchema eventSchema, QueuedEvent queuedEvent) throws InterruptedException {
+            switch (backPressureMode) {
+                case DROP_OLDEST:
+                    while (!eventQueue.offer(queuedEvent)) {
+                        if (eventQueue.poll() != null) {
+                            markDropped(1);
+                        }
+                    }
+                    break;
+                case SPILL_TO_DISK:
+                    synchronized (this) {
+                        if (spilling || !eventQueue.offer(queuedEvent)) {
+                            spill(eventSchema, queuedEvent);
+                        }
+                    }
+                    break;
+                default:
+                    eventQueue.put(queuedEvent);
+            }
+        }
+
+        void signalIfFrameFull() {
+            if (spilling || eventQueue.size() >= maxEventsPerFrame) {
+                frameWriter.signal();
+            }
+        }
+
+        private void spill(EventSchema eventSchema, QueuedEvent queuedEvent) {
+            List<byte[]> messages = new ArrayList<>(spilling ? 1 : eventQueue.size() + 1);
+            if (!spilling) {
+                // The queued events are older than the new event, hence they are spilled first
+                QueuedEvent olderEvent;
+                while ((olderEvent = eventQueue.poll()) != null) {
+                    messages.add(BinaryEventConverter.convertToCompactBinaryMessage(
+                            schemaMap.get(olderEvent.getSourceHandlerElementId()),
+                            new QueuedEvent[]{olderEvent}).array());
+                }
+            }
+            messages.add(BinaryEventConverter.convertToCompactBinaryMessage(eventSchema,
+                    new QueuedEvent[]{queuedEvent}).array());
+            try {
+                getSpillFile().write(messages);
+                spilling = true;
+            } catch (IOException e) {
+                log.error("Error in spilling the events of Siddhi app '" + siddhiAppName + "' to disk, " +
+                        "hence dropping " + messages.size() + " events. " + e.getMessage(), e);
+                markDropped(messages.size());
+            }
+        }
+
+        private SpillFile getSpillFile() throws IOException {
+            if (spillFile == null) {
+                spillFile = new SpillFile(spillDirectory, siddhiAppName);
+            }
+            return spillFile;
+        }
+
+        boolean hasSpilledEvents() {
+            return spilling;
+        }
+
+        /**
+         * Takes the events of the next frame, which are the oldest spilled events if any, or else the oldest queued
+         * events.
+         *
+         * @param frameEvents list the queued events are added to
+         * @return spilled event messages
+         */
+        synchronized List<byte[]> drainFrame(List<QueuedEvent> frameEvents) {
+            if (!spilling) {
+                eventQueue.drainTo(frameEvents, maxEventsPerFrame);
+                return Collections.emptyList();
+            }
+            List<byte[]> spilledMessages = new ArrayList<>();
+            try {
+                byte[] spilledMessage;
+                while (spilledMessages.size() < maxEventsPerFrame && (spilledMessage = spillFile.read()) != null) {
+                    spilledMessages.add(spilledMessage);
+                }
+                spilling = !spillFile.isEmpty();
+            } catch (IOException e) {
+                log.error("Error in reading the spilled events of Siddhi app '" + siddhiAppName + "', hence " +
+                        "dropping the remaining spilled events. " + e.getMessage(), e);
+                discardSpillFile();
+            }
+            return spilledMessages;
+        }
+
+        /**
+         * Drops all the spilled events.
+         *
+         * @return number of dropped events
+         */
+        synchronized int dropSpilledEvents() {
+            int droppedEvents = 0;
+            if (spilling) {
+                try {
+                    while (spillFile.read() != null) {
+                        droppedEvents++;
+                    }
+                    spilling = false;
+                } catch (IOException e) {
+                    log.error("Error in reading the spilled events of Siddhi app '" + siddhiAppName + "'. " +
+                            e.getMessage(), e);
+                    discardSpillFile();
+                }
+            }
+            return droppedEvents;
+        }
+
+        private void discardSpillFile() {
+            spilling = false;
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                log.error("Error in closing the spill file of Siddhi app '" + siddhiAppName + "'. " +
+                        e.getMessage(), e);
+            } finally {
+                spillFile = null;
+            }
+        }
+
+        synchronized void close() {
+            frameWriter.appEventQueues.remove(this);
+            eventQueue.clear();
+            if (spillFile != null) {
+                try {
+                    spillFile.close();
+                } catch (IOException e) {
+                    log.error("Error in closing the spill file of Siddhi app '" + siddhiAppName + "'. " +
+                            e.getMessage(), e);
+                }
+            }
+            if (queueSizeMetricName != null) {
+                metricService.remove(queueSizeMetricName);
+            }
+        }
+    }
+
+    /**
+     * Drains the queues assigned to it and writes their events to the passive node through a dedicated connection.
+     */
+    private class FrameWriter implements Runnable {
+        private List<AppEventQueue> appEventQueues = new CopyOnWriteArrayList<>();
+        private List<QueuedEvent> frameEvents = new ArrayList<>();
+        private volatile Thread writerThread;
+        private EventSyncConnection.Connection connection;
+        private long lastConnectionFailureTimestamp = -1;
+
+        @Override
+        public void run() {
+            writerThread = Thread.currentThread();
+            try {
+                while (running && !Thread.currentThread().isInterrupted()) {
+                    boolean hasMoreFrames = false;
+                    for (AppEventQueue appEventQueue : appEventQueues) {
+                        long currentTime = System.nanoTime();
+                        int queueSize = appEventQueue.eventQueue.size();
+                        if (queueSize >= maxEventsPerFrame || appEventQueue.hasSpilledEvents() || (queueSize > 0
+                                && currentTime - appEventQueue.lastFlushNanos >= frameFlushIntervalNanos)) {
+                            try {
+                                writeFrame(appEventQueue);
+                            } catch (RuntimeException e) {
+                                // The frame is dropped, so that the writer keeps draining the queues assigned to it
+                                log.error("Error in writing a frame of events of Siddhi app '" +
+                                        appEventQueue.siddhiAppName + "' to the passive node. " + e.getMessage(), e);
+                                if (failedFramesCounter != null) {
+                                    failedFramesCounter.inc();
+                                }
+                            }
+                            appEventQueue.lastFlushNanos = currentTime;
+                            hasMoreFrames |= appEventQueue.eventQueue.size() >= maxEventsPerFrame ||
+                                    appEventQueue.hasSpilledEvents();
+                        }
+                    }
+                    if (!hasMoreFrames) {
+                        LockSupport.parkNanos(this, frameFlushIntervalNanos);
+                    }
+                }
+            } catch (Throwable t) {
+                log.error("Event sync replication writer stopped unexpectedly. " + t.getMessage(), t);
+            } finally {
+                releaseConnection();
+            }
+        }
+
+        void signal() {
+            Thread thread = writerThread;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void writeFrame(AppEventQueue appEventQueue) {
+            frameEvents.clear();
+            List<byte[]> spilledMessages = appEventQueue.drainFrame(frameEvents);
+            EventSyncConnection.Connection connection = getConnection();
+            if (connection == null) {
+                markDropped(frameEvents.size() + spilledMessages.size() + appEventQueue.dropSpilledEvents());
+                frameEvents.clear();
+                return;
+            }
+            int frameSize = 0;
+            boolean isWritten = false;
+            try {
+                for (byte[] spilledMessage : spilledMessages) {
+                    // The schema id follows the protocol version in a compact event message
+                    EventSchema eventSchema = appEventQueue.schemaIdMap.get(ByteBuffer.wrap(spilledMessage).getInt(1));
+                    frameSize += write(connection, eventSchema, ByteBuffer.wrap(spilledMessage));
+                }
+                int runStart = 0;
+                for (int i = 1; i <= frameEvents.size(); i++) {
+                    String sourceHandlerElementId = frameEvents.get(runStart).getSourceHandlerElementId();
+                    if (i == frameEvents.size() ||
+                            !sourceHandlerElementId.equals(frameEvents.get(i).getSourceHandlerElementId())) {
+                        EventSchema eventSchema = appEventQueue.schemaMap.get(sourceHandlerElementId);
+                        QueuedEvent[] queuedEvents = frameEvents.subList(runStart, i).toArray(
+                                new QueuedEvent[i - runStart]);
+                        frameSize += write(connection, eventSchema,
+                                BinaryEventConverter.convertToCompactBinaryMessage(eventSchema, queuedEvents));
+                        runStart = i;
+                    }
+                }
+                connection.flush();
+                isWritten = true;
+                if (frameSizeHistogram != null) {
+                    frameSizeHistogram.update(frameSize);
+                }
+            } catch (ConnectionUnavailableException e) {
+                log.error("Connection unavailable to sending events to the passive node. " + e.getMessage(), e);
+                invalidateConnection();
+            } finally {
+                if (!isWritten) {
+                    markDropped(frameEvents.size() + spilledMessages.size());
+                }
+                frameEvents.clear();
+            }
+        }
+
+        private int write(EventSyncConnection.Connection connection, EventSchema eventSchema,
+                          ByteBuffer messageBuffer) throws ConnectionUnavailableException {
+            connection.registerSchema(eventSchema);
+            connection.write(HAConstants.CHANNEL_ID_COMPACT_MESSAGE, messageBuffer.array());
+            return messageBuffer.capacity();
+        }
+
+        private EventSyncConnection.Connection getConnection() {
+            if (connection != null && !connection.isActive()) {
+                invalidateConnection();
+            }
+            if (connection == null &&
+                    lastConnectionFailureTimestamp + CONNECTION_RETRY_INTERVAL_MILLIS < System.currentTimeMillis()) {
+                try {
+                    connection = (EventSyncConnection.Connection)
+                            connectionPool.borrowObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID);
+                } catch (Exception e) {
+                    log.warn("Error in connecting to the passive node. Event syncing will start to retry again in " +
+                            (CONNECTION_RETRY_INTERVAL_MILLIS / 1000) + " seconds, dropping events till then. " +
+                            e.getMessage());
+                    lastConnectionFailureTimestamp = System.currentTimeMillis();
+                }
+            }
+            return connection;
+        }
+
+        private void invalidateConnection() {
+            if (connection != null) {
+                try {
+                    connectionPool.invalidateObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID, connection);
+                } catch (Exception e) {
+                    log.error("Error in invalidating the tcpClient connection object of the pool. " +
+                            e.getMessage(), e);
+                } finally {
+                    connection = null;
+                }
+            }
+        }
+
+        private void releaseConnection() {
+            if (connection != null) {
+                try {
+                    connectionPool.returnObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID, connection);
+                } catch (Exception e) {
+                    log.error("Error in returning the tcpClient connection object to the pool. " +
+                            e.getMessage(), e);
+                } finally {
+                    connection = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.ha.transport;
+
+import org.wso2.carbon.streaming.integrator.core.ha.exception.InvalidByteMessageException;
+import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
+import org.wso2.carbon.streaming.integrator.core.util.BinaryMessageConverterUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Part of the state snapshot of a Siddhi app sent from the active node to the passive node.
+ * <p>
+ * Message format: [byte protocol version][int app name length][app name][long version][long base version]
+ * [long sequence id][int chunk index][int chunk count][chunk data]
+ */
+public class SnapshotChunk {
+    private static final int HEADER_LENGTH = 1 + 4 + 8 + 8 + 8 + 4 + 4;
+
+    private String siddhiAppName;
+    private long version;
+    private long baseVersion;
+    private long sequenceId;
+    private int chunkIndex;
+    private int chunkCount;
+    private byte[] data;
+
+    /**
+     * @param siddhiAppName name of the Siddhi app
+     * @param version       version of the snapshot
+     * @param baseVersion   version of the snapshot the delta was created against, or -1 for a full snapshot
+     * @param sequenceId    sequence id of the last event replicated before the snapshot was taken
+     * @param chunkIndex    index of the chunk
+     * @param chunkCount    number of chunks of the snapshot
+     * @param data          content of the chunk
+     */
+    public SnapshotChunk(String siddhiAppName, long version, long baseVersion, long sequenceId, int chunkIndex,
+                         int chunkCount, byte[] data) {
+        this.siddhiAppName = siddhiAppName;
+        this.version = version;
+        this.baseVersion = baseVersion;
+        this.sequenceId = sequenceId;
+        this.chunkIndex = chunkIndex;
+        this.chunkCount = chunkCount;
+        this.data = data;
+    }
+
+    public static SnapshotChunk fromByteBuffer(ByteBuffer message) {
+        byte protocolVersion = message.get();
+        if (protocolVersion != HAConstants.SNAPSHOT_CHUNK_PROTOCOL_VERSION) {
+            throw new InvalidByteMessageException("Unsupported snapshot chunk protocol version " + protocolVersion);
+        }
+        String siddhiAppName = BinaryMessageConverterUtil.getUTF8String(message, message.getInt());
+        long version = message.getLong();
+        long baseVersion = message.getLong();
+        long sequenceId = message.getLong();
+        int chunkIndex = message.getInt();
+        int chunkCount = message.getInt();
+        byte[] data = new byte[message.remaining()];
+        message.get(data);
+        return new SnapshotChunk(siddhiAppName, version, baseVersion, sequenceId, chunkIndex, chunkCount, data);
+    }
+
+    public byte[] toBytes() {
+        byte[] siddhiAppNameBytes = siddhiAppName.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer message = ByteBuffer.allocate(HEADER_LENGTH + siddhiAppNameBytes.length + data.length);
+        message.put(HAConstants.SNAPSHOT_CHUNK_PROTOCOL_VERSION);
+        message.putInt(siddhiAppNameBytes.length);
+        message.put(siddhiAppNameBytes);
+        message.putLong(version);
+        message.putLong(baseVersion);
+        message.putLong(sequenceId);
+        message.putInt(chunkIndex);
+        message.putInt(chunkCount);
+        message.put(data);
+        return message.array();
+    }
+
+    public String getSiddhiAppName() {
+        return siddhiAppName;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public long getSequenceId() {
+        return sequenceId;
+    }
+
+    public int getChunkIndex() {
+        return chunkIndex;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.ha.transport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
+import org.wso2.carbon.streaming.integrator.core.ha.util.SnapshotDeltaUtil;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the latest state snapshot of each Siddhi app received from the active node on the passive node, so that the
+ * state can be restored without reading the persistence store when the passive node becomes active.
+ */
+public class SnapshotReplicaStore {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotReplicaStore.class);
+
+    private Map<String, AppSnapshotReplica> appSnapshotReplicas = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a received chunk, and rebuilds the snapshot of the Siddhi app once all the chunks of the snapshot are
+     * received. Chunks can be added concurrently and in any order.
+     *
+     * @param snapshotChunk received chunk
+     */
+    public void addChunk(SnapshotChunk snapshotChunk) {
+        appSnapshotReplicas.computeIfAbsent(snapshotChunk.getSiddhiAppName(), appName -> new AppSnapshotReplica())
+                .addChunk(snapshotChunk);
+    }
+
+    /**
+     * Removes the latest complete snapshot of the Siddhi app.
+     *
+     * @param siddhiAppName name of the Siddhi app
+     * @return the snapshot, or null if no complete snapshot is received
+     */
+    public SnapshotReplica remove(String siddhiAppName) {
+        AppSnapshotReplica appSnapshotReplica = appSnapshotReplicas.remove(siddhiAppName);
+        return appSnapshotReplica == null ? null : appSnapshotReplica.getSnapshotReplica();
+    }
+
+    public void clear() {
+        appSnapshotReplicas.clear();
+    }
+
+    /**
+     * Complete snapshot of a Siddhi app.
+     */
+    public static class SnapshotReplica {
+        private long version;
+        private long sequenceId;
+        private byte[] snapshot;
+
+        SnapshotReplica(long version, long sequenceId, byte[] snapshot) {
+            this.version = version;
+            this.sequenceId = sequenceId;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * @return sequence id of the last event replicated before the snapshot was taken on the active node
+         */
+        public long getSequenceId() {
+            return sequenceId;
+        }
+
+        public byte[] getSnapshot() {
+            return snapshot;
+        }
+    }
+
+    /**
+     * Latest complete snapshot of a Siddhi app, and the chunks of the snapshot being received.
+     */
+    private static class AppSnapshotReplica {
+        private SnapshotReplica snapshotReplica;
+        private long pendingVersion = -1;
+        private byte[][] pendingChunks;
+        private int receivedChunkCount;
+
+        synchronized void addChunk(SnapshotChunk snapshotChunk) {
+            if (snapshotChunk.getVersion() != pendingVersion) {
+                // Chunks of a newer snapshot, hence the incomplete snapshot, if any, is no longer needed
+                pendingVersion = snapshotChunk.getVersion();
+                pendingChunks = new byte[snapshotChunk.getChunkCount()][];
+                receivedChunkCount = 0;
+            }
+            if (pendingChunks == null || pendingChunks[snapshotChunk.getChunkIndex()] != null) {
+                return;
+            }
+            pendingChunks[snapshotChunk.getChunkIndex()] = snapshotChunk.getData();
+            if (++receivedChunkCount == pendingChunks.length) {
+                byte[][] chunks = pendingChunks;
+                pendingChunks = null;
+                rebuildSnapshot(snapshotChunk, chunks);
+            }
+        }
+
+        synchronized SnapshotReplica getSnapshotReplica() {
+            return snapshotReplica;
+        }
+
+        private void rebuildSnapshot(SnapshotChunk snapshotChunk, byte[][] chunks) {
+            String siddhiAppName = snapshotChunk.getSiddhiAppName();
+            byte[] previousSnapshot = null;
+            if (snapshotChunk.getBaseVersion() != -1) {
+                if (snapshotReplica == null || snapshotReplica.version != snapshotChunk.getBaseVersion()) {
+                    log.warn("Dropping the snapshot of Siddhi app " + siddhiAppName + " received from the active " +
+                            "node, as the snapshot it is based on is not received");
+                    return;
+                }
+                previousSnapshot = snapshotReplica.snapshot;
+            }
+            int payloadLength = 0;
+            for (byte[] chunk : chunks) {
+                payloadLength += chunk.length;
+            }
+            byte[] payload = new byte[payloadLength];
+            int offset = 0;
+            for (byte[] chunk : chunks) {
+                System.arraycopy(chunk, 0, payload, offset, chunk.length);
+                offset += chunk.length;
+            }
+            try {
+                byte[] snapshot = SnapshotDeltaUtil.applyDelta(previousSnapshot, CompressionUtil.decompress(payload));
+                snapshotReplica = new SnapshotReplica(snapshotChunk.getVersion(), snapshotChunk.getSequenceId(),
+                        snapshot);
+            } catch (IOException | RuntimeException e) {
+                log.error("Error occurred while rebuilding the snapshot of Siddhi app " + siddhiAppName +
+                        " received from the active node", e);
+                return;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Received the snapshot of Siddhi app " + siddhiAppName + " with sequence id " +
+                        snapshotChunk.getSequenceId() + " from the active node");
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.ha.transport;
+
+import io.netty.channel.ChannelFuture;
+import io.siddhi.core.exception.ConnectionUnavailableException;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
+import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
+import org.wso2.carbon.streaming.integrator.core.ha.util.SnapshotDeltaUtil;
+import org.wso2.carbon.streaming.integrator.core.internal.beans.StateReplicationConfig;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.CompressionCodec;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the state snapshots of the Siddhi apps persisted on the active node to the passive node. The snapshot saved
+ * by the persistence store is sent, hence no further snapshot is taken. Only the blocks which changed since the last
+ * snapshot sent for the app are sent, of which only the block digests are kept. A full snapshot is sent every
+ * {@code fullSnapshotInterval}th time, and whenever the passive node may not hold the snapshot a delta is based on,
+ * i.e. after a failed send, or after a closed connection is found as the passive node may have restarted. The
+ * snapshot is split into chunks, and the number of chunks not yet written to the passive node is bounded.
+ */
+public class SnapshotReplicator {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotReplicator.class);
+
+    private GenericKeyedObjectPool connectionPool;
+    private EventSyncConnectionPoolFactory connectionPoolFactory;
+    private CompressionCodec compressionCodec;
+    private int chunkSize;
+    private int blockSize;
+    private int maxInFlightChunks;
+    private int fullSnapshotInterval;
+    private long writeTimeoutMillis;
+    private Map<String, PersistedSnapshot> persistedSnapshots = new ConcurrentHashMap<>();
+    private Map<String, ReplicatedSnapshot> replicatedSnapshots = new ConcurrentHashMap<>();
+    private AtomicLong versionGenerator = new AtomicLong();
+
+    public SnapshotReplicator(GenericKeyedObjectPool connectionPool,
+                              EventSyncConnectionPoolFactory connectionPoolFactory, StateReplicationConfig config) {
+        this.connectionPool = connectionPool;
+        this.connectionPoolFactory = connectionPoolFactory;
+        this.compressionCodec = CompressionUtil.getCompressionCodec(config.getCompression(), -1);
+        this.chunkSize = Math.max(1, config.getChunkSizeInKB()) * 1024;
+        this.blockSize = Math.max(1, config.getBlockSizeInKB()) * 1024;
+        this.maxInFlightChunks = Math.max(1, config.getMaxInFlightChunks());
+        this.fullSnapshotInterval = Math.max(0, config.getFullSnapshotInterval());
+        this.writeTimeoutMillis = config.getWriteTimeoutMillis();
+    }
+
+    /**
+     * Holds the snapshot saved by the persistence store until the persistence of the Siddhi app completes, and the
+     * snapshot is sent by {@link #replicate(String, String, long)}. Only the latest snapshot of each app is held.
+     *
+     * @param siddhiAppName name of the Siddhi app
+     * @param revision      revision of the persisted snapshot
+     * @param snapshot      persisted snapshot
+     */
+    public void snapshotPersisted(String siddhiAppName, String revision, byte[] snapshot) {
+        persistedSnapshots.put(siddhiAppName, new PersistedSnapshot(revision, snapshot));
+    }
+
+    /**
+     * Drops the snapshot held for the Siddhi app, as its persistence did not complete.
+     *
+     * @param siddhiAppName name of the Siddhi app
+     */
+    public void discard(String siddhiAppName) {
+        persistedSnapshots.remove(siddhiAppName);
+    }
+
+    /**
+     * Sends the snapshot persisted as the given revision to the passive node, with the sequence id read right before
+     * the snapshot was taken, so that the passive node only replays the events the snapshot does not reflect.
+     *
+     * @param siddhiAppName name of the Siddhi app
+     * @param revision      revision of the persisted snapshot
+     * @param sequenceId    sequence id read before the snapshot was taken
+     * @return true if the snapshot is sent to the passive node
+     */
+    public boolean replicate(String siddhiAppName, String revision, long sequenceId) {
+        PersistedSnapshot persistedSnapshot = persistedSnapshots.remove(siddhiAppName);
+        if (persistedSnapshot == null || !persistedSnapshot.revision.equals(revision)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Revision " + revision + " of Siddhi app " + siddhiAppName + " is not sent to the " +
+                        "passive node, as it was not saved through a persistence store holding full snapshots");
+            }
+            return false;
+        }
+        EventSyncConnection.Connection connection = null;
+        try {
+            connection = (EventSyncConnection.Connection)
+                    connectionPool.borrowObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID);
+            // Read after borrowing, as a closed connection is only found when it is borrowed
+            long closedConnectionCount = connectionPoolFactory.getClosedConnectionCount();
+            if (!replicate(connection, siddhiAppName, sequenceId, persistedSnapshot.snapshot,
+                    closedConnectionCount)) {
+                // The passive node may hold a partial snapshot, hence the next snapshot is sent in full
+                replicatedSnapshots.remove(siddhiAppName);
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            replicatedSnapshots.remove(siddhiAppName);
+            log.error("Error occurred while sending the snapshot of Siddhi app " + siddhiAppName +
+                    " to the passive node", e);
+            return false;
+        } finally {
+            if (connection != null) {
+                try {
+                    connectionPool.returnObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID, connection);
+                } catch (Exception e) {
+                    log.error("Could not return object to the connection pool.", e);
+                }
+            }
+        }
+    }
+
+    private boolean replicate(EventSyncConnection.Connection connection, String siddhiAppName, long sequenceId,
+                              byte[] snapshot, long closedConnectionCount)
+            throws ConnectionUnavailableException {
+        ReplicatedSnapshot previousSnapshot = replicatedSnapshots.get(siddhiAppName);
+        boolean isFullSnapshot = previousSnapshot == null || previousSnapshot.deltaCount >= fullSnapshotInterval ||
+                previousSnapshot.closedConnectionCount != closedConnectionCount;
+        byte[] blockDigests = SnapshotDeltaUtil.digestBlocks(snapshot, blockSize);
+        byte[] payload;
+        try {
+            payload = CompressionUtil.compress(SnapshotDeltaUtil.createDelta(
+                    isFullSnapshot ? null : previousSnapshot.blockDigests, blockDigests, snapshot, blockSize),
+                    compressionCodec);
+        } catch (IOException e) {
+            log.error("Error occurred while compressing the snapshot of Siddhi app " + siddhiAppName +
+                    ". Hence not sending the snapshot to the passive node", e);
+            return false;
+        }
+        long version = versionGenerator.incrementAndGet();
+        long baseVersion = isFullSnapshot ? -1 : previousSnapshot.version;
+        if (!send(connection, siddhiAppName, version, baseVersion, sequenceId, payload)) {
+            return false;
+        }
+        replicatedSnapshots.put(siddhiAppName, new ReplicatedSnapshot(version, blockDigests,
+                isFullSnapshot ? 0 : previousSnapshot.deltaCount + 1, closedConnectionCount));
+        if (log.isDebugEnabled()) {
+            log.debug((isFullSnapshot ? "Full" : "Delta") + " snapshot of Siddhi app " + siddhiAppName + " of " +
+                    snapshot.length + " bytes sent to the passive node in " + payload.length + " bytes");
+        }
+        return true;
+    }
+
+    private boolean send(EventSyncConnection.Connection connection, String siddhiAppName, long version,
+                         long baseVersion, long sequenceId, byte[] payload)
+            throws ConnectionUnavailableException {
+        int chunkCount = Math.max(1, (payload.length + chunkSize - 1) / chunkSize);
+        ArrayDeque<ChannelFuture> inFlightChunks = new ArrayDeque<>(maxInFlightChunks);
+        try {
+            for (int i = 0; i < chunkCount; i++) {
+                if (inFlightChunks.size() == maxInFlightChunks && !awaitWrite(inFlightChunks.poll(), siddhiAppName)) {
+                    return false;
+                }
+                byte[] data = Arrays.copyOfRange(payload, i * chunkSize, Math.min(payload.length,
+                        (i + 1) * chunkSize));
+                inFlightChunks.add(connection.send(HAConstants.CHANNEL_ID_SNAPSHOT_MESSAGE, new SnapshotChunk(
+                        siddhiAppName, version, baseVersion, sequenceId, i, chunkCount, data).toBytes()));
+            }
+            while (!inFlightChunks.isEmpty()) {
+                if (!awaitWrite(inFlightChunks.poll(), siddhiAppName)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while sending the snapshot of Siddhi app " + siddhiAppName +
+                    " to the passive node");
+            return false;
+        }
+    }
+
+    private boolean awaitWrite(ChannelFuture future, String siddhiAppName) throws InterruptedException {
+        if (!future.await(writeTimeoutMillis)) {
+            log.error("Snapshot chunk of Siddhi app " + siddhiAppName + " was not written to the passive node " +
+                    "within " + writeTimeoutMillis + " ms");
+            return false;
+        }
+        return future.isSuccess();
+    }
+
+    /**
+     * Snapshot of a Siddhi app saved by the persistence store, which is not yet sent to the passive node.
+     */
+    private static class PersistedSnapshot {
+        private String revision;
+        private byte[] snapshot;
+
+        PersistedSnapshot(String revision, byte[] snapshot) {
+            this.revision = revision;
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * Last snapshot of a Siddhi app sent to the passive node.
+     */
+    private static class ReplicatedSnapshot {
+        private long version;
+        private byte[] blockDigests;
+        private int deltaCount;
+        private long closedConnectionCount;
+
+        ReplicatedSnapshot(long version, byte[] blockDigests, int deltaCount, long closedConnectionCount) {
+            this.version = version;
+            this.blockDigests = blockDigests;
+            this.deltaCount = deltaCount;
+            this.closedConnectionCount = closedConnectionCount;
+        }
+    }
+}
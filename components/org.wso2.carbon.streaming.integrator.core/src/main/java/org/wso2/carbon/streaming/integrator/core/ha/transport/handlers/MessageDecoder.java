@@ -23,8 +23,13 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.streaming.integrator.core.ha.tcp.SiddhiEventConverter;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSchemaRegistry;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncMessage;
+import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
@@ -33,15 +38,25 @@ import java.util.concurrent.BlockingQueue;
  * Byte to message decoder.
  */
 public class MessageDecoder extends ByteToMessageDecoder {
-    private BlockingQueue<ByteBuffer> byteBufferQueue;
+    private BlockingQueue<EventSyncMessage> eventSyncMessageQueue;
     private static long startTime;
     private static long endTime;
     private static int count = 0;
     private static final int TPS_EVENT_BATCH_THRESHOLD = 10000;
+    private static final String[] CHANNEL_IDS = {HAConstants.CHANNEL_ID_COMPACT_MESSAGE,
+            HAConstants.CHANNEL_ID_CONTROL_MESSAGE, HAConstants.CHANNEL_ID_MESSAGE,
+            HAConstants.CHANNEL_ID_SCHEMA_MESSAGE, HAConstants.CHANNEL_ID_SNAPSHOT_MESSAGE};
+    private static final byte[][] CHANNEL_ID_BYTES = new byte[CHANNEL_IDS.length][];
     private static final Logger log = LoggerFactory.getLogger(MessageDecoder.class);
 
-    public MessageDecoder(BlockingQueue<ByteBuffer> byteBufferQueue) {
-        this.byteBufferQueue = byteBufferQueue;
+    static {
+        for (int i = 0; i < CHANNEL_IDS.length; i++) {
+            CHANNEL_ID_BYTES[i] = CHANNEL_IDS[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    public MessageDecoder(BlockingQueue<EventSyncMessage> eventSyncMessageQueue) {
+        this.eventSyncMessageQueue = eventSyncMessageQueue;
     }
 
     @Override
@@ -55,14 +70,32 @@ public class MessageDecoder extends ByteToMessageDecoder {
             in.resetReaderIndex();
             return;
         }
-        byte[] bytes = new byte[messageSize];
-        in.readBytes(bytes);
+        int channelIdSize = in.readInt();
+        String channelId = getChannelId(in, channelIdSize);
+        in.skipBytes(channelIdSize);
+        int dataLength = in.readInt();
+        if (channelId == null) {
+            log.warn("Dropping a message received on an unknown channel of size " + dataLength);
+            in.skipBytes(dataLength);
+            in.markReaderIndex();
+            return;
+        }
+        if (HAConstants.CHANNEL_ID_SCHEMA_MESSAGE.equals(channelId)) {
+            // Schemas are registered on the channel's own thread so that they are visible before any event message
+            // of the same connection is picked by the event buffer extractors.
+            registerSchema(in.nioBuffer(in.readerIndex(), dataLength));
+            in.skipBytes(dataLength);
+            in.markReaderIndex();
+            return;
+        }
+        // The payload shares the pooled buffer of the channel, and is released once its events are queued
+        ByteBuf payload = in.readRetainedSlice(dataLength);
         in.markReaderIndex();
-        in.resetReaderIndex();
         try {
-            byteBufferQueue.put(ByteBuffer.wrap(bytes));
+            eventSyncMessageQueue.put(new EventSyncMessage(channelId, payload));
         } catch (InterruptedException e) {
-            log.error("Error while waiting for the insertion of ByteBufferQueue " + e.getMessage(), e);
+            payload.release();
+            log.error("Error while waiting for the insertion of EventSyncMessageQueue " + e.getMessage(), e);
         }
         if (log.isDebugEnabled()) {
             synchronized (this) {
@@ -78,6 +111,31 @@ public class MessageDecoder extends ByteToMessageDecoder {
                 }
             }
         }
-        in.markReaderIndex();
+    }
+
+    private static String getChannelId(ByteBuf in, int channelIdSize) {
+        int index = in.readerIndex();
+        for (int i = 0; i < CHANNEL_ID_BYTES.length; i++) {
+            byte[] channelIdBytes = CHANNEL_ID_BYTES[i];
+            if (channelIdBytes.length != channelIdSize) {
+                continue;
+            }
+            int j = 0;
+            while (j < channelIdSize && in.getByte(index + j) == channelIdBytes[j]) {
+                j++;
+            }
+            if (j == channelIdSize) {
+                return CHANNEL_IDS[i];
+            }
+        }
+        return null;
+    }
+
+    private static void registerSchema(ByteBuffer message) {
+        try {
+            EventSchemaRegistry.registerRemoteSchema(SiddhiEventConverter.getEventSchema(message));
+        } catch (Throwable t) {
+            log.error("Error occurred while registering the event schema " + t.getMessage(), t);
+        }
     }
 }
@@ -18,39 +18,219 @@
 
 package org.wso2.carbon.streaming.integrator.core.ha.util;
 
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.CompressionCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.DeflateCompressionCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.FastCompressionCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.GZIPCompressionCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
+
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * CompressionUtil class that holds compression and decompression algorithms.
+ * <p>
+ * Snapshots compressed with the default GZIP codec are plain GZIP streams, as written by older versions, so that they
+ * can be loaded by nodes which are still running an older version. Snapshots compressed with any other
+ * {@link CompressionCodec} start with a header holding a magic number, the header version, the id of the codec and
+ * the uncompressed length, so that they can be loaded regardless of the codec currently configured.
  */
 public class CompressionUtil {
+    private static final byte[] SNAPSHOT_MAGIC = {'S', 'I', 'S', 'N'};
+    private static final byte SNAPSHOT_HEADER_VERSION = 1;
+    private static final int SNAPSHOT_HEADER_LENGTH = SNAPSHOT_MAGIC.length + 2 + 4;
+    private static final int BUFFER_SIZE = 8192;
+    private static final Map<Byte, Class<? extends CompressionCodec>> CODECS = new ConcurrentHashMap<>();
+
+    static {
+        CODECS.put(GZIPCompressionCodec.ID, GZIPCompressionCodec.class);
+        CODECS.put(DeflateCompressionCodec.ID, DeflateCompressionCodec.class);
+        CODECS.put(FastCompressionCodec.ID, FastCompressionCodec.class);
+    }
+
+    private CompressionUtil() {
+    }
+
+    /**
+     * Creates the compression codec configured in the state persistence configurations.
+     *
+     * @param properties state persistence configurations
+     * @return compression codec, GZIP if none is configured
+     */
+    public static CompressionCodec getCompressionCodec(Map properties) {
+        Object compression = properties == null ? null :
+                properties.get(PersistenceConstants.STATE_PERSISTENCE_COMPRESSION);
+        Object compressionLevel = properties == null ? null :
+                properties.get(PersistenceConstants.STATE_PERSISTENCE_COMPRESSION_LEVEL);
+        return getCompressionCodec(compression == null ? PersistenceConstants.DEFAULT_COMPRESSION_CODEC :
+                        compression.toString(),
+                compressionLevel == null ? -1 : Integer.parseInt(compressionLevel.toString()));
+    }
+
+    /**
+     * Creates a compression codec.
+     *
+     * @param name  name of a built in codec, or the class name of a custom codec
+     * @param level compression level, or -1 to use the default level of the codec
+     * @return compression codec
+     */
+    public static CompressionCodec getCompressionCodec(String name, int level) {
+        CompressionCodec codec;
+        switch (name.trim().toLowerCase()) {
+            case GZIPCompressionCodec.NAME:
+                codec = new GZIPCompressionCodec();
+                break;
+            case DeflateCompressionCodec.NAME:
+                codec = new DeflateCompressionCodec();
+                break;
+            case FastCompressionCodec.NAME:
+                codec = new FastCompressionCodec();
+                break;
+            default:
+                codec = createCustomCodec(name.trim());
+        }
+        if (level != -1) {
+            codec.setLevel(level);
+        }
+        return codec;
+    }
+
+    /**
+     * Writes the compressed data to the given stream, which is closed afterwards. The data is preceded by the snapshot
+     * header unless it is compressed with the GZIP codec.
+     *
+     * @param data         uncompressed data
+     * @param codec        codec used to compress the data
+     * @param outputStream stream the compressed snapshot is written to
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void compress(byte[] data, CompressionCodec codec, OutputStream outputStream) throws IOException {
+        try (OutputStream out = outputStream) {
+            if (codec.getId() != GZIPCompressionCodec.ID) {
+                DataOutputStream dataOutputStream = new DataOutputStream(out);
+                dataOutputStream.write(SNAPSHOT_MAGIC);
+                dataOutputStream.writeByte(SNAPSHOT_HEADER_VERSION);
+                dataOutputStream.writeByte(codec.getId());
+                dataOutputStream.writeInt(data.length);
+            }
+            OutputStream compressedOutputStream = codec.compress(out);
+            compressedOutputStream.write(data);
+            compressedOutputStream.close();
+        }
+    }
 
-    public static byte[] compressGZIP(byte[] data) throws IOException {
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        GZIPOutputStream gzip = new GZIPOutputStream(byteArrayOutputStream);
-        gzip.write(data);
-        gzip.close();
-        byteArrayOutputStream.close();
+    public static byte[] compress(byte[] data, CompressionCodec codec) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(data.length / 2 + 64);
+        compress(data, codec, byteArrayOutputStream);
         return byteArrayOutputStream.toByteArray();
     }
 
-    public static byte[] decompressGZIP(byte[] data) throws IOException {
-        byte[] uncompressedBytes = new byte[1000000];
-        InputStream inputStream = new ByteArrayInputStream(data);
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+    /**
+     * Reads and decompresses a snapshot from the given stream, which is closed afterwards. The codec is resolved from
+     * the snapshot header, and snapshots without the header are decompressed as GZIP.
+     *
+     * @param inputStream stream holding the compressed snapshot
+     * @return uncompressed data
+     * @throws IOException if the snapshot cannot be read
+     */
+    public static byte[] decompress(InputStream inputStream) throws IOException {
+        InputStream in = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream, BUFFER_SIZE);
+        try {
+            in.mark(SNAPSHOT_HEADER_LENGTH);
+            DataInputStream dataInputStream = new DataInputStream(in);
+            byte[] header = new byte[SNAPSHOT_MAGIC.length];
+            int headerLength = readUpTo(in, header);
+            if (headerLength < header.length || !isSnapshotMagic(header)) {
+                in.reset();
+                return readFully(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+            }
+            byte version = dataInputStream.readByte();
+            if (version != SNAPSHOT_HEADER_VERSION) {
+                throw new IOException("Unsupported snapshot header version " + version);
+            }
+            CompressionCodec codec = createCodec(dataInputStream.readByte());
+            byte[] data = new byte[dataInputStream.readInt()];
+            new DataInputStream(codec.decompress(in)).readFully(data);
+            return data;
+        } finally {
+            in.close();
+        }
+    }
+
+    public static byte[] decompress(byte[] data) throws IOException {
+        return decompress(new ByteArrayInputStream(data));
+    }
+
+    private static CompressionCodec createCodec(byte id) throws IOException {
+        Class<? extends CompressionCodec> codecClass = CODECS.get(id);
+        if (codecClass == null) {
+            throw new IOException("No compression codec is registered with the id " + id + ". Configure the " +
+                    "codec used to persist the snapshot to load it.");
+        }
+        try {
+            return codecClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Cannot create the compression codec '" + codecClass.getName() + "'", e);
+        }
+    }
+
+    private static CompressionCodec createCustomCodec(String className) {
+        CompressionCodec codec;
+        try {
+            codec = (CompressionCodec) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("Cannot create the compression codec '" + className + "'. Use one of " +
+                    "gzip, deflate, fast or the class name of a CompressionCodec implementation.", e);
+        }
+        Class<? extends CompressionCodec> registeredClass = CODECS.putIfAbsent(codec.getId(), codec.getClass());
+        if (registeredClass != null && registeredClass != codec.getClass()) {
+            throw new IllegalArgumentException("Compression codec id " + codec.getId() + " of '" + className +
+                    "' is already used by '" + registeredClass.getName() + "'");
+        }
+        return codec;
+    }
+
+    private static boolean isSnapshotMagic(byte[] header) {
+        for (int i = 0; i < SNAPSHOT_MAGIC.length; i++) {
+            if (header[i] != SNAPSHOT_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readUpTo(InputStream in, byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            int length = in.read(bytes, offset, bytes.length - offset);
+            if (length < 0) {
+                break;
+            }
+            offset += length;
+        }
+        return offset;
+    }
 
-        GZIPInputStream gzip = new GZIPInputStream(inputStream);
-        int len;
-        while ((len = gzip.read(uncompressedBytes)) > 0) {
-            out.write(uncompressedBytes, 0, len);
+    private static byte[] readFully(InputStream in, int sizeHint) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ByteArrayOutputStream out = new ByteArrayOutputStream(sizeHint);
+        try {
+            int length;
+            while ((length = in.read(buffer)) > 0) {
+                out.write(buffer, 0, length);
+            }
+        } finally {
+            in.close();
         }
-        gzip.close();
-        inputStream.close();
         return out.toByteArray();
     }
 }
@@ -20,8 +20,15 @@ package org.wso2.carbon.streaming.integrator.core.ha.util;
 public class HAConstants {
 
     public static final int EVENT_BUFFER_EXTRACTOR_THREAD_POOL_SIZE = 5;
+    public static final int EVENT_REPLAY_THREAD_POOL_SIZE = 5;
+    public static final int EVENT_REPLAY_BATCH_SIZE = 1000;
     public static final String CHANNEL_ID_MESSAGE = "eventMessage";
     public static final String CHANNEL_ID_CONTROL_MESSAGE = "controlMessage";
+    public static final String CHANNEL_ID_SCHEMA_MESSAGE = "schemaMessage";
+    public static final String CHANNEL_ID_COMPACT_MESSAGE = "compactEventMessage";
+    public static final String CHANNEL_ID_SNAPSHOT_MESSAGE = "snapshotMessage";
+    public static final byte SNAPSHOT_CHUNK_PROTOCOL_VERSION = 1;
+    public static final byte COMPACT_EVENT_PROTOCOL_VERSION = 1;
     public static final String PERSISTED_APP_SPLIT_DELIMITER = "__";
     public static final int PROTOCOL_AND_MESSAGE_BYTE_LENGTH = 5;
     public static final String DEFAULT_CHARSET = "UTF-8";
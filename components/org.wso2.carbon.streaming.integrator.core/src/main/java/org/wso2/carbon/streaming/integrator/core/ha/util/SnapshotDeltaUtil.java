@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.ha.util;
+
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Util class to send only the changed parts of a state snapshot. A snapshot is divided into fixed size blocks, and
+ * the delta holds the blocks which differ from the previous snapshot. The blocks are compared by their digests, so
+ * that only the digests of the previous snapshot need to be kept.
+ * <p>
+ * Delta format: [int snapshot length][int block size][int block count]{[int block index][block]}*
+ */
+public class SnapshotDeltaUtil {
+    private static final int HEADER_LENGTH = 12;
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int DIGEST_LENGTH = 32;
+
+    private SnapshotDeltaUtil() {
+    }
+
+    /**
+     * Creates the delta of the given snapshot against the previous snapshot.
+     *
+     * @param previousSnapshot previous snapshot, or null to include all the blocks of the snapshot
+     * @param snapshot         current snapshot
+     * @param blockSize        size of the compared blocks in bytes
+     * @return delta of the snapshot
+     */
+    public static byte[] createDelta(byte[] previousSnapshot, byte[] snapshot, int blockSize) {
+        return createDelta(previousSnapshot == null ? null : digestBlocks(previousSnapshot, blockSize),
+                digestBlocks(snapshot, blockSize), snapshot, blockSize);
+    }
+
+    /**
+     * Creates the delta of the given snapshot against the previous snapshot, given the digests of the blocks of both.
+     *
+     * @param previousBlockDigests block digests of the previous snapshot, or null to include all the blocks
+     * @param blockDigests         block digests of the current snapshot
+     * @param snapshot             current snapshot
+     * @param blockSize            size of the compared blocks in bytes
+     * @return delta of the snapshot
+     */
+    public static byte[] createDelta(byte[] previousBlockDigests, byte[] blockDigests, byte[] snapshot,
+                                     int blockSize) {
+        int blockCount = (snapshot.length + blockSize - 1) / blockSize;
+        int[] changedBlocks = new int[blockCount];
+        int changedBlockCount = 0;
+        int deltaLength = HEADER_LENGTH;
+        for (int i = 0; i < blockCount; i++) {
+            if (!isBlockEqual(previousBlockDigests, blockDigests, i)) {
+                changedBlocks[changedBlockCount++] = i;
+                deltaLength += 4 + Math.min(blockSize, snapshot.length - i * blockSize);
+            }
+        }
+        ByteBuffer delta = ByteBuffer.allocate(deltaLength);
+        delta.putInt(snapshot.length);
+        delta.putInt(blockSize);
+        delta.putInt(changedBlockCount);
+        for (int i = 0; i < changedBlockCount; i++) {
+            int offset = changedBlocks[i] * blockSize;
+            delta.putInt(changedBlocks[i]);
+            delta.put(snapshot, offset, Math.min(blockSize, snapshot.length - offset));
+        }
+        return delta.array();
+    }
+
+    /**
+     * Computes the digest of each block of the snapshot. A partial last block has a different digest than a full
+     * block with the same prefix, hence resized snapshots are compared correctly.
+     *
+     * @param snapshot  snapshot to be divided into blocks
+     * @param blockSize size of the blocks in bytes
+     * @return digests of the blocks, one after the other
+     */
+    public static byte[] digestBlocks(byte[] snapshot, int blockSize) {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Digest algorithm " + DIGEST_ALGORITHM + " is not available", e);
+        }
+        int blockCount = (snapshot.length + blockSize - 1) / blockSize;
+        byte[] blockDigests = new byte[blockCount * DIGEST_LENGTH];
+        for (int i = 0; i < blockCount; i++) {
+            int offset = i * blockSize;
+            messageDigest.update(snapshot, offset, Math.min(blockSize, snapshot.length - offset));
+            try {
+                messageDigest.digest(blockDigests, i * DIGEST_LENGTH, DIGEST_LENGTH);
+            } catch (DigestException e) {
+                throw new IllegalStateException("Error occurred while computing the digest of a snapshot block", e);
+            }
+        }
+        return blockDigests;
+    }
+    /**
+     * Rebuilds a snapshot by applying the delta on the previous snapshot.
+     *
+     * @param previousSnapshot snapshot the delta was created against, or null if the delta holds all the blocks
+     * @param delta            delta of the snapshot
+     * @return rebuilt snapshot
+     */
+    public static byte[] applyDelta(byte[] previousSnapshot, byte[] delta) {
+        ByteBuffer deltaBuffer = ByteBuffer.wrap(delta);
+        byte[] snapshot = new byte[deltaBuffer.getInt()];
+        int blockSize = deltaBuffer.getInt();
+        int changedBlockCount = deltaBuffer.getInt();
+        if (previousSnapshot != null) {
+            System.arraycopy(previousSnapshot, 0, snapshot, 0, Math.min(previousSnapshot.length, snapshot.length));
+        }
+        for (int i = 0; i < changedBlockCount; i++) {
+            int offset = deltaBuffer.getInt() * blockSize;
+            deltaBuffer.get(snapshot, offset, Math.min(blockSize, snapshot.length - offset));
+        }
+        return snapshot;
+    }
+
+    private static boolean isBlockEqual(byte[] previousBlockDigests, byte[] blockDigests, int blockIndex) {
+        int offset = blockIndex * DIGEST_LENGTH;
+        if (previousBlockDigests == null || previousBlockDigests.length < offset + DIGEST_LENGTH) {
+            return false;
+        }
+        for (int i = offset; i < offset + DIGEST_LENGTH; i++) {
+            if (previousBlockDigests[i] != blockDigests[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -94,5 +94,18 @@ public class CarbonEventStreamService implements EventStreamService {
 
     }
 
-
+    @Override
+    public void pushEvents(String siddhiAppName, String streamName, Event[] events) {
+        Map<String, SiddhiAppData> siddhiAppMap = StreamProcessorDataHolder.getStreamProcessorService().
+                getSiddhiAppMap();
+        Map<String, InputHandler> inputHandlerMap = siddhiAppMap.get(siddhiAppName).getInputHandlerMap();
+        if (inputHandlerMap != null) {
+            InputHandler inputHandler = inputHandlerMap.get(streamName);
+            try {
+                inputHandler.send(events);
+            } catch (InterruptedException e) {
+                log.error("Error when pushing events to Siddhi engine ", e);
+            }
+        }
+    }
 }
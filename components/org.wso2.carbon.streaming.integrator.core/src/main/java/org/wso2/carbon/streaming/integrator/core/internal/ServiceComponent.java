@@ -55,6 +55,7 @@ import org.wso2.carbon.streaming.integrator.core.DeploymentMode;
 import org.wso2.carbon.streaming.integrator.core.NodeInfo;
 import org.wso2.carbon.streaming.integrator.core.internal.asyncapi.AsyncAPIDeployer;
 import org.wso2.carbon.streaming.integrator.core.persistence.beans.AsyncAPIServiceCatalogueConfigs;
+import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.DBErrorStore;
 import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.beans.ErrorStoreConfigurations;
 import org.wso2.carbon.streaming.integrator.core.ha.HAManager;
 import org.wso2.carbon.streaming.integrator.core.ha.exception.HAModeException;
@@ -62,6 +63,7 @@ import org.wso2.carbon.streaming.integrator.core.ha.util.CoordinationConstants;
 import org.wso2.carbon.streaming.integrator.core.internal.beans.DeploymentConfig;
 import org.wso2.carbon.streaming.integrator.core.internal.util.SiddhiAppProcessorConstants;
 import org.wso2.carbon.streaming.integrator.core.persistence.PersistenceManager;
+import org.wso2.carbon.streaming.integrator.core.persistence.ReplicatingPersistenceStore;
 import org.wso2.carbon.streaming.integrator.core.persistence.beans.PersistenceConfigurations;
 import org.wso2.carbon.streaming.integrator.core.persistence.exception.PersistenceStoreConfigurationException;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
@@ -95,6 +97,7 @@ public class ServiceComponent {
     private ScheduledExecutorService scheduledExecutorService = null;
     private boolean clusterComponentActivated;
     private boolean serviceComponentActivated;
+    private ErrorStore errorStore;
 
 
     /**
@@ -125,7 +128,8 @@ public class ServiceComponent {
                             (PersistenceStore) Class.forName(persistenceStoreClassName).newInstance();
                     persistenceStore.setProperties((Map) configProvider.getConfigurationObject(PersistenceConstants.
                             STATE_PERSISTENCE_NS));
-                    siddhiManager.setPersistenceStore(persistenceStore);
+                    // Lets the snapshots being persisted be sent to the passive node as well
+                    siddhiManager.setPersistenceStore(new ReplicatingPersistenceStore(persistenceStore));
                 } else if (Class.forName(persistenceStoreClassName).newInstance()
                         instanceof IncrementalPersistenceStore) {
                     IncrementalPersistenceStore incrementalPersistenceStore =
@@ -148,6 +152,8 @@ public class ServiceComponent {
                         + persistenceStoreClassName + " is invalid. ", e);
             }
             int persistenceInterval = persistenceConfigurations.getIntervalInMin();
+            PersistenceManager.configure(persistenceConfigurations.getThreadPoolSize(),
+                    TimeUnit.SECONDS.toMillis(persistenceConfigurations.getTimeoutInSec()));
             scheduledExecutorService = Executors.newScheduledThreadPool(1,
                     new ThreadFactoryBuilder().setPriority(7).setNameFormat("SchedulePersistence-%d").build());
             if (persistenceInterval > 0) {
@@ -169,7 +175,7 @@ public class ServiceComponent {
         if (errorStoreConfigurations != null && errorStoreConfigurations.isEnabled()) {
             String errorStoreClassName = errorStoreConfigurations.getErrorStore();
             if (Class.forName(errorStoreClassName).newInstance() instanceof ErrorStore) {
-                ErrorStore errorStore = (ErrorStore) Class.forName(errorStoreClassName).newInstance();
+                errorStore = (ErrorStore) Class.forName(errorStoreClassName).newInstance();
                 errorStore.setProperties((Map) configProvider.getConfigurationObject(
                     SiddhiErrorHandlerConstants.ERROR_STORE_NS));
                 siddhiManager.setErrorStore(errorStore);
@@ -265,6 +271,10 @@ public class ServiceComponent {
         if (scheduledExecutorService != null) {
             scheduledExecutorService.shutdown();
         }
+        PersistenceManager.shutdown();
+        if (errorStore instanceof DBErrorStore) {
+            ((DBErrorStore) errorStore).shutdown();
+        }
 
         streamServiceRegistration.unregister();
         siddhiAppRuntimeServiceRegistration.unregister();
@@ -33,8 +33,14 @@ public class DeploymentConfig {
     private EventSyncServerConfig eventSyncServer;
     @Element(description = "Byte buffer queue capacity", required = false)
     private int eventByteBufferQueueCapacity = 20000;
+    @Element(description = "Maximum number of replicated events buffered by the passive node", required = false)
+    private long eventBufferCapacity = 1000000;
     @Element(description = "Event sync client pool configurations", required = false)
     private EventSyncClientPoolConfig eventSyncClientPool = new EventSyncClientPoolConfig();
+    @Element(description = "Event sync replication pipeline configurations", required = false)
+    private EventSyncReplicationConfig eventSyncReplication = new EventSyncReplicationConfig();
+    @Element(description = "State snapshot replication configurations", required = false)
+    private StateReplicationConfig stateReplication = new StateReplicationConfig();
     @Element(description = "Pool of threads to retrieve bytes from byte buffer queue", required = false)
     private int byteBufferExtractorThreadPoolSize = 5;
 
@@ -62,6 +68,14 @@ public class DeploymentConfig {
         this.eventByteBufferQueueCapacity = eventByteBufferQueueCapacity;
     }
 
+    public long getEventBufferCapacity() {
+        return eventBufferCapacity;
+    }
+
+    public void setEventBufferCapacity(long eventBufferCapacity) {
+        this.eventBufferCapacity = eventBufferCapacity;
+    }
+
     public EventSyncClientPoolConfig getTcpClientPoolConfig() {
         return eventSyncClientPool;
     }
@@ -70,6 +84,22 @@ public class DeploymentConfig {
         this.eventSyncClientPool = eventSyncClientPool;
     }
 
+    public EventSyncReplicationConfig getEventSyncReplicationConfig() {
+        return eventSyncReplication;
+    }
+
+    public void setEventSyncReplicationConfig(EventSyncReplicationConfig eventSyncReplication) {
+        this.eventSyncReplication = eventSyncReplication;
+    }
+
+    public StateReplicationConfig getStateReplicationConfig() {
+        return stateReplication;
+    }
+
+    public void setStateReplicationConfig(StateReplicationConfig stateReplication) {
+        this.stateReplication = stateReplication;
+    }
+
     public int getByteBufferExtractorThreadPoolSize() {
         return byteBufferExtractorThreadPoolSize;
     }
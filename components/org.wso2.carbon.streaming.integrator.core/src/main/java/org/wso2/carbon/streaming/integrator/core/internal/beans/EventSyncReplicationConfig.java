@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.internal.beans;
+
+import org.wso2.carbon.config.annotation.Element;
+
+/**
+ * Bean class for the configurations of the pipeline which replicates events from the active node to the passive node.
+ */
+public class EventSyncReplicationConfig {
+    @Element(description = "Maximum number of events buffered per Siddhi app to be sent to the passive node",
+            required = false)
+    private int queueCapacity = 10000;
+    @Element(description = "Number of threads writing the buffered events to the passive node", required = false)
+    private int writerThreads = 2;
+    @Element(description = "Maximum number of events written to the passive node in a single frame",
+            required = false)
+    private int maxEventsPerFrame = 500;
+    @Element(description = "Maximum time in milliseconds an event is buffered before it is flushed to the passive " +
+            "node", required = false)
+    private long frameFlushIntervalMillis = 10;
+    @Element(description = "Action taken when the buffer of a Siddhi app is full. Supported values are 'block', " +
+            "'dropOldest' and 'spillToDisk'", required = false)
+    private String backPressureMode = "block";
+    @Element(description = "Directory used to spill events when the back pressure mode is 'spillToDisk'. " +
+            "Defaults to the temporary directory of the JVM", required = false)
+    private String spillDirectory;
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getWriterThreads() {
+        return writerThreads;
+    }
+
+    public void setWriterThreads(int writerThreads) {
+        this.writerThreads = writerThreads;
+    }
+
+    public int getMaxEventsPerFrame() {
+        return maxEventsPerFrame;
+    }
+
+    public void setMaxEventsPerFrame(int maxEventsPerFrame) {
+        this.maxEventsPerFrame = maxEventsPerFrame;
+    }
+
+    public long getFrameFlushIntervalMillis() {
+        return frameFlushIntervalMillis;
+    }
+
+    public void setFrameFlushIntervalMillis(long frameFlushIntervalMillis) {
+        this.frameFlushIntervalMillis = frameFlushIntervalMillis;
+    }
+
+    public String getBackPressureMode() {
+        return backPressureMode;
+    }
+
+    public void setBackPressureMode(String backPressureMode) {
+        this.backPressureMode = backPressureMode;
+    }
+
+    public String getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    public void setSpillDirectory(String spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.internal.beans;
+
+import org.wso2.carbon.config.annotation.Element;
+
+/**
+ * Bean class for the configurations of replicating the state snapshots of the Siddhi apps to the passive node.
+ */
+public class StateReplicationConfig {
+    @Element(description = "Enables sending the state snapshot of each Siddhi app to the passive node after it is " +
+            "persisted, so that the passive node can take over without restoring from the persistence store. Only " +
+            "the snapshots of persistence stores saving full snapshots are sent",
+            required = false)
+    private boolean enabled = false;
+    @Element(description = "Maximum size of a single snapshot chunk sent to the passive node in KB", required = false)
+    private int chunkSizeInKB = 256;
+    @Element(description = "Maximum number of snapshot chunks written to the passive node without being " +
+            "completed", required = false)
+    private int maxInFlightChunks = 8;
+    @Element(description = "Size of the blocks compared against the previous snapshot when sending only the " +
+            "changed parts of a snapshot in KB", required = false)
+    private int blockSizeInKB = 4;
+    @Element(description = "Number of consecutive delta snapshots sent before sending a full snapshot",
+            required = false)
+    private int fullSnapshotInterval = 10;
+    @Element(description = "Maximum time in milliseconds to wait for a snapshot chunk to be written to the passive " +
+            "node", required = false)
+    private long writeTimeoutMillis = 30000;
+    @Element(description = "Compression codec of the snapshots sent to the passive node", required = false)
+    private String compression = "fast";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getChunkSizeInKB() {
+        return chunkSizeInKB;
+    }
+
+    public void setChunkSizeInKB(int chunkSizeInKB) {
+        this.chunkSizeInKB = chunkSizeInKB;
+    }
+
+    public int getMaxInFlightChunks() {
+        return maxInFlightChunks;
+    }
+
+    public void setMaxInFlightChunks(int maxInFlightChunks) {
+        this.maxInFlightChunks = maxInFlightChunks;
+    }
+
+    public int getBlockSizeInKB() {
+        return blockSizeInKB;
+    }
+
+    public void setBlockSizeInKB(int blockSizeInKB) {
+        this.blockSizeInKB = blockSizeInKB;
+    }
+
+    public int getFullSnapshotInterval() {
+        return fullSnapshotInterval;
+    }
+
+    public void setFullSnapshotInterval(int fullSnapshotInterval) {
+        this.fullSnapshotInterval = fullSnapshotInterval;
+    }
+
+    public long getWriteTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
+
+    public void setWriteTimeoutMillis(long writeTimeoutMillis) {
+        this.writeTimeoutMillis = writeTimeoutMillis;
+    }
+
+    public String getCompression() {
+        return compression;
+    }
+
+    public void setCompression(String compression) {
+        this.compression = compression;
+    }
+}
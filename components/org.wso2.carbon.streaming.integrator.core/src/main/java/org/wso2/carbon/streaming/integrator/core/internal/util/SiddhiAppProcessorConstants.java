@@ -58,6 +58,23 @@ public class SiddhiAppProcessorConstants {
     public static final String HA_METRICS_PREFIX = "org.wso2.ha";
     public static final String HA_METRICS_SENDING_THROUGHPUT = "sending.throughput";
     public static final String HA_METRICS_RECEIVING_THROUGHPUT = "receiving.throughput";
+    public static final String HA_METRICS_REPLICATION_QUEUE_SIZE = "replication.queue.size";
+    public static final String HA_METRICS_REPLICATION_FRAME_SIZE = "replication.frame.size";
+    public static final String HA_METRICS_REPLICATION_DROPPED_EVENTS = "replication.dropped.events";
+    public static final String HA_METRICS_REPLICATION_FAILED_FRAMES = "replication.failed.frames";
+    public static final String HA_METRICS_EVENT_BUFFER_SIZE = "event.buffer.size";
+    public static final String HA_METRICS_EVENT_BUFFER_EVICTED_EVENTS = "event.buffer.evicted.events";
+    public static final String HA_METRICS_REPLAY_REMAINING_EVENTS = "replay.remaining.events";
+    public static final String HA_METRICS_REPLAYED_EVENTS = "replay.replayed.events";
+    public static final String PERSISTENCE_METRICS_PREFIX = "org.wso2.persistence";
+    public static final String PERSISTENCE_METRICS_SNAPSHOT_DURATION = "snapshot.duration";
+    public static final String PERSISTENCE_METRICS_SNAPSHOT_SIZE = "snapshot.size";
+    public static final String ERROR_STORE_METRICS_PREFIX = "org.wso2.error.store";
+    public static final String ERROR_STORE_METRICS_QUEUE_SIZE = "queue.size";
+    public static final String ERROR_STORE_METRICS_FLUSH_DURATION = "flush.duration";
+    public static final String ERROR_STORE_METRICS_DROPPED_ENTRIES = "dropped.entries";
+    public static final String ERROR_STORE_METRICS_PURGED_ENTRIES = "purged.entries";
+    public static final String ERROR_STORE_METRICS_PURGE_DURATION = "purge.duration";
     public static final int SIDDHI_APP_REDEPLOY_RETRY_COUNT = 5;
     public static final long SIDDHI_APP_REDEPLOY_SLEEP_TIMEOUT = 3000;
 
@@ -26,6 +26,8 @@ import org.slf4j.LoggerFactory;
 import org.wso2.carbon.datasource.core.exception.DataSourceException;
 import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.CompressionCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.GZIPCompressionCodec;
 import org.wso2.carbon.streaming.integrator.core.persistence.dto.RDBMSQueryConfigurationEntry;
 import org.wso2.carbon.streaming.integrator.core.persistence.exception.DatabaseUnsupportedException;
 import org.wso2.carbon.streaming.integrator.core.persistence.exception.DatasourceConfigurationException;
@@ -33,6 +35,7 @@ import org.wso2.carbon.streaming.integrator.core.persistence.util.DBPersistenceS
 import org.wso2.carbon.streaming.integrator.core.persistence.util.ExecutionInfo;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.RDBMSConfiguration;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.SnapshotMetrics;
 
 import java.io.IOException;
 import java.sql.Blob;
@@ -62,19 +65,10 @@ public class DBPersistenceStore implements PersistenceStore {
     private int numberOfRevisionsToKeep;
     private String databaseType;
     private String databaseVersion;
+    private CompressionCodec compressionCodec = new GZIPCompressionCodec();
 
     @Override
     public void save(String siddhiAppName, String revision, byte[] snapshot) {
-        createTableIfNotExist();
-
-        byte[] compressedSnapshot;
-        try {
-            compressedSnapshot = CompressionUtil.compressGZIP(snapshot);
-        } catch (IOException e) {
-            log.error("Error occurred while trying to compress the snapshot. Failed to " +
-                    "persist revision: " + revision + " of Siddhi app: " + siddhiAppName);
-            return;
-        }
         Connection con = null;
         PreparedStatement stmt = null;
         try {
@@ -90,17 +84,21 @@ public class DBPersistenceStore implements PersistenceStore {
             stmt.setString(1, siddhiAppName);
             stmt.setString(2, revision);
             if (databaseType.equals(POSTGRES_DATABASE_TYPE)) {
-                stmt.setBlob(3, new SerialBlob(compressedSnapshot));
+                stmt.setBlob(3, new SerialBlob(CompressionUtil.compress(snapshot, compressionCodec)));
             } else {
                 Blob blob = con.createBlob();
-                blob.setBytes(1, compressedSnapshot);
+                CompressionUtil.compress(snapshot, compressionCodec, blob.setBinaryStream(1));
                 stmt.setBlob(3, blob);
             }
             stmt.executeUpdate();
             con.commit();
+            SnapshotMetrics.updateSnapshotSize(siddhiAppName, snapshot.length);
             if (log.isDebugEnabled()) {
                 log.debug("Periodic persistence of " + siddhiAppName + " persisted successfully.");
             }
+        } catch (IOException e) {
+            log.error("Error occurred while trying to compress the snapshot. Failed to " +
+                    "persist revision: " + revision + " of Siddhi app: " + siddhiAppName, e);
         } catch (SQLException e) {
             log.error("Error while saving revision" + revision + " of the siddhiApp " +
                     siddhiAppName + " to the database with datasource name " + datasourceName, e);
@@ -112,6 +110,7 @@ public class DBPersistenceStore implements PersistenceStore {
 
     @Override
     public void setProperties(Map properties) {
+        compressionCodec = CompressionUtil.getCompressionCodec(properties);
         Map configurationMap = (Map) properties.get(PersistenceConstants.STATE_PERSISTENCE_CONFIGS);
         Object numberOfRevisionsObject = properties.get(PersistenceConstants.STATE_PERSISTENCE_REVISIONS_TO_KEEP);
         if (numberOfRevisionsObject == null || !(numberOfRevisionsObject instanceof Integer)) {
@@ -171,13 +170,13 @@ public class DBPersistenceStore implements PersistenceStore {
         }
 
         initializeDatabaseExecutionInfo();
+        createTableIfNotExist();
     }
 
     @Override
     public byte[] load(String siddhiAppName, String revision) {
         PreparedStatement stmt = null;
         Connection con = null;
-        byte[] blobAsBytes = null;
         byte[] decompressedSnapshot = null;
         try {
             try {
@@ -194,16 +193,13 @@ public class DBPersistenceStore implements PersistenceStore {
             try (ResultSet resultSet = stmt.executeQuery()) {
                 con.commit();
                 if (resultSet.next()) {
-                    Blob blobSnapshot;
-                    if (databaseType.equals(MSSQL_DATABASE_TYPE)) {
-                        blobSnapshot = new SerialBlob(resultSet.getBytes("snapshot"));
-                    } else {
-                        blobSnapshot = resultSet.getBlob("snapshot");
-                    }
-                    int blobLength = (int) blobSnapshot.length();
-                    blobAsBytes = blobSnapshot.getBytes(1, blobLength);
                     try {
-                        decompressedSnapshot = CompressionUtil.decompressGZIP(blobAsBytes);
+                        if (databaseType.equals(MSSQL_DATABASE_TYPE)) {
+                            decompressedSnapshot = CompressionUtil.decompress(resultSet.getBytes("snapshot"));
+                        } else {
+                            decompressedSnapshot = CompressionUtil.decompress(
+                                    resultSet.getBlob("snapshot").getBinaryStream());
+                        }
                     } catch (IOException e) {
                         throw new RuntimeException("Error occurred while trying to decompress the snapshot. " +
                                 "Failed to load revision: " + revision + " of Siddhi app: " + siddhiAppName, e);
@@ -221,7 +217,6 @@ public class DBPersistenceStore implements PersistenceStore {
 
     @Override
     public String getLastRevision(String siddhiAppName) {
-        createTableIfNotExist();
         PreparedStatement stmt = null;
         Connection con = null;
         String revision = null;
@@ -24,10 +24,17 @@ import io.siddhi.core.util.persistence.PersistenceStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.CompressionCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.GZIPCompressionCodec;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.SnapshotMetrics;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 
 /**
@@ -36,28 +43,28 @@ import java.util.Map;
 public class FileSystemPersistenceStore implements PersistenceStore {
 
     private static final Logger log = LoggerFactory.getLogger(FileSystemPersistenceStore.class);
+    private static final int BUFFER_SIZE = 65536;
     private int numberOfRevisionsToSave;
     private String folder;
+    private CompressionCodec compressionCodec = new GZIPCompressionCodec();
 
     @Override
     public void save(String siddhiAppName, String revision, byte[] snapshot) {
         File file = new File(folder + File.separator + siddhiAppName + File.separator + revision);
-        byte[] compressedSnapshot;
-        try {
-            compressedSnapshot = CompressionUtil.compressGZIP(snapshot);
-        } catch (IOException e) {
-            log.error("Error occurred while trying to compress the snapshot. Failed to " +
-                    "persist revision: " + revision + " of Siddhi app: " + siddhiAppName);
-            return;
-        }
         try {
             Files.createParentDirs(file);
-            Files.write(compressedSnapshot, file);
+            CompressionUtil.compress(snapshot, compressionCodec,
+                    new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
             cleanOldRevisions(siddhiAppName);
+            SnapshotMetrics.updateSnapshotSize(siddhiAppName, snapshot.length);
             if (log.isDebugEnabled()) {
                 log.debug("Periodic persistence of " + siddhiAppName + " persisted successfully.");
             }
         } catch (IOException e) {
+            if (file.exists() && !file.delete()) {
+                log.error("Cannot delete the partially written revision " + revision + " of SiddhiApp: " +
+                        siddhiAppName);
+            }
             log.error("Cannot save the revision " + revision + " of SiddhiApp: " + siddhiAppName +
                     " to the file system.", e);
         }
@@ -65,6 +72,7 @@ public class FileSystemPersistenceStore implements PersistenceStore {
 
     @Override
     public void setProperties(Map properties) {
+        compressionCodec = CompressionUtil.getCompressionCodec(properties);
         Map configurationMap = (Map) properties.get(PersistenceConstants.STATE_PERSISTENCE_CONFIGS);
         Object numberOfRevisionsObject = properties.get(PersistenceConstants.STATE_PERSISTENCE_REVISIONS_TO_KEEP);
 
@@ -99,22 +107,22 @@ public class FileSystemPersistenceStore implements PersistenceStore {
     @Override
     public byte[] load(String siddhiAppName, String revision) {
         File file = new File(folder + File.separator + siddhiAppName + File.separator + revision);
+        InputStream inputStream;
         try {
-            byte[] bytes = Files.toByteArray(file);
-            log.info("State loaded for " + siddhiAppName + " revision " + revision + " from the file system.");
-            byte[] decompressedSnapshot;
-            try {
-                decompressedSnapshot = CompressionUtil.decompressGZIP(bytes);
-            } catch (IOException e) {
-                throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
-                        "load revision: " + revision + " of Siddhi app: " + siddhiAppName, e);
-            }
-            return decompressedSnapshot;
+            inputStream = new FileInputStream(file);
         } catch (IOException e) {
             log.error("Cannot load the revision " + revision + " of SiddhiApp: " + siddhiAppName +
                     " from file system.", e);
+            return null;
+        }
+        try {
+            byte[] decompressedSnapshot = CompressionUtil.decompress(inputStream);
+            log.info("State loaded for " + siddhiAppName + " revision " + revision + " from the file system.");
+            return decompressedSnapshot;
+        } catch (IOException e) {
+            throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
+                    "load revision: " + revision + " of Siddhi app: " + siddhiAppName, e);
         }
-        return null;
     }
 
     @Override
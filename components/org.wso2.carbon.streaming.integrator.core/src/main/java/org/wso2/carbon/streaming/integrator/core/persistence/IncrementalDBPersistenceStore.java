@@ -28,6 +28,8 @@ import org.slf4j.LoggerFactory;
 import org.wso2.carbon.datasource.core.exception.DataSourceException;
 import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.CompressionCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.GZIPCompressionCodec;
 import org.wso2.carbon.streaming.integrator.core.persistence.dto.RDBMSQueryConfigurationEntry;
 import org.wso2.carbon.streaming.integrator.core.persistence.exception.DatabaseUnsupportedException;
 import org.wso2.carbon.streaming.integrator.core.persistence.exception.DatasourceConfigurationException;
@@ -35,6 +37,7 @@ import org.wso2.carbon.streaming.integrator.core.persistence.util.DBPersistenceS
 import org.wso2.carbon.streaming.integrator.core.persistence.util.ExecutionInfo;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.RDBMSConfiguration;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.SnapshotMetrics;
 
 import java.io.IOException;
 import java.sql.Blob;
@@ -44,7 +47,9 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import javax.sql.DataSource;
@@ -55,6 +60,7 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
 
     private static final String MSSQL_DATABASE_TYPE = "microsoft sql server";
     private static final String POSTGRES_DATABASE_TYPE = "postgresql";
+    private static final long INVALID_REVISION_TIME = -1;
 
     private ExecutionInfo executionInfo;
     private String datasourceName;
@@ -62,53 +68,145 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
     private String databaseType;
     private String databaseVersion;
     private String tableName;
+    private CompressionCodec compressionCodec = new GZIPCompressionCodec();
+    private final Object pendingRevisionsLock = new Object();
+    private List<PendingRevision> pendingRevisions = new ArrayList<>();
+    private boolean isBatchInProgress = false;
 
+    /**
+     * Saves the snapshot along with the revisions saved concurrently in the same persistence cycle. The first saving
+     * thread writes all the pending revisions in a single JDBC batch and transaction, while the others wait for it.
+     * When the batch fails, each of its revisions is saved again on its own, so that a revision which cannot be saved
+     * does not fail the others, and the failure of a revision is reported by the thread saving it.
+     */
     @Override
     public void save(IncrementalSnapshotInfo incrementalSnapshotInfo, byte[] bytes) {
-        byte[] compressedSnapshot;
+        PendingRevision pendingRevision;
         try {
-            compressedSnapshot = CompressionUtil.compressGZIP(bytes);
+            pendingRevision = new PendingRevision(incrementalSnapshotInfo,
+                    CompressionUtil.compress(bytes, compressionCodec), bytes.length);
         } catch (IOException e) {
             log.error("Error occurred while trying to compress the snapshot. Failed to " +
-                    "persist revision: " + incrementalSnapshotInfo.getRevision() +
-                    " of Siddhi app: " + incrementalSnapshotInfo.getSiddhiAppId());
+                    "persist revision: " + incrementalSnapshotInfo.getRevision() + " of Siddhi app: " +
+                    incrementalSnapshotInfo.getSiddhiAppId(), e);
+            return;
+        }
+        List<PendingRevision> batch;
+        synchronized (pendingRevisionsLock) {
+            pendingRevisions.add(pendingRevision);
+            try {
+                while (!pendingRevision.isWritten && !pendingRevision.isBatchFailed && isBatchInProgress) {
+                    pendingRevisionsLock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while waiting to save revision " + incrementalSnapshotInfo.getRevision() +
+                        " of the siddhiApp " + incrementalSnapshotInfo.getSiddhiAppId(), e);
+                return;
+            }
+            if (pendingRevision.isWritten) {
+                return;
+            }
+            if (pendingRevision.isBatchFailed) {
+                batch = null;
+            } else {
+                isBatchInProgress = true;
+                batch = pendingRevisions;
+                pendingRevisions = new ArrayList<>();
+            }
+        }
+        if (batch == null) {
+            saveBatch(Collections.singletonList(pendingRevision));
             return;
         }
-        DBPersistenceStoreUtils.createTableIfNotExist(executionInfo, datasource, datasourceName, tableName);
+        boolean isSaved = false;
+        try {
+            isSaved = saveBatch(batch);
+        } finally {
+            synchronized (pendingRevisionsLock) {
+                for (PendingRevision savedRevision : batch) {
+                    savedRevision.isWritten = isSaved;
+                    savedRevision.isBatchFailed = !isSaved;
+                }
+                isBatchInProgress = false;
+                pendingRevisionsLock.notifyAll();
+            }
+        }
+        if (!isSaved && batch.size() > 1) {
+            saveBatch(Collections.singletonList(pendingRevision));
+        }
+    }
 
+    private boolean saveBatch(List<PendingRevision> batch) {
         Connection con = null;
         PreparedStatement stmt = null;
+        PreparedStatement deleteStmt = null;
         try {
             try {
                 con = datasource.getConnection();
             } catch (SQLException e) {
                 log.error("Cannot establish connection to datasource " + datasourceName +
-                        " while saving revision " + incrementalSnapshotInfo.getRevision(), e);
-                return;
+                        " while saving " + batch.size() + " revisions", e);
+                return false;
             }
             con.setAutoCommit(false);
-            stmt = con.prepareStatement(executionInfo.getPreparedInsertStatement());
-            stmt.setString(1, incrementalSnapshotInfo.getSiddhiAppId());
-            stmt.setString(2, incrementalSnapshotInfo.getRevision());
-            if (databaseType.equals(POSTGRES_DATABASE_TYPE)) {
-                stmt.setBlob(3, new SerialBlob(compressedSnapshot));
-            } else {
-                Blob blob = con.createBlob();
-                blob.setBytes(1, compressedSnapshot);
-                stmt.setBlob(3, blob);
+            stmt = con.prepareStatement(executionInfo.getPreparedInsertIndexedRevisionStatement());
+            for (PendingRevision pendingRevision : batch) {
+                IncrementalSnapshotInfo snapshotInfo = pendingRevision.snapshotInfo;
+                stmt.setString(1, snapshotInfo.getSiddhiAppId());
+                stmt.setString(2, snapshotInfo.getRevision());
+                if (databaseType.equals(POSTGRES_DATABASE_TYPE)) {
+                    stmt.setBlob(3, new SerialBlob(pendingRevision.compressedSnapshot));
+                } else {
+                    Blob blob = con.createBlob();
+                    blob.setBytes(1, pendingRevision.compressedSnapshot);
+                    stmt.setBlob(3, blob);
+                }
+                setRevisionIndex(stmt, 4, snapshotInfo);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            for (PendingRevision pendingRevision : batch) {
+                IncrementalSnapshotInfo snapshotInfo = pendingRevision.snapshotInfo;
+                if (snapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.INCREMENT) {
+                    if (deleteStmt == null) {
+                        deleteStmt = con.prepareStatement(executionInfo.getPreparedDeleteObsoleteRevisionsStatement());
+                    }
+                    addObsoleteRevisionsToBatch(deleteStmt, snapshotInfo);
+                }
+            }
+            if (deleteStmt != null) {
+                deleteStmt.executeBatch();
             }
-            stmt.executeUpdate();
             con.commit();
+            for (PendingRevision pendingRevision : batch) {
+                SnapshotMetrics.updateSnapshotSize(pendingRevision.snapshotInfo.getSiddhiAppId(),
+                        pendingRevision.snapshotSize);
+            }
             if (log.isDebugEnabled()) {
-                log.debug("Periodic persistence of " + incrementalSnapshotInfo.getSiddhiAppId() + " persisted successfully.");
+                log.debug("Incremental persistence of " + batch.size() + " revisions persisted successfully.");
             }
+            return true;
         } catch (SQLException e) {
-            log.error("Error while saving revision" + incrementalSnapshotInfo.getRevision() + " of the siddhiApp " +
-                    incrementalSnapshotInfo.getSiddhiAppId() + " to the database with datasource name " + datasourceName, e);
+            if (batch.size() > 1) {
+                log.warn("Error while saving " + batch.size() + " revisions to the database with datasource name " +
+                        datasourceName + " in a single batch. Revisions will be saved separately.", e);
+            } else {
+                log.error("Error while saving revision " + getRevisions(batch) + " to the database with " +
+                        "datasource name " + datasourceName, e);
+            }
+            rollback(con);
+            return false;
         } finally {
+            if (deleteStmt != null) {
+                try {
+                    deleteStmt.close();
+                } catch (SQLException e) {
+                    log.error("Unable to close statement." + e.getMessage(), e);
+                }
+            }
             DBPersistenceStoreUtils.cleanupConnections(stmt, con);
         }
-        cleanOldRevisions(incrementalSnapshotInfo);
     }
 
     @Override
@@ -162,13 +260,15 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
                     datasourceName, e);
         }
         initializeDatabaseExecutionInfo();
+        boolean isTableCreated = DBPersistenceStoreUtils.createTableIfNotExist(executionInfo, datasource,
+                datasourceName, tableName);
+        initializeRevisionIndex(isTableCreated);
     }
 
     @Override
     public byte[] load(IncrementalSnapshotInfo incrementalSnapshotInfo) {
         PreparedStatement stmt = null;
         Connection con = null;
-        byte[] blobAsBytes = null;
         byte[] decompressedSnapshot = null;
         try {
             try {
@@ -185,16 +285,13 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
             try (ResultSet resultSet = stmt.executeQuery()) {
                 con.commit();
                 if (resultSet.next()) {
-                    Blob blobSnapshot;
-                    if (databaseType.equals(MSSQL_DATABASE_TYPE)) {
-                        blobSnapshot = new SerialBlob(resultSet.getBytes("snapshot"));
-                    } else {
-                        blobSnapshot = resultSet.getBlob("snapshot");
-                    }
-                    int blobLength = (int) blobSnapshot.length();
-                    blobAsBytes = blobSnapshot.getBytes(1, blobLength);
                     try {
-                        decompressedSnapshot = CompressionUtil.decompressGZIP(blobAsBytes);
+                        if (databaseType.equals(MSSQL_DATABASE_TYPE)) {
+                            decompressedSnapshot = CompressionUtil.decompress(resultSet.getBytes("snapshot"));
+                        } else {
+                            decompressedSnapshot = CompressionUtil.decompress(
+                                    resultSet.getBlob("snapshot").getBinaryStream());
+                        }
                     } catch (IOException e) {
                         throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
                                 "load revision: " + incrementalSnapshotInfo.getRevision() + " of Siddhi app: " +
@@ -214,48 +311,77 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
     @Override
     public List<IncrementalSnapshotInfo> getListOfRevisionsToLoad(long restoreTime, String siddhiAppName) {
         List<IncrementalSnapshotInfo> results = new ArrayList<>();
-        List<String> revisions = getListOfRevisionsFromDB(siddhiAppName);
-        for (String revision : revisions) {
-            IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(revision);
-            if (snapshotInfo.getTime() <= restoreTime &&
-                    siddhiAppName.equals(snapshotInfo.getSiddhiAppId()) &&
-                    snapshotInfo.getElementId() != null &&
-                    snapshotInfo.getQueryName() != null) {
-                //Note: Here we discard the (items.length == 2) scenario which is handled
-                // by the full snapshot handling
-                if (log.isDebugEnabled()) {
-                    log.debug("List of revisions to load : " + revision);
+        PreparedStatement stmt = null;
+        Connection con = null;
+        try {
+            try {
+                con = datasource.getConnection();
+            } catch (SQLException e) {
+                log.error("Cannot establish connection to datasource " + datasourceName +
+                        " . Could not load the list of revisions for Siddhi app: " + siddhiAppName, e);
+                return results;
+            }
+            con.setAutoCommit(false);
+            indexRevisions(con, siddhiAppName);
+            stmt = con.prepareStatement(executionInfo.getPreparedSelectRevisionsToLoadStatement());
+            stmt.setString(1, siddhiAppName);
+            stmt.setLong(2, restoreTime);
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                while (resultSet.next()) {
+                    String revision = resultSet.getString("revision");
+                    if (log.isDebugEnabled()) {
+                        log.debug("List of revisions to load : " + revision);
+                    }
+                    results.add(PersistenceHelper.convertRevision(revision));
                 }
-                results.add(snapshotInfo);
             }
+            con.commit();
+        } catch (SQLException e) {
+            log.error("Could not load the list of revisions, for Siddhi app: " + siddhiAppName +
+                    ", from the database with datasource " + datasourceName, e);
+            rollback(con);
+        } finally {
+            DBPersistenceStoreUtils.cleanupConnections(stmt, con);
         }
         return results;
     }
 
     @Override
     public String getLastRevision(String siddhiAppName) {
-        createTableIfNotExist();
-        List<String> revisions = getListOfRevisionsFromDB(siddhiAppName);
-        long restoreTime = -1;
+        PreparedStatement stmt = null;
+        Connection con = null;
         IncrementalSnapshotInfo snapshotToLoad = null;
-        for (String revision : revisions) {
-            IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(revision);
-            if (snapshotInfo.getTime() > restoreTime &&
-                    siddhiAppName.equals(snapshotInfo.getSiddhiAppId()) &&
-                    snapshotInfo.getElementId() != null &&
-                    snapshotInfo.getQueryName() != null) {
-                //Note: Here we discard the (items.length == 2) scenario which is handled
-                // by the full snapshot handling
-                restoreTime = snapshotInfo.getTime();
-                snapshotToLoad = snapshotInfo;
+        try {
+            try {
+                con = datasource.getConnection();
+            } catch (SQLException e) {
+                log.error("Cannot establish connection to datasource " + datasourceName +
+                        " while trying retrieve last revision of " + siddhiAppName, e);
+                return null;
             }
+            con.setAutoCommit(false);
+            indexRevisions(con, siddhiAppName);
+            stmt = con.prepareStatement(executionInfo.getPreparedSelectLastIndexedRevisionStatement());
+            stmt.setString(1, siddhiAppName);
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                if (resultSet.next()) {
+                    snapshotToLoad = PersistenceHelper.convertRevision(resultSet.getString("revision"));
+                }
+            }
+            con.commit();
+        } catch (SQLException e) {
+            log.error("Error while retrieving last revision of siddhiApp: " +
+                    siddhiAppName + " from the database with datasource " + datasourceName, e);
+            rollback(con);
+        } finally {
+            DBPersistenceStoreUtils.cleanupConnections(stmt, con);
         }
-        if (restoreTime != -1) {
+        if (snapshotToLoad != null) {
             if (log.isDebugEnabled()) {
-                log.debug("Latest revision to load: " + restoreTime + PersistenceConstants.REVISION_SEPARATOR +
-                        siddhiAppName);
+                log.debug("Latest revision to load: " + snapshotToLoad.getTime() +
+                        PersistenceConstants.REVISION_SEPARATOR + siddhiAppName);
             }
-            return restoreTime + PersistenceConstants.REVISION_SEPARATOR + siddhiAppName
+            return snapshotToLoad.getTime() + PersistenceConstants.REVISION_SEPARATOR + siddhiAppName
                     + PersistenceConstants.REVISION_SEPARATOR + snapshotToLoad.getQueryName()
                     + PersistenceConstants.REVISION_SEPARATOR + snapshotToLoad.getElementId()
                     + PersistenceConstants.REVISION_SEPARATOR + snapshotToLoad.getType();
@@ -299,36 +425,6 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
         }
     }
 
-    private List<String> getListOfRevisionsFromDB(String siddhiAppName) {
-        List<String> revisions = new ArrayList<>();
-        PreparedStatement stmt = null;
-        Connection con = null;
-        try {
-            try {
-                con = datasource.getConnection();
-            } catch (SQLException e) {
-                log.error("Cannot establish connection to datasource " + datasourceName +
-                        " . Could not load the list of revisions for Siddhi app: " + siddhiAppName, e);
-                return null;
-            }
-            con.setAutoCommit(false);
-            stmt = con.prepareStatement(executionInfo.getPreparedSelectRevisionsStatement());
-            stmt.setString(1, siddhiAppName);
-            try (ResultSet resultSet = stmt.executeQuery()) {
-                con.commit();
-                while (resultSet.next()) {
-                    revisions.add(String.valueOf(resultSet.getString("revision")));
-                }
-            }
-        } catch (SQLException e) {
-            log.error("Could not load the list of revisions, for Siddhi app: " + siddhiAppName +
-                    ", from the database with datasource " + datasourceName, e);
-        } finally {
-            DBPersistenceStoreUtils.cleanupConnections(stmt, con);
-        }
-        return revisions;
-    }
-
     private void initializeDatabaseExecutionInfo() {
         executionInfo = new ExecutionInfo();
         RDBMSQueryConfigurationEntry databaseQueryEntries =
@@ -349,116 +445,181 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
         executionInfo.setPreparedDeleteOldRevisionsStatement(databaseQueryEntries.getDeleteOldRevisionsQuery());
         executionInfo.setPreparedCountStatement(databaseQueryEntries.getCountQuery());
         executionInfo.setPreparedDeleteAllRevisionsStatement(databaseQueryEntries.getDeleteAllRevisionsQuery());
+        executionInfo.setPreparedIsRevisionIndexExistStatement(databaseQueryEntries.getIsRevisionIndexExistQuery());
+        executionInfo.setPreparedAddRevisionIndexColumnsStatement(
+                databaseQueryEntries.getAddRevisionIndexColumnsQuery());
+        executionInfo.setPreparedCreateRevisionIndexStatement(databaseQueryEntries.getCreateRevisionIndexQuery());
+        executionInfo.setPreparedSelectUnindexedRevisionsStatement(
+                databaseQueryEntries.getSelectUnindexedRevisionsQuery());
+        executionInfo.setPreparedUpdateRevisionIndexStatement(databaseQueryEntries.getUpdateRevisionIndexQuery());
+        executionInfo.setPreparedInsertIndexedRevisionStatement(databaseQueryEntries.getInsertIndexedRevisionQuery());
+        executionInfo.setPreparedSelectRevisionsToLoadStatement(databaseQueryEntries.getSelectRevisionsToLoadQuery());
+        executionInfo.setPreparedSelectLastIndexedRevisionStatement(
+                databaseQueryEntries.getSelectLastIndexedRevisionQuery());
+        executionInfo.setPreparedDeleteObsoleteRevisionsStatement(
+                databaseQueryEntries.getDeleteObsoleteRevisionsQuery());
     }
 
-    private void cleanOldRevisions(IncrementalSnapshotInfo incrementalSnapshotInfo) {
-        if (incrementalSnapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.INCREMENT) {
-            List<String> allRevisions = getListOfRevisionsFromDB(incrementalSnapshotInfo.getSiddhiAppId());
-            if (allRevisions != null) {
-                String revisionsToClean = getRevisionsToClean(incrementalSnapshotInfo, allRevisions);
-                if (revisionsToClean != null) {
-                    cleanOldRevisionsFromDB(revisionsToClean, incrementalSnapshotInfo.getSiddhiAppId());
-                }
-            }
-        }
-    }
-
-    private void cleanOldRevisionsFromDB(String revisionsToClean, String siddhiAppId) {
-        PreparedStatement stmt = null;
+    /**
+     * Adds the columns holding the parsed revision, along with their index, to tables created by older versions.
+     * A table created by this store already has the columns, and only the index is created.
+     */
+    private void initializeRevisionIndex(boolean isTableCreated) {
         Connection con = null;
+        Statement stmt = null;
         try {
             con = datasource.getConnection();
             con.setAutoCommit(false);
+            stmt = con.createStatement();
+            if (isTableCreated) {
+                stmt.executeUpdate(executionInfo.getPreparedCreateRevisionIndexStatement());
+                con.commit();
+                return;
+            }
+            try (ResultSet ignored = stmt.executeQuery(executionInfo.getPreparedIsRevisionIndexExistStatement())) {
+                con.commit();
+            } catch (SQLException e) {
+                rollback(con);
+                log.info("Adding the revision index to the persistence table " + tableName);
+                stmt.executeUpdate(executionInfo.getPreparedAddRevisionIndexColumnsStatement());
+                stmt.executeUpdate(executionInfo.getPreparedCreateRevisionIndexStatement());
+                con.commit();
+            }
         } catch (SQLException e) {
-            log.error("Cannot establish connection to data source " + datasourceName +
-                    " to clean old revisions", e);
-            return;
-        }
-        try {
-            stmt = con.prepareStatement(executionInfo.getPreparedDeleteOldRevisionsStatement());
-            stmt.setString(1, revisionsToClean);
-            stmt.setString(2, siddhiAppId);
-            stmt.executeUpdate();
-            con.commit();
-        } catch (SQLException e) {
-            log.error("Error in cleaning old revisions of siddhiApp: " +
-                    siddhiAppId + "from the database with datasource " + datasourceName, e);
+            rollback(con);
+            throw new DatasourceConfigurationException("Could not initialize the revision index of the persistence " +
+                    "table " + tableName + " using datasource " + datasourceName, e);
         } finally {
-            if (stmt != null) {
-                try {
-                    stmt.close();
-                } catch (SQLException e) {
-                    log.error("Unable to close statement." + e.getMessage(), e);
-                }
-            }
             DBPersistenceStoreUtils.cleanupConnections(stmt, con);
         }
     }
 
-    private String getRevisionsToClean(IncrementalSnapshotInfo incrementalSnapshotInfo,
-                                       List<String> allRevisions) {
-        StringBuilder revisionsToClean = new StringBuilder();
-        long baseTimeStamp = (incrementalSnapshotInfo.getTime());
-        for (String revision : allRevisions) {
-            IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(revision);
-            if (snapshotInfo.getTime() < baseTimeStamp &&
-                    incrementalSnapshotInfo.getSiddhiAppId().equals(snapshotInfo.getSiddhiAppId()) &&
-                    incrementalSnapshotInfo.getQueryName().equals(snapshotInfo.getQueryName()) &&
-                    incrementalSnapshotInfo.getElementId().equals(snapshotInfo.getElementId())) {
-                if (incrementalSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.BASE &&
-                        snapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.PERIODIC) {
-                    revisionsToClean.append(",").append(revision);
-                } else if (incrementalSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC &&
-                        snapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC) {
-                    revisionsToClean.append(",").append(revision);
+    /**
+     * Fills the revision index of the revisions of the Siddhi app saved without it, such as those saved before the
+     * index was added or by a node of an older version, so that they are found by the queries reading the index.
+     * A failure is logged, leaving the revisions to be indexed when they are read again.
+     */
+    private void indexRevisions(Connection con, String siddhiAppName) {
+        List<String> unindexedRevisions = new ArrayList<>();
+        int indexedRevisionCount = 0;
+        try {
+            try (PreparedStatement stmt = con.prepareStatement(
+                    executionInfo.getPreparedSelectUnindexedRevisionsStatement())) {
+                stmt.setString(1, siddhiAppName);
+                try (ResultSet resultSet = stmt.executeQuery()) {
+                    while (resultSet.next()) {
+                        unindexedRevisions.add(resultSet.getString("revision"));
+                    }
                 }
             }
+            if (unindexedRevisions.isEmpty()) {
+                con.commit();
+                return;
+            }
+            try (PreparedStatement stmt = con.prepareStatement(
+                    executionInfo.getPreparedUpdateRevisionIndexStatement())) {
+                for (String unindexedRevision : unindexedRevisions) {
+                    IncrementalSnapshotInfo snapshotInfo;
+                    try {
+                        snapshotInfo = PersistenceHelper.convertRevision(unindexedRevision);
+                    } catch (RuntimeException e) {
+                        snapshotInfo = null;
+                    }
+                    if (snapshotInfo != null) {
+                        setRevisionIndex(stmt, 1, snapshotInfo);
+                        indexedRevisionCount++;
+                    } else {
+                        // Indexed with an invalid time and without an element, so that the revision is neither
+                        // loaded nor selected to be indexed again
+                        log.warn("Ignoring the invalid revision " + unindexedRevision + " of siddhiApp " +
+                                siddhiAppName + " in the persistence table " + tableName);
+                        stmt.setLong(1, INVALID_REVISION_TIME);
+                        stmt.setNull(2, Types.VARCHAR);
+                        stmt.setNull(3, Types.VARCHAR);
+                        stmt.setNull(4, Types.VARCHAR);
+                    }
+                    stmt.setString(5, siddhiAppName);
+                    stmt.setString(6, unindexedRevision);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            con.commit();
+        } catch (SQLException e) {
+            rollback(con);
+            log.warn("Could not index the revisions of siddhiApp " + siddhiAppName + " saved without the revision " +
+                    "index in the persistence table " + tableName + ". They will be indexed when read again.", e);
+            return;
         }
-        if (revisionsToClean.length() != 0) {
-            return revisionsToClean.substring(1); //removing leading comma
-        }
-        return null;
+        log.info("Indexed " + indexedRevisionCount + " revisions of siddhiApp " + siddhiAppName +
+                " in the persistence table " + tableName + (indexedRevisionCount == unindexedRevisions.size() ? "" :
+                ", ignoring " + (unindexedRevisions.size() - indexedRevisionCount) + " invalid revisions"));
+    }
+
+    private void setRevisionIndex(PreparedStatement stmt, int index, IncrementalSnapshotInfo snapshotInfo)
+            throws SQLException {
+        stmt.setLong(index, snapshotInfo.getTime());
+        stmt.setString(index + 1, snapshotInfo.getQueryName());
+        stmt.setString(index + 2, snapshotInfo.getElementId());
+        stmt.setString(index + 3, snapshotInfo.getType() == null ? null : snapshotInfo.getType().name());
     }
 
     /**
-     * Method that would create the persistence table
+     * Deletes the revisions made obsolete by the given revision. A base revision makes the older base and
+     * incremental revisions of the same element obsolete, while a periodic revision makes the older periodic
+     * revisions obsolete.
      */
-    private void createTableIfNotExist() {
-        if (!executionInfo.isTableExist()) {
-            Statement stmt = null;
-            Connection con = null;
+    private void addObsoleteRevisionsToBatch(PreparedStatement stmt, IncrementalSnapshotInfo snapshotInfo)
+            throws SQLException {
+        stmt.setString(1, snapshotInfo.getSiddhiAppId());
+        stmt.setString(2, snapshotInfo.getQueryName());
+        stmt.setString(3, snapshotInfo.getElementId());
+        stmt.setLong(4, snapshotInfo.getTime());
+        if (snapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.BASE) {
+            stmt.setString(5, IncrementalSnapshotInfo.SnapshotType.BASE.name());
+            stmt.setString(6, IncrementalSnapshotInfo.SnapshotType.INCREMENT.name());
+        } else {
+            stmt.setString(5, IncrementalSnapshotInfo.SnapshotType.PERIODIC.name());
+            stmt.setString(6, IncrementalSnapshotInfo.SnapshotType.PERIODIC.name());
+        }
+        stmt.addBatch();
+    }
+
+    private String getRevisions(List<PendingRevision> batch) {
+        StringBuilder revisions = new StringBuilder();
+        for (PendingRevision pendingRevision : batch) {
+            if (revisions.length() != 0) {
+                revisions.append(", ");
+            }
+            revisions.append(pendingRevision.snapshotInfo.getRevision());
+        }
+        return revisions.toString();
+    }
+
+    private void rollback(Connection con) {
+        if (con != null) {
             try {
-                try {
-                    con = datasource.getConnection();
-                    con.setAutoCommit(false);
-                    stmt = con.createStatement();
-                } catch (SQLException e) {
-                    log.error("Cannot establish connection to datasource " + datasourceName +
-                            " when checking persistence table exists", e);
-                    return;
-                }
-                try (ResultSet ignored = stmt.executeQuery(executionInfo.getPreparedTableExistenceCheckStatement())) {
-                    executionInfo.setTableExist(true);
-                } catch (SQLException e) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Table " + tableName + " does not Exist. Table Will be created. ");
-                    }
-                    DBPersistenceStoreUtils.cleanupConnections(stmt, con);
-                    try {
-                        con = datasource.getConnection();
-                        stmt = con.createStatement();
-                        con.setAutoCommit(false);
-                        stmt.executeUpdate(executionInfo.getPreparedCreateTableStatement());
-                        con.commit();
-                        executionInfo.setTableExist(true);
-                    } catch (SQLException ex) {
-                        log.error("Could not create table " + tableName +
-                                " using datasource " + datasourceName, ex);
-                    }
-                }
-            } finally {
-                DBPersistenceStoreUtils.cleanupConnections(stmt, con);
+                con.rollback();
+            } catch (SQLException e) {
+                log.error("Unable to rollback the transaction." + e.getMessage(), e);
             }
         }
     }
+
+    /**
+     * Revision waiting to be saved in the next batch.
+     */
+    private static class PendingRevision {
+        private IncrementalSnapshotInfo snapshotInfo;
+        private byte[] compressedSnapshot;
+        private int snapshotSize;
+        private boolean isWritten = false;
+        private boolean isBatchFailed = false;
+
+        PendingRevision(IncrementalSnapshotInfo snapshotInfo, byte[] compressedSnapshot, int snapshotSize) {
+            this.snapshotInfo = snapshotInfo;
+            this.compressedSnapshot = compressedSnapshot;
+            this.snapshotSize = snapshotSize;
+        }
+    }
 }
@@ -26,10 +26,17 @@ import io.siddhi.core.util.persistence.util.PersistenceHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.CompressionCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.GZIPCompressionCodec;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.SnapshotMetrics;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -40,7 +47,9 @@ import java.util.Map;
 public class IncrementalFileSystemPersistenceStore implements IncrementalPersistenceStore {
 
     private static final Logger log = LoggerFactory.getLogger(IncrementalFileSystemPersistenceStore.class);
+    private static final int BUFFER_SIZE = 65536;
     private String folder;
+    private CompressionCodec compressionCodec = new GZIPCompressionCodec();
 
     public IncrementalFileSystemPersistenceStore() {
     }
@@ -53,24 +62,21 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
     public void save(IncrementalSnapshotInfo snapshotInfo, byte[] snapshot) {
         File file = new File(folder + File.separator + snapshotInfo.getSiddhiAppId() + File.separator +
                 snapshotInfo.getRevision());
-        byte[] compressedSnapshot;
-        try {
-            compressedSnapshot = CompressionUtil.compressGZIP(snapshot);
-        } catch (IOException e) {
-            log.error("Error occurred while trying to compress the snapshot. Failed to " +
-                    "persist revision: " + snapshotInfo.getRevision() + " of Siddhi app: " +
-                    snapshotInfo.getSiddhiAppId());
-            return;
-        }
         try {
             Files.createParentDirs(file);
-            Files.write(compressedSnapshot, file);
+            CompressionUtil.compress(snapshot, compressionCodec,
+                    new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
             cleanOldRevisions(snapshotInfo);
+            SnapshotMetrics.updateSnapshotSize(snapshotInfo.getSiddhiAppId(), snapshot.length);
             if (log.isDebugEnabled()) {
                 log.debug("Incremental persistence of '" + snapshotInfo.getSiddhiAppId() +
                         "' with revision '" + snapshotInfo.getRevision() + "' persisted successfully.");
             }
         } catch (IOException e) {
+            if (file.exists() && !file.delete()) {
+                log.error("Cannot delete the partially written revision '" + snapshotInfo.getRevision() +
+                        "' of SiddhiApp: '" + snapshotInfo.getSiddhiAppId() + "'");
+            }
             log.error("Cannot save the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp: '" +
                     snapshotInfo.getSiddhiAppId() + "' to the file system.", e);
         }
@@ -78,6 +84,7 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
 
     @Override
     public void setProperties(Map properties) {
+        compressionCodec = CompressionUtil.getCompressionCodec(properties);
         Map configurationMap = (Map) properties.get(PersistenceConstants.STATE_PERSISTENCE_CONFIGS);
 
         if (configurationMap != null) {
@@ -103,25 +110,26 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
     public byte[] load(IncrementalSnapshotInfo snapshotInfo) {
         File file = new File(folder + File.separator + snapshotInfo.getSiddhiAppId() + File.separator +
                 snapshotInfo.getRevision());
-        byte[] bytes = null;
+        InputStream inputStream;
         try {
-            bytes = Files.toByteArray(file);
-            if (log.isDebugEnabled()) {
-                log.debug("State loaded for SiddhiApp '" + snapshotInfo.getSiddhiAppId() + "' revision '" +
-                        snapshotInfo.getRevision() + "' from file system.");
-            }
+            inputStream = new FileInputStream(file);
         } catch (IOException e) {
             log.error("Cannot load the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp '" +
                     snapshotInfo.getSiddhiAppId() + "' from file system.", e);
+            return null;
         }
         byte[] decompressedSnapshot;
         try {
-            decompressedSnapshot = CompressionUtil.decompressGZIP(bytes);
+            decompressedSnapshot = CompressionUtil.decompress(inputStream);
         } catch (IOException e) {
             throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
                     "load revision: " + snapshotInfo.getRevision() + " of Siddhi app: " +
                     snapshotInfo.getSiddhiAppId(), e);
         }
+        if (log.isDebugEnabled()) {
+            log.debug("State loaded for SiddhiApp '" + snapshotInfo.getSiddhiAppId() + "' revision '" +
+                    snapshotInfo.getRevision() + "' from file system.");
+        }
         return decompressedSnapshot;
     }
 
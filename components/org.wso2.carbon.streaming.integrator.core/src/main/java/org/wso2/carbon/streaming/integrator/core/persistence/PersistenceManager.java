@@ -18,23 +18,33 @@
 
 package org.wso2.carbon.streaming.integrator.core.persistence;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.streaming.integrator.core.ha.HAManager;
 import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnectionPoolManager;
 import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnection;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.SnapshotReplicator;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.SnapshotMetrics;
 import io.siddhi.core.SiddhiAppRuntime;
 import io.siddhi.core.exception.ConnectionUnavailableException;
 import io.siddhi.core.util.snapshot.PersistenceReference;
 
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -43,6 +53,11 @@ import java.util.concurrent.atomic.AtomicLong;
 public class PersistenceManager implements Runnable {
 
     private static final Logger log = LoggerFactory.getLogger(PersistenceManager.class);
+    private static final int DEFAULT_THREAD_POOL_SIZE = 4;
+    private static final long DEFAULT_TIMEOUT_MILLIS = 60000;
+    private static int threadPoolSize = DEFAULT_THREAD_POOL_SIZE;
+    private static long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+    private static ExecutorService persistenceExecutor;
     private HAManager haManager;
     private AtomicLong sequenceIDGenerator;
     private GenericKeyedObjectPool tcpConnectionPool;
@@ -50,6 +65,33 @@ public class PersistenceManager implements Runnable {
     public PersistenceManager() {
     }
 
+    /**
+     * Configures the persistence of the Siddhi apps. Takes effect from the next persistence.
+     *
+     * @param threadPoolSize number of Siddhi apps persisted in parallel
+     * @param timeoutMillis  maximum time to wait for the persistence of a single Siddhi app
+     */
+    public static synchronized void configure(int threadPoolSize, long timeoutMillis) {
+        PersistenceManager.threadPoolSize = threadPoolSize > 0 ? threadPoolSize : DEFAULT_THREAD_POOL_SIZE;
+        PersistenceManager.timeoutMillis = timeoutMillis > 0 ? timeoutMillis : DEFAULT_TIMEOUT_MILLIS;
+        shutdown();
+    }
+
+    public static synchronized void shutdown() {
+        if (persistenceExecutor != null) {
+            persistenceExecutor.shutdown();
+            persistenceExecutor = null;
+        }
+    }
+
+    private static synchronized ExecutorService getPersistenceExecutor() {
+        if (persistenceExecutor == null) {
+            persistenceExecutor = Executors.newFixedThreadPool(threadPoolSize, new ThreadFactoryBuilder()
+                    .setNameFormat("SiddhiAppPersister-%d").setDaemon(true).build());
+        }
+        return persistenceExecutor;
+    }
+
     @Override
     public void run() {
         try {
@@ -89,52 +131,48 @@ public class PersistenceManager implements Runnable {
         }
     }
 
+    /**
+     * Persists the Siddhi apps in parallel, and sends the revision of each app to the passive node as soon as the app
+     * is persisted, so that a slow app does not hold back the control messages of the others.
+     */
     private void persistAndSendControlMessage() {
         ConcurrentMap<String, SiddhiAppRuntime> siddhiAppRuntimeMap = StreamProcessorDataHolder.
                 getSiddhiManager().getSiddhiAppRuntimeMap();
         if (null != siddhiAppRuntimeMap && siddhiAppRuntimeMap.size() != 0) {
-            String[] siddhiRevisionArray = new String[siddhiAppRuntimeMap.size()];
-            int siddhiAppCount = 0;
+            long startTime = System.currentTimeMillis();
+            List<Callable<Boolean>> appPersisters = new ArrayList<>(siddhiAppRuntimeMap.size());
             for (SiddhiAppRuntime siddhiAppRuntime : siddhiAppRuntimeMap.values()) {
-                PersistenceReference persistenceReference = siddhiAppRuntime.persist();
-                Future fullStateFuture = persistenceReference.getFullStateFuture();
-                try {
-                    if (fullStateFuture != null) {
-                        fullStateFuture.get(60000, TimeUnit.MILLISECONDS);
-                    } else {
-                        for (Future future : persistenceReference.getIncrementalStateFuture()) {
-                            future.get(60000, TimeUnit.MILLISECONDS);
-                        }
+                appPersisters.add(new AppPersister(siddhiAppRuntime));
+            }
+            int persistedAppCount = 0;
+            try {
+                for (Future<Boolean> result : getPersistenceExecutor().invokeAll(appPersisters)) {
+                    if (result.get()) {
+                        persistedAppCount++;
                     }
-                } catch (Throwable e) {
-                    log.error("Active Node: Persisting of Siddhi app is not successful. " +
-                            "Check if app deployed properly." + e.getMessage(), e);
-                }
-                siddhiRevisionArray[siddhiAppCount] = sequenceIDGenerator.incrementAndGet() + HAConstants
-                        .PERSISTED_APP_SPLIT_DELIMITER + persistenceReference.getRevision();
-                siddhiAppCount++;
-                if (log.isDebugEnabled()) {
-                    log.debug("Revision " + persistenceReference.getRevision() +
-                            " of siddhi App " + siddhiAppRuntime.getName() + " persisted successfully");
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Active Node: Interrupted while persisting the Siddhi apps", e);
+            } catch (ExecutionException e) {
+                log.error("Active Node: Persisting of Siddhi apps is not successful. " + e.getMessage(), e);
             }
             if (StreamProcessorDataHolder.getNodeInfo() != null) {
                 StreamProcessorDataHolder.getNodeInfo().setLastPersistedTimestamp(System.currentTimeMillis());
             }
-            log.info("Siddhi apps persisted successfully");
-            if (haManager != null && haManager.isActiveNode() && haManager.isPassiveNodeAdded()) {
-                sendControlMessageToPassiveNode(siddhiRevisionArray);
-                if (log.isDebugEnabled()) {
-                    log.debug("Control Message is sent to the passive node - " + Arrays.toString(siddhiRevisionArray));
-                }
+            if (persistedAppCount == appPersisters.size()) {
+                log.info("Siddhi apps persisted successfully in " + (System.currentTimeMillis() - startTime) +
+                        " ms");
+            } else {
+                log.warn((appPersisters.size() - persistedAppCount) + " of " + appPersisters.size() +
+                        " Siddhi apps were not persisted successfully");
             }
         }
     }
 
-    private void sendControlMessageToPassiveNode(String[] siddhiRevisionArray) {
+    private void sendControlMessageToPassiveNode(String siddhiAppRevisions) {
         EventSyncConnection.Connection connection = null;
         try {
-            String siddhiAppRevisions = Arrays.toString(siddhiRevisionArray);
             if (tcpConnectionPool != null) {
                 connection = (EventSyncConnection.Connection)
                         tcpConnectionPool.borrowObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID);
@@ -144,7 +182,9 @@ public class PersistenceManager implements Runnable {
                 } else {
                     connection.send(HAConstants.CHANNEL_ID_CONTROL_MESSAGE,
                             siddhiAppRevisions.getBytes(HAConstants.DEFAULT_CHARSET));
-                    log.info("Control message sent to passive node.");
+                    if (log.isDebugEnabled()) {
+                        log.debug("Control Message is sent to the passive node - " + siddhiAppRevisions);
+                    }
                 }
             } else {
                 log.error("TCP connection pool is not initialized. " +
@@ -168,4 +208,80 @@ public class PersistenceManager implements Runnable {
             }
         }
     }
+
+    /**
+     * Persists a single Siddhi app within the configured deadline, and reports its revision to the passive node.
+     */
+    private class AppPersister implements Callable<Boolean> {
+        private SiddhiAppRuntime siddhiAppRuntime;
+
+        AppPersister(SiddhiAppRuntime siddhiAppRuntime) {
+            this.siddhiAppRuntime = siddhiAppRuntime;
+        }
+
+        @Override
+        public Boolean call() {
+            long startTime = System.currentTimeMillis();
+            long deadline = startTime + timeoutMillis;
+            // Taken before the snapshot, so that the passive node never drops events the snapshot does not reflect
+            long sequenceID = sequenceIDGenerator.incrementAndGet();
+            SnapshotReplicator snapshotReplicator = EventSyncConnectionPoolManager.getSnapshotReplicator();
+            PersistenceReference persistenceReference;
+            try {
+                persistenceReference = siddhiAppRuntime.persist();
+                Future fullStateFuture = persistenceReference.getFullStateFuture();
+                if (fullStateFuture != null) {
+                    fullStateFuture.get(getRemainingTime(deadline), TimeUnit.MILLISECONDS);
+                } else {
+                    for (Future future : persistenceReference.getIncrementalStateFuture()) {
+                        future.get(getRemainingTime(deadline), TimeUnit.MILLISECONDS);
+                    }
+                }
+            } catch (TimeoutException e) {
+                discardSnapshot(snapshotReplicator);
+                log.error("Active Node: Persisting of Siddhi app " + siddhiAppRuntime.getName() + " did not " +
+                        "complete within " + timeoutMillis + " ms. Hence not sending the control message to the " +
+                        "passive node");
+                return false;
+            } catch (InterruptedException e) {
+                discardSnapshot(snapshotReplicator);
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (Throwable e) {
+                discardSnapshot(snapshotReplicator);
+                log.error("Active Node: Persisting of Siddhi app " + siddhiAppRuntime.getName() + " is not " +
+                        "successful. Check if app deployed properly." + e.getMessage(), e);
+                return false;
+            }
+            SnapshotMetrics.updateSnapshotDuration(siddhiAppRuntime.getName(),
+                    System.currentTimeMillis() - startTime);
+            if (log.isDebugEnabled()) {
+                log.debug("Revision " + persistenceReference.getRevision() +
+                        " of siddhi App " + siddhiAppRuntime.getName() + " persisted successfully");
+            }
+            if (haManager != null && haManager.isActiveNode() && haManager.isPassiveNodeAdded()) {
+                if (snapshotReplicator != null) {
+                    // Sent before the control message, so that the passive node can use the snapshot once the
+                    // events before it are trimmed
+                    snapshotReplicator.replicate(siddhiAppRuntime.getName(), persistenceReference.getRevision(),
+                            sequenceID);
+                }
+                sendControlMessageToPassiveNode(Arrays.toString(new String[]{sequenceID +
+                        HAConstants.PERSISTED_APP_SPLIT_DELIMITER + persistenceReference.getRevision()}));
+            } else {
+                discardSnapshot(snapshotReplicator);
+            }
+            return true;
+        }
+
+        private void discardSnapshot(SnapshotReplicator snapshotReplicator) {
+            if (snapshotReplicator != null) {
+                snapshotReplicator.discard(siddhiAppRuntime.getName());
+            }
+        }
+
+        private long getRemainingTime(long deadline) {
+            return Math.max(0, deadline - System.currentTimeMillis());
+        }
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence;
+
+import io.siddhi.core.util.persistence.PersistenceStore;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnectionPoolManager;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.SnapshotReplicator;
+
+import java.util.Map;
+
+/**
+ * Persistence store which hands each snapshot it saves to the {@link SnapshotReplicator}, so that the snapshot taken
+ * for the persistence is sent to the passive node instead of taking another snapshot. The snapshots are saved by
+ * the configured persistence store.
+ */
+public class ReplicatingPersistenceStore implements PersistenceStore {
+
+    private PersistenceStore persistenceStore;
+
+    public ReplicatingPersistenceStore(PersistenceStore persistenceStore) {
+        this.persistenceStore = persistenceStore;
+    }
+
+    @Override
+    public void save(String siddhiAppName, String revision, byte[] snapshot) {
+        persistenceStore.save(siddhiAppName, revision, snapshot);
+        SnapshotReplicator snapshotReplicator = EventSyncConnectionPoolManager.getSnapshotReplicator();
+        if (snapshotReplicator != null) {
+            snapshotReplicator.snapshotPersisted(siddhiAppName, revision, snapshot);
+        }
+    }
+
+    @Override
+    public void setProperties(Map properties) {
+        persistenceStore.setProperties(properties);
+    }
+
+    @Override
+    public byte[] load(String siddhiAppName, String revision) {
+        return persistenceStore.load(siddhiAppName, revision);
+    }
+
+    @Override
+    public String getLastRevision(String siddhiAppName) {
+        return persistenceStore.getLastRevision(siddhiAppName);
+    }
+
+    @Override
+    public void clearAllRevisions(String siddhiAppName) {
+        persistenceStore.clearAllRevisions(siddhiAppName);
+    }
+}
@@ -0,0 +1,612 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.siddhi.core.exception.CannotClearSiddhiAppStateException;
+import io.siddhi.core.util.persistence.IncrementalPersistenceStore;
+import io.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
+import io.siddhi.core.util.persistence.util.PersistenceHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.CompressionCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.SnapshotMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Implementation of Incremental Persistence Store that appends the snapshots of each Siddhi app into memory-mapped
+ * segment files, instead of writing each snapshot to a file of its own.
+ * <p>
+ * Revisions are located through an in-memory index, which is rebuilt from the segments when the Siddhi app is first
+ * accessed. Deleted revisions are only marked as deleted in their segment, and segments with few live revisions left
+ * are compacted in the background by moving their live revisions to the latest segment.
+ * <p>
+ * Each record of a segment consists of a status byte, the length of the snapshot, the length of the revision, a
+ * CRC32 checksum of the revision and the snapshot, the revision and the compressed snapshot. The unused part of a
+ * segment is zero filled, hence a zero status marks the end of the records.
+ */
+public class SegmentedFileSystemPersistenceStore implements IncrementalPersistenceStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentedFileSystemPersistenceStore.class);
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final String SEGMENT_FILE_SUFFIX = ".seg";
+    private static final byte RECORD_END = 0;
+    private static final byte RECORD_LIVE = 1;
+    private static final byte RECORD_DELETED = 2;
+    private static final int RECORD_HEADER_LENGTH = 1 + 4 + 4 + 4;
+    private static final int DEFAULT_SEGMENT_SIZE_IN_MB = 64;
+    private static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+    private static final int DEFAULT_COMPACTION_INTERVAL_IN_SEC = 60;
+
+    private String folder;
+    private long segmentSize = DEFAULT_SEGMENT_SIZE_IN_MB * 1024L * 1024L;
+    private double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private CompressionCodec compressionCodec;
+    private ConcurrentMap<String, SegmentLog> segmentLogMap = new ConcurrentHashMap<>();
+    private ScheduledExecutorService compactionExecutorService;
+
+    @Override
+    public void save(IncrementalSnapshotInfo snapshotInfo, byte[] snapshot) {
+        try {
+            byte[] compressedSnapshot = CompressionUtil.compress(snapshot, compressionCodec);
+            SegmentLog segmentLog = getSegmentLog(snapshotInfo.getSiddhiAppId());
+            segmentLog.append(snapshotInfo, compressedSnapshot);
+            segmentLog.cleanOldRevisions(snapshotInfo);
+            SnapshotMetrics.updateSnapshotSize(snapshotInfo.getSiddhiAppId(), snapshot.length);
+            if (log.isDebugEnabled()) {
+                log.debug("Incremental persistence of '" + snapshotInfo.getSiddhiAppId() +
+                        "' with revision '" + snapshotInfo.getRevision() + "' persisted successfully.");
+            }
+        } catch (IOException e) {
+            log.error("Cannot save the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp: '" +
+                    snapshotInfo.getSiddhiAppId() + "' to the file system.", e);
+        } catch (CannotClearSiddhiAppStateException e) {
+            log.error("Cannot clear the old revisions of SiddhiApp: '" + snapshotInfo.getSiddhiAppId() +
+                    "' after saving the revision '" + snapshotInfo.getRevision() + "'.", e);
+        }
+    }
+
+    @Override
+    public void setProperties(Map properties) {
+        compressionCodec = CompressionUtil.getCompressionCodec(properties);
+        Map configurationMap = (Map) properties.get(PersistenceConstants.STATE_PERSISTENCE_CONFIGS);
+        int compactionIntervalInSec = DEFAULT_COMPACTION_INTERVAL_IN_SEC;
+        folder = PersistenceConstants.DEFAULT_FILE_PERSISTENCE_FOLDER;
+        if (configurationMap != null) {
+            Object folderObject = configurationMap.get("location");
+            if (folderObject instanceof String) {
+                folder = String.valueOf(folderObject);
+            } else if (log.isDebugEnabled()) {
+                log.debug("File system persistence location not set. Default persistence location will be used.");
+            }
+            Object segmentSizeObject = configurationMap.get("segmentSizeInMB");
+            if (segmentSizeObject instanceof Integer && (Integer) segmentSizeObject > 0 &&
+                    (Integer) segmentSizeObject < 2048) {
+                segmentSize = (Integer) segmentSizeObject * 1024L * 1024L;
+            }
+            Object compactionThresholdObject = configurationMap.get("compactionThreshold");
+            if (compactionThresholdObject instanceof Number) {
+                compactionThreshold = ((Number) compactionThresholdObject).doubleValue();
+            }
+            Object compactionIntervalObject = configurationMap.get("compactionIntervalInSec");
+            if (compactionIntervalObject instanceof Integer) {
+                compactionIntervalInSec = (Integer) compactionIntervalObject;
+            }
+        } else if (log.isDebugEnabled()) {
+            log.debug("File system persistence config not set. Default persistence location will be used.");
+        }
+
+        if (compactionExecutorService != null) {
+            compactionExecutorService.shutdown();
+            compactionExecutorService = null;
+        }
+        if (compactionIntervalInSec > 0) {
+            compactionExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("SegmentCompaction-%d").setDaemon(true).build());
+            compactionExecutorService.scheduleWithFixedDelay(this::compact, compactionIntervalInSec,
+                    compactionIntervalInSec, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public byte[] load(IncrementalSnapshotInfo snapshotInfo) {
+        byte[] compressedSnapshot;
+        try {
+            compressedSnapshot = getSegmentLog(snapshotInfo.getSiddhiAppId()).read(snapshotInfo.getRevision());
+        } catch (IOException e) {
+            log.error("Cannot load the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp '" +
+                    snapshotInfo.getSiddhiAppId() + "' from file system.", e);
+            return null;
+        }
+        if (compressedSnapshot == null) {
+            log.error("Revision '" + snapshotInfo.getRevision() + "' of SiddhiApp '" +
+                    snapshotInfo.getSiddhiAppId() + "' is not found in the file system.");
+            return null;
+        }
+        byte[] decompressedSnapshot;
+        try {
+            decompressedSnapshot = CompressionUtil.decompress(compressedSnapshot);
+        } catch (IOException e) {
+            throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
+                    "load revision: " + snapshotInfo.getRevision() + " of Siddhi app: " +
+                    snapshotInfo.getSiddhiAppId(), e);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("State loaded for SiddhiApp '" + snapshotInfo.getSiddhiAppId() + "' revision '" +
+                    snapshotInfo.getRevision() + "' from file system.");
+        }
+        return decompressedSnapshot;
+    }
+
+    @Override
+    public List<IncrementalSnapshotInfo> getListOfRevisionsToLoad(long restoreTime, String siddhiAppName) {
+        try {
+            return getSegmentLog(siddhiAppName).getRevisionsToLoad(restoreTime);
+        } catch (IOException e) {
+            log.error("Cannot read the revisions of SiddhiApp '" + siddhiAppName + "' from file system.", e);
+            return null;
+        }
+    }
+
+    @Override
+    public String getLastRevision(String siddhiAppName) {
+        long lastRevisionTime;
+        try {
+            lastRevisionTime = getSegmentLog(siddhiAppName).getLastRevisionTime();
+        } catch (IOException e) {
+            log.error("Cannot read the revisions of SiddhiApp '" + siddhiAppName + "' from file system.", e);
+            return null;
+        }
+        if (lastRevisionTime != -1) {
+            if (log.isDebugEnabled()) {
+                log.debug("Latest revision to load: " + lastRevisionTime + PersistenceConstants.REVISION_SEPARATOR +
+                        siddhiAppName);
+            }
+            return lastRevisionTime + PersistenceConstants.REVISION_SEPARATOR + siddhiAppName;
+        }
+        return null;
+    }
+
+    @Override
+    public void clearAllRevisions(String siddhiAppName) {
+        SegmentLog segmentLog;
+        try {
+            segmentLog = getSegmentLog(siddhiAppName);
+        } catch (IOException e) {
+            throw new CannotClearSiddhiAppStateException("Persistence state of SiddhiApp '" + siddhiAppName +
+                    "' cannot be read from the file system.", e);
+        }
+        segmentLogMap.remove(siddhiAppName, segmentLog);
+        if (!segmentLog.deleteAll()) {
+            log.info("No revisions were found to delete for the Siddhi App " + siddhiAppName);
+        }
+    }
+
+    private SegmentLog getSegmentLog(String siddhiAppName) throws IOException {
+        SegmentLog segmentLog = segmentLogMap.get(siddhiAppName);
+        if (segmentLog == null) {
+            synchronized (this) {
+                segmentLog = segmentLogMap.get(siddhiAppName);
+                if (segmentLog == null) {
+                    segmentLog = new SegmentLog(siddhiAppName, new File(folder + File.separator + siddhiAppName));
+                    segmentLogMap.put(siddhiAppName, segmentLog);
+                }
+            }
+        }
+        return segmentLog;
+    }
+
+    private void compact() {
+        for (SegmentLog segmentLog : segmentLogMap.values()) {
+            try {
+                segmentLog.compact();
+            } catch (Throwable t) {
+                log.error("Error occurred while compacting the persistence segments of SiddhiApp '" +
+                        segmentLog.siddhiAppName + "'.", t);
+            }
+        }
+    }
+
+    /**
+     * Segments and index of the revisions of a single Siddhi app.
+     */
+    private class SegmentLog {
+        private String siddhiAppName;
+        private File directory;
+        private TreeMap<Long, Segment> segments = new TreeMap<>();
+        private Map<String, RecordLocation> index = new HashMap<>();
+        private Segment activeSegment;
+        private long lastRevisionTime = -1;
+
+        SegmentLog(String siddhiAppName, File directory) throws IOException {
+            this.siddhiAppName = siddhiAppName;
+            this.directory = directory;
+            File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_FILE_PREFIX) &&
+                    name.endsWith(SEGMENT_FILE_SUFFIX));
+            TreeSet<Long> segmentIds = new TreeSet<>();
+            if (files != null) {
+                for (File file : files) {
+                    String id = file.getName().substring(SEGMENT_FILE_PREFIX.length(),
+                            file.getName().length() - SEGMENT_FILE_SUFFIX.length());
+                    try {
+                        segmentIds.add(Long.parseLong(id));
+                    } catch (NumberFormatException e) {
+                        log.warn("Ignoring the unknown file '" + file.getAbsolutePath() + "' in the persistence " +
+                                "location of SiddhiApp '" + siddhiAppName + "'.");
+                    }
+                }
+            }
+            // Segments are recovered in the order they were written, so that a revision moved by compaction
+            // replaces its older copy
+            for (long id : segmentIds) {
+                Segment segment = new Segment(id, getSegmentFile(id), 0);
+                segments.put(id, segment);
+                recover(segment);
+                activeSegment = segment;
+            }
+        }
+
+        synchronized void append(IncrementalSnapshotInfo snapshotInfo, byte[] compressedSnapshot)
+                throws IOException {
+            byte[] revision = snapshotInfo.getRevision().getBytes(StandardCharsets.UTF_8);
+            CRC32 crc32 = new CRC32();
+            crc32.update(revision);
+            crc32.update(compressedSnapshot);
+            RecordLocation recordLocation = write(revision, compressedSnapshot, (int) crc32.getValue());
+            recordLocation.snapshotInfo = snapshotInfo;
+            addToIndex(snapshotInfo.getRevision(), recordLocation);
+        }
+
+        synchronized byte[] read(String revision) {
+            RecordLocation recordLocation = index.get(revision);
+            if (recordLocation == null) {
+                return null;
+            }
+            ByteBuffer buffer = recordLocation.segment.buffer.duplicate();
+            buffer.position(recordLocation.offset + 1);
+            byte[] compressedSnapshot = new byte[buffer.getInt()];
+            int revisionLength = buffer.getInt();
+            buffer.position(recordLocation.offset + RECORD_HEADER_LENGTH + revisionLength);
+            buffer.get(compressedSnapshot);
+            return compressedSnapshot;
+        }
+
+        synchronized List<IncrementalSnapshotInfo> getRevisionsToLoad(long restoreTime) {
+            if (index.isEmpty()) {
+                return null;
+            }
+            List<IncrementalSnapshotInfo> results = new ArrayList<>();
+            for (RecordLocation recordLocation : index.values()) {
+                IncrementalSnapshotInfo snapshotInfo = recordLocation.snapshotInfo;
+                if (snapshotInfo.getTime() <= restoreTime &&
+                        siddhiAppName.equals(snapshotInfo.getSiddhiAppId()) &&
+                        snapshotInfo.getElementId() != null &&
+                        snapshotInfo.getQueryName() != null) {
+                    results.add(snapshotInfo);
+                }
+            }
+            return results;
+        }
+
+        synchronized long getLastRevisionTime() {
+            return lastRevisionTime;
+        }
+
+        /**
+         * Deletes the revisions made obsolete by the given base or periodic revision, the same way as
+         * {@link IncrementalFileSystemPersistenceStore} does.
+         */
+        synchronized void cleanOldRevisions(IncrementalSnapshotInfo incrementalSnapshotInfo) {
+            if (incrementalSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.INCREMENT) {
+                return;
+            }
+            long baseTimeStamp = incrementalSnapshotInfo.getTime();
+            boolean lastRevisionDeleted = false;
+            Iterator<RecordLocation> iterator = index.values().iterator();
+            while (iterator.hasNext()) {
+                RecordLocation recordLocation = iterator.next();
+                IncrementalSnapshotInfo snapshotInfo = recordLocation.snapshotInfo;
+                boolean isObsolete;
+                if (incrementalSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.BASE) {
+                    isObsolete = snapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.PERIODIC;
+                } else {
+                    isObsolete = snapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC;
+                }
+                if (isObsolete && snapshotInfo.getTime() < baseTimeStamp &&
+                        incrementalSnapshotInfo.getSiddhiAppId().equals(snapshotInfo.getSiddhiAppId()) &&
+                        incrementalSnapshotInfo.getQueryName().equals(snapshotInfo.getQueryName()) &&
+                        incrementalSnapshotInfo.getElementId().equals(snapshotInfo.getElementId())) {
+                    iterator.remove();
+                    markDeleted(recordLocation);
+                    lastRevisionDeleted |= snapshotInfo.getTime() == lastRevisionTime;
+                }
+            }
+            if (lastRevisionDeleted) {
+                updateLastRevisionTime();
+            }
+        }
+
+        /**
+         * Moves the live records of the segments which are mostly deleted to the active segment, and deletes them.
+         */
+        synchronized void compact() throws IOException {
+            List<Segment> segmentsToCompact = new ArrayList<>();
+            for (Segment segment : segments.values()) {
+                if (segment != activeSegment && (segment.liveBytes == 0 ||
+                        segment.liveBytes < segment.writePosition * compactionThreshold)) {
+                    segmentsToCompact.add(segment);
+                }
+            }
+            if (segmentsToCompact.isEmpty()) {
+                return;
+            }
+            long movedBytes = 0;
+            for (Segment segment : segmentsToCompact) {
+                for (Map.Entry<String, RecordLocation> entry : index.entrySet()) {
+                    RecordLocation recordLocation = entry.getValue();
+                    if (recordLocation.segment == segment) {
+                        ByteBuffer buffer = segment.buffer.duplicate();
+                        buffer.position(recordLocation.offset + 1);
+                        byte[] compressedSnapshot = new byte[buffer.getInt()];
+                        byte[] revision = new byte[buffer.getInt()];
+                        int checksum = buffer.getInt();
+                        buffer.get(revision);
+                        buffer.get(compressedSnapshot);
+                        RecordLocation movedRecordLocation = write(revision, compressedSnapshot, checksum);
+                        movedRecordLocation.snapshotInfo = recordLocation.snapshotInfo;
+                        entry.setValue(movedRecordLocation);
+                        movedBytes += movedRecordLocation.length;
+                    }
+                }
+            }
+            activeSegment.buffer.force();
+            for (Segment segment : segmentsToCompact) {
+                deleteSegment(segment);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Compacted " + segmentsToCompact.size() + " persistence segments of SiddhiApp '" +
+                        siddhiAppName + "', moving " + movedBytes + " bytes of live revisions.");
+            }
+        }
+
+        synchronized boolean deleteAll() {
+            boolean revisionsFound = !segments.isEmpty();
+            for (Segment segment : new ArrayList<>(segments.values())) {
+                deleteSegment(segment);
+            }
+            index.clear();
+            activeSegment = null;
+            lastRevisionTime = -1;
+            return revisionsFound;
+        }
+
+        private RecordLocation write(byte[] revision, byte[] compressedSnapshot, int checksum) throws IOException {
+            long recordLength = (long) RECORD_HEADER_LENGTH + revision.length + compressedSnapshot.length;
+            if (activeSegment == null || activeSegment.getRemaining() < recordLength) {
+                long id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+                activeSegment = new Segment(id, getSegmentFile(id), Math.max(segmentSize, recordLength));
+                segments.put(id, activeSegment);
+            }
+            Segment segment = activeSegment;
+            int offset = segment.writePosition;
+            ByteBuffer buffer = segment.buffer.duplicate();
+            buffer.position(offset + 1);
+            buffer.putInt(compressedSnapshot.length);
+            buffer.putInt(revision.length);
+            buffer.putInt(checksum);
+            buffer.put(revision);
+            buffer.put(compressedSnapshot);
+            // The status is written last, so that a partially written record is never read as a live record
+            segment.buffer.put(offset, RECORD_LIVE);
+            segment.writePosition += (int) recordLength;
+            segment.liveBytes += recordLength;
+            return new RecordLocation(segment, offset, (int) recordLength);
+        }
+
+        private void recover(Segment segment) throws IOException {
+            ByteBuffer buffer = segment.buffer.duplicate();
+            int position = 0;
+            while (position + RECORD_HEADER_LENGTH <= buffer.capacity()) {
+                byte status = buffer.get(position);
+                if (status == RECORD_END) {
+                    break;
+                }
+                buffer.position(position + 1);
+                int snapshotLength = buffer.getInt();
+                int revisionLength = buffer.getInt();
+                int checksum = buffer.getInt();
+                long recordLength = (long) RECORD_HEADER_LENGTH + revisionLength + snapshotLength;
+                if ((status != RECORD_LIVE && status != RECORD_DELETED) || snapshotLength < 0 ||
+                        revisionLength <= 0 || position + recordLength > buffer.capacity()) {
+                    truncate(segment, position);
+                    break;
+                }
+                byte[] revision = new byte[revisionLength];
+                buffer.get(revision);
+                CRC32 crc32 = new CRC32();
+                crc32.update(revision);
+                ByteBuffer compressedSnapshot = buffer.slice();
+                compressedSnapshot.limit(snapshotLength);
+                crc32.update(compressedSnapshot);
+                if ((int) crc32.getValue() != checksum) {
+                    truncate(segment, position);
+                    break;
+                }
+                if (status == RECORD_LIVE) {
+                    String revisionString = new String(revision, StandardCharsets.UTF_8);
+                    RecordLocation recordLocation = new RecordLocation(segment, position, (int) recordLength);
+                    recordLocation.snapshotInfo = PersistenceHelper.convertRevision(revisionString);
+                    segment.liveBytes += recordLength;
+                    addToIndex(revisionString, recordLocation);
+                }
+                position += (int) recordLength;
+            }
+            segment.writePosition = position;
+        }
+
+        private void truncate(Segment segment, int position) {
+            log.warn("Discarding the partially written revisions from offset " + position + " of the persistence " +
+                    "segment '" + segment.file.getAbsolutePath() + "'.");
+            for (int i = position; i < segment.buffer.capacity(); i++) {
+                segment.buffer.put(i, RECORD_END);
+            }
+        }
+
+        private void addToIndex(String revision, RecordLocation recordLocation) {
+            RecordLocation replacedRecordLocation = index.put(revision, recordLocation);
+            if (replacedRecordLocation != null) {
+                markDeleted(replacedRecordLocation);
+            }
+            IncrementalSnapshotInfo snapshotInfo = recordLocation.snapshotInfo;
+            if (snapshotInfo.getTime() > lastRevisionTime &&
+                    siddhiAppName.equals(snapshotInfo.getSiddhiAppId()) &&
+                    snapshotInfo.getElementId() != null &&
+                    snapshotInfo.getQueryName() != null) {
+                lastRevisionTime = snapshotInfo.getTime();
+            }
+        }
+
+        private void markDeleted(RecordLocation recordLocation) {
+            Segment segment = recordLocation.segment;
+            segment.buffer.put(recordLocation.offset, RECORD_DELETED);
+            segment.liveBytes -= recordLocation.length;
+            if (segment.liveBytes == 0 && segment != activeSegment) {
+                try {
+                    deleteSegment(segment);
+                } catch (CannotClearSiddhiAppStateException e) {
+                    // The segment holds deleted records only, hence it is deleted by the compaction after a restart
+                    log.error("Cannot delete the persistence segment '" + segment.file.getAbsolutePath() +
+                            "' of SiddhiApp '" + siddhiAppName + "'.", e);
+                }
+            }
+        }
+
+        private void updateLastRevisionTime() {
+            lastRevisionTime = -1;
+            for (RecordLocation recordLocation : index.values()) {
+                IncrementalSnapshotInfo snapshotInfo = recordLocation.snapshotInfo;
+                if (snapshotInfo.getTime() > lastRevisionTime &&
+                        siddhiAppName.equals(snapshotInfo.getSiddhiAppId()) &&
+                        snapshotInfo.getElementId() != null &&
+                        snapshotInfo.getQueryName() != null) {
+                    lastRevisionTime = snapshotInfo.getTime();
+                }
+            }
+        }
+
+        private void deleteSegment(Segment segment) {
+            segments.remove(segment.id);
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.error("Error occurred while closing the persistence segment '" + segment.file.getAbsolutePath() +
+                        "'.", e);
+            }
+            if (segment.file.exists() && !segment.file.delete()) {
+                log.error("file is not deleted successfully : " + segment.file.getName());
+                throw new CannotClearSiddhiAppStateException("Persistence state " +
+                        "file is not deleted : " + segment.file.getPath());
+            }
+        }
+
+        private File getSegmentFile(long id) {
+            return new File(directory, SEGMENT_FILE_PREFIX + String.format("%020d", id) + SEGMENT_FILE_SUFFIX);
+        }
+    }
+
+    /**
+     * Memory-mapped segment file.
+     */
+    private static class Segment {
+        private long id;
+        private File file;
+        private RandomAccessFile randomAccessFile;
+        private MappedByteBuffer buffer;
+        private int writePosition = 0;
+        private long liveBytes = 0;
+
+        /**
+         * @param size size of a new segment, or zero to map an existing segment
+         */
+        Segment(long id, File file, long size) throws IOException {
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot of " + size + " bytes exceeds the maximum size of a segment");
+            }
+            if (size > 0 && !file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+                throw new IOException("Cannot create the persistence directory '" +
+                        file.getParentFile().getAbsolutePath() + "'");
+            }
+            this.id = id;
+            this.file = file;
+            this.randomAccessFile = new RandomAccessFile(file, "rw");
+            if (size > 0) {
+                randomAccessFile.setLength(size);
+            }
+            this.buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                    randomAccessFile.length());
+        }
+
+        long getRemaining() {
+            return buffer.capacity() - writePosition;
+        }
+
+        void close() throws IOException {
+            buffer.force();
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Location of a record in a segment.
+     */
+    private static class RecordLocation {
+        private Segment segment;
+        private int offset;
+        private int length;
+        private IncrementalSnapshotInfo snapshotInfo;
+
+        RecordLocation(Segment segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -28,6 +28,10 @@ public class PersistenceConfigurations {
     private int revisionsToKeep = 3;
     private String persistenceStore = FileSystemPersistenceStore.class.getName();
     private PersistenceStoreConfigs config;
+    private String compression = "gzip";
+    private int compressionLevel = -1;
+    private int threadPoolSize = 4;
+    private int timeoutInSec = 60;
 
     public boolean isEnabled() {
         return enabled;
@@ -68,4 +72,36 @@ public class PersistenceConfigurations {
     public void setConfig(PersistenceStoreConfigs config) {
         this.config = config;
     }
+
+    public String getCompression() {
+        return compression;
+    }
+
+    public void setCompression(String compression) {
+        this.compression = compression;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public int getThreadPoolSize() {
+        return threadPoolSize;
+    }
+
+    public void setThreadPoolSize(int threadPoolSize) {
+        this.threadPoolSize = threadPoolSize;
+    }
+
+    public int getTimeoutInSec() {
+        return timeoutInSec;
+    }
+
+    public void setTimeoutInSec(int timeoutInSec) {
+        this.timeoutInSec = timeoutInSec;
+    }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compression algorithm used to store state snapshots. The id of the codec is recorded in the header of each
+ * snapshot, except for GZIP snapshots which are kept readable by older versions, so that a snapshot can be loaded
+ * even after the configured codec is changed. Custom codecs can be
+ * configured by their class name, and need a public no argument constructor and an id which is not used by the
+ * codecs shipped with the product.
+ */
+public interface CompressionCodec {
+
+    /**
+     * @return id recorded in the snapshot header
+     */
+    byte getId();
+
+    /**
+     * @return name used to select the codec in the state persistence configuration
+     */
+    String getName();
+
+    /**
+     * Sets the compression level, where the codec supports levels.
+     *
+     * @param level compression level
+     */
+    void setLevel(int level);
+
+    /**
+     * Wraps the given stream so that data written to the returned stream is compressed into it. Closing the returned
+     * stream finishes the compression and closes the given stream.
+     *
+     * @param outputStream stream to which the compressed data is written
+     * @return stream to write the uncompressed data
+     * @throws IOException if the stream cannot be created
+     */
+    OutputStream compress(OutputStream outputStream) throws IOException;
+
+    /**
+     * Wraps the given stream so that the data read from the returned stream is decompressed.
+     *
+     * @param inputStream stream of compressed data
+     * @return stream of uncompressed data
+     * @throws IOException if the stream cannot be created
+     */
+    InputStream decompress(InputStream inputStream) throws IOException;
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Deflate compression codec with a configurable compression level, from 1 (fastest) to 9 (smallest).
+ */
+public class DeflateCompressionCodec implements CompressionCodec {
+    public static final byte ID = 2;
+    public static final String NAME = "deflate";
+    private static final int BUFFER_SIZE = 65536;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void setLevel(int level) {
+        if (level != Deflater.DEFAULT_COMPRESSION &&
+                (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid deflate compression level " + level + ", expected a " +
+                    "value between " + Deflater.BEST_SPEED + " and " + Deflater.BEST_COMPRESSION);
+        }
+        this.level = level;
+    }
+
+    @Override
+    public OutputStream compress(OutputStream outputStream) {
+        Deflater deflater = new Deflater(level);
+        return new DeflaterOutputStream(outputStream, deflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    @Override
+    public InputStream decompress(InputStream inputStream) {
+        Inflater inflater = new Inflater();
+        return new InflaterInputStream(inputStream, inflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+}
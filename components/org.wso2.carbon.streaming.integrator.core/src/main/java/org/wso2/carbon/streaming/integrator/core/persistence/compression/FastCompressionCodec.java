@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence.compression;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Fast compression codec following the LZ4 block format, which trades compression ratio for speed. Data is split into
+ * blocks of 64 KB, and each block is written as its uncompressed length, its compressed length and the compressed
+ * sequences of literals and back references. A block which does not compress is stored as is, with a compressed
+ * length of zero.
+ */
+public class FastCompressionCodec implements CompressionCodec {
+    public static final byte ID = 3;
+    public static final String NAME = "fast";
+    private static final int BLOCK_SIZE = 65536;
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MAX_OFFSET = 65535;
+    private static final int HASH_LOG = 14;
+    private static final int SKIP_TRIGGER = 6;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void setLevel(int level) {
+        // The fast codec has a single compression level
+    }
+
+    @Override
+    public OutputStream compress(OutputStream outputStream) {
+        return new BlockOutputStream(outputStream);
+    }
+
+    @Override
+    public InputStream decompress(InputStream inputStream) {
+        return new BlockInputStream(inputStream);
+    }
+
+    /**
+     * Compresses the given block.
+     *
+     * @param src       uncompressed data
+     * @param length    length of the uncompressed data
+     * @param dest      buffer for the compressed data, of at least {@link #maxCompressedLength(int)} bytes
+     * @param hashTable table of the positions of the recently seen sequences, reused across blocks
+     * @return length of the compressed data
+     */
+    static int compressBlock(byte[] src, int length, byte[] dest, int[] hashTable) {
+        Arrays.fill(hashTable, -1);
+        int srcIndex = 0;
+        int anchor = 0;
+        int destIndex = 0;
+        int matchLimit = length - LAST_LITERALS;
+        int searchMatchNb = 1 << SKIP_TRIGGER;
+        while (srcIndex + MIN_MATCH <= matchLimit) {
+            int sequence = readInt(src, srcIndex);
+            int hash = (sequence * -1640531535) >>> (32 - HASH_LOG);
+            int reference = hashTable[hash];
+            hashTable[hash] = srcIndex;
+            if (reference < 0 || srcIndex - reference > MAX_OFFSET || readInt(src, reference) != sequence) {
+                srcIndex += searchMatchNb++ >>> SKIP_TRIGGER;
+                continue;
+            }
+            searchMatchNb = 1 << SKIP_TRIGGER;
+            int matchLength = MIN_MATCH;
+            while (srcIndex + matchLength < matchLimit && src[reference + matchLength] == src[srcIndex + matchLength]) {
+                matchLength++;
+            }
+            int tokenIndex = destIndex;
+            destIndex = writeSequence(src, anchor, srcIndex - anchor, dest, destIndex);
+            int offset = srcIndex - reference;
+            dest[destIndex++] = (byte) offset;
+            dest[destIndex++] = (byte) (offset >>> 8);
+            int extraMatchLength = matchLength - MIN_MATCH;
+            if (extraMatchLength >= 15) {
+                dest[tokenIndex] |= 15;
+                destIndex = writeLength(extraMatchLength - 15, dest, destIndex);
+            } else {
+                dest[tokenIndex] |= extraMatchLength;
+            }
+            srcIndex += matchLength;
+            anchor = srcIndex;
+        }
+        return writeSequence(src, anchor, length - anchor, dest, destIndex);
+    }
+
+    /**
+     * Decompresses the given block.
+     *
+     * @param src            compressed data
+     * @param compressedSize length of the compressed data
+     * @param dest           buffer for the uncompressed data
+     * @param length         length of the uncompressed data
+     * @throws IOException if the compressed data is corrupted
+     */
+    static void decompressBlock(byte[] src, int compressedSize, byte[] dest, int length) throws IOException {
+        int srcIndex = 0;
+        int destIndex = 0;
+        try {
+            while (true) {
+                int token = src[srcIndex++] & 0xFF;
+                int literalLength = token >>> 4;
+                if (literalLength == 15) {
+                    int lengthByte;
+                    do {
+                        lengthByte = src[srcIndex++] & 0xFF;
+                        literalLength += lengthByte;
+                    } while (lengthByte == 255);
+                }
+                if (srcIndex + literalLength > compressedSize || destIndex + literalLength > length) {
+                    throw new IOException("Corrupted compressed block at offset " + srcIndex);
+                }
+                System.arraycopy(src, srcIndex, dest, destIndex, literalLength);
+                srcIndex += literalLength;
+                destIndex += literalLength;
+                if (srcIndex == compressedSize) {
+                    break;
+                }
+                if (srcIndex + 2 > compressedSize) {
+                    throw new IOException("Corrupted compressed block at offset " + srcIndex);
+                }
+                int offset = (src[srcIndex++] & 0xFF) | ((src[srcIndex++] & 0xFF) << 8);
+                int matchLength = token & 15;
+                if (matchLength == 15) {
+                    int lengthByte;
+                    do {
+                        lengthByte = src[srcIndex++] & 0xFF;
+                        matchLength += lengthByte;
+                    } while (lengthByte == 255);
+                }
+                matchLength += MIN_MATCH;
+                int reference = destIndex - offset;
+                if (offset == 0 || reference < 0 || destIndex + matchLength > length) {
+                    throw new IOException("Corrupted compressed block at offset " + srcIndex);
+                }
+                // Matches may overlap with the bytes they produce, hence are copied byte by byte
+                for (int i = 0; i < matchLength; i++) {
+                    dest[destIndex++] = dest[reference + i];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Corrupted compressed block", e);
+        }
+        if (destIndex != length) {
+            throw new IOException("Corrupted compressed block, expected " + length + " bytes but found " +
+                    destIndex);
+        }
+    }
+
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    private static int writeSequence(byte[] src, int literalStart, int literalLength, byte[] dest, int destIndex) {
+        int tokenIndex = destIndex++;
+        if (literalLength >= 15) {
+            dest[tokenIndex] = (byte) (15 << 4);
+            destIndex = writeLength(literalLength - 15, dest, destIndex);
+        } else {
+            dest[tokenIndex] = (byte) (literalLength << 4);
+        }
+        System.arraycopy(src, literalStart, dest, destIndex, literalLength);
+        return destIndex + literalLength;
+    }
+
+    private static int writeLength(int length, byte[] dest, int destIndex) {
+        while (length >= 255) {
+            dest[destIndex++] = (byte) 255;
+            length -= 255;
+        }
+        dest[destIndex++] = (byte) length;
+        return destIndex;
+    }
+
+    private static int readInt(byte[] bytes, int index) {
+        return (bytes[index] & 0xFF) | (bytes[index + 1] & 0xFF) << 8 | (bytes[index + 2] & 0xFF) << 16 |
+                (bytes[index + 3] & 0xFF) << 24;
+    }
+
+    /**
+     * Stream which compresses the data written to it block by block.
+     */
+    private static class BlockOutputStream extends FilterOutputStream {
+        private byte[] block = new byte[BLOCK_SIZE];
+        private byte[] compressedBlock = new byte[maxCompressedLength(BLOCK_SIZE)];
+        private int[] hashTable = new int[1 << HASH_LOG];
+        private int blockSize = 0;
+        private DataOutputStream dataOutputStream;
+        private boolean closed = false;
+
+        BlockOutputStream(OutputStream outputStream) {
+            super(outputStream);
+            this.dataOutputStream = new DataOutputStream(outputStream);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (blockSize == BLOCK_SIZE) {
+                writeBlock();
+            }
+            block[blockSize++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (blockSize == BLOCK_SIZE) {
+                    writeBlock();
+                }
+                int copyLength = Math.min(length, BLOCK_SIZE - blockSize);
+                System.arraycopy(bytes, offset, block, blockSize, copyLength);
+                blockSize += copyLength;
+                offset += copyLength;
+                length -= copyLength;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (blockSize > 0) {
+                writeBlock();
+            }
+            dataOutputStream.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                try {
+                    flush();
+                } finally {
+                    out.close();
+                }
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            int compressedSize = compressBlock(block, blockSize, compressedBlock, hashTable);
+            dataOutputStream.writeInt(blockSize);
+            if (compressedSize < blockSize) {
+                dataOutputStream.writeInt(compressedSize);
+                dataOutputStream.write(compressedBlock, 0, compressedSize);
+            } else {
+                dataOutputStream.writeInt(0);
+                dataOutputStream.write(block, 0, blockSize);
+            }
+            blockSize = 0;
+        }
+    }
+
+    /**
+     * Stream which decompresses the blocks read from the underlying stream.
+     */
+    private static class BlockInputStream extends InputStream {
+        private DataInputStream dataInputStream;
+        private byte[] block = new byte[BLOCK_SIZE];
+        private byte[] compressedBlock = new byte[maxCompressedLength(BLOCK_SIZE)];
+        private int blockSize = 0;
+        private int position = 0;
+
+        BlockInputStream(InputStream inputStream) {
+            this.dataInputStream = new DataInputStream(inputStream);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == blockSize && !readBlock()) {
+                return -1;
+            }
+            return block[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (position == blockSize && !readBlock()) {
+                return -1;
+            }
+            int readLength = Math.min(length, blockSize - position);
+            System.arraycopy(block, position, bytes, offset, readLength);
+            position += readLength;
+            return readLength;
+        }
+
+        @Override
+        public void close() throws IOException {
+            dataInputStream.close();
+        }
+
+        private boolean readBlock() throws IOException {
+            int length;
+            try {
+                length = dataInputStream.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            int compressedSize = dataInputStream.readInt();
+            if (length < 0 || length > BLOCK_SIZE || compressedSize < 0 || compressedSize > compressedBlock.length) {
+                throw new IOException("Corrupted compressed block header");
+            }
+            if (compressedSize == 0) {
+                dataInputStream.readFully(block, 0, length);
+            } else {
+                dataInputStream.readFully(compressedBlock, 0, compressedSize);
+                decompressBlock(compressedBlock, compressedSize, block, length);
+            }
+            blockSize = length;
+            position = 0;
+            return true;
+        }
+    }
+}
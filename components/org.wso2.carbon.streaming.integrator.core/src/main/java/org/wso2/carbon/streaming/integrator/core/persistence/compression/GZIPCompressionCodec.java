@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * GZIP compression codec, which is the default codec for state snapshots.
+ */
+public class GZIPCompressionCodec implements CompressionCodec {
+    public static final byte ID = 1;
+    public static final String NAME = "gzip";
+    private static final int BUFFER_SIZE = 65536;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void setLevel(int level) {
+        // GZIP streams always use the default compression level
+    }
+
+    @Override
+    public OutputStream compress(OutputStream outputStream) throws IOException {
+        return new GZIPOutputStream(outputStream, BUFFER_SIZE);
+    }
+
+    @Override
+    public InputStream decompress(InputStream inputStream) throws IOException {
+        return new GZIPInputStream(inputStream, BUFFER_SIZE);
+    }
+}
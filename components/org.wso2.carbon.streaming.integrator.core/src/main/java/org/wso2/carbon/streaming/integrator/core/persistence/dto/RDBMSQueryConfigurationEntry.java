@@ -33,6 +33,15 @@ public class RDBMSQueryConfigurationEntry {
     private String deleteOldRevisionsQuery;
     private String countQuery;
     private String deleteAllRevisionsQuery;
+    private String isRevisionIndexExistQuery;
+    private String addRevisionIndexColumnsQuery;
+    private String createRevisionIndexQuery;
+    private String selectUnindexedRevisionsQuery;
+    private String updateRevisionIndexQuery;
+    private String insertIndexedRevisionQuery;
+    private String selectRevisionsToLoadQuery;
+    private String selectLastIndexedRevisionQuery;
+    private String deleteObsoleteRevisionsQuery;
 
     public String getDatabaseName() {
         return databaseName;
@@ -122,4 +131,75 @@ public class RDBMSQueryConfigurationEntry {
         this.deleteAllRevisionsQuery = deleteAllRevisionsQuery;
     }
 
+    public String getIsRevisionIndexExistQuery() {
+        return isRevisionIndexExistQuery;
+    }
+
+    public void setIsRevisionIndexExistQuery(String isRevisionIndexExistQuery) {
+        this.isRevisionIndexExistQuery = isRevisionIndexExistQuery;
+    }
+
+    public String getAddRevisionIndexColumnsQuery() {
+        return addRevisionIndexColumnsQuery;
+    }
+
+    public void setAddRevisionIndexColumnsQuery(String addRevisionIndexColumnsQuery) {
+        this.addRevisionIndexColumnsQuery = addRevisionIndexColumnsQuery;
+    }
+
+    public String getCreateRevisionIndexQuery() {
+        return createRevisionIndexQuery;
+    }
+
+    public void setCreateRevisionIndexQuery(String createRevisionIndexQuery) {
+        this.createRevisionIndexQuery = createRevisionIndexQuery;
+    }
+
+    public String getSelectUnindexedRevisionsQuery() {
+        return selectUnindexedRevisionsQuery;
+    }
+
+    public void setSelectUnindexedRevisionsQuery(String selectUnindexedRevisionsQuery) {
+        this.selectUnindexedRevisionsQuery = selectUnindexedRevisionsQuery;
+    }
+
+    public String getUpdateRevisionIndexQuery() {
+        return updateRevisionIndexQuery;
+    }
+
+    public void setUpdateRevisionIndexQuery(String updateRevisionIndexQuery) {
+        this.updateRevisionIndexQuery = updateRevisionIndexQuery;
+    }
+
+    public String getInsertIndexedRevisionQuery() {
+        return insertIndexedRevisionQuery;
+    }
+
+    public void setInsertIndexedRevisionQuery(String insertIndexedRevisionQuery) {
+        this.insertIndexedRevisionQuery = insertIndexedRevisionQuery;
+    }
+
+    public String getSelectRevisionsToLoadQuery() {
+        return selectRevisionsToLoadQuery;
+    }
+
+    public void setSelectRevisionsToLoadQuery(String selectRevisionsToLoadQuery) {
+        this.selectRevisionsToLoadQuery = selectRevisionsToLoadQuery;
+    }
+
+    public String getSelectLastIndexedRevisionQuery() {
+        return selectLastIndexedRevisionQuery;
+    }
+
+    public void setSelectLastIndexedRevisionQuery(String selectLastIndexedRevisionQuery) {
+        this.selectLastIndexedRevisionQuery = selectLastIndexedRevisionQuery;
+    }
+
+    public String getDeleteObsoleteRevisionsQuery() {
+        return deleteObsoleteRevisionsQuery;
+    }
+
+    public void setDeleteObsoleteRevisionsQuery(String deleteObsoleteRevisionsQuery) {
+        this.deleteObsoleteRevisionsQuery = deleteObsoleteRevisionsQuery;
+    }
 }
@@ -33,9 +33,12 @@ public class DBPersistenceStoreUtils {
 
     /**
      * Method that would create the persistence table
+     *
+     * @return true if the table was created by this call
      */
-    public static void createTableIfNotExist(ExecutionInfo executionInfo, DataSource dataSource, String dataSourceName,
-                                       String tableName) {
+    public static boolean createTableIfNotExist(ExecutionInfo executionInfo, DataSource dataSource,
+                                                String dataSourceName, String tableName) {
+        boolean isTableCreated = false;
         if (!executionInfo.isTableExist()) {
             Statement stmt = null;
             Connection con = null;
@@ -47,7 +50,7 @@ public class DBPersistenceStoreUtils {
                 } catch (SQLException e) {
                     log.error("Cannot establish connection to datasource " + dataSourceName +
                             " when checking persistence table exists", e);
-                    return;
+                    return false;
                 }
                 try (ResultSet ignored = stmt.executeQuery(executionInfo.getPreparedTableExistenceCheckStatement())) {
                     executionInfo.setTableExist(true);
@@ -63,6 +66,7 @@ public class DBPersistenceStoreUtils {
                         stmt.executeUpdate(executionInfo.getPreparedCreateTableStatement());
                         con.commit();
                         executionInfo.setTableExist(true);
+                        isTableCreated = true;
                     } catch (SQLException ex) {
                         log.error("Could not create table " + tableName +
                                 " using datasource " + dataSourceName, ex);
@@ -72,6 +76,7 @@ public class DBPersistenceStoreUtils {
                 cleanupConnections(stmt, con);
             }
         }
+        return isTableCreated;
     }
 
     public static void cleanupConnections(Statement stmt, Connection connection) {
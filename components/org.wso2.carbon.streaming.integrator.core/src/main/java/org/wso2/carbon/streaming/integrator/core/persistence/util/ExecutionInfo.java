@@ -33,6 +33,15 @@ public class ExecutionInfo {
     private String preparedDeleteOldRevisionsStatement;
     private String preparedCountStatement;
     private String preparedDeleteAllRevisionsStatement;
+    private String preparedIsRevisionIndexExistStatement;
+    private String preparedAddRevisionIndexColumnsStatement;
+    private String preparedCreateRevisionIndexStatement;
+    private String preparedSelectUnindexedRevisionsStatement;
+    private String preparedUpdateRevisionIndexStatement;
+    private String preparedInsertIndexedRevisionStatement;
+    private String preparedSelectRevisionsToLoadStatement;
+    private String preparedSelectLastIndexedRevisionStatement;
+    private String preparedDeleteObsoleteRevisionsStatement;
 
     private boolean tableExist = false;
 
@@ -124,4 +133,75 @@ public class ExecutionInfo {
         this.preparedDeleteAllRevisionsStatement = preparedDeleteAllRevisionsStatement;
     }
 
+    public String getPreparedIsRevisionIndexExistStatement() {
+        return preparedIsRevisionIndexExistStatement;
+    }
+
+    public void setPreparedIsRevisionIndexExistStatement(String preparedIsRevisionIndexExistStatement) {
+        this.preparedIsRevisionIndexExistStatement = preparedIsRevisionIndexExistStatement;
+    }
+
+    public String getPreparedAddRevisionIndexColumnsStatement() {
+        return preparedAddRevisionIndexColumnsStatement;
+    }
+
+    public void setPreparedAddRevisionIndexColumnsStatement(String preparedAddRevisionIndexColumnsStatement) {
+        this.preparedAddRevisionIndexColumnsStatement = preparedAddRevisionIndexColumnsStatement;
+    }
+
+    public String getPreparedCreateRevisionIndexStatement() {
+        return preparedCreateRevisionIndexStatement;
+    }
+
+    public void setPreparedCreateRevisionIndexStatement(String preparedCreateRevisionIndexStatement) {
+        this.preparedCreateRevisionIndexStatement = preparedCreateRevisionIndexStatement;
+    }
+
+    public String getPreparedSelectUnindexedRevisionsStatement() {
+        return preparedSelectUnindexedRevisionsStatement;
+    }
+
+    public void setPreparedSelectUnindexedRevisionsStatement(String preparedSelectUnindexedRevisionsStatement) {
+        this.preparedSelectUnindexedRevisionsStatement = preparedSelectUnindexedRevisionsStatement;
+    }
+
+    public String getPreparedUpdateRevisionIndexStatement() {
+        return preparedUpdateRevisionIndexStatement;
+    }
+
+    public void setPreparedUpdateRevisionIndexStatement(String preparedUpdateRevisionIndexStatement) {
+        this.preparedUpdateRevisionIndexStatement = preparedUpdateRevisionIndexStatement;
+    }
+
+    public String getPreparedInsertIndexedRevisionStatement() {
+        return preparedInsertIndexedRevisionStatement;
+    }
+
+    public void setPreparedInsertIndexedRevisionStatement(String preparedInsertIndexedRevisionStatement) {
+        this.preparedInsertIndexedRevisionStatement = preparedInsertIndexedRevisionStatement;
+    }
+
+    public String getPreparedSelectRevisionsToLoadStatement() {
+        return preparedSelectRevisionsToLoadStatement;
+    }
+
+    public void setPreparedSelectRevisionsToLoadStatement(String preparedSelectRevisionsToLoadStatement) {
+        this.preparedSelectRevisionsToLoadStatement = preparedSelectRevisionsToLoadStatement;
+    }
+
+    public String getPreparedSelectLastIndexedRevisionStatement() {
+        return preparedSelectLastIndexedRevisionStatement;
+    }
+
+    public void setPreparedSelectLastIndexedRevisionStatement(String preparedSelectLastIndexedRevisionStatement) {
+        this.preparedSelectLastIndexedRevisionStatement = preparedSelectLastIndexedRevisionStatement;
+    }
+
+    public String getPreparedDeleteObsoleteRevisionsStatement() {
+        return preparedDeleteObsoleteRevisionsStatement;
+    }
+
+    public void setPreparedDeleteObsoleteRevisionsStatement(String preparedDeleteObsoleteRevisionsStatement) {
+        this.preparedDeleteObsoleteRevisionsStatement = preparedDeleteObsoleteRevisionsStatement;
+    }
 }
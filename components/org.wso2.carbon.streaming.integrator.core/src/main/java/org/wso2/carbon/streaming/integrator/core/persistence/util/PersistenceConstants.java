@@ -26,6 +26,9 @@ public class PersistenceConstants {
     public static final String STATE_PERSISTENCE_NS = "state.persistence";
     public static final String STATE_PERSISTENCE_REVISIONS_TO_KEEP = "revisionsToKeep";
     public static final String STATE_PERSISTENCE_CONFIGS = "config";
+    public static final String STATE_PERSISTENCE_COMPRESSION = "compression";
+    public static final String STATE_PERSISTENCE_COMPRESSION_LEVEL = "compressionLevel";
+    public static final String DEFAULT_COMPRESSION_CODEC = "gzip";
     public static final String DEFAULT_FILE_PERSISTENCE_FOLDER = "siddhi-app-persistence";
     public static final String REVISION_SEPARATOR = "__";
     public static final String DEFAULT_DB_PERSISTENCE_DATASOURCE = "WSO2_CARBON_DB";
@@ -40,5 +43,14 @@ public class PersistenceConstants {
     public static final String DELETE_OLD_REVISIONS = "DELETE_OLD_REVISIONS";
     public static final String COUNT_NUMBER_REVISIONS = "COUNT_NUMBER_REVISIONS";
     public static final String DELETE_ALL_REVISIONS = "DELETE_ALL_REVISIONS";
+    public static final String IS_REVISION_INDEX_EXISTS = "IS_REVISION_INDEX_EXISTS";
+    public static final String ADD_REVISION_INDEX_COLUMNS = "ADD_REVISION_INDEX_COLUMNS";
+    public static final String CREATE_REVISION_INDEX = "CREATE_REVISION_INDEX";
+    public static final String SELECT_UNINDEXED_REVISIONS = "SELECT_UNINDEXED_REVISIONS";
+    public static final String UPDATE_REVISION_INDEX = "UPDATE_REVISION_INDEX";
+    public static final String INSERT_INDEXED_REVISION = "INSERT_INDEXED_REVISION";
+    public static final String SELECT_REVISIONS_TO_LOAD = "SELECT_REVISIONS_TO_LOAD";
+    public static final String SELECT_LAST_INDEXED_REVISION = "SELECT_LAST_INDEXED_REVISION";
+    public static final String DELETE_OBSOLETE_REVISIONS = "DELETE_OBSOLETE_REVISIONS";
 
 }
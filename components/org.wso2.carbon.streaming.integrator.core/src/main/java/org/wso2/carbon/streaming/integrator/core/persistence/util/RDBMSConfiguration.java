@@ -77,6 +77,33 @@ public class RDBMSConfiguration {
             databaseQueryEntries.setDeleteAllRevisionsQuery(queryManager.
                     getQuery(PersistenceConstants.DELETE_ALL_REVISIONS).
                     replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setIsRevisionIndexExistQuery(queryManager.
+                    getQuery(PersistenceConstants.IS_REVISION_INDEX_EXISTS).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setAddRevisionIndexColumnsQuery(queryManager.
+                    getQuery(PersistenceConstants.ADD_REVISION_INDEX_COLUMNS).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setCreateRevisionIndexQuery(queryManager.
+                    getQuery(PersistenceConstants.CREATE_REVISION_INDEX).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setSelectUnindexedRevisionsQuery(queryManager.
+                    getQuery(PersistenceConstants.SELECT_UNINDEXED_REVISIONS).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setUpdateRevisionIndexQuery(queryManager.
+                    getQuery(PersistenceConstants.UPDATE_REVISION_INDEX).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setInsertIndexedRevisionQuery(queryManager.
+                    getQuery(PersistenceConstants.INSERT_INDEXED_REVISION).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setSelectRevisionsToLoadQuery(queryManager.
+                    getQuery(PersistenceConstants.SELECT_REVISIONS_TO_LOAD).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setSelectLastIndexedRevisionQuery(queryManager.
+                    getQuery(PersistenceConstants.SELECT_LAST_INDEXED_REVISION).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setDeleteObsoleteRevisionsQuery(queryManager.
+                    getQuery(PersistenceConstants.DELETE_OBSOLETE_REVISIONS).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
 
         } catch (QueryMappingNotAvailableException | ConfigurationException | IOException e) {
             throw new DatasourceConfigurationException("Error reading queries for database: " + databaseType + " "
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence.util;
+
+import io.siddhi.core.util.SiddhiConstants;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.si.metrics.core.internal.MetricsDataHolder;
+import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.internal.util.SiddhiAppProcessorConstants;
+
+/**
+ * Records the duration and the size of the snapshots persisted for each Siddhi app, when statistics are enabled.
+ */
+public class SnapshotMetrics {
+
+    private SnapshotMetrics() {
+    }
+
+    /**
+     * @param siddhiAppName  name of the Siddhi app
+     * @param durationMillis time taken to take and persist the snapshot of the Siddhi app
+     */
+    public static void updateSnapshotDuration(String siddhiAppName, long durationMillis) {
+        MetricService metricService = getMetricService();
+        if (metricService != null) {
+            metricService.histogram(getMetricName(siddhiAppName,
+                    SiddhiAppProcessorConstants.PERSISTENCE_METRICS_SNAPSHOT_DURATION), Level.INFO)
+                    .update(durationMillis);
+        }
+    }
+
+    /**
+     * @param siddhiAppName name of the Siddhi app
+     * @param size          size of the snapshot in bytes, before compression
+     */
+    public static void updateSnapshotSize(String siddhiAppName, long size) {
+        MetricService metricService = getMetricService();
+        if (metricService != null) {
+            metricService.histogram(getMetricName(siddhiAppName,
+                    SiddhiAppProcessorConstants.PERSISTENCE_METRICS_SNAPSHOT_SIZE), Level.INFO).update(size);
+        }
+    }
+
+    private static MetricService getMetricService() {
+        if (!StreamProcessorDataHolder.isStatisticsEnabled()) {
+            return null;
+        }
+        return MetricsDataHolder.getInstance().getMetricService();
+    }
+
+    private static String getMetricName(String siddhiAppName, String name) {
+        return SiddhiAppProcessorConstants.PERSISTENCE_METRICS_PREFIX + SiddhiConstants.METRIC_DELIMITER +
+                siddhiAppName + SiddhiConstants.METRIC_DELIMITER + name;
+    }
+}
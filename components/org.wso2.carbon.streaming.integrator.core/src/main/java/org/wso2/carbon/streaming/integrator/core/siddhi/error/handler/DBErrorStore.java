@@ -22,12 +22,17 @@ import io.siddhi.core.util.error.handler.exception.ErrorStoreException;
 import io.siddhi.core.util.error.handler.model.ErrorEntry;
 import io.siddhi.core.util.error.handler.store.ErrorStore;
 import io.siddhi.core.util.error.handler.util.ErroneousEventType;
+import io.siddhi.core.util.error.handler.util.ErrorHandlerUtils;
 import io.siddhi.core.util.error.handler.util.ErrorOccurrence;
 import io.siddhi.core.util.error.handler.util.ErrorType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.datasource.core.exception.DataSourceException;
+import org.wso2.carbon.streaming.integrator.common.ErrorEntryFilter;
+import org.wso2.carbon.streaming.integrator.common.PageableErrorStore;
+import org.wso2.carbon.streaming.integrator.common.utils.ErroneousEventCodec;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.dto.PendingErrorEntry;
 import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.dto.RDBMSQueryConfigurationEntry;
 import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.exception.DatabaseUnsupportedException;
 import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.exception.DatasourceConfigurationException;
@@ -39,6 +44,9 @@ import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.util.Siddh
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Blob;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -46,21 +54,31 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.sql.DataSource;
 import javax.sql.rowset.serial.SerialBlob;
 
 /**
  * Denotes an Error Store which stores erroneous events collected from Siddhi in a configured database.
  */
-public class DBErrorStore extends ErrorStore {
+public class DBErrorStore extends ErrorStore implements PageableErrorStore {
 
     private static final Logger log = LoggerFactory.getLogger(DBErrorStore.class);
     private static final String POSTGRES_DATABASE_TYPE = "postgresql";
     private static final String MSSQL_DATABASE_TYPE = "microsoft sql server";
     private static final String ORACLE_DATABASE_TYPE = "oracle";
+    private static final int MAX_FETCH_SIZE = 500;
+    private static final int MAX_CACHED_STACK_TRACES = 1000;
+    private static final long STACK_TRACE_USE_REFRESH_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long UNUSED_STACK_TRACE_RETENTION_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final byte[] STACK_TRACE_REFERENCE_PREFIX = {'S', 'T', 1};
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 
     private ExecutionInfo executionInfo;
     private DataSource datasource;
@@ -68,6 +86,26 @@ public class DBErrorStore extends ErrorStore {
     private String tableName;
     private String databaseType;
     private String databaseVersion;
+    private boolean isOracleDriver;
+    private DBErrorStoreWriter writer;
+    private DBErrorStorePurger purger;
+    private boolean compactEvents = false;
+    private boolean deduplicateStackTraces = false;
+    private final Map<String, byte[]> stackTraceCache = Collections.synchronizedMap(
+        new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > MAX_CACHED_STACK_TRACES;
+            }
+        });
+    // Times at which the stack traces were last marked as used by this node, keyed by their hashes
+    private final Map<String, Long> stackTraceUseTimes = Collections.synchronizedMap(
+        new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > MAX_CACHED_STACK_TRACES;
+            }
+        });
 
     @Override
     public void setProperties(Map properties) {
@@ -101,6 +139,15 @@ public class DBErrorStore extends ErrorStore {
             } else {
                 tableName = String.valueOf(tableObject);
             }
+            Object compactEventsObject = configurationMap.get(SiddhiErrorHandlerConstants.COMPACT_EVENTS);
+            if (compactEventsObject instanceof Boolean) {
+                compactEvents = (Boolean) compactEventsObject;
+            }
+            Object deduplicateStackTracesObject =
+                configurationMap.get(SiddhiErrorHandlerConstants.DEDUPLICATE_STACK_TRACES);
+            if (deduplicateStackTracesObject instanceof Boolean) {
+                deduplicateStackTraces = (Boolean) deduplicateStackTracesObject;
+            }
         } else {
             datasourceName = SiddhiErrorHandlerConstants.DEFAULT_DB_ERROR_STORE_DATASOURCE;
             tableName = SiddhiErrorHandlerConstants.DEFAULT_DB_ERROR_STORE_TABLE_NAME;
@@ -116,6 +163,7 @@ public class DBErrorStore extends ErrorStore {
                 DatabaseMetaData metaData = connection.getMetaData();
                 databaseType = metaData.getDatabaseProductName().toLowerCase();
                 databaseVersion = metaData.getDatabaseProductVersion();
+                isOracleDriver = metaData.getDriverName().contains("Oracle");
                 if (log.isDebugEnabled()) {
                     log.debug("Datasource connected to database: " + databaseType + " " + databaseVersion);
                 }
@@ -129,6 +177,120 @@ public class DBErrorStore extends ErrorStore {
         }
 
         initializeDatabaseExecutionInfo();
+        DBErrorStoreUtils.createTableIfNotExists(executionInfo, datasource, datasourceName, tableName);
+        DBErrorStoreUtils.createIndexesIfNotExist(executionInfo, datasource, datasourceName, tableName);
+        if (deduplicateStackTraces) {
+            deduplicateStackTraces = initializeStackTraceTable();
+        }
+        if (configurationMap != null && configurationMap.get(SiddhiErrorHandlerConstants.WRITE_BEHIND) instanceof Map) {
+            initializeWriter((Map) configurationMap.get(SiddhiErrorHandlerConstants.WRITE_BEHIND));
+        }
+        if (compactEvents && writer == null) {
+            log.warn("Erroneous events are stored in the compact format only when they are written in the " +
+                "background. Enable write-behind of the error store to store them in the compact format.");
+        }
+        if (configurationMap != null &&
+            configurationMap.get(SiddhiErrorHandlerConstants.PURGE_CONFIGS) instanceof Map) {
+            initializePurger((Map) configurationMap.get(SiddhiErrorHandlerConstants.PURGE_CONFIGS));
+        }
+    }
+
+    /**
+     * Creates the table of distinct stack traces, and the indexed column of the error entries holding the hashes of
+     * the stack traces they refer to.
+     *
+     * @return true if stack traces can be deduplicated, or else they are stored along with the entries
+     */
+    private boolean initializeStackTraceTable() {
+        String[] queries = {executionInfo.getPreparedCheckStackTraceTableExistenceStatement(),
+            executionInfo.getPreparedUpdateStackTraceLastUsedStatement(),
+            executionInfo.getPreparedInsertWithStackTraceHashStatement()};
+        for (String query : queries) {
+            if (query == null || query.isEmpty()) {
+                return false;
+            }
+        }
+        if (!DBErrorStoreUtils.createTableIfNotExists(datasource, datasourceName, tableName + "_TRACES",
+            executionInfo.getPreparedCheckStackTraceTableExistenceStatement(),
+            executionInfo.getPreparedCreateStackTraceTableStatement()) ||
+            !DBErrorStoreUtils.addColumnIfNotExists(datasource, datasourceName, tableName,
+                SiddhiErrorHandlerConstants.STACK_TRACE_HASH,
+                executionInfo.getPreparedIsStackTraceHashColumnExistStatement(),
+                executionInfo.getPreparedAddStackTraceHashColumnStatement())) {
+            return false;
+        }
+        DBErrorStoreUtils.createIndexIfNotExists(datasource, datasourceName, tableName,
+            executionInfo.getPreparedCreateStackTraceHashIndexStatement());
+        return true;
+    }
+
+    private void initializeWriter(Map writeBehindConfigs) {
+        if (!Boolean.TRUE.equals(writeBehindConfigs.get(SiddhiErrorHandlerConstants.WRITE_BEHIND_ENABLED))) {
+            return;
+        }
+        Object queueCapacity = writeBehindConfigs.get(SiddhiErrorHandlerConstants.WRITE_BEHIND_QUEUE_CAPACITY);
+        Object batchSize = writeBehindConfigs.get(SiddhiErrorHandlerConstants.WRITE_BEHIND_BATCH_SIZE);
+        Object flushIntervalMillis =
+            writeBehindConfigs.get(SiddhiErrorHandlerConstants.WRITE_BEHIND_FLUSH_INTERVAL_MILLIS);
+        Object spillDirectory = writeBehindConfigs.get(SiddhiErrorHandlerConstants.WRITE_BEHIND_SPILL_DIRECTORY);
+        writer = new DBErrorStoreWriter(this,
+            queueCapacity instanceof Integer && (Integer) queueCapacity > 0 ? (Integer) queueCapacity :
+                SiddhiErrorHandlerConstants.DEFAULT_WRITE_BEHIND_QUEUE_CAPACITY,
+            batchSize instanceof Integer && (Integer) batchSize > 0 ? (Integer) batchSize :
+                SiddhiErrorHandlerConstants.DEFAULT_WRITE_BEHIND_BATCH_SIZE,
+            flushIntervalMillis instanceof Number && ((Number) flushIntervalMillis).longValue() > 0 ?
+                ((Number) flushIntervalMillis).longValue() :
+                SiddhiErrorHandlerConstants.DEFAULT_WRITE_BEHIND_FLUSH_INTERVAL_MILLIS,
+            spillDirectory instanceof String ? (String) spillDirectory : null);
+        if (log.isDebugEnabled()) {
+            log.debug("Erroneous events will be written to the error store in the background.");
+        }
+    }
+
+    private void initializePurger(Map purgeConfigs) {
+        if (!Boolean.TRUE.equals(purgeConfigs.get(SiddhiErrorHandlerConstants.PURGE_ENABLED))) {
+            return;
+        }
+        if (!isChunkedPurgeSupported()) {
+            log.warn("Error store will not be purged periodically, since the queries to purge it are not " +
+                "configured for the database: " + databaseType + " " + databaseVersion);
+            return;
+        }
+        Object intervalMinutes = purgeConfigs.get(SiddhiErrorHandlerConstants.PURGE_INTERVAL_MINUTES);
+        Object retentionDays = purgeConfigs.get(SiddhiErrorHandlerConstants.PURGE_RETENTION_DAYS);
+        Object maxEntriesPerSiddhiApp = purgeConfigs.get(SiddhiErrorHandlerConstants.PURGE_MAX_ENTRIES_PER_SIDDHI_APP);
+        Object maxEntries = purgeConfigs.get(SiddhiErrorHandlerConstants.PURGE_MAX_ENTRIES);
+        Object chunkSize = purgeConfigs.get(SiddhiErrorHandlerConstants.PURGE_CHUNK_SIZE);
+        Object pauseMillis = purgeConfigs.get(SiddhiErrorHandlerConstants.PURGE_PAUSE_MILLIS);
+        purger = new DBErrorStorePurger(this,
+            intervalMinutes instanceof Number && ((Number) intervalMinutes).longValue() > 0 ?
+                ((Number) intervalMinutes).longValue() : SiddhiErrorHandlerConstants.DEFAULT_PURGE_INTERVAL_MINUTES,
+            retentionDays instanceof Integer && (Integer) retentionDays > 0 ? (Integer) retentionDays : 0,
+            maxEntriesPerSiddhiApp instanceof Integer && (Integer) maxEntriesPerSiddhiApp > 0 ?
+                (Integer) maxEntriesPerSiddhiApp : 0,
+            maxEntries instanceof Integer && (Integer) maxEntries > 0 ? (Integer) maxEntries : 0,
+            chunkSize instanceof Integer && (Integer) chunkSize > 0 ? (Integer) chunkSize :
+                SiddhiErrorHandlerConstants.DEFAULT_PURGE_CHUNK_SIZE,
+            pauseMillis instanceof Number && ((Number) pauseMillis).longValue() >= 0 ?
+                ((Number) pauseMillis).longValue() : SiddhiErrorHandlerConstants.DEFAULT_PURGE_PAUSE_MILLIS);
+        if (log.isDebugEnabled()) {
+            log.debug("Error store will be purged periodically in the background.");
+        }
+    }
+
+    /**
+     * Writes the erroneous events buffered in the background, if any, and stops writing and purging in the
+     * background.
+     */
+    public void shutdown() {
+        if (purger != null) {
+            purger.shutdown();
+            purger = null;
+        }
+        if (writer != null) {
+            writer.shutdown();
+            writer = null;
+        }
     }
 
     private void initializeDatabaseExecutionInfo() {
@@ -155,63 +317,311 @@ public class DBErrorStore extends ErrorStore {
         executionInfo.setPreparedDeleteStatement(databaseQueryEntries.getDeleteQuery());
         executionInfo.setPreparedDeleteBySiddhiAppNameStatement(databaseQueryEntries.getDeleteBySiddhiAppNameQuery());
         executionInfo.setPreparedPurgeStatement(databaseQueryEntries.getPurgeQuery());
+        executionInfo.setPreparedSelectPageStatement(databaseQueryEntries.getSelectPageQuery());
+        executionInfo.setPreparedMinimalSelectPageStatement(databaseQueryEntries.getMinimalSelectPageQuery());
+        executionInfo.setPreparedCreateAppTimestampIndexStatement(
+            databaseQueryEntries.getCreateAppTimestampIndexQuery());
+        executionInfo.setPreparedCreateAppStreamIndexStatement(databaseQueryEntries.getCreateAppStreamIndexQuery());
+        executionInfo.setPreparedCheckStackTraceTableExistenceStatement(
+            databaseQueryEntries.getIsStackTraceTableExistQuery());
+        executionInfo.setPreparedCreateStackTraceTableStatement(databaseQueryEntries.getCreateStackTraceTableQuery());
+        executionInfo.setPreparedInsertStackTraceStatement(databaseQueryEntries.getInsertStackTraceQuery());
+        executionInfo.setPreparedSelectStackTraceStatement(databaseQueryEntries.getSelectStackTraceQuery());
+        executionInfo.setPreparedUpdateStackTraceLastUsedStatement(
+            databaseQueryEntries.getUpdateStackTraceLastUsedQuery());
+        executionInfo.setPreparedIsStackTraceHashColumnExistStatement(
+            databaseQueryEntries.getIsStackTraceHashColumnExistQuery());
+        executionInfo.setPreparedAddStackTraceHashColumnStatement(
+            databaseQueryEntries.getAddStackTraceHashColumnQuery());
+        executionInfo.setPreparedCreateStackTraceHashIndexStatement(
+            databaseQueryEntries.getCreateStackTraceHashIndexQuery());
+        executionInfo.setPreparedInsertWithStackTraceHashStatement(
+            databaseQueryEntries.getInsertWithStackTraceHashQuery());
+        executionInfo.setPreparedPurgeUnusedStackTracesStatement(
+            databaseQueryEntries.getPurgeUnusedStackTracesQuery());
+        executionInfo.setPreparedPurgeChunkStatement(databaseQueryEntries.getPurgeChunkQuery());
+        executionInfo.setPreparedSelectCountGroupBySiddhiAppNameStatement(
+            databaseQueryEntries.getSelectCountGroupBySiddhiAppNameQuery());
+        executionInfo.setPreparedSelectIdAtOffsetBySiddhiAppNameStatement(
+            databaseQueryEntries.getSelectIdAtOffsetBySiddhiAppNameQuery());
+        executionInfo.setPreparedPurgeChunkBySiddhiAppNameStatement(
+            databaseQueryEntries.getPurgeChunkBySiddhiAppNameQuery());
+        executionInfo.setPreparedSelectIdAtOffsetStatement(databaseQueryEntries.getSelectIdAtOffsetQuery());
+        executionInfo.setPreparedPurgeChunkByIdStatement(databaseQueryEntries.getPurgeChunkByIdQuery());
     }
 
     @Override
     protected void saveEntry(long timestamp, String siddhiAppName, String streamName, byte[] eventAsBytes, String cause,
                              byte[] stackTraceAsBytes, byte[] originalPayloadAsBytes, String errorOccurrence,
                              String eventType, String errorType) throws ErrorStoreException {
+        cause = (cause.length() > 1000) ? cause.substring(0,997) + "..." : cause ;
+        PendingErrorEntry entry = new PendingErrorEntry(timestamp, siddhiAppName, streamName, eventAsBytes, cause,
+            stackTraceAsBytes, originalPayloadAsBytes, errorOccurrence, eventType, errorType);
+        DBErrorStoreWriter currentWriter = writer;
+        if (currentWriter != null) {
+            currentWriter.add(entry);
+        } else {
+            // Not converted to the compact format, since the thread which captured the event is held till it is saved
+            saveEntries(Collections.singletonList(entry), false);
+        }
+    }
+
+    /**
+     * Saves the given entries written in the background in a single batch and transaction.
+     *
+     * @param entries erroneous events
+     * @return true if the entries are saved
+     */
+    protected boolean saveEntries(List<PendingErrorEntry> entries) {
+        return saveEntries(entries, compactEvents);
+    }
+
+    private boolean saveEntries(List<PendingErrorEntry> entries, boolean compact) {
         DBErrorStoreUtils.createTableIfNotExists(executionInfo, datasource, datasourceName, tableName);
+        List<byte[]> eventsAsBytes = new ArrayList<>(entries.size());
+        List<String> stackTraceHashes = new ArrayList<>(entries.size());
+        for (PendingErrorEntry entry : entries) {
+            eventsAsBytes.add(compact ? toCompactBytes(entry.getEventType(), entry.getEventAsBytes()) :
+                entry.getEventAsBytes());
+            stackTraceHashes.add(storeStackTrace(entry.getStackTraceAsBytes()));
+        }
         Connection con = null;
         PreparedStatement stmt = null;
         try {
             con = datasource.getConnection();
             con.setAutoCommit(false);
 
-            stmt = con.prepareStatement(executionInfo.getPreparedInsertStatement());
-            stmt.setLong(1, timestamp);
-            stmt.setString(2,siddhiAppName);
-            stmt.setString(3,streamName);
-            cause = (cause.length() > 1000) ? cause.substring(0,997) + "..." : cause ;
-            stmt.setString(5,cause);
-            stmt.setString(8,errorOccurrence);
-            stmt.setString(9,eventType);
-            stmt.setString(10,errorType);
-
-            if (databaseType.equals(POSTGRES_DATABASE_TYPE)) {
-                stmt.setBlob(4, new SerialBlob(eventAsBytes));
-                stmt.setBlob(6, new SerialBlob(stackTraceAsBytes));
-                stmt.setBlob(7, new SerialBlob(originalPayloadAsBytes));
-            } else if (con.getMetaData().getDriverName().contains("Oracle")) {
-                InputStream eventInputStream = new ByteArrayInputStream(eventAsBytes);
-                stmt.setBinaryStream(4, eventInputStream, eventAsBytes.length);
-
-                InputStream stackTraceInputStream = new ByteArrayInputStream(stackTraceAsBytes);
-                stmt.setBinaryStream(6, stackTraceInputStream, stackTraceAsBytes.length);
-
-                InputStream originalPayloadInputStream = new ByteArrayInputStream(originalPayloadAsBytes);
-                stmt.setBinaryStream(7, originalPayloadInputStream, originalPayloadAsBytes.length);
-            } else {
-                Blob eventBlob = con.createBlob();
-                eventBlob.setBytes(1, eventAsBytes);
-                stmt.setBlob(4, eventBlob);
+            stmt = con.prepareStatement(deduplicateStackTraces ?
+                executionInfo.getPreparedInsertWithStackTraceHashStatement() :
+                executionInfo.getPreparedInsertStatement());
+            for (int i = 0; i < entries.size(); i++) {
+                PendingErrorEntry entry = entries.get(i);
+                stmt.setLong(1, entry.getTimestamp());
+                stmt.setString(2, entry.getSiddhiAppName());
+                stmt.setString(3, entry.getStreamName());
+                stmt.setString(5, entry.getCause());
+                stmt.setString(8, entry.getErrorOccurrence());
+                stmt.setString(9, entry.getEventType());
+                stmt.setString(10, entry.getErrorType());
+                setBlob(con, stmt, 4, eventsAsBytes.get(i));
+                String stackTraceHash = stackTraceHashes.get(i);
+                setBlob(con, stmt, 6, stackTraceHash != null ? toStackTraceReference(stackTraceHash) :
+                    entry.getStackTraceAsBytes());
+                setBlob(con, stmt, 7, entry.getOriginalPayloadAsBytes());
+                if (deduplicateStackTraces) {
+                    stmt.setString(11, stackTraceHash);
+                }
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            con.commit();
+            return true;
+        } catch (SQLException e) {
+            log.error("Error while saving " + entries.size() + " erroneous events to " + datasourceName, e);
+            if (con != null) {
+                try {
+                    con.rollback();
+                } catch (SQLException ex) {
+                    log.error("Unable to rollback the transaction." + ex.getMessage(), ex);
+                }
+            }
+            return false;
+        } finally {
+            DBErrorStoreUtils.cleanupConnections(stmt, con);
+        }
+    }
 
-                Blob stackTraceBlob = con.createBlob();
-                stackTraceBlob.setBytes(1, stackTraceAsBytes);
-                stmt.setBlob(6, stackTraceBlob);
+    private void setBlob(Connection con, PreparedStatement stmt, int index, byte[] bytes) throws SQLException {
+        if (databaseType.equals(POSTGRES_DATABASE_TYPE)) {
+            stmt.setBlob(index, new SerialBlob(bytes));
+        } else if (isOracleDriver) {
+            InputStream inputStream = new ByteArrayInputStream(bytes);
+            stmt.setBinaryStream(index, inputStream, bytes.length);
+        } else {
+            Blob blob = con.createBlob();
+            blob.setBytes(1, bytes);
+            stmt.setBlob(index, blob);
+        }
+    }
 
-                Blob originalPayloadBlob = con.createBlob();
-                originalPayloadBlob.setBytes(1, originalPayloadAsBytes);
-                stmt.setBlob(7, originalPayloadBlob);
+    /**
+     * Converts Java serialized events and payload strings to the compact format of {@link ErroneousEventCodec},
+     * when the format can represent them in fewer bytes.
+     */
+    private byte[] toCompactBytes(String eventType, byte[] eventAsBytes) {
+        if (eventAsBytes == null || ErroneousEventCodec.isEncoded(eventAsBytes)) {
+            return eventAsBytes;
+        }
+        switch (ErroneousEventType.valueOf(eventType)) {
+            case EVENT:
+            case EVENT_ARRAY:
+            case EVENT_LIST:
+            case PAYLOAD_STRING:
+                break;
+            default:
+                // Complex events and table records are kept as they are
+                return eventAsBytes;
+        }
+        try {
+            byte[] compactBytes = ErroneousEventCodec.encode(ErrorHandlerUtils.getAsObject(eventAsBytes));
+            if (compactBytes != null && compactBytes.length < eventAsBytes.length) {
+                return compactBytes;
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Erroneous event of type: " + eventType + " is stored as it is, since it cannot be read.",
+                    e);
             }
+        }
+        return eventAsBytes;
+    }
+
+    /**
+     * Stores the stack trace once in the table of distinct stack traces, and returns its hash, which is stored along
+     * with the entry instead. The stack trace is marked as used, so that it is not purged while the entry referring
+     * to it is being stored.
+     *
+     * @return hash of the stack trace, or null if the stack trace is to be stored along with the entry
+     */
+    private String storeStackTrace(byte[] stackTraceAsBytes) {
+        if (!deduplicateStackTraces || stackTraceAsBytes == null) {
+            return null;
+        }
+        String hash = getHash(stackTraceAsBytes);
+        return hash != null && useStackTrace(hash, stackTraceAsBytes) ? hash : null;
+    }
+
+    private static byte[] toStackTraceReference(String hash) {
+        byte[] hashAsBytes = hash.getBytes(StandardCharsets.US_ASCII);
+        byte[] reference = Arrays.copyOf(STACK_TRACE_REFERENCE_PREFIX,
+            STACK_TRACE_REFERENCE_PREFIX.length + hashAsBytes.length);
+        System.arraycopy(hashAsBytes, 0, reference, STACK_TRACE_REFERENCE_PREFIX.length, hashAsBytes.length);
+        return reference;
+    }
 
+    private boolean useStackTrace(String hash, byte[] stackTraceAsBytes) {
+        long currentTime = System.currentTimeMillis();
+        Long useTime = stackTraceUseTimes.get(hash);
+        if (useTime != null && currentTime - useTime < STACK_TRACE_USE_REFRESH_MILLIS) {
+            return true;
+        }
+        // Stored again when it is not available, as it could have been purged since it was last used
+        if (updateStackTraceLastUsed(hash, currentTime) || saveStackTrace(hash, stackTraceAsBytes, currentTime)) {
+            stackTraceUseTimes.put(hash, currentTime);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean updateStackTraceLastUsed(String hash, long lastUsed) {
+        Connection con = null;
+        PreparedStatement stmt = null;
+        try {
+            con = datasource.getConnection();
+            con.setAutoCommit(false);
+            stmt = con.prepareStatement(executionInfo.getPreparedUpdateStackTraceLastUsedStatement());
+            stmt.setLong(1, lastUsed);
+            stmt.setString(2, hash);
+            int updatedRows = stmt.executeUpdate();
+            con.commit();
+            return updatedRows > 0;
+        } catch (SQLException e) {
+            log.error("Failed to mark the stack trace with hash: " + hash + " as used in " + datasourceName, e);
+            return false;
+        } finally {
+            DBErrorStoreUtils.cleanupConnections(stmt, con);
+        }
+    }
+
+    private boolean saveStackTrace(String hash, byte[] stackTraceAsBytes, long lastUsed) {
+        Connection con = null;
+        PreparedStatement stmt = null;
+        try {
+            con = datasource.getConnection();
+            con.setAutoCommit(false);
+            stmt = con.prepareStatement(executionInfo.getPreparedInsertStackTraceStatement());
+            stmt.setString(1, hash);
+            setBlob(con, stmt, 2, stackTraceAsBytes);
+            stmt.setLong(3, lastUsed);
             stmt.executeUpdate();
             con.commit();
+            stackTraceCache.put(hash, stackTraceAsBytes);
+            return true;
         } catch (SQLException e) {
-            log.error("Error while saving to " + datasourceName, e);
+            // Another node could have stored the same stack trace meanwhile
+            if (log.isDebugEnabled()) {
+                log.debug("Failed to store the stack trace with hash: " + hash + " in " + datasourceName, e);
+            }
         } finally {
             DBErrorStoreUtils.cleanupConnections(stmt, con);
         }
+        return updateStackTraceLastUsed(hash, lastUsed);
+    }
+
+    /**
+     * Loads a stack trace through the connection which is reading the entries referring to it, instead of taking
+     * another connection from the pool for each of those entries.
+     */
+    private byte[] loadStackTrace(Connection con, String hash) {
+        byte[] stackTraceAsBytes = stackTraceCache.get(hash);
+        if (stackTraceAsBytes != null) {
+            return stackTraceAsBytes;
+        }
+        try (PreparedStatement stmt = con.prepareStatement(executionInfo.getPreparedSelectStackTraceStatement())) {
+            stmt.setString(1, hash);
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                if (resultSet.next()) {
+                    stackTraceAsBytes = getBytes(resultSet, SiddhiErrorHandlerConstants.STACK_TRACE);
+                }
+            }
+        } catch (SQLException e) {
+            log.error("Failed to load the stack trace with hash: " + hash + " from " + datasourceName, e);
+        }
+        if (stackTraceAsBytes != null) {
+            stackTraceCache.put(hash, stackTraceAsBytes);
+        }
+        return stackTraceAsBytes;
+    }
+
+    private byte[] resolveStackTrace(Connection con, byte[] stackTraceAsBytes) {
+        String hash = getReferencedHash(stackTraceAsBytes);
+        if (hash == null) {
+            return stackTraceAsBytes;
+        }
+        byte[] resolvedStackTrace = loadStackTrace(con, hash);
+        if (resolvedStackTrace == null) {
+            try {
+                return ErrorHandlerUtils.getAsBytes("Stack trace with hash: " + hash + " is unavailable.");
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return resolvedStackTrace;
+    }
+
+    private static String getReferencedHash(byte[] stackTraceAsBytes) {
+        if (stackTraceAsBytes == null || stackTraceAsBytes.length <= STACK_TRACE_REFERENCE_PREFIX.length ||
+            !Arrays.equals(Arrays.copyOf(stackTraceAsBytes, STACK_TRACE_REFERENCE_PREFIX.length),
+                STACK_TRACE_REFERENCE_PREFIX)) {
+            return null;
+        }
+        return new String(stackTraceAsBytes, STACK_TRACE_REFERENCE_PREFIX.length,
+            stackTraceAsBytes.length - STACK_TRACE_REFERENCE_PREFIX.length, StandardCharsets.US_ASCII);
+    }
+
+    private static String getHash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            char[] hash = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hash[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+                hash[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+            }
+            return new String(hash);
+        } catch (NoSuchAlgorithmException e) {
+            log.error("SHA-256 is unavailable. Hence, stack traces are not deduplicated.", e);
+            return null;
+        }
     }
 
     @Override
@@ -286,62 +696,147 @@ public class DBErrorStore extends ErrorStore {
         }
     }
 
+    @Override
+    public int loadErrorEntries(ErrorEntryFilter filter, ErrorEntryConsumer consumer) throws IOException {
+        StringBuilder conditions = new StringBuilder();
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(filter.getSiddhiAppName());
+        if (filter.getStreamName() != null) {
+            conditions.append(" AND streamName = ?");
+            parameters.add(filter.getStreamName());
+        }
+        if (filter.getErrorType() != null) {
+            conditions.append(" AND errorType = ?");
+            parameters.add(filter.getErrorType());
+        }
+        if (filter.getFromTimestamp() != null) {
+            conditions.append(" AND timestamp >= ?");
+            parameters.add(filter.getFromTimestamp());
+        }
+        if (filter.getToTimestamp() != null) {
+            conditions.append(" AND timestamp < ?");
+            parameters.add(filter.getToTimestamp());
+        }
+        if (filter.getAfterTimestamp() != null) {
+            // Seeks past the last entry of the previous page using the index, instead of skipping rows by an offset
+            conditions.append(" AND (timestamp > ? OR (timestamp = ? AND id > ?))");
+            parameters.add(filter.getAfterTimestamp());
+            parameters.add(filter.getAfterTimestamp());
+            parameters.add(filter.getAfterId());
+        }
+        parameters.add(filter.getLimit());
+        String query = filter.isDescriptive() ? executionInfo.getPreparedSelectPageStatement() :
+            executionInfo.getPreparedMinimalSelectPageStatement();
+        query = query.replace(SiddhiErrorHandlerConstants.PLACEHOLDER_CONDITIONS, conditions);
+
+        Connection con = null;
+        PreparedStatement stmt = null;
+        int count = 0;
+        List<ErrorEntry> errorEntries = new ArrayList<>(Math.min(filter.getLimit(), MAX_FETCH_SIZE));
+        try {
+            con = datasource.getConnection();
+            con.setAutoCommit(false);
+            stmt = con.prepareStatement(query);
+            stmt.setFetchSize(Math.min(filter.getLimit(), MAX_FETCH_SIZE));
+            setParameters(stmt, parameters.toArray());
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                long lastTimestamp = 0;
+                int lastId = 0;
+                while (resultSet.next()) {
+                    // Rows which cannot be converted are counted and passed, so that the page is not cut short
+                    lastTimestamp = resultSet.getLong(SiddhiErrorHandlerConstants.TIMESTAMP);
+                    lastId = resultSet.getInt(SiddhiErrorHandlerConstants.ID);
+                    count++;
+                    ErrorEntry errorEntry = toErrorEntry(con, resultSet, filter.isDescriptive());
+                    if (errorEntry != null) {
+                        errorEntries.add(errorEntry);
+                    }
+                }
+                if (count > 0) {
+                    filter.setAfter(lastTimestamp, lastId);
+                }
+            }
+            con.commit();
+        } catch (SQLException e) {
+            throw new IOException(String.format("Error while retrieving erroneous events of Siddhi app: %s from the " +
+                "datasource: %s", filter.getSiddhiAppName(), datasourceName), e);
+        } finally {
+            DBErrorStoreUtils.cleanupConnections(stmt, con);
+        }
+        // Handed over once the connection is returned to the pool, as the consumer could be writing to a slow client
+        for (ErrorEntry errorEntry : errorEntries) {
+            consumer.accept(errorEntry);
+        }
+        return count;
+    }
+
+    private static void setParameters(PreparedStatement stmt, Object... parameters) throws SQLException {
+        for (int i = 0; i < parameters.length; i++) {
+            Object parameter = parameters[i];
+            if (parameter instanceof Long) {
+                stmt.setLong(i + 1, (Long) parameter);
+            } else if (parameter instanceof Integer) {
+                stmt.setInt(i + 1, (Integer) parameter);
+            } else {
+                stmt.setString(i + 1, (String) parameter);
+            }
+        }
+    }
+
     private List<ErrorEntry> getErrorEntries(boolean isDescriptive, Connection con, PreparedStatement stmt)
         throws SQLException {
         List<ErrorEntry> errorEntries = new ArrayList<>();
         try (ResultSet resultSet = stmt.executeQuery()) {
             con.commit();
             while (resultSet.next()) {
-                Blob blobEvent;
-                Blob blobStackTrace;
-                Blob blobOriginalPayload;
-                byte[] blobEventAsBytes = null;
-                byte[] blobStackTraceAsBytes = null;
-                byte[] blobOriginalPayloadAsBytes = null;
-
-                if (isDescriptive) {
-                    if (databaseType.equals(MSSQL_DATABASE_TYPE)) {
-                        blobEvent = new SerialBlob(resultSet.getBytes(SiddhiErrorHandlerConstants.EVENT));
-                        blobStackTrace = new SerialBlob(resultSet.getBytes(SiddhiErrorHandlerConstants.STACK_TRACE));
-                        blobOriginalPayload = new SerialBlob(
-                            resultSet.getBytes(SiddhiErrorHandlerConstants.ORIGINAL_PAYLOAD));
-                    } else {
-                        blobEvent = resultSet.getBlob(SiddhiErrorHandlerConstants.EVENT);
-                        blobStackTrace = resultSet.getBlob(SiddhiErrorHandlerConstants.STACK_TRACE);
-                        blobOriginalPayload = resultSet.getBlob(SiddhiErrorHandlerConstants.ORIGINAL_PAYLOAD);
-                    }
-                    int blobEventLength = (int) blobEvent.length();
-                    blobEventAsBytes = blobEvent.getBytes(1, blobEventLength);
-
-                    int blobStackTraceLength = (int) blobStackTrace.length();
-                    blobStackTraceAsBytes = blobStackTrace.getBytes(1, blobStackTraceLength);
-
-                    int blobOriginalPayloadLength = (int) blobOriginalPayload.length();
-                    blobOriginalPayloadAsBytes = blobOriginalPayload.getBytes(1, blobOriginalPayloadLength);
-                }
-
-                try {
-                    ErrorEntry errorEntry = constructErrorEntry(
-                        resultSet.getInt(SiddhiErrorHandlerConstants.ID),
-                        resultSet.getLong(SiddhiErrorHandlerConstants.TIMESTAMP),
-                        resultSet.getString(SiddhiErrorHandlerConstants.SIDDHI_APP_NAME),
-                        resultSet.getString(SiddhiErrorHandlerConstants.STREAM_NAME),
-                        blobEventAsBytes,
-                        resultSet.getString(SiddhiErrorHandlerConstants.CAUSE),
-                        blobStackTraceAsBytes,
-                        blobOriginalPayloadAsBytes,
-                        ErrorOccurrence.valueOf(resultSet.getString(SiddhiErrorHandlerConstants.ERROR_OCCURRENCE)),
-                        ErroneousEventType.valueOf(resultSet.getString(SiddhiErrorHandlerConstants.EVENT_TYPE)),
-                        ErrorType.valueOf(resultSet.getString(SiddhiErrorHandlerConstants.ERROR_TYPE)));
+                ErrorEntry errorEntry = toErrorEntry(con, resultSet, isDescriptive);
+                if (errorEntry != null) {
                     errorEntries.add(errorEntry);
-                } catch (IOException | ClassNotFoundException e) {
-                    log.error("Failed to convert error entry. Hence, skipping the entry.", e);
                 }
             }
         }
         return errorEntries;
     }
 
+    private ErrorEntry toErrorEntry(Connection con, ResultSet resultSet, boolean isDescriptive) throws SQLException {
+        byte[] blobEventAsBytes = null;
+        byte[] blobStackTraceAsBytes = null;
+        byte[] blobOriginalPayloadAsBytes = null;
+
+        if (isDescriptive) {
+            blobEventAsBytes = getBytes(resultSet, SiddhiErrorHandlerConstants.EVENT);
+            blobStackTraceAsBytes =
+                resolveStackTrace(con, getBytes(resultSet, SiddhiErrorHandlerConstants.STACK_TRACE));
+            blobOriginalPayloadAsBytes = getBytes(resultSet, SiddhiErrorHandlerConstants.ORIGINAL_PAYLOAD);
+        }
+
+        try {
+            return constructErrorEntry(
+                resultSet.getInt(SiddhiErrorHandlerConstants.ID),
+                resultSet.getLong(SiddhiErrorHandlerConstants.TIMESTAMP),
+                resultSet.getString(SiddhiErrorHandlerConstants.SIDDHI_APP_NAME),
+                resultSet.getString(SiddhiErrorHandlerConstants.STREAM_NAME),
+                blobEventAsBytes,
+                resultSet.getString(SiddhiErrorHandlerConstants.CAUSE),
+                blobStackTraceAsBytes,
+                blobOriginalPayloadAsBytes,
+                ErrorOccurrence.valueOf(resultSet.getString(SiddhiErrorHandlerConstants.ERROR_OCCURRENCE)),
+                ErroneousEventType.valueOf(resultSet.getString(SiddhiErrorHandlerConstants.EVENT_TYPE)),
+                ErrorType.valueOf(resultSet.getString(SiddhiErrorHandlerConstants.ERROR_TYPE)));
+        } catch (IOException | ClassNotFoundException e) {
+            log.error("Failed to convert error entry. Hence, skipping the entry.", e);
+            return null;
+        }
+    }
+
+    private byte[] getBytes(ResultSet resultSet, String columnLabel) throws SQLException {
+        if (databaseType.equals(MSSQL_DATABASE_TYPE)) {
+            return resultSet.getBytes(columnLabel);
+        }
+        Blob blob = resultSet.getBlob(columnLabel);
+        return blob != null ? blob.getBytes(1, (int) blob.length()) : null;
+    }
+
     @Override
     public int getTotalErrorEntriesCount() {
         Connection con = null;
@@ -427,6 +922,39 @@ public class DBErrorStore extends ErrorStore {
         }
     }
 
+    @Override
+    public boolean discardErrorEntries(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return true;
+        }
+        Connection con = null;
+        PreparedStatement stmt = null;
+        try {
+            con = datasource.getConnection();
+            con.setAutoCommit(false);
+            stmt = con.prepareStatement(executionInfo.getPreparedDeleteStatement());
+            for (Integer id : ids) {
+                stmt.setInt(1, id);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            con.commit();
+            return true;
+        } catch (SQLException e) {
+            log.error(String.format("Failed to delete %s error entries.", ids.size()), e);
+            if (con != null) {
+                try {
+                    con.rollback();
+                } catch (SQLException ex) {
+                    log.error("Unable to rollback the transaction." + ex.getMessage(), ex);
+                }
+            }
+            return false;
+        } finally {
+            DBErrorStoreUtils.cleanupConnections(stmt, con);
+        }
+    }
+
     @Override
     public void purge(Map retentionPolicyParams) {
         if (retentionPolicyParams.containsKey(SiddhiErrorHandlerConstants.RETENTION_START_TIMESTAMP)) {
@@ -449,4 +977,164 @@ public class DBErrorStore extends ErrorStore {
         }
     }
 
+    boolean isChunkedPurgeSupported() {
+        String[] queries = {executionInfo.getPreparedPurgeChunkStatement(),
+            executionInfo.getPreparedSelectCountGroupBySiddhiAppNameStatement(),
+            executionInfo.getPreparedSelectIdAtOffsetBySiddhiAppNameStatement(),
+            executionInfo.getPreparedPurgeChunkBySiddhiAppNameStatement(),
+            executionInfo.getPreparedSelectIdAtOffsetStatement(), executionInfo.getPreparedPurgeChunkByIdStatement()};
+        for (String query : queries) {
+            if (query == null || query.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Deletes the entries older than the given timestamp, a chunk at a time.
+     *
+     * @param deletedEntries incremented as each chunk is deleted, so that it holds the entries deleted so far even if
+     *                       the purge fails part-way
+     */
+    protected void purgeEntriesOlderThan(long timestamp, int chunkSize, long pauseMillis, AtomicLong deletedEntries)
+        throws SQLException, InterruptedException {
+        deleteInChunks(executionInfo.getPreparedPurgeChunkStatement(), chunkSize, pauseMillis, deletedEntries,
+            timestamp);
+    }
+
+    /**
+     * Deletes the oldest entries of each Siddhi app which has more than the given number of entries, a chunk at a
+     * time.
+     *
+     * @param deletedEntries incremented as each chunk is deleted, so that it holds the entries deleted so far even if
+     *                       the purge fails part-way
+     */
+    protected void purgeExcessEntriesOfSiddhiApps(int maxEntries, int chunkSize, long pauseMillis,
+                                                  AtomicLong deletedEntries) throws SQLException, InterruptedException {
+        for (Map.Entry<String, Integer> entriesCount : getErrorEntriesCounts().entrySet()) {
+            if (entriesCount.getValue() > maxEntries) {
+                // Id of the latest entry among the ones beyond the allowed number, which is deleted with the older ones
+                Integer lastId = selectId(executionInfo.getPreparedSelectIdAtOffsetBySiddhiAppNameStatement(),
+                    entriesCount.getKey(), maxEntries);
+                if (lastId != null) {
+                    deleteInChunks(executionInfo.getPreparedPurgeChunkBySiddhiAppNameStatement(), chunkSize,
+                        pauseMillis, deletedEntries, entriesCount.getKey(), lastId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the oldest entries beyond the given number of entries, a chunk at a time.
+     *
+     * @param deletedEntries incremented as each chunk is deleted, so that it holds the entries deleted so far even if
+     *                       the purge fails part-way
+     */
+    protected void purgeExcessEntries(int maxEntries, int chunkSize, long pauseMillis, AtomicLong deletedEntries)
+        throws SQLException, InterruptedException {
+        Integer lastId = selectId(executionInfo.getPreparedSelectIdAtOffsetStatement(), maxEntries);
+        if (lastId != null) {
+            deleteInChunks(executionInfo.getPreparedPurgeChunkByIdStatement(), chunkSize, pauseMillis, deletedEntries,
+                lastId);
+        }
+    }
+
+    /**
+     * Deletes the stack traces which are no longer referred to by any entry. Only the stack traces which have not
+     * been used for a while are deleted, so that the ones referred to by the entries being stored meanwhile are
+     * retained.
+     *
+     * @return number of stack traces deleted
+     */
+    protected long purgeUnusedStackTraces() throws SQLException {
+        String purgeQuery = executionInfo.getPreparedPurgeUnusedStackTracesStatement();
+        if (!deduplicateStackTraces || purgeQuery == null || purgeQuery.isEmpty()) {
+            return 0;
+        }
+        Connection con = null;
+        PreparedStatement stmt = null;
+        try {
+            con = datasource.getConnection();
+            con.setAutoCommit(false);
+            stmt = con.prepareStatement(purgeQuery);
+            stmt.setLong(1, System.currentTimeMillis() - UNUSED_STACK_TRACE_RETENTION_MILLIS);
+            int deletedStackTraces = stmt.executeUpdate();
+            con.commit();
+            return deletedStackTraces;
+        } finally {
+            DBErrorStoreUtils.cleanupConnections(stmt, con);
+        }
+    }
+
+    private Map<String, Integer> getErrorEntriesCounts() throws SQLException {
+        Map<String, Integer> entriesCounts = new LinkedHashMap<>();
+        Connection con = null;
+        PreparedStatement stmt = null;
+        try {
+            con = datasource.getConnection();
+            con.setAutoCommit(false);
+            stmt = con.prepareStatement(executionInfo.getPreparedSelectCountGroupBySiddhiAppNameStatement());
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                while (resultSet.next()) {
+                    entriesCounts.put(resultSet.getString(SiddhiErrorHandlerConstants.SIDDHI_APP_NAME),
+                        resultSet.getInt(SiddhiErrorHandlerConstants.ENTRIES_COUNT));
+                }
+            }
+            con.commit();
+            return entriesCounts;
+        } finally {
+            DBErrorStoreUtils.cleanupConnections(stmt, con);
+        }
+    }
+
+    private Integer selectId(String query, Object... parameters) throws SQLException {
+        Connection con = null;
+        PreparedStatement stmt = null;
+        try {
+            con = datasource.getConnection();
+            con.setAutoCommit(false);
+            stmt = con.prepareStatement(query);
+            setParameters(stmt, parameters);
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                Integer id = resultSet.next() ? resultSet.getInt(SiddhiErrorHandlerConstants.ID) : null;
+                con.commit();
+                return id;
+            }
+        } finally {
+            DBErrorStoreUtils.cleanupConnections(stmt, con);
+        }
+    }
+
+    /**
+     * Executes the given delete query repeatedly, in a transaction of its own each time, until it deletes fewer
+     * entries than the chunk size. The chunk size is bound as the last parameter of the query.
+     */
+    private void deleteInChunks(String query, int chunkSize, long pauseMillis, AtomicLong deletedEntries,
+                                Object... parameters) throws SQLException, InterruptedException {
+        Object[] chunkParameters = Arrays.copyOf(parameters, parameters.length + 1);
+        chunkParameters[parameters.length] = chunkSize;
+        while (true) {
+            int deletedChunkEntries;
+            Connection con = null;
+            PreparedStatement stmt = null;
+            try {
+                con = datasource.getConnection();
+                con.setAutoCommit(false);
+                stmt = con.prepareStatement(query);
+                setParameters(stmt, chunkParameters);
+                deletedChunkEntries = stmt.executeUpdate();
+                con.commit();
+            } finally {
+                DBErrorStoreUtils.cleanupConnections(stmt, con);
+            }
+            deletedEntries.addAndGet(deletedChunkEntries);
+            if (deletedChunkEntries < chunkSize) {
+                return;
+            }
+            if (pauseMillis > 0) {
+                Thread.sleep(pauseMillis);
+            }
+        }
+    }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.siddhi.error.handler;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.siddhi.core.util.SiddhiConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.Counter;
+import org.wso2.carbon.metrics.core.Histogram;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.si.metrics.core.internal.MetricsDataHolder;
+import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.internal.util.SiddhiAppProcessorConstants;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Purges the {@link DBErrorStore} periodically in the background, by the age of the entries, by the number of entries
+ * of each Siddhi app and by the total number of entries, and then deletes the stack traces which are no longer referred
+ * to by any entry. Entries are deleted in chunks with a pause in between, so that each transaction holds its locks
+ * only briefly and the erroneous events being saved are not held back.
+ */
+public class DBErrorStorePurger {
+    private static final Logger log = LoggerFactory.getLogger(DBErrorStorePurger.class);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private DBErrorStore errorStore;
+    private long retentionMillis;
+    private int maxEntriesPerSiddhiApp;
+    private int maxEntries;
+    private int chunkSize;
+    private long pauseMillis;
+    private ScheduledExecutorService executorService;
+    private Counter purgedEntriesCounter;
+    private Histogram purgeDurationHistogram;
+
+    /**
+     * @param errorStore             error store to be purged
+     * @param intervalMinutes        interval between two purges
+     * @param retentionDays          number of days the entries are retained, or 0 to not purge by age
+     * @param maxEntriesPerSiddhiApp number of entries retained per Siddhi app, or 0 to not purge by Siddhi app
+     * @param maxEntries             total number of entries retained, or 0 to not purge by the total
+     * @param chunkSize              maximum number of entries deleted in a single transaction
+     * @param pauseMillis            time to pause between deleting two chunks
+     */
+    public DBErrorStorePurger(DBErrorStore errorStore, long intervalMinutes, int retentionDays,
+                              int maxEntriesPerSiddhiApp, int maxEntries, int chunkSize, long pauseMillis) {
+        this.errorStore = errorStore;
+        this.retentionMillis = TimeUnit.DAYS.toMillis(retentionDays);
+        this.maxEntriesPerSiddhiApp = maxEntriesPerSiddhiApp;
+        this.maxEntries = maxEntries;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        if (StreamProcessorDataHolder.isStatisticsEnabled()) {
+            MetricService metricService = MetricsDataHolder.getInstance().getMetricService();
+            purgedEntriesCounter = metricService.counter(
+                    getMetricName(SiddhiAppProcessorConstants.ERROR_STORE_METRICS_PURGED_ENTRIES), Level.INFO);
+            purgeDurationHistogram = metricService.histogram(
+                    getMetricName(SiddhiAppProcessorConstants.ERROR_STORE_METRICS_PURGE_DURATION), Level.INFO);
+        }
+        executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("DBErrorStorePurger-%d").setDaemon(true).build());
+        executorService.scheduleWithFixedDelay(this::purge, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops purging, interrupting a purge in progress once its current chunk is deleted.
+     */
+    public void shutdown() {
+        executorService.shutdownNow();
+        try {
+            executorService.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Purges the error store once. Failures are logged rather than thrown, as a scheduled purge which throws is never
+     * run again, and the entries deleted before a failure are reported along with those of a complete purge.
+     */
+    public void purge() {
+        long startTime = System.currentTimeMillis();
+        AtomicLong purgedByAge = new AtomicLong();
+        AtomicLong purgedBySiddhiApp = new AtomicLong();
+        AtomicLong purgedByTotal = new AtomicLong();
+        long purgedStackTraces = 0;
+        try {
+            if (retentionMillis > 0) {
+                errorStore.purgeEntriesOlderThan(startTime - retentionMillis, chunkSize, pauseMillis, purgedByAge);
+            }
+            if (maxEntriesPerSiddhiApp > 0) {
+                errorStore.purgeExcessEntriesOfSiddhiApps(maxEntriesPerSiddhiApp, chunkSize, pauseMillis,
+                        purgedBySiddhiApp);
+            }
+            if (maxEntries > 0) {
+                errorStore.purgeExcessEntries(maxEntries, chunkSize, pauseMillis, purgedByTotal);
+            }
+            purgedStackTraces = errorStore.purgeUnusedStackTraces();
+        } catch (SQLException | RuntimeException e) {
+            log.error("Error while purging the error store", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long duration = System.currentTimeMillis() - startTime;
+        long purgedEntries = purgedByAge.get() + purgedBySiddhiApp.get() + purgedByTotal.get();
+        if (purgedEntries > 0 || purgedStackTraces > 0) {
+            log.info("Purged " + purgedEntries + " entries from the error store in " + duration + " ms (by age: " +
+                    purgedByAge + ", by Siddhi app: " + purgedBySiddhiApp + ", by total: " + purgedByTotal +
+                    ") and " + purgedStackTraces + " stack traces no longer referred to");
+        } else if (log.isDebugEnabled()) {
+            log.debug("No entries were purged from the error store. Purge took " + duration + " ms");
+        }
+        if (purgedEntriesCounter != null) {
+            purgedEntriesCounter.inc(purgedEntries);
+            purgeDurationHistogram.update(duration);
+        }
+    }
+
+    private static String getMetricName(String name) {
+        return SiddhiAppProcessorConstants.ERROR_STORE_METRICS_PREFIX + SiddhiConstants.METRIC_DELIMITER + name;
+    }
+}
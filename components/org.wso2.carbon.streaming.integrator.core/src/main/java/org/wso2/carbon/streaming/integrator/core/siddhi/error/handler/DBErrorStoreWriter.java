@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.siddhi.error.handler;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.siddhi.core.util.SiddhiConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.Counter;
+import org.wso2.carbon.metrics.core.Gauge;
+import org.wso2.carbon.metrics.core.Histogram;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.si.metrics.core.internal.MetricsDataHolder;
+import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.internal.util.SiddhiAppProcessorConstants;
+import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.dto.PendingErrorEntry;
+import org.wso2.carbon.streaming.integrator.core.util.SpillFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the erroneous events to the {@link DBErrorStore} in the background, so that the thread which processed the
+ * event does not wait for the database. Events are buffered in a bounded queue, and written in batches once a batch
+ * is full or the flush interval elapses. When the queue is full, events are spilled to a file if a spill directory is
+ * configured, or dropped otherwise. Events which are not written before shutting down are kept in the spill file, and
+ * are written once restarted.
+ */
+public class DBErrorStoreWriter {
+    private static final Logger log = LoggerFactory.getLogger(DBErrorStoreWriter.class);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30000;
+    private static final String SPILL_FILE_NAME = "error-store";
+    private static final int MAX_FAILED_ATTEMPTS = 5;
+
+    private DBErrorStore errorStore;
+    private BlockingQueue<PendingErrorEntry> pendingEntries;
+    private SpillFile spillFile;
+    private int batchSize;
+    private long flushIntervalMillis;
+    private ExecutorService executorService;
+    private volatile boolean running = true;
+    private volatile List<PendingErrorEntry> interruptedBatch = Collections.emptyList();
+    private Histogram flushDurationHistogram;
+    private Counter droppedEntriesCounter;
+
+    public DBErrorStoreWriter(DBErrorStore errorStore, int queueCapacity, int batchSize, long flushIntervalMillis,
+                              String spillDirectory) {
+        this.errorStore = errorStore;
+        this.pendingEntries = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        if (spillDirectory != null) {
+            try {
+                spillFile = new SpillFile(new File(spillDirectory), SPILL_FILE_NAME);
+            } catch (IOException e) {
+                log.error("Cannot create the spill file of the error store in '" + spillDirectory + "'. Hence " +
+                        "erroneous events will be dropped when the error store queue is full", e);
+            }
+            if (spillFile != null) {
+                appendRetainedSpillFiles();
+            }
+        }
+        if (StreamProcessorDataHolder.isStatisticsEnabled()) {
+            MetricService metricService = MetricsDataHolder.getInstance().getMetricService();
+            metricService.gauge(getMetricName(SiddhiAppProcessorConstants.ERROR_STORE_METRICS_QUEUE_SIZE),
+                    Level.INFO, new Gauge<Integer>() {
+                        @Override
+                        public Integer getValue() {
+                            return pendingEntries.size();
+                        }
+                    });
+            flushDurationHistogram = metricService.histogram(
+                    getMetricName(SiddhiAppProcessorConstants.ERROR_STORE_METRICS_FLUSH_DURATION), Level.INFO);
+            droppedEntriesCounter = metricService.counter(
+                    getMetricName(SiddhiAppProcessorConstants.ERROR_STORE_METRICS_DROPPED_ENTRIES), Level.INFO);
+        }
+        executorService = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("DBErrorStoreWriter-%d").setDaemon(true).build());
+        executorService.execute(this::writeEntries);
+    }
+
+    /**
+     * Adds the entry to be written to the error store, without waiting for the database.
+     *
+     * @param entry erroneous event
+     */
+    public void add(PendingErrorEntry entry) {
+        // Once events are spilled, the following events are spilled as well to keep them in order
+        if ((spillFile == null || spillFile.isEmpty()) && pendingEntries.offer(entry)) {
+            return;
+        }
+        if (spillFile != null) {
+            try {
+                spillFile.write(entry.toBytes());
+                return;
+            } catch (IOException e) {
+                log.error("Error while spilling the erroneous event of Siddhi app: " + entry.getSiddhiAppName(), e);
+            }
+        }
+        drop(1);
+    }
+
+    /**
+     * Writes the buffered entries and stops the writer. Entries which cannot be written are kept in the spill file
+     * if a spill directory is configured, and dropped otherwise.
+     */
+    public void shutdown() {
+        running = false;
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                executorService.shutdownNow();
+                // The batch being collected when interrupted is handed over through interruptedBatch
+                executorService.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingErrorEntry> unwrittenEntries = new ArrayList<>(interruptedBatch);
+        pendingEntries.drainTo(unwrittenEntries);
+        if (spillFile == null) {
+            if (!unwrittenEntries.isEmpty()) {
+                log.warn("Dropped " + unwrittenEntries.size() + " erroneous events which were not written to the " +
+                        "error store before shutting down");
+                countDropped(unwrittenEntries.size());
+            }
+            return;
+        }
+        spill(unwrittenEntries);
+        if (spillFile.isEmpty()) {
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                log.error("Error while closing the spill file of the error store", e);
+            }
+            return;
+        }
+        int spilledEntries = spillFile.getMessageCount();
+        try {
+            File retainedFile = spillFile.retain();
+            log.warn("Kept " + spilledEntries + " erroneous events which were not written to the error store " +
+                    "before shutting down in '" + retainedFile.getAbsolutePath() + "'. They will be written once " +
+                    "restarted");
+        } catch (IOException e) {
+            log.error("Error while keeping " + spilledEntries + " erroneous events which were not written to the " +
+                    "error store before shutting down", e);
+        }
+    }
+
+    private void writeEntries() {
+        List<PendingErrorEntry> batch = new ArrayList<>(batchSize);
+        boolean isWritten = true;
+        while (running || (isWritten && !isEmpty())) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                interruptedBatch = batch;
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!batch.isEmpty()) {
+                isWritten = flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collectBatch(List<PendingErrorEntry> batch) throws InterruptedException {
+        pendingEntries.drainTo(batch, batchSize);
+        readSpilledEntries(batch);
+        long deadline = System.currentTimeMillis() + flushIntervalMillis;
+        while (running && batch.size() < batchSize) {
+            long remainingTime = deadline - System.currentTimeMillis();
+            if (remainingTime <= 0) {
+                break;
+            }
+            PendingErrorEntry entry = pendingEntries.poll(remainingTime, TimeUnit.MILLISECONDS);
+            if (entry == null) {
+                break;
+            }
+            batch.add(entry);
+            pendingEntries.drainTo(batch, batchSize - batch.size());
+        }
+    }
+
+    private void readSpilledEntries(List<PendingErrorEntry> batch) {
+        if (spillFile == null) {
+            return;
+        }
+        try {
+            byte[] spilledEntry;
+            while (batch.size() < batchSize && (spilledEntry = spillFile.read()) != null) {
+                batch.add(PendingErrorEntry.fromBytes(spilledEntry));
+            }
+        } catch (IOException e) {
+            log.error("Error while reading the erroneous events spilled by the error store", e);
+        }
+    }
+
+    private boolean flush(List<PendingErrorEntry> batch) {
+        long startTime = System.currentTimeMillis();
+        boolean isSaved = errorStore.saveEntries(batch);
+        if (flushDurationHistogram != null) {
+            flushDurationHistogram.update(System.currentTimeMillis() - startTime);
+        }
+        if (isSaved) {
+            return true;
+        }
+        List<PendingErrorEntry> failedEntries = batch.size() > 1 ? saveEachEntry(batch) : batch;
+        if (failedEntries.isEmpty()) {
+            return true;
+        }
+        List<PendingErrorEntry> retriedEntries = failedEntries;
+        if (failedEntries.size() < batch.size()) {
+            // The store accepted the other entries, hence these entries are retried only a few times
+            retriedEntries = new ArrayList<>(failedEntries.size());
+            for (PendingErrorEntry entry : failedEntries) {
+                entry.incrementFailedAttempts();
+                if (entry.getFailedAttempts() < MAX_FAILED_ATTEMPTS) {
+                    retriedEntries.add(entry);
+                } else {
+                    discard(entry);
+                }
+            }
+        }
+        if (spillFile == null) {
+            drop(retriedEntries.size());
+        } else {
+            // Retried in the next flushes, or kept in the spill file when shutting down. The queued entries are spilled
+            // after them, as they are newer than the retried entries and older than the ones already spilled
+            List<PendingErrorEntry> unwrittenEntries = new ArrayList<>(retriedEntries);
+            pendingEntries.drainTo(unwrittenEntries);
+            spill(unwrittenEntries);
+            if (running) {
+                try {
+                    Thread.sleep(flushIntervalMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Saves the entries of a failed batch one by one, so that an entry which cannot be saved does not fail the others.
+     * Stops once the first two entries fail, as the store is then most likely unavailable.
+     *
+     * @return entries which are not saved
+     */
+    private List<PendingErrorEntry> saveEachEntry(List<PendingErrorEntry> batch) {
+        List<PendingErrorEntry> failedEntries = new ArrayList<>();
+        boolean isAnySaved = false;
+        for (int i = 0; i < batch.size(); i++) {
+            if (errorStore.saveEntries(Collections.singletonList(batch.get(i)))) {
+                isAnySaved = true;
+            } else {
+                failedEntries.add(batch.get(i));
+                if (!isAnySaved && failedEntries.size() == 2) {
+                    failedEntries.addAll(batch.subList(i + 1, batch.size()));
+                    break;
+                }
+            }
+        }
+        return failedEntries;
+    }
+
+    /**
+     * Spills the given entries ahead of the entries already spilled, which are newer.
+     */
+    private void spill(List<PendingErrorEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<byte[]> spilledEntries = new ArrayList<>(entries.size());
+        for (PendingErrorEntry entry : entries) {
+            try {
+                spilledEntries.add(entry.toBytes());
+            } catch (IOException e) {
+                log.error("Error while spilling the erroneous event of Siddhi app: " + entry.getSiddhiAppName(), e);
+            }
+        }
+        try {
+            spillFile.writeFirst(spilledEntries);
+        } catch (IOException e) {
+            log.error("Error while spilling " + spilledEntries.size() + " erroneous events of the error store", e);
+            spilledEntries.clear();
+        }
+        drop(entries.size() - spilledEntries.size());
+    }
+
+    private void appendRetainedSpillFiles() {
+        File currentFile = spillFile.getFile();
+        File[] retainedFiles = currentFile.getParentFile().listFiles((directory, name) ->
+                name.startsWith(SPILL_FILE_NAME + "-") && name.endsWith(".spill") &&
+                        !name.equals(currentFile.getName()));
+        if (retainedFiles == null) {
+            return;
+        }
+        for (File retainedFile : retainedFiles) {
+            try {
+                int appendedEntries = spillFile.append(retainedFile);
+                log.info("Writing " + appendedEntries + " erroneous events which were kept in '" +
+                        retainedFile.getAbsolutePath() + "' when shutting down");
+            } catch (IOException e) {
+                log.error("Error while reading the erroneous events kept in '" + retainedFile.getAbsolutePath() +
+                        "' when shutting down", e);
+            }
+        }
+    }
+
+    private void discard(PendingErrorEntry entry) {
+        log.error("Discarded the erroneous event of Siddhi app: " + entry.getSiddhiAppName() + ", stream: " +
+                entry.getStreamName() + " which occurred at " + entry.getTimestamp() + " with the cause: " +
+                entry.getCause() + ", as it could not be written to the error store after " +
+                entry.getFailedAttempts() + " attempts");
+        countDropped(1);
+    }
+
+    private boolean isEmpty() {
+        return pendingEntries.isEmpty() && (spillFile == null || spillFile.isEmpty());
+    }
+
+    private void drop(int count) {
+        if (count <= 0) {
+            return;
+        }
+        log.warn("Dropped " + count + " erroneous events which could not be written to the error store");
+        countDropped(count);
+    }
+
+    private void countDropped(int count) {
+        if (droppedEntriesCounter != null) {
+            droppedEntriesCounter.inc(count);
+        }
+    }
+
+    private static String getMetricName(String name) {
+        return SiddhiAppProcessorConstants.ERROR_STORE_METRICS_PREFIX + SiddhiConstants.METRIC_DELIMITER + name;
+    }
+}
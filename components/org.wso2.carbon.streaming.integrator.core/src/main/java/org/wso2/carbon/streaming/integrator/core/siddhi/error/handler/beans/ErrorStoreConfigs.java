@@ -28,6 +28,16 @@ public class ErrorStoreConfigs {
     private String table = "SIDDHI_ERROR_STORE_TABLE";
     @Element(description = "Database query map")
     private List<Queries> queries;
+    @Element(description = "Configurations of writing erroneous events in the background", required = false)
+    private WriteBehindConfigs writeBehind = new WriteBehindConfigs();
+    @Element(description = "Store events and payload strings in a compact binary format instead of Java " +
+        "serialization, when they are written in the background", required = false)
+    private boolean compactEvents = false;
+    @Element(description = "Store each distinct stack trace once, instead of along with every error entry",
+        required = false)
+    private boolean deduplicateStackTraces = false;
+    @Element(description = "Configurations of periodically purging the error store", required = false)
+    private PurgeConfigs purge = new PurgeConfigs();
 
     public String getDatasource() {
         return datasource;
@@ -52,4 +62,36 @@ public class ErrorStoreConfigs {
     public void setQueries(List<Queries> queries) {
         this.queries = queries;
     }
+
+    public WriteBehindConfigs getWriteBehind() {
+        return writeBehind;
+    }
+
+    public void setWriteBehind(WriteBehindConfigs writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    public boolean isCompactEvents() {
+        return compactEvents;
+    }
+
+    public void setCompactEvents(boolean compactEvents) {
+        this.compactEvents = compactEvents;
+    }
+
+    public boolean isDeduplicateStackTraces() {
+        return deduplicateStackTraces;
+    }
+
+    public void setDeduplicateStackTraces(boolean deduplicateStackTraces) {
+        this.deduplicateStackTraces = deduplicateStackTraces;
+    }
+
+    public PurgeConfigs getPurge() {
+        return purge;
+    }
+
+    public void setPurge(PurgeConfigs purge) {
+        this.purge = purge;
+    }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.beans;
+
+import org.wso2.carbon.config.annotation.Element;
+
+/**
+ * Bean class for the configurations of periodically purging the error store.
+ */
+public class PurgeConfigs {
+    @Element(description = "Enables periodically purging the error store in the background", required = false)
+    private boolean enabled = false;
+    @Element(description = "Interval in minutes between two purges", required = false)
+    private long intervalMinutes = 60;
+    @Element(description = "Number of days the error entries are retained. Entries are not purged by their age " +
+            "if this is 0", required = false)
+    private int retentionDays = 0;
+    @Element(description = "Maximum number of error entries retained per Siddhi app, which are the latest ones. " +
+            "Entries are not purged by their count per Siddhi app if this is 0", required = false)
+    private int maxEntriesPerSiddhiApp = 0;
+    @Element(description = "Maximum number of error entries retained in the error store, which bounds its size. " +
+            "Entries are not purged by their total count if this is 0", required = false)
+    private int maxEntries = 0;
+    @Element(description = "Maximum number of error entries deleted in a single transaction", required = false)
+    private int chunkSize = 1000;
+    @Element(description = "Time in milliseconds to pause between deleting two chunks, which gives way to the " +
+            "erroneous events being saved", required = false)
+    private long pauseMillis = 100;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getIntervalMinutes() {
+        return intervalMinutes;
+    }
+
+    public void setIntervalMinutes(long intervalMinutes) {
+        this.intervalMinutes = intervalMinutes;
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    public void setRetentionDays(int retentionDays) {
+        this.retentionDays = retentionDays;
+    }
+
+    public int getMaxEntriesPerSiddhiApp() {
+        return maxEntriesPerSiddhiApp;
+    }
+
+    public void setMaxEntriesPerSiddhiApp(int maxEntriesPerSiddhiApp) {
+        this.maxEntriesPerSiddhiApp = maxEntriesPerSiddhiApp;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public long getPauseMillis() {
+        return pauseMillis;
+    }
+
+    public void setPauseMillis(long pauseMillis) {
+        this.pauseMillis = pauseMillis;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.beans;
+
+import org.wso2.carbon.config.annotation.Element;
+
+/**
+ * Bean class for the configurations of writing erroneous events to the error store in the background.
+ */
+public class WriteBehindConfigs {
+    @Element(description = "Enables writing erroneous events to the error store in batches in the background",
+            required = false)
+    private boolean enabled = false;
+    @Element(description = "Maximum number of erroneous events buffered to be written", required = false)
+    private int queueCapacity = 10000;
+    @Element(description = "Maximum number of erroneous events written in a single batch", required = false)
+    private int batchSize = 500;
+    @Element(description = "Maximum time in milliseconds an erroneous event is buffered before it is written",
+            required = false)
+    private long flushIntervalMillis = 1000;
+    @Element(description = "Directory used to spill erroneous events when the buffer is full. Events are dropped " +
+            "when the buffer is full if this is not set", required = false)
+    private String spillDirectory;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public String getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    public void setSpillDirectory(String spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.dto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Erroneous event waiting to be written to the error store.
+ */
+public class PendingErrorEntry {
+    private long timestamp;
+    private String siddhiAppName;
+    private String streamName;
+    private byte[] eventAsBytes;
+    private String cause;
+    private byte[] stackTraceAsBytes;
+    private byte[] originalPayloadAsBytes;
+    private String errorOccurrence;
+    private String eventType;
+    private String errorType;
+    private int failedAttempts = 0;
+
+    public PendingErrorEntry(long timestamp, String siddhiAppName, String streamName, byte[] eventAsBytes,
+                             String cause, byte[] stackTraceAsBytes, byte[] originalPayloadAsBytes,
+                             String errorOccurrence, String eventType, String errorType) {
+        this.timestamp = timestamp;
+        this.siddhiAppName = siddhiAppName;
+        this.streamName = streamName;
+        this.eventAsBytes = eventAsBytes;
+        this.cause = cause;
+        this.stackTraceAsBytes = stackTraceAsBytes;
+        this.originalPayloadAsBytes = originalPayloadAsBytes;
+        this.errorOccurrence = errorOccurrence;
+        this.eventType = eventType;
+        this.errorType = errorType;
+    }
+
+    public static PendingErrorEntry fromBytes(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        PendingErrorEntry entry = new PendingErrorEntry(in.readLong(), readString(in), readString(in), readBytes(in),
+                readString(in), readBytes(in), readBytes(in), readString(in), readString(in), readString(in));
+        entry.failedAttempts = in.readInt();
+        return entry;
+    }
+
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(timestamp);
+        writeString(out, siddhiAppName);
+        writeString(out, streamName);
+        writeBytes(out, eventAsBytes);
+        writeString(out, cause);
+        writeBytes(out, stackTraceAsBytes);
+        writeBytes(out, originalPayloadAsBytes);
+        writeString(out, errorOccurrence);
+        writeString(out, eventType);
+        writeString(out, errorType);
+        out.writeInt(failedAttempts);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getSiddhiAppName() {
+        return siddhiAppName;
+    }
+
+    public String getStreamName() {
+        return streamName;
+    }
+
+    public byte[] getEventAsBytes() {
+        return eventAsBytes;
+    }
+
+    public String getCause() {
+        return cause;
+    }
+
+    public byte[] getStackTraceAsBytes() {
+        return stackTraceAsBytes;
+    }
+
+    public byte[] getOriginalPayloadAsBytes() {
+        return originalPayloadAsBytes;
+    }
+
+    public String getErrorOccurrence() {
+        return errorOccurrence;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getErrorType() {
+        return errorType;
+    }
+
+    /**
+     * @return number of times the entry could not be written to the error store, while other entries could be
+     */
+    public int getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    public void incrementFailedAttempts() {
+        failedAttempts++;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] value = readBytes(in);
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        in.readFully(value);
+        return value;
+    }
+}
@@ -36,6 +36,26 @@ public class RDBMSQueryConfigurationEntry {
     private String deleteQuery;
     private String deleteBySiddhiAppNameQuery;
     private String purgeQuery;
+    private String selectPageQuery;
+    private String minimalSelectPageQuery;
+    private String createAppTimestampIndexQuery;
+    private String createAppStreamIndexQuery;
+    private String isStackTraceTableExistQuery;
+    private String createStackTraceTableQuery;
+    private String insertStackTraceQuery;
+    private String selectStackTraceQuery;
+    private String updateStackTraceLastUsedQuery;
+    private String isStackTraceHashColumnExistQuery;
+    private String addStackTraceHashColumnQuery;
+    private String createStackTraceHashIndexQuery;
+    private String insertWithStackTraceHashQuery;
+    private String purgeUnusedStackTracesQuery;
+    private String purgeChunkQuery;
+    private String selectCountGroupBySiddhiAppNameQuery;
+    private String selectIdAtOffsetBySiddhiAppNameQuery;
+    private String purgeChunkBySiddhiAppNameQuery;
+    private String selectIdAtOffsetQuery;
+    private String purgeChunkByIdQuery;
 
     public String getDatabaseName() {
         return databaseName;
@@ -141,6 +161,118 @@ public class RDBMSQueryConfigurationEntry {
         this.purgeQuery = purgeQuery;
     }
 
+    public String getSelectPageQuery() {
+        return selectPageQuery;
+    }
+
+    public void setSelectPageQuery(String selectPageQuery) {
+        this.selectPageQuery = selectPageQuery;
+    }
+
+    public String getMinimalSelectPageQuery() {
+        return minimalSelectPageQuery;
+    }
+
+    public void setMinimalSelectPageQuery(String minimalSelectPageQuery) {
+        this.minimalSelectPageQuery = minimalSelectPageQuery;
+    }
+
+    public String getCreateAppTimestampIndexQuery() {
+        return createAppTimestampIndexQuery;
+    }
+
+    public void setCreateAppTimestampIndexQuery(String createAppTimestampIndexQuery) {
+        this.createAppTimestampIndexQuery = createAppTimestampIndexQuery;
+    }
+
+    public String getCreateAppStreamIndexQuery() {
+        return createAppStreamIndexQuery;
+    }
+
+    public void setCreateAppStreamIndexQuery(String createAppStreamIndexQuery) {
+        this.createAppStreamIndexQuery = createAppStreamIndexQuery;
+    }
+
+    public String getIsStackTraceTableExistQuery() {
+        return isStackTraceTableExistQuery;
+    }
+
+    public void setIsStackTraceTableExistQuery(String isStackTraceTableExistQuery) {
+        this.isStackTraceTableExistQuery = isStackTraceTableExistQuery;
+    }
+
+    public String getCreateStackTraceTableQuery() {
+        return createStackTraceTableQuery;
+    }
+
+    public void setCreateStackTraceTableQuery(String createStackTraceTableQuery) {
+        this.createStackTraceTableQuery = createStackTraceTableQuery;
+    }
+
+    public String getInsertStackTraceQuery() {
+        return insertStackTraceQuery;
+    }
+
+    public void setInsertStackTraceQuery(String insertStackTraceQuery) {
+        this.insertStackTraceQuery = insertStackTraceQuery;
+    }
+
+    public String getSelectStackTraceQuery() {
+        return selectStackTraceQuery;
+    }
+
+    public void setSelectStackTraceQuery(String selectStackTraceQuery) {
+        this.selectStackTraceQuery = selectStackTraceQuery;
+    }
+
+    public String getUpdateStackTraceLastUsedQuery() {
+        return updateStackTraceLastUsedQuery;
+    }
+
+    public void setUpdateStackTraceLastUsedQuery(String updateStackTraceLastUsedQuery) {
+        this.updateStackTraceLastUsedQuery = updateStackTraceLastUsedQuery;
+    }
+
+    public String getIsStackTraceHashColumnExistQuery() {
+        return isStackTraceHashColumnExistQuery;
+    }
+
+    public void setIsStackTraceHashColumnExistQuery(String isStackTraceHashColumnExistQuery) {
+        this.isStackTraceHashColumnExistQuery = isStackTraceHashColumnExistQuery;
+    }
+
+    public String getAddStackTraceHashColumnQuery() {
+        return addStackTraceHashColumnQuery;
+    }
+
+    public void setAddStackTraceHashColumnQuery(String addStackTraceHashColumnQuery) {
+        this.addStackTraceHashColumnQuery = addStackTraceHashColumnQuery;
+    }
+
+    public String getCreateStackTraceHashIndexQuery() {
+        return createStackTraceHashIndexQuery;
+    }
+
+    public void setCreateStackTraceHashIndexQuery(String createStackTraceHashIndexQuery) {
+        this.createStackTraceHashIndexQuery = createStackTraceHashIndexQuery;
+    }
+
+    public String getInsertWithStackTraceHashQuery() {
+        return insertWithStackTraceHashQuery;
+    }
+
+    public void setInsertWithStackTraceHashQuery(String insertWithStackTraceHashQuery) {
+        this.insertWithStackTraceHashQuery = insertWithStackTraceHashQuery;
+    }
+
+    public String getPurgeUnusedStackTracesQuery() {
+        return purgeUnusedStackTracesQuery;
+    }
+
+    public void setPurgeUnusedStackTracesQuery(String purgeUnusedStackTracesQuery) {
+        this.purgeUnusedStackTracesQuery = purgeUnusedStackTracesQuery;
+    }
+
     public String getDeleteBySiddhiAppNameQuery() {
         return deleteBySiddhiAppNameQuery;
     }
@@ -148,4 +280,52 @@ public class RDBMSQueryConfigurationEntry {
     public void setDeleteBySiddhiAppNameQuery(String deleteBySiddhiAppNameQuery) {
         this.deleteBySiddhiAppNameQuery = deleteBySiddhiAppNameQuery;
     }
+
+    public String getPurgeChunkQuery() {
+        return purgeChunkQuery;
+    }
+
+    public void setPurgeChunkQuery(String purgeChunkQuery) {
+        this.purgeChunkQuery = purgeChunkQuery;
+    }
+
+    public String getSelectCountGroupBySiddhiAppNameQuery() {
+        return selectCountGroupBySiddhiAppNameQuery;
+    }
+
+    public void setSelectCountGroupBySiddhiAppNameQuery(String selectCountGroupBySiddhiAppNameQuery) {
+        this.selectCountGroupBySiddhiAppNameQuery = selectCountGroupBySiddhiAppNameQuery;
+    }
+
+    public String getSelectIdAtOffsetBySiddhiAppNameQuery() {
+        return selectIdAtOffsetBySiddhiAppNameQuery;
+    }
+
+    public void setSelectIdAtOffsetBySiddhiAppNameQuery(String selectIdAtOffsetBySiddhiAppNameQuery) {
+        this.selectIdAtOffsetBySiddhiAppNameQuery = selectIdAtOffsetBySiddhiAppNameQuery;
+    }
+
+    public String getPurgeChunkBySiddhiAppNameQuery() {
+        return purgeChunkBySiddhiAppNameQuery;
+    }
+
+    public void setPurgeChunkBySiddhiAppNameQuery(String purgeChunkBySiddhiAppNameQuery) {
+        this.purgeChunkBySiddhiAppNameQuery = purgeChunkBySiddhiAppNameQuery;
+    }
+
+    public String getSelectIdAtOffsetQuery() {
+        return selectIdAtOffsetQuery;
+    }
+
+    public void setSelectIdAtOffsetQuery(String selectIdAtOffsetQuery) {
+        this.selectIdAtOffsetQuery = selectIdAtOffsetQuery;
+    }
+
+    public String getPurgeChunkByIdQuery() {
+        return purgeChunkByIdQuery;
+    }
+
+    public void setPurgeChunkByIdQuery(String purgeChunkByIdQuery) {
+        this.purgeChunkByIdQuery = purgeChunkByIdQuery;
+    }
 }
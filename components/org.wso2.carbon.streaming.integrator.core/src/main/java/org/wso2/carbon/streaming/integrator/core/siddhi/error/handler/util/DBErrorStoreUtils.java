@@ -36,40 +36,134 @@ public class DBErrorStoreUtils {
     public static void createTableIfNotExists(ExecutionInfo executionInfo, DataSource dataSource, String dataSourceName,
                                              String tableName) {
         if (!executionInfo.isTableExist()) {
-            Statement stmt = null;
-            Connection con = null;
+            executionInfo.setTableExist(createTableIfNotExists(dataSource, dataSourceName, tableName,
+                executionInfo.getPreparedCheckTableExistenceStatement(),
+                executionInfo.getPreparedCreateTableStatement()));
+        }
+    }
+
+    /**
+     * Creates a table unless the query checking its existence succeeds.
+     *
+     * @return true if the table exists or was created
+     */
+    public static boolean createTableIfNotExists(DataSource dataSource, String dataSourceName, String tableName,
+                                                 String checkTableExistenceQuery, String createTableQuery) {
+        Statement stmt = null;
+        Connection con = null;
+        try {
             try {
+                con = dataSource.getConnection();
+                con.setAutoCommit(false);
+                stmt = con.createStatement();
+            } catch (SQLException e) {
+                log.error("Cannot establish connection to datasource " + dataSourceName +
+                        " when checking persistence table exists", e);
+                return false;
+            }
+            try (ResultSet ignored = stmt.executeQuery(checkTableExistenceQuery)) {
+                return true;
+            } catch (SQLException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Table " + tableName + " does not Exist. Table Will be created. ");
+                }
+                cleanupConnections(stmt, con);
                 try {
                     con = dataSource.getConnection();
-                    con.setAutoCommit(false);
                     stmt = con.createStatement();
-                } catch (SQLException e) {
-                    log.error("Cannot establish connection to datasource " + dataSourceName +
-                            " when checking persistence table exists", e);
-                    return;
+                    con.setAutoCommit(false);
+                    stmt.executeUpdate(createTableQuery);
+                    con.commit();
+                    return true;
+                } catch (SQLException ex) {
+                    log.error("Could not create table " + tableName +
+                        " using datasource " + dataSourceName, ex);
+                    return false;
                 }
-                try (ResultSet ignored = stmt.executeQuery(executionInfo.getPreparedCheckTableExistenceStatement())) {
-                    executionInfo.setTableExist(true);
-                } catch (SQLException e) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Table " + tableName + " does not Exist. Table Will be created. ");
-                    }
-                    cleanupConnections(stmt, con);
-                    try {
-                        con = dataSource.getConnection();
-                        stmt = con.createStatement();
-                        con.setAutoCommit(false);
-                        stmt.executeUpdate(executionInfo.getPreparedCreateTableStatement());
-                        con.commit();
-                        executionInfo.setTableExist(true);
-                    } catch (SQLException ex) {
-                        log.error("Could not create table " + tableName +
-                            " using datasource " + dataSourceName, ex);
-                    }
+            }
+        } finally {
+            cleanupConnections(stmt, con);
+        }
+    }
+
+    /**
+     * Creates the indexes used to page through the error entries of a Siddhi app by their timestamps. Failures are
+     * only logged at debug level, since databases which do not support 'IF NOT EXISTS' fail when the index exists.
+     */
+    public static void createIndexesIfNotExist(ExecutionInfo executionInfo, DataSource dataSource,
+                                               String dataSourceName, String tableName) {
+        if (!executionInfo.isTableExist()) {
+            return;
+        }
+        String[] indexQueries = {executionInfo.getPreparedCreateAppTimestampIndexStatement(),
+            executionInfo.getPreparedCreateAppStreamIndexStatement()};
+        for (String indexQuery : indexQueries) {
+            createIndexIfNotExists(dataSource, dataSourceName, tableName, indexQuery);
+        }
+    }
+
+    /**
+     * Creates an index of a table. Failures are only logged, as the index may already exist.
+     */
+    public static void createIndexIfNotExists(DataSource dataSource, String dataSourceName, String tableName,
+                                              String indexQuery) {
+        if (indexQuery == null || indexQuery.isEmpty()) {
+            return;
+        }
+        Statement stmt = null;
+        Connection con = null;
+        try {
+            con = dataSource.getConnection();
+            con.setAutoCommit(false);
+            stmt = con.createStatement();
+            stmt.executeUpdate(indexQuery);
+            con.commit();
+        } catch (SQLException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Index of table " + tableName + " was not created using datasource " + dataSourceName +
+                    ". It may already exist.", e);
+            }
+        } finally {
+            cleanupConnections(stmt, con);
+        }
+    }
+
+    /**
+     * Adds a column to a table unless the query checking its existence succeeds.
+     *
+     * @return true if the column exists or was added
+     */
+    public static boolean addColumnIfNotExists(DataSource dataSource, String dataSourceName, String tableName,
+                                               String columnName, String checkColumnExistenceQuery,
+                                               String addColumnQuery) {
+        if (checkColumnExistenceQuery == null || checkColumnExistenceQuery.isEmpty() || addColumnQuery == null ||
+            addColumnQuery.isEmpty()) {
+            return false;
+        }
+        Statement stmt = null;
+        Connection con = null;
+        try {
+            con = dataSource.getConnection();
+            con.setAutoCommit(false);
+            stmt = con.createStatement();
+            try (ResultSet ignored = stmt.executeQuery(checkColumnExistenceQuery)) {
+                return true;
+            } catch (SQLException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Column " + columnName + " of table " + tableName + " does not exist. Column will be " +
+                        "added.");
                 }
-            } finally {
-                cleanupConnections(stmt, con);
+                con.rollback();
             }
+            stmt.executeUpdate(addColumnQuery);
+            con.commit();
+            return true;
+        } catch (SQLException e) {
+            log.error("Could not add column " + columnName + " to table " + tableName + " using datasource " +
+                dataSourceName, e);
+            return false;
+        } finally {
+            cleanupConnections(stmt, con);
         }
     }
 
@@ -36,6 +36,26 @@ public class ExecutionInfo {
     private String preparedDeleteStatement;
     private String preparedDeleteBySiddhiAppNameStatement;
     private String preparedPurgeStatement;
+    private String preparedSelectPageStatement;
+    private String preparedMinimalSelectPageStatement;
+    private String preparedCreateAppTimestampIndexStatement;
+    private String preparedCreateAppStreamIndexStatement;
+    private String preparedCheckStackTraceTableExistenceStatement;
+    private String preparedCreateStackTraceTableStatement;
+    private String preparedInsertStackTraceStatement;
+    private String preparedSelectStackTraceStatement;
+    private String preparedUpdateStackTraceLastUsedStatement;
+    private String preparedIsStackTraceHashColumnExistStatement;
+    private String preparedAddStackTraceHashColumnStatement;
+    private String preparedCreateStackTraceHashIndexStatement;
+    private String preparedInsertWithStackTraceHashStatement;
+    private String preparedPurgeUnusedStackTracesStatement;
+    private String preparedPurgeChunkStatement;
+    private String preparedSelectCountGroupBySiddhiAppNameStatement;
+    private String preparedSelectIdAtOffsetBySiddhiAppNameStatement;
+    private String preparedPurgeChunkBySiddhiAppNameStatement;
+    private String preparedSelectIdAtOffsetStatement;
+    private String preparedPurgeChunkByIdStatement;
 
     private boolean tableExist = false;
 
@@ -135,6 +155,119 @@ public class ExecutionInfo {
         this.preparedPurgeStatement = preparedPurgeStatement;
     }
 
+    public String getPreparedSelectPageStatement() {
+        return preparedSelectPageStatement;
+    }
+
+    public void setPreparedSelectPageStatement(String preparedSelectPageStatement) {
+        this.preparedSelectPageStatement = preparedSelectPageStatement;
+    }
+
+    public String getPreparedMinimalSelectPageStatement() {
+        return preparedMinimalSelectPageStatement;
+    }
+
+    public void setPreparedMinimalSelectPageStatement(String preparedMinimalSelectPageStatement) {
+        this.preparedMinimalSelectPageStatement = preparedMinimalSelectPageStatement;
+    }
+
+    public String getPreparedCreateAppTimestampIndexStatement() {
+        return preparedCreateAppTimestampIndexStatement;
+    }
+
+    public void setPreparedCreateAppTimestampIndexStatement(String preparedCreateAppTimestampIndexStatement) {
+        this.preparedCreateAppTimestampIndexStatement = preparedCreateAppTimestampIndexStatement;
+    }
+
+    public String getPreparedCreateAppStreamIndexStatement() {
+        return preparedCreateAppStreamIndexStatement;
+    }
+
+    public void setPreparedCreateAppStreamIndexStatement(String preparedCreateAppStreamIndexStatement) {
+        this.preparedCreateAppStreamIndexStatement = preparedCreateAppStreamIndexStatement;
+    }
+
+    public String getPreparedCheckStackTraceTableExistenceStatement() {
+        return preparedCheckStackTraceTableExistenceStatement;
+    }
+
+    public void setPreparedCheckStackTraceTableExistenceStatement(
+        String preparedCheckStackTraceTableExistenceStatement) {
+        this.preparedCheckStackTraceTableExistenceStatement = preparedCheckStackTraceTableExistenceStatement;
+    }
+
+    public String getPreparedCreateStackTraceTableStatement() {
+        return preparedCreateStackTraceTableStatement;
+    }
+
+    public void setPreparedCreateStackTraceTableStatement(String preparedCreateStackTraceTableStatement) {
+        this.preparedCreateStackTraceTableStatement = preparedCreateStackTraceTableStatement;
+    }
+
+    public String getPreparedInsertStackTraceStatement() {
+        return preparedInsertStackTraceStatement;
+    }
+
+    public void setPreparedInsertStackTraceStatement(String preparedInsertStackTraceStatement) {
+        this.preparedInsertStackTraceStatement = preparedInsertStackTraceStatement;
+    }
+
+    public String getPreparedSelectStackTraceStatement() {
+        return preparedSelectStackTraceStatement;
+    }
+
+    public void setPreparedSelectStackTraceStatement(String preparedSelectStackTraceStatement) {
+        this.preparedSelectStackTraceStatement = preparedSelectStackTraceStatement;
+    }
+
+    public String getPreparedUpdateStackTraceLastUsedStatement() {
+        return preparedUpdateStackTraceLastUsedStatement;
+    }
+
+    public void setPreparedUpdateStackTraceLastUsedStatement(String preparedUpdateStackTraceLastUsedStatement) {
+        this.preparedUpdateStackTraceLastUsedStatement = preparedUpdateStackTraceLastUsedStatement;
+    }
+
+    public String getPreparedIsStackTraceHashColumnExistStatement() {
+        return preparedIsStackTraceHashColumnExistStatement;
+    }
+
+    public void setPreparedIsStackTraceHashColumnExistStatement(String preparedIsStackTraceHashColumnExistStatement) {
+        this.preparedIsStackTraceHashColumnExistStatement = preparedIsStackTraceHashColumnExistStatement;
+    }
+
+    public String getPreparedAddStackTraceHashColumnStatement() {
+        return preparedAddStackTraceHashColumnStatement;
+    }
+
+    public void setPreparedAddStackTraceHashColumnStatement(String preparedAddStackTraceHashColumnStatement) {
+        this.preparedAddStackTraceHashColumnStatement = preparedAddStackTraceHashColumnStatement;
+    }
+
+    public String getPreparedCreateStackTraceHashIndexStatement() {
+        return preparedCreateStackTraceHashIndexStatement;
+    }
+
+    public void setPreparedCreateStackTraceHashIndexStatement(String preparedCreateStackTraceHashIndexStatement) {
+        this.preparedCreateStackTraceHashIndexStatement = preparedCreateStackTraceHashIndexStatement;
+    }
+
+    public String getPreparedInsertWithStackTraceHashStatement() {
+        return preparedInsertWithStackTraceHashStatement;
+    }
+
+    public void setPreparedInsertWithStackTraceHashStatement(String preparedInsertWithStackTraceHashStatement) {
+        this.preparedInsertWithStackTraceHashStatement = preparedInsertWithStackTraceHashStatement;
+    }
+
+    public String getPreparedPurgeUnusedStackTracesStatement() {
+        return preparedPurgeUnusedStackTracesStatement;
+    }
+
+    public void setPreparedPurgeUnusedStackTracesStatement(String preparedPurgeUnusedStackTracesStatement) {
+        this.preparedPurgeUnusedStackTracesStatement = preparedPurgeUnusedStackTracesStatement;
+    }
+
     public String getPreparedDeleteBySiddhiAppNameStatement() {
         return preparedDeleteBySiddhiAppNameStatement;
     }
@@ -151,4 +284,54 @@ public class ExecutionInfo {
         this.tableExist = tableExist;
     }
 
+
+    public String getPreparedPurgeChunkStatement() {
+        return preparedPurgeChunkStatement;
+    }
+
+    public void setPreparedPurgeChunkStatement(String preparedPurgeChunkStatement) {
+        this.preparedPurgeChunkStatement = preparedPurgeChunkStatement;
+    }
+
+    public String getPreparedSelectCountGroupBySiddhiAppNameStatement() {
+        return preparedSelectCountGroupBySiddhiAppNameStatement;
+    }
+
+    public void setPreparedSelectCountGroupBySiddhiAppNameStatement(
+        String preparedSelectCountGroupBySiddhiAppNameStatement) {
+        this.preparedSelectCountGroupBySiddhiAppNameStatement = preparedSelectCountGroupBySiddhiAppNameStatement;
+    }
+
+    public String getPreparedSelectIdAtOffsetBySiddhiAppNameStatement() {
+        return preparedSelectIdAtOffsetBySiddhiAppNameStatement;
+    }
+
+    public void setPreparedSelectIdAtOffsetBySiddhiAppNameStatement(
+        String preparedSelectIdAtOffsetBySiddhiAppNameStatement) {
+        this.preparedSelectIdAtOffsetBySiddhiAppNameStatement = preparedSelectIdAtOffsetBySiddhiAppNameStatement;
+    }
+
+    public String getPreparedPurgeChunkBySiddhiAppNameStatement() {
+        return preparedPurgeChunkBySiddhiAppNameStatement;
+    }
+
+    public void setPreparedPurgeChunkBySiddhiAppNameStatement(String preparedPurgeChunkBySiddhiAppNameStatement) {
+        this.preparedPurgeChunkBySiddhiAppNameStatement = preparedPurgeChunkBySiddhiAppNameStatement;
+    }
+
+    public String getPreparedSelectIdAtOffsetStatement() {
+        return preparedSelectIdAtOffsetStatement;
+    }
+
+    public void setPreparedSelectIdAtOffsetStatement(String preparedSelectIdAtOffsetStatement) {
+        this.preparedSelectIdAtOffsetStatement = preparedSelectIdAtOffsetStatement;
+    }
+
+    public String getPreparedPurgeChunkByIdStatement() {
+        return preparedPurgeChunkByIdStatement;
+    }
+
+    public void setPreparedPurgeChunkByIdStatement(String preparedPurgeChunkByIdStatement) {
+        this.preparedPurgeChunkByIdStatement = preparedPurgeChunkByIdStatement;
+    }
 }
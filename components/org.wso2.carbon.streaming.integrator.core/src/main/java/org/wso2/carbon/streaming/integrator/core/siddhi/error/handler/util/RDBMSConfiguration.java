@@ -87,6 +87,65 @@ public class RDBMSConfiguration {
                     replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
             databaseQueryEntries.setPurgeQuery(queryManager.getQuery(SiddhiErrorHandlerConstants.PURGE).
                 replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setSelectPageQuery(queryManager.getQuery(SiddhiErrorHandlerConstants.SELECT_PAGE).
+                replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setMinimalSelectPageQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.MINIMAL_SELECT_PAGE).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setCreateAppTimestampIndexQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.CREATE_APP_TIMESTAMP_INDEX).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setCreateAppStreamIndexQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.CREATE_APP_STREAM_INDEX).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setIsStackTraceTableExistQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.IS_STACK_TRACE_TABLE_EXIST).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setCreateStackTraceTableQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.CREATE_STACK_TRACE_TABLE).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setInsertStackTraceQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.INSERT_STACK_TRACE).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setSelectStackTraceQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.SELECT_STACK_TRACE).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setUpdateStackTraceLastUsedQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.UPDATE_STACK_TRACE_LAST_USED).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setIsStackTraceHashColumnExistQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.IS_STACK_TRACE_HASH_COLUMN_EXIST).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setAddStackTraceHashColumnQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.ADD_STACK_TRACE_HASH_COLUMN).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setCreateStackTraceHashIndexQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.CREATE_STACK_TRACE_HASH_INDEX).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setInsertWithStackTraceHashQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.INSERT_WITH_STACK_TRACE_HASH).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setPurgeUnusedStackTracesQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.PURGE_UNUSED_STACK_TRACES).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setPurgeChunkQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.PURGE_CHUNK).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setSelectCountGroupBySiddhiAppNameQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.SELECT_COUNT_GROUP_BY_SIDDHI_APP_NAME).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setSelectIdAtOffsetBySiddhiAppNameQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.SELECT_ID_AT_OFFSET_BY_SIDDHI_APP_NAME).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setPurgeChunkBySiddhiAppNameQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.PURGE_CHUNK_BY_SIDDHI_APP_NAME).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setSelectIdAtOffsetQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.SELECT_ID_AT_OFFSET).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setPurgeChunkByIdQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.PURGE_CHUNK_BY_ID).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
 
         } catch (QueryMappingNotAvailableException | ConfigurationException | IOException e) {
             throw new DatasourceConfigurationException("Error reading queries for database: " + databaseType + " "
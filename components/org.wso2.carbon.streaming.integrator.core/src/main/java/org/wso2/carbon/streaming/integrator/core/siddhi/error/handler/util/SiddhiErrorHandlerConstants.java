@@ -26,12 +26,35 @@ public class SiddhiErrorHandlerConstants {
     private SiddhiErrorHandlerConstants(){}
 
     public static final String PLACEHOLDER_TABLE_NAME = "{{TABLE_NAME}}";
+    public static final String PLACEHOLDER_CONDITIONS = "{{CONDITIONS}}";
     public static final String ERROR_STORE_NS = "error.store";
     public static final String BUFFER_SIZE = "bufferSize";
     public static final String DROP_WHEN_BUFFER_FULL = "dropWhenBufferFull";
     public static final String ERROR_STORE_CONFIGS = "config";
     public static final String DEFAULT_DB_ERROR_STORE_DATASOURCE = "WSO2_CARBON_DB";
     public static final String DEFAULT_DB_ERROR_STORE_TABLE_NAME = "SIDDHI_ERROR_STORE_TABLE";
+    public static final String WRITE_BEHIND = "writeBehind";
+    public static final String WRITE_BEHIND_ENABLED = "enabled";
+    public static final String WRITE_BEHIND_QUEUE_CAPACITY = "queueCapacity";
+    public static final String WRITE_BEHIND_BATCH_SIZE = "batchSize";
+    public static final String WRITE_BEHIND_FLUSH_INTERVAL_MILLIS = "flushIntervalMillis";
+    public static final String WRITE_BEHIND_SPILL_DIRECTORY = "spillDirectory";
+    public static final int DEFAULT_WRITE_BEHIND_QUEUE_CAPACITY = 10000;
+    public static final int DEFAULT_WRITE_BEHIND_BATCH_SIZE = 500;
+    public static final long DEFAULT_WRITE_BEHIND_FLUSH_INTERVAL_MILLIS = 1000;
+    public static final String COMPACT_EVENTS = "compactEvents";
+    public static final String DEDUPLICATE_STACK_TRACES = "deduplicateStackTraces";
+    public static final String PURGE_CONFIGS = "purge";
+    public static final String PURGE_ENABLED = "enabled";
+    public static final String PURGE_INTERVAL_MINUTES = "intervalMinutes";
+    public static final String PURGE_RETENTION_DAYS = "retentionDays";
+    public static final String PURGE_MAX_ENTRIES_PER_SIDDHI_APP = "maxEntriesPerSiddhiApp";
+    public static final String PURGE_MAX_ENTRIES = "maxEntries";
+    public static final String PURGE_CHUNK_SIZE = "chunkSize";
+    public static final String PURGE_PAUSE_MILLIS = "pauseMillis";
+    public static final long DEFAULT_PURGE_INTERVAL_MINUTES = 60;
+    public static final int DEFAULT_PURGE_CHUNK_SIZE = 1000;
+    public static final long DEFAULT_PURGE_PAUSE_MILLIS = 100;
 
     public static final String IS_TABLE_EXIST = "IS_TABLE_EXIST";
     public static final String CREATE_TABLE = "CREATE_TABLE";
@@ -46,6 +69,26 @@ public class SiddhiErrorHandlerConstants {
     public static final String DELETE = "DELETE";
     public static final String DELETE_BY_SIDDHI_APP_NAME = "DELETE_BY_SIDDHI_APP_NAME";
     public static final String PURGE = "PURGE";
+    public static final String SELECT_PAGE = "SELECT_PAGE";
+    public static final String MINIMAL_SELECT_PAGE = "MINIMAL_SELECT_PAGE";
+    public static final String CREATE_APP_TIMESTAMP_INDEX = "CREATE_APP_TIMESTAMP_INDEX";
+    public static final String CREATE_APP_STREAM_INDEX = "CREATE_APP_STREAM_INDEX";
+    public static final String IS_STACK_TRACE_TABLE_EXIST = "IS_STACK_TRACE_TABLE_EXIST";
+    public static final String CREATE_STACK_TRACE_TABLE = "CREATE_STACK_TRACE_TABLE";
+    public static final String INSERT_STACK_TRACE = "INSERT_STACK_TRACE";
+    public static final String SELECT_STACK_TRACE = "SELECT_STACK_TRACE";
+    public static final String UPDATE_STACK_TRACE_LAST_USED = "UPDATE_STACK_TRACE_LAST_USED";
+    public static final String IS_STACK_TRACE_HASH_COLUMN_EXIST = "IS_STACK_TRACE_HASH_COLUMN_EXIST";
+    public static final String ADD_STACK_TRACE_HASH_COLUMN = "ADD_STACK_TRACE_HASH_COLUMN";
+    public static final String CREATE_STACK_TRACE_HASH_INDEX = "CREATE_STACK_TRACE_HASH_INDEX";
+    public static final String INSERT_WITH_STACK_TRACE_HASH = "INSERT_WITH_STACK_TRACE_HASH";
+    public static final String PURGE_UNUSED_STACK_TRACES = "PURGE_UNUSED_STACK_TRACES";
+    public static final String PURGE_CHUNK = "PURGE_CHUNK";
+    public static final String SELECT_COUNT_GROUP_BY_SIDDHI_APP_NAME = "SELECT_COUNT_GROUP_BY_SIDDHI_APP_NAME";
+    public static final String SELECT_ID_AT_OFFSET_BY_SIDDHI_APP_NAME = "SELECT_ID_AT_OFFSET_BY_SIDDHI_APP_NAME";
+    public static final String PURGE_CHUNK_BY_SIDDHI_APP_NAME = "PURGE_CHUNK_BY_SIDDHI_APP_NAME";
+    public static final String SELECT_ID_AT_OFFSET = "SELECT_ID_AT_OFFSET";
+    public static final String PURGE_CHUNK_BY_ID = "PURGE_CHUNK_BY_ID";
 
     public static final String ID = "id";
     public static final String TIMESTAMP = "timestamp";
@@ -54,6 +97,7 @@ public class SiddhiErrorHandlerConstants {
     public static final String EVENT = "event";
     public static final String CAUSE = "cause";
     public static final String STACK_TRACE = "stackTrace";
+    public static final String STACK_TRACE_HASH = "stackTraceHash";
     public static final String ORIGINAL_PAYLOAD = "originalPayload";
     public static final String ERROR_OCCURRENCE = "errorOccurrence";
     public static final String EVENT_TYPE = "eventType";
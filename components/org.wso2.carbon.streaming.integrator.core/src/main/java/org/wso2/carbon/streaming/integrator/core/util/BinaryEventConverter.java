@@ -24,6 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.streaming.integrator.core.event.queue.EventDataMetaInfo;
 import org.wso2.carbon.streaming.integrator.core.event.queue.EventMetaInfo;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
 import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 
@@ -32,7 +33,10 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * This is a Util class help to convert from Siddhi event to Binary message.
@@ -107,6 +111,149 @@ public class BinaryEventConverter {
         return messageBuffer;
     }
 
+    /**
+     * Converts the given schema to the message which registers it with the passive node.
+     *
+     * @param eventSchema schema of the events of a source handler
+     * @return schema registration message
+     */
+    public static ByteBuffer convertToSchemaMessage(EventSchema eventSchema) {
+        byte[] siddhiAppName = eventSchema.getSiddhiAppName().getBytes(StandardCharsets.UTF_8);
+        byte[] sourceHandlerElementId = eventSchema.getSourceHandlerElementId().getBytes(StandardCharsets.UTF_8);
+        byte[][] attributeTypes = new byte[eventSchema.getAttributeCount()][];
+        int messageSize = 1 + 4 + 4 + siddhiAppName.length + 4 + sourceHandlerElementId.length + 4;
+        for (int i = 0; i < attributeTypes.length; i++) {
+            attributeTypes[i] = eventSchema.getAttributeType(i).name().getBytes(StandardCharsets.UTF_8);
+            messageSize += 4 + attributeTypes[i].length;
+        }
+        ByteBuffer messageBuffer = ByteBuffer.wrap(new byte[messageSize]);
+        messageBuffer.put(HAConstants.COMPACT_EVENT_PROTOCOL_VERSION);
+        messageBuffer.putInt(eventSchema.getSchemaId());
+        messageBuffer.putInt(siddhiAppName.length);
+        messageBuffer.put(siddhiAppName);
+        messageBuffer.putInt(sourceHandlerElementId.length);
+        messageBuffer.put(sourceHandlerElementId);
+        messageBuffer.putInt(attributeTypes.length);
+        for (byte[] attributeType : attributeTypes) {
+            messageBuffer.putInt(attributeType.length);
+            messageBuffer.put(attributeType);
+        }
+        return messageBuffer;
+    }
+
+    /**
+     * Converts the given events of a single source handler to a compact binary message. The message only carries the
+     * schema id, the sequence id delta of each event and the raw attribute values; the attribute types, the Siddhi
+     * app name and the source handler id are resolved from the schema registered with the passive node.
+     *
+     * @param eventSchema  schema of the events, which should have been registered with the passive node
+     * @param queuedEvents events to be converted, in the ascending order of sequence id
+     * @return compact binary message
+     */
+    public static ByteBuffer convertToCompactBinaryMessage(EventSchema eventSchema, QueuedEvent[] queuedEvents) {
+        int attributeCount = eventSchema.getAttributeCount();
+        int nullBitmapSize = (attributeCount + 7) / 8;
+        List<byte[]> stringValues = new ArrayList<>();
+        long lastSequenceId = queuedEvents[0].getSequenceID();
+        int messageSize = 1 + 4 + 4 + 8;
+        for (QueuedEvent queuedEvent : queuedEvents) {
+            messageSize += BinaryMessageConverterUtil.getVarLongSize(queuedEvent.getSequenceID() - lastSequenceId) +
+                    8 + nullBitmapSize;
+            lastSequenceId = queuedEvent.getSequenceID();
+            String[] trpSyncProperties = queuedEvent.getTransportSyncProperties();
+            int trpSyncPropertiesCount = trpSyncProperties == null ? 0 : trpSyncProperties.length;
+            messageSize += BinaryMessageConverterUtil.getVarLongSize(trpSyncPropertiesCount);
+            for (int i = 0; i < trpSyncPropertiesCount; i++) {
+                byte[] property = trpSyncProperties[i].getBytes(StandardCharsets.UTF_8);
+                stringValues.add(property);
+                messageSize += BinaryMessageConverterUtil.getVarLongSize(property.length) + property.length;
+            }
+            Object[] data = queuedEvent.getEvent().getData();
+            for (int i = 0; i < attributeCount; i++) {
+                if (data[i] == null) {
+                    continue;
+                }
+                switch (eventSchema.getAttributeType(i)) {
+                    case STRING:
+                        byte[] value = data[i].toString().getBytes(StandardCharsets.UTF_8);
+                        stringValues.add(value);
+                        messageSize += BinaryMessageConverterUtil.getVarLongSize(value.length) + value.length;
+                        break;
+                    case INT:
+                    case FLOAT:
+                        messageSize += 4;
+                        break;
+                    case LONG:
+                    case DOUBLE:
+                        messageSize += 8;
+                        break;
+                    case BOOL:
+                        messageSize += 1;
+                        break;
+                    default:
+                        // OBJECT attributes are not synced
+                }
+            }
+        }
+
+        ByteBuffer messageBuffer = ByteBuffer.wrap(new byte[messageSize]);
+        messageBuffer.put(HAConstants.COMPACT_EVENT_PROTOCOL_VERSION);
+        messageBuffer.putInt(eventSchema.getSchemaId());
+        messageBuffer.putInt(queuedEvents.length);
+        messageBuffer.putLong(queuedEvents[0].getSequenceID());
+        lastSequenceId = queuedEvents[0].getSequenceID();
+        int stringIndex = 0;
+        for (QueuedEvent queuedEvent : queuedEvents) {
+            BinaryMessageConverterUtil.putVarLong(queuedEvent.getSequenceID() - lastSequenceId, messageBuffer);
+            lastSequenceId = queuedEvent.getSequenceID();
+            messageBuffer.putLong(queuedEvent.getEvent().getTimestamp());
+            String[] trpSyncProperties = queuedEvent.getTransportSyncProperties();
+            int trpSyncPropertiesCount = trpSyncProperties == null ? 0 : trpSyncProperties.length;
+            BinaryMessageConverterUtil.putVarLong(trpSyncPropertiesCount, messageBuffer);
+            for (int i = 0; i < trpSyncPropertiesCount; i++) {
+                byte[] property = stringValues.get(stringIndex++);
+                BinaryMessageConverterUtil.putVarLong(property.length, messageBuffer);
+                messageBuffer.put(property);
+            }
+            Object[] data = queuedEvent.getEvent().getData();
+            int nullBitmapPosition = messageBuffer.position();
+            messageBuffer.position(nullBitmapPosition + nullBitmapSize);
+            for (int i = 0; i < attributeCount; i++) {
+                Attribute.Type attributeType = eventSchema.getAttributeType(i);
+                if (data[i] == null || attributeType == Attribute.Type.OBJECT) {
+                    int bitmapIndex = nullBitmapPosition + (i >>> 3);
+                    messageBuffer.put(bitmapIndex, (byte) (messageBuffer.get(bitmapIndex) | (1 << (i & 7))));
+                    continue;
+                }
+                switch (attributeType) {
+                    case STRING:
+                        byte[] value = stringValues.get(stringIndex++);
+                        BinaryMessageConverterUtil.putVarLong(value.length, messageBuffer);
+                        messageBuffer.put(value);
+                        break;
+                    case INT:
+                        messageBuffer.putInt(((Number) data[i]).intValue());
+                        break;
+                    case LONG:
+                        messageBuffer.putLong(((Number) data[i]).longValue());
+                        break;
+                    case FLOAT:
+                        messageBuffer.putFloat(((Number) data[i]).floatValue());
+                        break;
+                    case DOUBLE:
+                        messageBuffer.putDouble(((Number) data[i]).doubleValue());
+                        break;
+                    case BOOL:
+                        messageBuffer.put((byte) (((Boolean) data[i]) ? 1 : 0));
+                        break;
+                    default:
+                        // will not occur
+                }
+            }
+        }
+        return messageBuffer;
+    }
+
     private static int getEventSize(Event event) {
         int eventSize = 8;
         Object[] data = event.getData();
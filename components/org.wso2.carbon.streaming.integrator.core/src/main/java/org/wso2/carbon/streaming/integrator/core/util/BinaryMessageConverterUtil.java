@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Util helping to convert from Siddhi Event to byte message.
@@ -97,6 +98,49 @@ public final class BinaryMessageConverterUtil {
         }
     }
 
+    public static int getVarLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    public static void putVarLong(long value, ByteBuffer byteBuffer) {
+        while ((value & ~0x7FL) != 0) {
+            byteBuffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        byteBuffer.put((byte) value);
+    }
+
+    public static long getVarLong(ByteBuffer byteBuffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = byteBuffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    public static String getUTF8String(ByteBuffer byteBuffer, int size) {
+        String value;
+        if (byteBuffer.hasArray()) {
+            value = new String(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), size,
+                    StandardCharsets.UTF_8);
+            byteBuffer.position(byteBuffer.position() + size);
+        } else {
+            byte[] bytes = new byte[size];
+            byteBuffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
     public static String getString(ByteBuf byteBuf, int size) throws UnsupportedEncodingException {
         byte[] bytes = new byte[size];
         byteBuf.readBytes(bytes);
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * File based FIFO of the messages which could not be buffered in memory, such as the event sync messages being
+ * replicated and the erroneous events being written to the error store. The file is truncated whenever all the spilled
+ * messages have been read.
+ */
+public class SpillFile {
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private File file;
+    private RandomAccessFile randomAccessFile;
+    private long readPosition = 0;
+    private long writePosition = 0;
+    private int messageCount = 0;
+
+    public SpillFile(File directory, String name) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create the spill directory '" + directory.getAbsolutePath() + "'");
+        }
+        this.file = File.createTempFile(name + "-", ".spill", directory);
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+    }
+
+    public synchronized void write(byte[] message) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(4 + message.length);
+        record.putInt(message.length);
+        record.put(message);
+        randomAccessFile.seek(writePosition);
+        randomAccessFile.write(record.array());
+        writePosition += record.capacity();
+        messageCount++;
+    }
+
+    /**
+     * Appends the given messages with a single write.
+     *
+     * @param messages messages to be appended
+     * @throws IOException if the messages cannot be written
+     */
+    public synchronized void write(List<byte[]> messages) throws IOException {
+        byte[] records = toRecords(messages);
+        randomAccessFile.seek(writePosition);
+        randomAccessFile.write(records);
+        writePosition += records.length;
+        messageCount += messages.size();
+    }
+
+    /**
+     * Inserts the given messages ahead of the unread messages, so that they are read next, such as the messages which
+     * were read but could not be processed.
+     *
+     * @param messages messages to be read before the others
+     * @throws IOException if the messages cannot be written
+     */
+    public synchronized void writeFirst(List<byte[]> messages) throws IOException {
+        byte[] records = toRecords(messages);
+        if (readPosition < records.length) {
+            // Moves the unread messages towards the end of the file, starting from the last ones, to make room
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            long shift = records.length - readPosition;
+            long remainingLength = writePosition - readPosition;
+            while (remainingLength > 0) {
+                int length = (int) Math.min(buffer.length, remainingLength);
+                remainingLength -= length;
+                randomAccessFile.seek(readPosition + remainingLength);
+                randomAccessFile.readFully(buffer, 0, length);
+                randomAccessFile.seek(readPosition + remainingLength + shift);
+                randomAccessFile.write(buffer, 0, length);
+            }
+            readPosition += shift;
+            writePosition += shift;
+        }
+        readPosition -= records.length;
+        randomAccessFile.seek(readPosition);
+        randomAccessFile.write(records);
+        messageCount += messages.size();
+    }
+
+    public synchronized byte[] read() throws IOException {
+        if (readPosition == writePosition) {
+            return null;
+        }
+        randomAccessFile.seek(readPosition);
+        byte[] message = new byte[randomAccessFile.readInt()];
+        randomAccessFile.readFully(message);
+        readPosition += 4 + message.length;
+        messageCount--;
+        if (readPosition == writePosition) {
+            readPosition = 0;
+            writePosition = 0;
+            randomAccessFile.setLength(0);
+        }
+        return message;
+    }
+
+    private static byte[] toRecords(List<byte[]> messages) {
+        int length = 0;
+        for (byte[] message : messages) {
+            length += 4 + message.length;
+        }
+        ByteBuffer records = ByteBuffer.allocate(length);
+        for (byte[] message : messages) {
+            records.putInt(message.length);
+            records.put(message);
+        }
+        return records.array();
+    }
+
+    public synchronized boolean isEmpty() {
+        return readPosition == writePosition;
+    }
+
+    /**
+     * @return number of messages which have not been read
+     */
+    public synchronized int getMessageCount() {
+        return messageCount;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Appends the messages of a spill file retained by a previous run, and deletes that file. A message which was
+     * partially written when the previous run stopped is discarded.
+     *
+     * @param retainedFile spill file retained by {@link #retain()}
+     * @return number of messages appended
+     * @throws IOException if the retained file cannot be read, in which case it is not deleted
+     */
+    public synchronized int append(File retainedFile) throws IOException {
+        int appendedMessages = 0;
+        long remainingLength = retainedFile.length();
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(retainedFile)))) {
+            while (remainingLength >= 4) {
+                int length = inputStream.readInt();
+                if (length < 0 || length > remainingLength - 4) {
+                    break;
+                }
+                byte[] message = new byte[length];
+                inputStream.readFully(message);
+                remainingLength -= 4 + length;
+                write(message);
+                appendedMessages++;
+            }
+        }
+        if (!retainedFile.delete()) {
+            throw new IOException("Cannot delete the spill file '" + retainedFile.getAbsolutePath() + "'");
+        }
+        return appendedMessages;
+    }
+
+    /**
+     * Closes the file while keeping the messages which have not been read, so that they can be appended to a spill
+     * file of a later run with {@link #append(File)}.
+     *
+     * @return the retained file
+     * @throws IOException if the unread messages cannot be kept
+     */
+    public synchronized File retain() throws IOException {
+        try {
+            if (readPosition > 0) {
+                // Moves the unread messages to the start of the file, so that it holds only those messages
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                long copiedLength = 0;
+                long unreadLength = writePosition - readPosition;
+                while (copiedLength < unreadLength) {
+                    int length = (int) Math.min(buffer.length, unreadLength - copiedLength);
+                    randomAccessFile.seek(readPosition + copiedLength);
+                    randomAccessFile.readFully(buffer, 0, length);
+                    randomAccessFile.seek(copiedLength);
+                    randomAccessFile.write(buffer, 0, length);
+                    copiedLength += length;
+                }
+                writePosition = unreadLength;
+                readPosition = 0;
+            }
+            randomAccessFile.setLength(writePosition);
+        } finally {
+            randomAccessFile.close();
+        }
+        return file;
+    }
+
+    public synchronized void close() throws IOException {
+        try {
+            randomAccessFile.close();
+        } finally {
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
+import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
+import org.wso2.carbon.streaming.integrator.core.ha.tcp.SiddhiEventConverter;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSchemaRegistry;
+import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
+
+import java.nio.ByteBuffer;
+
+public class BinaryEventConverterTest {
+
+    @Test
+    public void testCompactMessageConversion() {
+        Attribute.Type[] attributeTypes = {Attribute.Type.STRING, Attribute.Type.INT, Attribute.Type.LONG,
+                Attribute.Type.FLOAT, Attribute.Type.DOUBLE, Attribute.Type.BOOL, Attribute.Type.OBJECT};
+        EventSchema eventSchema = EventSchemaRegistry.getLocalSchema("TestApp", "source-1", attributeTypes);
+        Assert.assertSame(EventSchemaRegistry.getLocalSchema("TestApp", "source-1", attributeTypes), eventSchema);
+
+        ByteBuffer schemaMessage = BinaryEventConverter.convertToSchemaMessage(eventSchema);
+        schemaMessage.rewind();
+        EventSchema remoteSchema = SiddhiEventConverter.getEventSchema(schemaMessage);
+        Assert.assertEquals(remoteSchema.getSchemaId(), eventSchema.getSchemaId());
+        Assert.assertEquals(remoteSchema.getSiddhiAppName(), "TestApp");
+        Assert.assertEquals(remoteSchema.getSourceHandlerElementId(), "source-1");
+        Assert.assertEquals(remoteSchema.getAttributeTypes(), attributeTypes);
+        EventSchemaRegistry.registerRemoteSchema(remoteSchema);
+
+        QueuedEvent[] queuedEvents = {
+                new QueuedEvent("TestApp", "source-1", 1000L,
+                        new Event(1L, new Object[]{"WSO2 \u00e9v\u00e9nement", 1, 2L, 3.5f, 4.5, true, new Object()}),
+                        new String[]{"offset", "10"}),
+                new QueuedEvent("TestApp", "source-1", 1001L,
+                        new Event(2L, new Object[]{null, 5, null, 6.5f, 7.5, false, null}), null),
+                new QueuedEvent("TestApp", "source-1", 1300L,
+                        new Event(3L, new Object[]{"", 8, 9L, null, null, null, null}), null)};
+        ByteBuffer eventMessage = BinaryEventConverter.convertToCompactBinaryMessage(eventSchema, queuedEvents);
+        Assert.assertFalse(eventMessage.hasRemaining());
+        eventMessage.rewind();
+        QueuedEvent[] receivedEvents = SiddhiEventConverter.getQueuedEvents(eventMessage);
+
+        Assert.assertEquals(receivedEvents.length, 3);
+        Assert.assertEquals(receivedEvents[0].getSequenceID(), 1000L);
+        Assert.assertEquals(receivedEvents[1].getSequenceID(), 1001L);
+        Assert.assertEquals(receivedEvents[2].getSequenceID(), 1300L);
+        Assert.assertEquals(receivedEvents[0].getSiddhiAppName(), "TestApp");
+        Assert.assertEquals(receivedEvents[0].getSourceHandlerElementId(), "source-1");
+        Assert.assertEquals(receivedEvents[0].getTransportSyncProperties(), new String[]{"offset", "10"});
+        Assert.assertNull(receivedEvents[1].getTransportSyncProperties());
+        Assert.assertEquals(receivedEvents[0].getEvent().getTimestamp(), 1L);
+        Assert.assertEquals(receivedEvents[0].getEvent().getData(),
+                new Object[]{"WSO2 \u00e9v\u00e9nement", 1, 2L, 3.5f, 4.5, true, null});
+        Assert.assertEquals(receivedEvents[1].getEvent().getData(),
+                new Object[]{null, 5, null, 6.5f, 7.5, false, null});
+        Assert.assertEquals(receivedEvents[2].getEvent().getData(),
+                new Object[]{"", 8, 9L, null, null, null, null});
+        Assert.assertFalse(eventMessage.hasRemaining());
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.CompressionCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.FastCompressionCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+public class CompressionCodecTest {
+
+    @Test
+    public void testFastCodecRoundTrip() throws IOException {
+        FastCompressionCodec codec = new FastCompressionCodec();
+        for (byte[] data : new byte[][]{new byte[0], new byte[]{42}, "WSO2 Streaming".getBytes(StandardCharsets.UTF_8),
+                createRepetitiveData(200000), createRandomData(150000, 1), createMixedData(300000)}) {
+            byte[] compressedData = compress(codec, data);
+            Assert.assertEquals(decompress(codec, compressedData, data.length), data);
+            Assert.assertEquals(CompressionUtil.decompress(CompressionUtil.compress(data, codec)), data);
+        }
+        byte[] repetitiveData = createRepetitiveData(200000);
+        Assert.assertTrue(compress(codec, repetitiveData).length < repetitiveData.length / 4);
+    }
+
+    @Test
+    public void testFastCodecByteWiseStreams() throws IOException {
+        FastCompressionCodec codec = new FastCompressionCodec();
+        byte[] data = createMixedData(70000);
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (OutputStream outputStream = codec.compress(byteArrayOutputStream)) {
+            for (byte b : data) {
+                outputStream.write(b);
+            }
+        }
+        byte[] decompressedData = new byte[data.length];
+        try (InputStream inputStream = codec.decompress(new ByteArrayInputStream(
+                byteArrayOutputStream.toByteArray()))) {
+            for (int i = 0; i < data.length; i++) {
+                decompressedData[i] = (byte) inputStream.read();
+            }
+            Assert.assertEquals(inputStream.read(), -1);
+        }
+        Assert.assertEquals(decompressedData, data);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testFastCodecTruncatedInput() throws IOException {
+        FastCompressionCodec codec = new FastCompressionCodec();
+        byte[] data = createMixedData(100000);
+        byte[] compressedData = compress(codec, data);
+        decompress(codec, Arrays.copyOf(compressedData, compressedData.length - 10), data.length);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testFastCodecCorruptedBlockHeader() throws IOException {
+        FastCompressionCodec codec = new FastCompressionCodec();
+        byte[] data = createRepetitiveData(1000);
+        byte[] compressedData = compress(codec, data);
+        // The uncompressed length of the block is larger than the block size
+        ByteBuffer.wrap(compressedData).putInt(0, Integer.MAX_VALUE);
+        decompress(codec, compressedData, data.length);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testFastCodecCorruptedLiteralLength() throws IOException {
+        FastCompressionCodec codec = new FastCompressionCodec();
+        byte[] data = createRepetitiveData(1000);
+        byte[] compressedData = compress(codec, data);
+        Assert.assertNotEquals(ByteBuffer.wrap(compressedData).getInt(4), 0);
+        // Literal lengths of 255 bytes run beyond the end of the block
+        Arrays.fill(compressedData, 8, compressedData.length, (byte) 0xFF);
+        decompress(codec, compressedData, data.length);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testFastCodecCorruptedMatchOffset() throws IOException {
+        // A block of 10 bytes holding a literal of 1 byte followed by a match with an offset beyond the block start
+        ByteBuffer compressedData = ByteBuffer.allocate(8 + 4);
+        compressedData.putInt(10).putInt(4);
+        compressedData.put((byte) ((1 << 4) | 5)).put((byte) 'a').put((byte) 2).put((byte) 0);
+        decompress(new FastCompressionCodec(), compressedData.array(), 10);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testFastCodecSnapshotShorterThanHeader() throws IOException {
+        byte[] data = createMixedData(100000);
+        byte[] compressedSnapshot = CompressionUtil.compress(data, new FastCompressionCodec());
+        // Truncated at a block boundary, hence the snapshot is shorter than the length recorded in its header
+        ByteBuffer firstBlock = ByteBuffer.wrap(compressedSnapshot, 10, 8);
+        int uncompressedLength = firstBlock.getInt();
+        int compressedLength = firstBlock.getInt();
+        int firstBlockEnd = 10 + 8 + (compressedLength == 0 ? uncompressedLength : compressedLength);
+        CompressionUtil.decompress(Arrays.copyOf(compressedSnapshot, firstBlockEnd));
+    }
+
+    @Test
+    public void testSnapshotHeader() throws IOException {
+        byte[] data = createMixedData(50000);
+        byte[] gzipSnapshot = CompressionUtil.compress(data, CompressionUtil.getCompressionCodec("gzip", -1));
+        // GZIP snapshots are written without the header, so that older versions can read them
+        Assert.assertEquals(gzipSnapshot[0], (byte) 0x1f);
+        Assert.assertEquals(gzipSnapshot[1], (byte) 0x8b);
+        byte[] decompressedData = new byte[data.length];
+        try (DataInputStream inputStream = new DataInputStream(new GZIPInputStream(
+                new ByteArrayInputStream(gzipSnapshot)))) {
+            inputStream.readFully(decompressedData);
+            Assert.assertEquals(inputStream.read(), -1);
+        }
+        Assert.assertEquals(decompressedData, data);
+        Assert.assertEquals(CompressionUtil.decompress(gzipSnapshot), data);
+
+        for (String codecName : new String[]{"deflate", "fast"}) {
+            byte[] snapshot = CompressionUtil.compress(data, CompressionUtil.getCompressionCodec(codecName, -1));
+            Assert.assertEquals(new String(snapshot, 0, 4, StandardCharsets.US_ASCII), "SISN");
+            Assert.assertEquals(CompressionUtil.decompress(snapshot), data);
+        }
+    }
+
+    private static byte[] compress(CompressionCodec codec, byte[] data) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (OutputStream outputStream = codec.compress(byteArrayOutputStream)) {
+            outputStream.write(data);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private static byte[] decompress(CompressionCodec codec, byte[] compressedData, int length) throws IOException {
+        byte[] data = new byte[length];
+        try (DataInputStream inputStream = new DataInputStream(codec.decompress(
+                new ByteArrayInputStream(compressedData)))) {
+            inputStream.readFully(data);
+            Assert.assertEquals(inputStream.read(), -1);
+        }
+        return data;
+    }
+
+    private static byte[] createRepetitiveData(int length) {
+        byte[] pattern = "{\"symbol\":\"WSO2\",\"price\":55.6,\"volume\":100}".getBytes(StandardCharsets.UTF_8);
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = pattern[i % pattern.length];
+        }
+        return data;
+    }
+
+    private static byte[] createRandomData(int length, long seed) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] createMixedData(int length) {
+        // Runs of repeated and random content, so that blocks hold both literals and matches
+        byte[] data = createRepetitiveData(length);
+        Random random = new Random(2);
+        for (int offset = 0; offset < length; offset += 1000 + random.nextInt(3000)) {
+            byte[] randomRun = createRandomData(random.nextInt(500), offset);
+            System.arraycopy(randomRun, 0, data, offset, Math.min(randomRun.length, length - offset));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.Counter;
+import org.wso2.carbon.metrics.core.Histogram;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.si.metrics.core.internal.MetricsDataHolder;
+import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.DBErrorStore;
+import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.DBErrorStorePurger;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DBErrorStorePurgerTest {
+    private static final int CHUNK_SIZE = 10;
+
+    @Test
+    public void testPurgeByAllPolicies() {
+        ChunkedErrorStore errorStore = new ChunkedErrorStore();
+        DBErrorStorePurger purger = createPurger(errorStore);
+        try {
+            purger.purge();
+            Assert.assertEquals(errorStore.purges, Arrays.asList("age", "siddhiApp", "total", "stackTraces"));
+        } finally {
+            purger.shutdown();
+        }
+    }
+
+    @Test
+    public void testPurgeContinuesAfterUnexpectedError() {
+        ChunkedErrorStore errorStore = new ChunkedErrorStore();
+        errorStore.failure = new IllegalStateException("Connection pool is closed.");
+        errorStore.failingPurge = "siddhiApp";
+        DBErrorStorePurger purger = createPurger(errorStore);
+        try {
+            // The error is not thrown, which would have stopped the scheduled purges for good
+            purger.purge();
+            Assert.assertEquals(errorStore.purges, Arrays.asList("age", "siddhiApp"));
+
+            errorStore.failure = null;
+            purger.purge();
+            Assert.assertEquals(errorStore.purges,
+                    Arrays.asList("age", "siddhiApp", "age", "siddhiApp", "total", "stackTraces"));
+        } finally {
+            purger.shutdown();
+        }
+    }
+
+    @Test
+    public void testPartialCountsReportedOnFailure() {
+        Counter purgedEntriesCounter = mock(Counter.class);
+        MetricService metricService = mock(MetricService.class);
+        when(metricService.counter(anyString(), any(Level.class))).thenReturn(purgedEntriesCounter);
+        when(metricService.histogram(anyString(), any(Level.class))).thenReturn(mock(Histogram.class));
+        MetricsDataHolder.getInstance().setMetricService(metricService);
+        StreamProcessorDataHolder.setIsStatisticsEnabled(true);
+        ChunkedErrorStore errorStore = new ChunkedErrorStore();
+        errorStore.failure = new SQLException("Lock wait timeout exceeded.");
+        errorStore.failingPurge = "total";
+        DBErrorStorePurger purger = createPurger(errorStore);
+        try {
+            purger.purge();
+            // Both chunks of each of the first two policies, and the first chunk of the failed one
+            verify(purgedEntriesCounter).inc(2 * (CHUNK_SIZE + CHUNK_SIZE / 2) + CHUNK_SIZE);
+        } finally {
+            purger.shutdown();
+            StreamProcessorDataHolder.setIsStatisticsEnabled(false);
+            MetricsDataHolder.getInstance().setMetricService(null);
+        }
+    }
+
+    private static DBErrorStorePurger createPurger(DBErrorStore errorStore) {
+        // Purges are run by the test rather than by the schedule
+        return new DBErrorStorePurger(errorStore, TimeUnit.DAYS.toMinutes(1), 1, 100, 1000, CHUNK_SIZE, 0);
+    }
+
+    /**
+     * Error store which deletes a full chunk followed by a partial one for each purge, failing after the first chunk
+     * of the given purge if a failure is set.
+     */
+    private static class ChunkedErrorStore extends DBErrorStore {
+        private final List<String> purges = new ArrayList<>();
+        private String failingPurge;
+        private Exception failure;
+
+        @Override
+        protected void purgeEntriesOlderThan(long timestamp, int chunkSize, long pauseMillis,
+                                             AtomicLong deletedEntries) throws SQLException {
+            deleteChunks("age", chunkSize, deletedEntries);
+        }
+
+        @Override
+        protected void purgeExcessEntriesOfSiddhiApps(int maxEntries, int chunkSize, long pauseMillis,
+                                                      AtomicLong deletedEntries) throws SQLException {
+            deleteChunks("siddhiApp", chunkSize, deletedEntries);
+        }
+
+        @Override
+        protected void purgeExcessEntries(int maxEntries, int chunkSize, long pauseMillis,
+                                          AtomicLong deletedEntries) throws SQLException {
+            deleteChunks("total", chunkSize, deletedEntries);
+        }
+
+        @Override
+        protected long purgeUnusedStackTraces() {
+            purges.add("stackTraces");
+            return 2;
+        }
+
+        private void deleteChunks(String purge, int chunkSize, AtomicLong deletedEntries) throws SQLException {
+            purges.add(purge);
+            deletedEntries.addAndGet(chunkSize);
+            if (failure != null && purge.equals(failingPurge)) {
+                if (failure instanceof SQLException) {
+                    throw (SQLException) failure;
+                }
+                throw (RuntimeException) failure;
+            }
+            deletedEntries.addAndGet(chunkSize / 2);
+        }
+    }
+}
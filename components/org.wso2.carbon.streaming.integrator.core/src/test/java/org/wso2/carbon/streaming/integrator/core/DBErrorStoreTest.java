@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import io.siddhi.core.event.Event;
+import io.siddhi.core.util.error.handler.model.ErrorEntry;
+import io.siddhi.core.util.error.handler.util.ErrorHandlerUtils;
+import org.h2.jdbcx.JdbcDataSource;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.common.ErrorEntryFilter;
+import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.DBErrorStore;
+import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.util.ExecutionInfo;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+public class DBErrorStoreTest {
+    private static final String TABLE_NAME = "SIDDHI_ERROR_STORE_TABLE";
+    private static final String SIDDHI_APP_NAME = "TestApp";
+    private static final String PAGE_COLUMNS = "id, timestamp, siddhiAppName, streamName, cause, errorOccurrence, " +
+            "eventType, errorType";
+
+    private CountingDataSource dataSource;
+    private Connection keepAliveConnection;
+    private DBErrorStore errorStore;
+
+    @BeforeMethod
+    public void setUp() throws SQLException {
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:errorStore;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        // Keeps the in-memory database until the test ends
+        keepAliveConnection = h2DataSource.getConnection();
+        try (Statement stmt = keepAliveConnection.createStatement()) {
+            stmt.execute("CREATE TABLE " + TABLE_NAME + " (id INT NOT NULL AUTO_INCREMENT, timestamp BIGINT, " +
+                    "siddhiAppName VARCHAR (100), streamName VARCHAR(100), event LONGBLOB, cause VARCHAR(1000), " +
+                    "stackTrace LONGBLOB, originalPayload LONGBLOB, errorOccurrence VARCHAR(50), " +
+                    "eventType VARCHAR(50), errorType VARCHAR(50), stackTraceHash VARCHAR(64), PRIMARY KEY (id))");
+            stmt.execute("CREATE TABLE " + TABLE_NAME + "_TRACES (hash VARCHAR(64) NOT NULL PRIMARY KEY, " +
+                    "stackTrace LONGBLOB, lastUsed BIGINT)");
+        }
+        dataSource = new CountingDataSource(h2DataSource);
+
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        executionInfo.setPreparedSelectPageStatement("SELECT * FROM " + TABLE_NAME +
+                " WHERE siddhiAppName = ?{{CONDITIONS}} ORDER BY timestamp, id LIMIT ?");
+        executionInfo.setPreparedMinimalSelectPageStatement("SELECT " + PAGE_COLUMNS + " FROM " + TABLE_NAME +
+                " WHERE siddhiAppName = ?{{CONDITIONS}} ORDER BY timestamp, id LIMIT ?");
+        executionInfo.setPreparedSelectStackTraceStatement("SELECT stackTrace FROM " + TABLE_NAME +
+                "_TRACES WHERE hash = ?");
+        errorStore = new DBErrorStore();
+        Whitebox.setInternalState(errorStore, "datasource", dataSource);
+        Whitebox.setInternalState(errorStore, "datasourceName", "ERROR_STORE_DB");
+        Whitebox.setInternalState(errorStore, "tableName", TABLE_NAME);
+        Whitebox.setInternalState(errorStore, "databaseType", "h2");
+        Whitebox.setInternalState(errorStore, "executionInfo", executionInfo);
+    }
+
+    @AfterMethod
+    public void tearDown() throws SQLException {
+        try (Statement stmt = keepAliveConnection.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+        keepAliveConnection.close();
+    }
+
+    @Test
+    public void testKeysetPagingWithEqualTimestamps() throws Exception {
+        // Pages end within the runs of entries with equal timestamps
+        long[] timestamps = {1000, 1000, 1000, 1000, 2000, 2000, 3000};
+        for (long timestamp : timestamps) {
+            insertEntry(timestamp, "StockStream", null);
+        }
+        ErrorEntryFilter filter = new ErrorEntryFilter(SIDDHI_APP_NAME);
+        filter.setLimit(3);
+        List<Integer> ids = new ArrayList<>();
+        List<Long> readTimestamps = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        int readRows;
+        do {
+            readRows = errorStore.loadErrorEntries(filter, errorEntry -> {
+                ids.add(errorEntry.getId());
+                readTimestamps.add(errorEntry.getTimestamp());
+            });
+            pageSizes.add(readRows);
+        } while (readRows == filter.getLimit());
+        Assert.assertEquals(pageSizes, Arrays.asList(3, 3, 1));
+        Assert.assertEquals(ids, Arrays.asList(1, 2, 3, 4, 5, 6, 7));
+        for (int i = 0; i < timestamps.length; i++) {
+            Assert.assertEquals(readTimestamps.get(i).longValue(), timestamps[i]);
+        }
+    }
+
+    @Test
+    public void testLastPageEndingAtPageBoundary() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            insertEntry(1000 + i / 2, "StockStream", null);
+        }
+        // Belongs to another Siddhi app, hence never read
+        insertEntry(1001, "StockStream", null, "OtherApp");
+        ErrorEntryFilter filter = new ErrorEntryFilter(SIDDHI_APP_NAME);
+        filter.setLimit(3);
+        List<Integer> ids = new ArrayList<>();
+        Assert.assertEquals(errorStore.loadErrorEntries(filter, errorEntry -> ids.add(errorEntry.getId())), 3);
+        Assert.assertEquals(errorStore.loadErrorEntries(filter, errorEntry -> ids.add(errorEntry.getId())), 3);
+        Assert.assertEquals(filter.getAfterTimestamp().longValue(), 1002L);
+        Assert.assertEquals(filter.getAfterId(), 6);
+        // The page after a full last page is empty, and leaves the filter where it was
+        Assert.assertEquals(errorStore.loadErrorEntries(filter, errorEntry -> ids.add(errorEntry.getId())), 0);
+        Assert.assertEquals(filter.getAfterTimestamp().longValue(), 1002L);
+        Assert.assertEquals(filter.getAfterId(), 6);
+        Assert.assertEquals(ids, Arrays.asList(1, 2, 3, 4, 5, 6));
+    }
+
+    @Test
+    public void testPageReadThroughSingleConnection() throws Exception {
+        String stackTrace = "java.lang.IllegalStateException: Failed to map the event.";
+        String hash = "0a1b2c3d";
+        try (PreparedStatement stmt = keepAliveConnection.prepareStatement("INSERT INTO " + TABLE_NAME +
+                "_TRACES (hash, stackTrace, lastUsed) VALUES (?, ?, ?)")) {
+            stmt.setString(1, hash);
+            stmt.setBytes(2, ErrorHandlerUtils.getAsBytes(stackTrace));
+            stmt.setLong(3, System.currentTimeMillis());
+            stmt.executeUpdate();
+        }
+        byte[] reference = ("ST\u0001" + hash).getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < 4; i++) {
+            insertEntry(1000 + i, "StockStream", reference);
+        }
+        insertEntry(2000, "StockStream", ErrorHandlerUtils.getAsBytes("Stored along with the entry."));
+        ErrorEntryFilter filter = new ErrorEntryFilter(SIDDHI_APP_NAME);
+        filter.setLimit(10);
+        filter.setDescriptive(true);
+        List<ErrorEntry> errorEntries = new ArrayList<>();
+        int readRows = errorStore.loadErrorEntries(filter, errorEntry -> {
+            // Entries are handed over once the connection is back in the pool
+            Assert.assertEquals(dataSource.openConnections.get(), 0);
+            errorEntries.add(errorEntry);
+        });
+        Assert.assertEquals(readRows, 5);
+        Assert.assertEquals(errorEntries.size(), 5);
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(errorEntries.get(i).getStackTrace(), stackTrace);
+        }
+        Assert.assertEquals(errorEntries.get(4).getStackTrace(), "Stored along with the entry.");
+        // The referenced stack trace is loaded through the connection of the page
+        Assert.assertEquals(dataSource.borrowedConnections.get(), 1);
+    }
+
+    private void insertEntry(long timestamp, String streamName, byte[] stackTrace) throws IOException, SQLException {
+        insertEntry(timestamp, streamName, stackTrace, SIDDHI_APP_NAME);
+    }
+
+    private void insertEntry(long timestamp, String streamName, byte[] stackTrace, String siddhiAppName)
+            throws IOException, SQLException {
+        try (PreparedStatement stmt = keepAliveConnection.prepareStatement("INSERT INTO " + TABLE_NAME +
+                " (timestamp, siddhiAppName, streamName, event, cause, stackTrace, originalPayload, " +
+                "errorOccurrence, eventType, errorType) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            stmt.setLong(1, timestamp);
+            stmt.setString(2, siddhiAppName);
+            stmt.setString(3, streamName);
+            stmt.setBytes(4, ErrorHandlerUtils.getAsBytes(new Event(timestamp, new Object[]{"WSO2", 55.6f})));
+            stmt.setString(5, "Error in processing the event.");
+            stmt.setBytes(6, stackTrace);
+            stmt.setBytes(7, ErrorHandlerUtils.getAsBytes("{\"symbol\":\"WSO2\",\"price\":55.6}"));
+            stmt.setString(8, "BEFORE_SOURCE_MAPPING");
+            stmt.setString(9, "PAYLOAD_STRING");
+            stmt.setString(10, "MAPPING");
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Data source which counts the connections borrowed from it, and those not yet closed.
+     */
+    private static class CountingDataSource implements DataSource {
+        private final DataSource dataSource;
+        private final AtomicInteger borrowedConnections = new AtomicInteger();
+        private final AtomicInteger openConnections = new AtomicInteger();
+
+        CountingDataSource(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return count(dataSource.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return count(dataSource.getConnection(username, password));
+        }
+
+        private Connection count(Connection connection) {
+            borrowedConnections.incrementAndGet();
+            openConnections.incrementAndGet();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if ("close".equals(method.getName()) && !connection.isClosed()) {
+                            openConnections.decrementAndGet();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return dataSource.getLogWriter();
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+            dataSource.setLogWriter(out);
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+            dataSource.setLoginTimeout(seconds);
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return dataSource.getLoginTimeout();
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            return dataSource.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return dataSource.isWrapperFor(iface);
+        }
+    }
+}
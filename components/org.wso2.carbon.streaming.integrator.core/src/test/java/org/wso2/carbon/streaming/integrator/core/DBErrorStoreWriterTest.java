@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.DBErrorStore;
+import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.DBErrorStoreWriter;
+import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.dto.PendingErrorEntry;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DBErrorStoreWriterTest {
+    private static final String POISON_CAUSE = "poison";
+    private static final long FLUSH_INTERVAL_MILLIS = 10;
+
+    private File spillDirectory;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        spillDirectory = Files.createTempDirectory("error-store-spill").toFile();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        File[] spillFiles = spillDirectory.listFiles();
+        if (spillFiles != null) {
+            for (File spillFile : spillFiles) {
+                spillFile.delete();
+            }
+        }
+        spillDirectory.delete();
+    }
+
+    @Test
+    public void testUnwrittenEntriesKeptOnShutdown() throws InterruptedException {
+        RecordingErrorStore errorStore = new RecordingErrorStore();
+        errorStore.isAvailable = false;
+        DBErrorStoreWriter writer = createWriter(errorStore);
+        for (int i = 1; i <= 5; i++) {
+            writer.add(createEntry(i, "cause-" + i));
+        }
+        // Failed flushes of an unavailable store are retried, without counting them against the entries
+        Thread.sleep(20 * FLUSH_INTERVAL_MILLIS);
+        writer.shutdown();
+        Assert.assertEquals(errorStore.getSavedTimestamps().size(), 0);
+        Assert.assertEquals(listSpillFiles().length, 1);
+
+        errorStore.isAvailable = true;
+        writer = createWriter(errorStore);
+        writer.add(createEntry(6, "cause-6"));
+        writer.shutdown();
+        List<Long> savedTimestamps = errorStore.getSavedTimestamps();
+        Assert.assertEquals(savedTimestamps.size(), 6);
+        for (long i = 1; i <= 6; i++) {
+            Assert.assertTrue(savedTimestamps.contains(i));
+        }
+        Assert.assertEquals(listSpillFiles().length, 0);
+    }
+
+    @Test
+    public void testEntryWhichCannotBeWrittenIsDiscarded() throws InterruptedException {
+        RecordingErrorStore errorStore = new RecordingErrorStore();
+        DBErrorStoreWriter writer = createWriter(errorStore);
+        writer.add(createEntry(0, POISON_CAUSE));
+        int expectedEntries = 0;
+        for (int round = 0; round < 10; round++) {
+            // The entry is retried along with the following entries, which are written despite it
+            for (int i = 0; i < 3; i++) {
+                writer.add(createEntry(++expectedEntries, "cause-" + expectedEntries));
+            }
+            Assert.assertTrue(errorStore.awaitSavedEntries(expectedEntries, 10000));
+        }
+        writer.shutdown();
+        Assert.assertEquals(errorStore.getSavedTimestamps().size(), expectedEntries);
+        Assert.assertFalse(errorStore.getSavedTimestamps().contains(0L));
+        // Discarded after the maximum number of attempts, instead of being kept to be written once restarted
+        Assert.assertEquals(listSpillFiles().length, 0);
+    }
+
+    @Test
+    public void testFailedEntriesWrittenInOrder() throws InterruptedException {
+        RecordingErrorStore errorStore = new RecordingErrorStore();
+        errorStore.isAvailable = false;
+        DBErrorStoreWriter writer = createWriter(errorStore);
+        for (int i = 1; i <= 10; i++) {
+            writer.add(createEntry(i, "cause-" + i));
+        }
+        // Failed batches are spilled ahead of the entries added after them
+        Thread.sleep(20 * FLUSH_INTERVAL_MILLIS);
+        for (int i = 11; i <= 20; i++) {
+            writer.add(createEntry(i, "cause-" + i));
+        }
+        errorStore.isAvailable = true;
+        Assert.assertTrue(errorStore.awaitSavedEntries(20, 10000));
+        writer.shutdown();
+        List<Long> savedTimestamps = errorStore.getSavedTimestamps();
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(savedTimestamps.get(i).longValue(), i + 1);
+        }
+    }
+
+    private DBErrorStoreWriter createWriter(DBErrorStore errorStore) {
+        return new DBErrorStoreWriter(errorStore, 100, 4, FLUSH_INTERVAL_MILLIS, spillDirectory.getAbsolutePath());
+    }
+
+    private File[] listSpillFiles() {
+        return spillDirectory.listFiles((directory, name) -> name.endsWith(".spill"));
+    }
+
+    private static PendingErrorEntry createEntry(long timestamp, String cause) {
+        return new PendingErrorEntry(timestamp, "TestApp", "StockStream", new byte[]{1, 2, 3}, cause, null, null,
+                "BEFORE_SOURCE_MAPPING", "PAYLOAD_STRING", "MAPPING");
+    }
+
+    /**
+     * Error store which records the saved entries instead of writing them to a database, and rejects the batches
+     * holding a poison entry.
+     */
+    private static class RecordingErrorStore extends DBErrorStore {
+        private final List<Long> savedTimestamps = new ArrayList<>();
+        private volatile boolean isAvailable = true;
+
+        @Override
+        protected synchronized boolean saveEntries(List<PendingErrorEntry> entries) {
+            if (!isAvailable) {
+                return false;
+            }
+            for (PendingErrorEntry entry : entries) {
+                if (POISON_CAUSE.equals(entry.getCause())) {
+                    return false;
+                }
+            }
+            for (PendingErrorEntry entry : entries) {
+                savedTimestamps.add(entry.getTimestamp());
+            }
+            notifyAll();
+            return true;
+        }
+
+        synchronized List<Long> getSavedTimestamps() {
+            return new ArrayList<>(savedTimestamps);
+        }
+
+        synchronized boolean awaitSavedEntries(int count, long timeoutMillis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (savedTimestamps.size() < count && System.currentTimeMillis() < deadline) {
+                wait(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+            return savedTimestamps.size() >= count;
+        }
+    }
+}
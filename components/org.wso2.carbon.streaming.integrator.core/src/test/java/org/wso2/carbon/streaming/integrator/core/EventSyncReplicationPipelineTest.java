@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import io.netty.channel.ChannelFuture;
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
+import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
+import org.wso2.carbon.streaming.integrator.core.ha.tcp.SiddhiEventConverter;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSchemaRegistry;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnection;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncReplicationPipeline;
+import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
+import org.wso2.carbon.streaming.integrator.core.internal.beans.EventSyncReplicationConfig;
+import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class EventSyncReplicationPipelineTest {
+    private static final String SIDDHI_APP_NAME = "SpillTestApp";
+    private static final String SOURCE_ID = "source-1";
+
+    @Test
+    public void testSpilledEventOrdering() throws Exception {
+        File spillDirectory = Files.createTempDirectory("event-sync-spill").toFile();
+        EventSyncReplicationConfig replicationConfig = new EventSyncReplicationConfig();
+        replicationConfig.setBackPressureMode("spillToDisk");
+        replicationConfig.setQueueCapacity(4);
+        replicationConfig.setMaxEventsPerFrame(3);
+        replicationConfig.setWriterThreads(1);
+        replicationConfig.setFrameFlushIntervalMillis(1);
+        replicationConfig.setSpillDirectory(spillDirectory.getAbsolutePath());
+        RecordingConnection connection = new RecordingConnection();
+        EventSyncReplicationPipeline replicationPipeline = new EventSyncReplicationPipeline(
+                new GenericKeyedObjectPool() {
+                    @Override
+                    public Object borrowObject(Object key) {
+                        return connection;
+                    }
+                }, replicationConfig);
+        EventSchema eventSchema = EventSchemaRegistry.getLocalSchema(SIDDHI_APP_NAME, SOURCE_ID,
+                new Attribute.Type[]{Attribute.Type.LONG});
+        try {
+            replicationPipeline.send(eventSchema, createEvent(1));
+            // The writer is held while writing the first event, so that the queue fills up and the events spill
+            Assert.assertTrue(connection.writeStarted.await(10, TimeUnit.SECONDS));
+            for (int i = 2; i <= 30; i++) {
+                replicationPipeline.send(eventSchema, createEvent(i));
+            }
+            connection.writeReleased.countDown();
+            // Sent while the spilled events are being replicated, hence they have to follow the spilled events
+            for (int i = 31; i <= 60; i++) {
+                replicationPipeline.send(eventSchema, createEvent(i));
+            }
+            List<Long> sequenceIds = connection.awaitSequenceIds(60, 10000);
+            List<Long> expectedSequenceIds = new ArrayList<>();
+            for (long i = 1; i <= 60; i++) {
+                expectedSequenceIds.add(i);
+            }
+            Assert.assertEquals(sequenceIds, expectedSequenceIds);
+        } finally {
+            replicationPipeline.shutdown();
+            File[] spillFiles = spillDirectory.listFiles();
+            if (spillFiles != null) {
+                for (File spillFile : spillFiles) {
+                    spillFile.delete();
+                }
+            }
+            spillDirectory.delete();
+        }
+    }
+
+    @Test(timeOut = 20000)
+    public void testWriterContinuesAfterFailedFrame() throws Exception {
+        EventSyncReplicationConfig replicationConfig = new EventSyncReplicationConfig();
+        replicationConfig.setQueueCapacity(4);
+        replicationConfig.setMaxEventsPerFrame(1);
+        replicationConfig.setWriterThreads(1);
+        replicationConfig.setFrameFlushIntervalMillis(1);
+        RecordingConnection connection = new RecordingConnection();
+        connection.failedWrites = 1;
+        connection.writeReleased.countDown();
+        EventSyncReplicationPipeline replicationPipeline = new EventSyncReplicationPipeline(
+                new GenericKeyedObjectPool() {
+                    @Override
+                    public Object borrowObject(Object key) {
+                        return connection;
+                    }
+                }, replicationConfig);
+        EventSchema eventSchema = EventSchemaRegistry.getLocalSchema(SIDDHI_APP_NAME + "-failed-frame", SOURCE_ID,
+                new Attribute.Type[]{Attribute.Type.LONG});
+        try {
+            replicationPipeline.send(eventSchema, createEvent(1));
+            Assert.assertTrue(connection.writeStarted.await(10, TimeUnit.SECONDS));
+            // Sources block on the full queue unless the writer keeps draining it after the failed frame
+            for (int i = 2; i <= 30; i++) {
+                replicationPipeline.send(eventSchema, createEvent(i));
+            }
+            List<Long> sequenceIds = connection.awaitSequenceIds(29, 10000);
+            List<Long> expectedSequenceIds = new ArrayList<>();
+            for (long i = 2; i <= 30; i++) {
+                expectedSequenceIds.add(i);
+            }
+            Assert.assertEquals(sequenceIds, expectedSequenceIds);
+        } finally {
+            replicationPipeline.shutdown();
+        }
+    }
+
+    private static QueuedEvent createEvent(long sequenceId) {
+        return new QueuedEvent(SIDDHI_APP_NAME, SOURCE_ID, sequenceId, new Event(sequenceId,
+                new Object[]{sequenceId}), null);
+    }
+
+    /**
+     * Connection which decodes the replicated events instead of sending them to a passive node.
+     */
+    private static class RecordingConnection extends EventSyncConnection.Connection {
+        private final CountDownLatch writeStarted = new CountDownLatch(1);
+        private final CountDownLatch writeReleased = new CountDownLatch(1);
+        private final List<Long> sequenceIds = new ArrayList<>();
+        private int failedWrites;
+
+        RecordingConnection() {
+            super("localhost:0", null, "test-session");
+        }
+
+        @Override
+        public void registerSchema(EventSchema eventSchema) {
+            ByteBuffer schemaMessage = BinaryEventConverter.convertToSchemaMessage(eventSchema);
+            schemaMessage.rewind();
+            EventSchemaRegistry.registerRemoteSchema(SiddhiEventConverter.getEventSchema(schemaMessage));
+        }
+
+        @Override
+        public ChannelFuture write(String channelId, byte[] message) {
+            Assert.assertEquals(channelId, HAConstants.CHANNEL_ID_COMPACT_MESSAGE);
+            writeStarted.countDown();
+            try {
+                writeReleased.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failedWrites > 0) {
+                failedWrites--;
+                throw new IllegalStateException("Failed to write the frame.");
+            }
+            synchronized (this) {
+                for (QueuedEvent queuedEvent : SiddhiEventConverter.getQueuedEvents(ByteBuffer.wrap(message))) {
+                    sequenceIds.add(queuedEvent.getSequenceID());
+                }
+                notifyAll();
+            }
+            return null;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public boolean isActive() {
+            return true;
+        }
+
+        synchronized List<Long> awaitSequenceIds(int count, long timeoutMillis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (sequenceIds.size() < count && System.currentTimeMillis() < deadline) {
+                wait(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+            return new ArrayList<>(sequenceIds);
+        }
+    }
+}
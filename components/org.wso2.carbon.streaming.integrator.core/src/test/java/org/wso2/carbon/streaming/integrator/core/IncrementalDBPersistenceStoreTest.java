@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.config.ConfigurationException;
+import org.wso2.carbon.config.provider.ConfigProvider;
+import org.wso2.carbon.datasource.core.api.DataSourceService;
+import org.wso2.carbon.datasource.core.beans.DataSourceDefinition;
+import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.persistence.IncrementalDBPersistenceStore;
+import org.wso2.carbon.streaming.integrator.core.persistence.beans.PersistenceStoreConfigs;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
+
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+public class IncrementalDBPersistenceStoreTest {
+    private static final String TABLE_NAME = "INCREMENTAL_PERSISTENCE_TABLE";
+    private static final String SIDDHI_APP_NAME = "TestApp";
+    private static final byte[] SNAPSHOT = "snapshot".getBytes(StandardCharsets.UTF_8);
+
+    private HikariDataSource hikariDataSource;
+    private BlockingDataSource dataSource;
+    private IncrementalDBPersistenceStore persistenceStore;
+
+    @BeforeMethod
+    public void setUp() {
+        hikariDataSource = new HikariDataSource();
+        hikariDataSource.setJdbcUrl("jdbc:h2:mem:incrementalPersistence;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        StreamProcessorDataHolder.setDataSourceService(new DataSourceService() {
+            public Object getDataSource(String name) {
+                return hikariDataSource;
+            }
+
+            public Object createDataSource(DataSourceDefinition dataSourceDefinition) {
+                return hikariDataSource;
+            }
+        });
+        PersistenceStoreConfigs persistenceStoreConfigs = new PersistenceStoreConfigs();
+        persistenceStoreConfigs.setQueries(new ArrayList<>());
+        StreamProcessorDataHolder.getInstance().setConfigProvider(new ConfigProvider() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T getConfigurationObject(Class<T> configClass) throws ConfigurationException {
+                return (T) persistenceStoreConfigs;
+            }
+
+            @Override
+            public Object getConfigurationObject(String namespace) throws ConfigurationException {
+                return persistenceStoreConfigs;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T getConfigurationObject(String namespace, Class<T> configClass)
+                    throws ConfigurationException {
+                return (T) persistenceStoreConfigs;
+            }
+
+            @Override
+            public <T> ArrayList<T> getConfigurationObjectList(String namespace, Class<T> configClass)
+                    throws ConfigurationException {
+                return null;
+            }
+        });
+
+        persistenceStore = new IncrementalDBPersistenceStore();
+        Map<String, Object> properties = new HashMap<>();
+        Map<String, Object> config = new HashMap<>();
+        config.put("datasource", "PERSISTENCE_DB");
+        config.put("table", TABLE_NAME);
+        properties.put(PersistenceConstants.STATE_PERSISTENCE_CONFIGS, config);
+        persistenceStore.setProperties(properties);
+        // Connections are counted, and the first one held back, only once the table is created
+        dataSource = new BlockingDataSource(hikariDataSource);
+        Whitebox.setInternalState(persistenceStore, "datasource", dataSource);
+    }
+
+    @AfterMethod
+    public void tearDown() throws SQLException {
+        try (Connection con = hikariDataSource.getConnection(); Statement stmt = con.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+        hikariDataSource.close();
+        StreamProcessorDataHolder.setDataSourceService(null);
+        StreamProcessorDataHolder.getInstance().setConfigProvider(null);
+    }
+
+    @Test
+    public void testTableCreatedWithRevisionIndex() throws SQLException {
+        try (Connection con = hikariDataSource.getConnection();
+             PreparedStatement stmt = con.prepareStatement(
+                     "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE UPPER(INDEX_NAME) = ?")) {
+            stmt.setString(1, TABLE_NAME + "_REVISION_INDEX");
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                Assert.assertTrue(resultSet.next());
+                Assert.assertTrue(resultSet.getInt(1) > 0);
+            }
+        }
+    }
+
+    @Test(timeOut = 30000)
+    public void testRevisionsSavedInBatch() throws InterruptedException {
+        IncrementalSnapshotInfo first = createSnapshotInfo("element1", 1000, IncrementalSnapshotInfo.SnapshotType.BASE);
+        IncrementalSnapshotInfo second = createSnapshotInfo("element2", 1000,
+                IncrementalSnapshotInfo.SnapshotType.BASE);
+        IncrementalSnapshotInfo third = createSnapshotInfo("element1", 1001,
+                IncrementalSnapshotInfo.SnapshotType.INCREMENT);
+        saveConcurrently(first, second, third);
+        // The revisions saved while the first one is being written are saved in a single batch
+        Assert.assertEquals(dataSource.borrowedConnections.get(), 2);
+        Assert.assertEquals(getElementsToLoad(2000), Arrays.asList("element1:1000", "element1:1001",
+                "element2:1000"));
+        Assert.assertEquals(persistenceStore.load(third), SNAPSHOT);
+    }
+
+    @Test(timeOut = 30000)
+    public void testFailedBatchSavedSeparately() throws InterruptedException {
+        IncrementalSnapshotInfo first = createSnapshotInfo("element1", 1000, IncrementalSnapshotInfo.SnapshotType.BASE);
+        IncrementalSnapshotInfo second = createSnapshotInfo("element2", 1000,
+                IncrementalSnapshotInfo.SnapshotType.BASE);
+        // Longer than the element id column, hence fails the batch it is saved in
+        IncrementalSnapshotInfo invalid = createSnapshotInfo(String.join("", Collections.nCopies(400, "e")), 1000,
+                IncrementalSnapshotInfo.SnapshotType.BASE);
+        saveConcurrently(first, second, invalid);
+        // After the failed batch, each of its revisions is saved through a connection of its own
+        Assert.assertEquals(dataSource.borrowedConnections.get(), 4);
+        Assert.assertEquals(getElementsToLoad(2000), Arrays.asList("element1:1000", "element2:1000"));
+        Assert.assertEquals(persistenceStore.load(second), SNAPSHOT);
+        Assert.assertNull(persistenceStore.load(invalid));
+    }
+
+    @Test
+    public void testRevisionsIndexedWhenRead() throws SQLException {
+        IncrementalSnapshotInfo snapshotInfo = createSnapshotInfo("element1", 1000,
+                IncrementalSnapshotInfo.SnapshotType.BASE);
+        IncrementalSnapshotInfo otherAppSnapshotInfo = new IncrementalSnapshotInfo("OtherApp", null, "query1",
+                "element1", 1000, IncrementalSnapshotInfo.SnapshotType.BASE, null);
+        // Saved without the revision index, as by a node of an older version
+        insertUnindexedRevision(SIDDHI_APP_NAME, snapshotInfo.getRevision());
+        insertUnindexedRevision(SIDDHI_APP_NAME, "invalidRevision");
+        insertUnindexedRevision("OtherApp", otherAppSnapshotInfo.getRevision());
+        Assert.assertTrue(persistenceStore.getLastRevision(SIDDHI_APP_NAME).startsWith("1000" +
+                PersistenceConstants.REVISION_SEPARATOR));
+        Assert.assertEquals(getElementsToLoad(2000), Collections.singletonList("element1:1000"));
+
+        Assert.assertEquals(getSnapshotTime(snapshotInfo.getRevision()), Long.valueOf(1000));
+        // Invalid revisions are indexed so that they are neither loaded nor read again
+        Assert.assertEquals(getSnapshotTime("invalidRevision"), Long.valueOf(-1));
+        // Revisions of the apps which are not read are left as they are
+        Assert.assertNull(getSnapshotTime(otherAppSnapshotInfo.getRevision()));
+    }
+
+    /**
+     * Saves the first revision, and the others while it is being written, each from a thread of its own.
+     */
+    private void saveConcurrently(IncrementalSnapshotInfo first, IncrementalSnapshotInfo... others)
+            throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        threads.add(startSave(first));
+        waitUntil(() -> dataSource.borrowedConnections.get() == 1);
+        for (IncrementalSnapshotInfo snapshotInfo : others) {
+            Thread thread = startSave(snapshotInfo);
+            threads.add(thread);
+            waitUntil(() -> thread.getState() == Thread.State.WAITING);
+        }
+        dataSource.firstConnectionLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private Thread startSave(IncrementalSnapshotInfo snapshotInfo) {
+        Thread thread = new Thread(() -> persistenceStore.save(snapshotInfo, SNAPSHOT));
+        thread.start();
+        return thread;
+    }
+
+    private List<String> getElementsToLoad(long restoreTime) {
+        List<String> elements = new ArrayList<>();
+        for (IncrementalSnapshotInfo snapshotInfo : persistenceStore.getListOfRevisionsToLoad(restoreTime,
+                SIDDHI_APP_NAME)) {
+            elements.add(snapshotInfo.getElementId() + ":" + snapshotInfo.getTime());
+        }
+        Collections.sort(elements);
+        return elements;
+    }
+
+    private void insertUnindexedRevision(String siddhiAppName, String revision) throws SQLException {
+        try (Connection con = hikariDataSource.getConnection();
+             PreparedStatement stmt = con.prepareStatement("INSERT INTO " + TABLE_NAME +
+                     " (siddhiAppName, revision, snapshot) VALUES (?, ?, ?)")) {
+            stmt.setString(1, siddhiAppName);
+            stmt.setString(2, revision);
+            stmt.setBytes(3, SNAPSHOT);
+            stmt.executeUpdate();
+        }
+    }
+
+    private Long getSnapshotTime(String revision) throws SQLException {
+        try (Connection con = hikariDataSource.getConnection();
+             PreparedStatement stmt = con.prepareStatement("SELECT snapshotTime FROM " + TABLE_NAME +
+                     " WHERE revision = ?")) {
+            stmt.setString(1, revision);
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                Assert.assertTrue(resultSet.next());
+                long snapshotTime = resultSet.getLong(1);
+                return resultSet.wasNull() ? null : snapshotTime;
+            }
+        }
+    }
+
+    private static IncrementalSnapshotInfo createSnapshotInfo(String elementId, long time,
+                                                              IncrementalSnapshotInfo.SnapshotType type) {
+        return new IncrementalSnapshotInfo(SIDDHI_APP_NAME, null, "query1", elementId, time, type, null);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the saving threads.");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Data source which counts the connections borrowed from it, holding back the first one until released.
+     */
+    private static class BlockingDataSource implements DataSource {
+        private final DataSource dataSource;
+        private final CountDownLatch firstConnectionLatch = new CountDownLatch(1);
+        private final AtomicInteger borrowedConnections = new AtomicInteger();
+
+        BlockingDataSource(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (borrowedConnections.incrementAndGet() == 1) {
+                try {
+                    if (!firstConnectionLatch.await(10, TimeUnit.SECONDS)) {
+                        throw new SQLException("The first connection was not released.");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException(e);
+                }
+            }
+            return dataSource.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return dataSource.getConnection(username, password);
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return dataSource.getLogWriter();
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+            dataSource.setLogWriter(out);
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+            dataSource.setLoginTimeout(seconds);
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return dataSource.getLoginTimeout();
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            return dataSource.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return dataSource.isWrapperFor(iface);
+        }
+    }
+}
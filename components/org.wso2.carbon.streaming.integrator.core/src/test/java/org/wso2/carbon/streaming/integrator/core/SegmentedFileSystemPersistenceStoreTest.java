@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import io.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
+import io.siddhi.core.util.persistence.util.PersistenceHelper;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.persistence.SegmentedFileSystemPersistenceStore;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class SegmentedFileSystemPersistenceStoreTest {
+    private static final String SIDDHI_APP_NAME = "SegmentTestApp";
+    private File persistenceDirectory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        persistenceDirectory = Files.createTempDirectory("segment-persistence").toFile();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        File[] segmentFiles = getSegmentFiles();
+        for (File segmentFile : segmentFiles) {
+            segmentFile.delete();
+        }
+        new File(persistenceDirectory, SIDDHI_APP_NAME).delete();
+        persistenceDirectory.delete();
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        SegmentedFileSystemPersistenceStore persistenceStore = createPersistenceStore(0);
+        Assert.assertNull(persistenceStore.getLastRevision(SIDDHI_APP_NAME));
+
+        IncrementalSnapshotInfo firstBase = createSnapshotInfo(1000, "query1", "element1", "BASE");
+        IncrementalSnapshotInfo secondBase = createSnapshotInfo(1001, "query1", "element2", "BASE");
+        IncrementalSnapshotInfo increment = createSnapshotInfo(1002, "query1", "element1", "INCREMENT");
+        byte[] firstSnapshot = createSnapshot(5000, 1);
+        byte[] secondSnapshot = createSnapshot(3000, 2);
+        byte[] incrementSnapshot = createSnapshot(100, 3);
+        persistenceStore.save(firstBase, firstSnapshot);
+        persistenceStore.save(secondBase, secondSnapshot);
+        persistenceStore.save(increment, incrementSnapshot);
+
+        Assert.assertEquals(persistenceStore.load(firstBase), firstSnapshot);
+        Assert.assertEquals(persistenceStore.load(secondBase), secondSnapshot);
+        Assert.assertEquals(persistenceStore.load(increment), incrementSnapshot);
+        Assert.assertNull(persistenceStore.load(createSnapshotInfo(999, "query1", "element1", "BASE")));
+        Assert.assertEquals(persistenceStore.getLastRevision(SIDDHI_APP_NAME),
+                1002 + PersistenceConstants.REVISION_SEPARATOR + SIDDHI_APP_NAME);
+        Assert.assertEquals(getRevisions(persistenceStore.getListOfRevisionsToLoad(1001, SIDDHI_APP_NAME)),
+                Arrays.asList(firstBase.getRevision(), secondBase.getRevision()));
+
+        // A base revision makes the older base and incremental revisions of its element obsolete
+        IncrementalSnapshotInfo thirdBase = createSnapshotInfo(1003, "query1", "element1", "BASE");
+        persistenceStore.save(thirdBase, firstSnapshot);
+        Assert.assertNull(persistenceStore.load(firstBase));
+        Assert.assertNull(persistenceStore.load(increment));
+        Assert.assertEquals(getRevisions(persistenceStore.getListOfRevisionsToLoad(2000, SIDDHI_APP_NAME)),
+                Arrays.asList(secondBase.getRevision(), thirdBase.getRevision()));
+
+        persistenceStore.clearAllRevisions(SIDDHI_APP_NAME);
+        Assert.assertNull(persistenceStore.getLastRevision(SIDDHI_APP_NAME));
+        Assert.assertEquals(getSegmentFiles().length, 0);
+    }
+
+    @Test
+    public void testRestart() {
+        SegmentedFileSystemPersistenceStore persistenceStore = createPersistenceStore(0);
+        IncrementalSnapshotInfo firstBase = createSnapshotInfo(2000, "query1", "element1", "BASE");
+        IncrementalSnapshotInfo secondBase = createSnapshotInfo(2001, "query2", "element1", "BASE");
+        IncrementalSnapshotInfo increment = createSnapshotInfo(2002, "query1", "element1", "INCREMENT");
+        byte[] firstSnapshot = createSnapshot(5000, 4);
+        byte[] secondSnapshot = createSnapshot(300000, 5);
+        byte[] incrementSnapshot = createSnapshot(200, 6);
+        persistenceStore.save(firstBase, firstSnapshot);
+        persistenceStore.save(secondBase, secondSnapshot);
+        persistenceStore.save(increment, incrementSnapshot);
+        persistenceStore.save(createSnapshotInfo(2003, "query2", "element1", "INCREMENT"), createSnapshot(10, 7));
+        persistenceStore.save(createSnapshotInfo(2004, "query2", "element1", "BASE"), secondSnapshot);
+
+        SegmentedFileSystemPersistenceStore restartedPersistenceStore = createPersistenceStore(0);
+        Assert.assertEquals(restartedPersistenceStore.getLastRevision(SIDDHI_APP_NAME),
+                2004 + PersistenceConstants.REVISION_SEPARATOR + SIDDHI_APP_NAME);
+        Assert.assertEquals(restartedPersistenceStore.load(firstBase), firstSnapshot);
+        Assert.assertEquals(restartedPersistenceStore.load(increment), incrementSnapshot);
+        // Revisions deleted before the restart are not recovered
+        Assert.assertNull(restartedPersistenceStore.load(secondBase));
+        Assert.assertEquals(getRevisions(restartedPersistenceStore.getListOfRevisionsToLoad(3000, SIDDHI_APP_NAME)),
+                Arrays.asList(firstBase.getRevision(), increment.getRevision(),
+                        createSnapshotInfo(2004, "query2", "element1", "BASE").getRevision()));
+    }
+
+    @Test
+    public void testCompaction() throws InterruptedException {
+        SegmentedFileSystemPersistenceStore persistenceStore = createPersistenceStore(1);
+        // Incompressible snapshots of 300 KB, hence a segment of 1 MB holds three of them
+        IncrementalSnapshotInfo firstBase = createSnapshotInfo(3000, "query1", "element1", "BASE");
+        IncrementalSnapshotInfo secondBase = createSnapshotInfo(3001, "query1", "element2", "BASE");
+        IncrementalSnapshotInfo increment = createSnapshotInfo(3002, "query1", "element1", "INCREMENT");
+        IncrementalSnapshotInfo thirdBase = createSnapshotInfo(3003, "query1", "element1", "BASE");
+        byte[] secondSnapshot = createSnapshot(300000, 9);
+        byte[] thirdSnapshot = createSnapshot(300000, 10);
+        persistenceStore.save(firstBase, createSnapshot(300000, 8));
+        persistenceStore.save(secondBase, secondSnapshot);
+        persistenceStore.save(increment, createSnapshot(300000, 11));
+        Assert.assertEquals(getSegmentFiles().length, 1);
+        persistenceStore.save(thirdBase, thirdSnapshot);
+        File[] segmentFiles = getSegmentFiles();
+        Assert.assertEquals(segmentFiles.length, 2);
+
+        // Only the second base revision is left live in the first segment, hence it is moved by the compaction
+        File firstSegmentFile = segmentFiles[0];
+        long deadline = System.currentTimeMillis() + 10000;
+        while (firstSegmentFile.exists() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        Assert.assertFalse(firstSegmentFile.exists());
+        Assert.assertEquals(getSegmentFiles().length, 1);
+        Assert.assertEquals(persistenceStore.load(secondBase), secondSnapshot);
+        Assert.assertEquals(persistenceStore.load(thirdBase), thirdSnapshot);
+
+        SegmentedFileSystemPersistenceStore restartedPersistenceStore = createPersistenceStore(0);
+        Assert.assertEquals(restartedPersistenceStore.load(secondBase), secondSnapshot);
+        Assert.assertEquals(restartedPersistenceStore.load(thirdBase), thirdSnapshot);
+        Assert.assertEquals(getRevisions(restartedPersistenceStore.getListOfRevisionsToLoad(4000, SIDDHI_APP_NAME)),
+                Arrays.asList(secondBase.getRevision(), thirdBase.getRevision()));
+    }
+
+    @Test
+    public void testCorruptedRecord() throws IOException {
+        SegmentedFileSystemPersistenceStore persistenceStore = createPersistenceStore(0);
+        IncrementalSnapshotInfo firstBase = createSnapshotInfo(4000, "query1", "element1", "BASE");
+        IncrementalSnapshotInfo secondBase = createSnapshotInfo(4001, "query1", "element2", "BASE");
+        IncrementalSnapshotInfo thirdBase = createSnapshotInfo(4002, "query1", "element3", "BASE");
+        byte[] firstSnapshot = createSnapshot(5000, 12);
+        persistenceStore.save(firstBase, firstSnapshot);
+        persistenceStore.save(secondBase, createSnapshot(5000, 13));
+        persistenceStore.save(thirdBase, createSnapshot(5000, 14));
+
+        // Corrupts the snapshot of the second record, which fails its checksum when the segment is recovered
+        File segmentFile = getSegmentFiles()[0];
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(segmentFile, "rw")) {
+            byte[] segment = new byte[(int) randomAccessFile.length()];
+            randomAccessFile.readFully(segment);
+            byte[] revision = secondBase.getRevision().getBytes(StandardCharsets.UTF_8);
+            int snapshotOffset = indexOf(segment, revision) + revision.length + 100;
+            randomAccessFile.seek(snapshotOffset);
+            randomAccessFile.write(segment[snapshotOffset] ^ 0xFF);
+        }
+
+        SegmentedFileSystemPersistenceStore restartedPersistenceStore = createPersistenceStore(0);
+        Assert.assertEquals(restartedPersistenceStore.load(firstBase), firstSnapshot);
+        // The records following the corrupted record are discarded along with it
+        Assert.assertNull(restartedPersistenceStore.load(secondBase));
+        Assert.assertNull(restartedPersistenceStore.load(thirdBase));
+        Assert.assertEquals(restartedPersistenceStore.getLastRevision(SIDDHI_APP_NAME),
+                4000 + PersistenceConstants.REVISION_SEPARATOR + SIDDHI_APP_NAME);
+
+        // New revisions are written in place of the discarded records
+        byte[] newSnapshot = createSnapshot(5000, 15);
+        restartedPersistenceStore.save(secondBase, newSnapshot);
+        SegmentedFileSystemPersistenceStore reloadedPersistenceStore = createPersistenceStore(0);
+        Assert.assertEquals(reloadedPersistenceStore.load(firstBase), firstSnapshot);
+        Assert.assertEquals(reloadedPersistenceStore.load(secondBase), newSnapshot);
+        Assert.assertEquals(getSegmentFiles().length, 1);
+    }
+
+    private SegmentedFileSystemPersistenceStore createPersistenceStore(int compactionIntervalInSec) {
+        Map<String, Object> configurationMap = new HashMap<>();
+        configurationMap.put("location", persistenceDirectory.getAbsolutePath());
+        configurationMap.put("segmentSizeInMB", 1);
+        configurationMap.put("compactionThreshold", 0.5);
+        configurationMap.put("compactionIntervalInSec", compactionIntervalInSec);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PersistenceConstants.STATE_PERSISTENCE_CONFIGS, configurationMap);
+        SegmentedFileSystemPersistenceStore persistenceStore = new SegmentedFileSystemPersistenceStore();
+        persistenceStore.setProperties(properties);
+        return persistenceStore;
+    }
+
+    private static IncrementalSnapshotInfo createSnapshotInfo(long time, String queryName, String elementId,
+                                                              String type) {
+        String separator = PersistenceConstants.REVISION_SEPARATOR;
+        return PersistenceHelper.convertRevision(time + separator + SIDDHI_APP_NAME + separator + "null" +
+                separator + "null" + separator + queryName + separator + elementId + separator + type);
+    }
+
+    private static byte[] createSnapshot(int length, long seed) {
+        // Random content, so that the size of the snapshot is kept when it is compressed
+        byte[] snapshot = new byte[length];
+        new Random(seed).nextBytes(snapshot);
+        return snapshot;
+    }
+
+    private static List<String> getRevisions(List<IncrementalSnapshotInfo> snapshotInfos) {
+        List<String> revisions = new ArrayList<>();
+        for (IncrementalSnapshotInfo snapshotInfo : snapshotInfos) {
+            revisions.add(snapshotInfo.getRevision());
+        }
+        revisions.sort(null);
+        return revisions;
+    }
+
+    private File[] getSegmentFiles() {
+        File[] segmentFiles = new File(persistenceDirectory, SIDDHI_APP_NAME).listFiles();
+        if (segmentFiles == null) {
+            return new File[0];
+        }
+        Arrays.sort(segmentFiles);
+        return segmentFiles;
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(data, i, i + pattern.length), pattern)) {
+                return i;
+            }
+        }
+        throw new AssertionError("Pattern not found");
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventComposite;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnection;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnectionPoolFactory;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncMessage;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.SnapshotChunk;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.SnapshotReplicaStore;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.SnapshotReplicator;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.handlers.MessageDecoder;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.handlers.MessageEncoder;
+import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
+import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
+import org.wso2.carbon.streaming.integrator.core.ha.util.SnapshotDeltaUtil;
+import org.wso2.carbon.streaming.integrator.core.internal.beans.StateReplicationConfig;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+public class SnapshotReplicationTest {
+    private static final int BLOCK_SIZE = 64;
+
+    @Test
+    public void testSnapshotDelta() {
+        byte[] previousSnapshot = createSnapshot(1000, 1);
+        byte[] snapshot = Arrays.copyOf(previousSnapshot, previousSnapshot.length);
+        snapshot[10]++;
+        snapshot[700]++;
+
+        byte[] delta = SnapshotDeltaUtil.createDelta(previousSnapshot, snapshot, BLOCK_SIZE);
+        Assert.assertEquals(delta.length, 12 + 2 * (4 + BLOCK_SIZE));
+        Assert.assertEquals(SnapshotDeltaUtil.applyDelta(previousSnapshot, delta), snapshot);
+
+        byte[] fullDelta = SnapshotDeltaUtil.createDelta(null, snapshot, BLOCK_SIZE);
+        Assert.assertEquals(SnapshotDeltaUtil.applyDelta(null, fullDelta), snapshot);
+
+        byte[] unchangedDelta = SnapshotDeltaUtil.createDelta(snapshot, snapshot, BLOCK_SIZE);
+        Assert.assertEquals(unchangedDelta.length, 12);
+        Assert.assertEquals(SnapshotDeltaUtil.applyDelta(snapshot, unchangedDelta), snapshot);
+    }
+
+    @Test
+    public void testSnapshotDeltaOfResizedSnapshot() {
+        byte[] previousSnapshot = createSnapshot(1000, 2);
+        byte[] grownSnapshot = Arrays.copyOf(previousSnapshot, 1100);
+        grownSnapshot[1050] = 1;
+        Assert.assertEquals(SnapshotDeltaUtil.applyDelta(previousSnapshot,
+                SnapshotDeltaUtil.createDelta(previousSnapshot, grownSnapshot, BLOCK_SIZE)), grownSnapshot);
+
+        byte[] shrunkSnapshot = Arrays.copyOf(previousSnapshot, 650);
+        Assert.assertEquals(SnapshotDeltaUtil.applyDelta(previousSnapshot,
+                SnapshotDeltaUtil.createDelta(previousSnapshot, shrunkSnapshot, BLOCK_SIZE)), shrunkSnapshot);
+
+        byte[] emptySnapshot = new byte[0];
+        Assert.assertEquals(SnapshotDeltaUtil.applyDelta(previousSnapshot,
+                SnapshotDeltaUtil.createDelta(previousSnapshot, emptySnapshot, BLOCK_SIZE)), emptySnapshot);
+    }
+
+    @Test
+    public void testSnapshotChunkConversion() {
+        byte[] data = createSnapshot(100, 3);
+        SnapshotChunk snapshotChunk = SnapshotChunk.fromByteBuffer(ByteBuffer.wrap(
+                new SnapshotChunk("TestApp \u00e9", 5L, 4L, 1234L, 2, 3, data).toBytes()));
+        Assert.assertEquals(snapshotChunk.getSiddhiAppName(), "TestApp \u00e9");
+        Assert.assertEquals(snapshotChunk.getVersion(), 5L);
+        Assert.assertEquals(snapshotChunk.getBaseVersion(), 4L);
+        Assert.assertEquals(snapshotChunk.getSequenceId(), 1234L);
+        Assert.assertEquals(snapshotChunk.getChunkIndex(), 2);
+        Assert.assertEquals(snapshotChunk.getChunkCount(), 3);
+        Assert.assertEquals(snapshotChunk.getData(), data);
+
+        SnapshotChunk emptyChunk = SnapshotChunk.fromByteBuffer(ByteBuffer.wrap(
+                new SnapshotChunk("TestApp", 1L, -1L, 0L, 0, 1, new byte[0]).toBytes()));
+        Assert.assertEquals(emptyChunk.getData().length, 0);
+        Assert.assertEquals(emptyChunk.getBaseVersion(), -1L);
+    }
+
+    @Test
+    public void testSnapshotReplicaStore() throws IOException {
+        SnapshotReplicaStore snapshotReplicaStore = new SnapshotReplicaStore();
+        byte[] fullSnapshot = createSnapshot(5000, 4);
+        byte[] deltaSnapshot = Arrays.copyOf(fullSnapshot, fullSnapshot.length);
+        deltaSnapshot[4000]++;
+
+        List<SnapshotChunk> fullChunks = createChunks("TestApp", 1L, -1L, 100L, null, fullSnapshot);
+        // Chunks may be received in any order, and duplicates are ignored
+        addChunks(snapshotReplicaStore, Arrays.asList(fullChunks.get(2), fullChunks.get(0), fullChunks.get(0)));
+        Assert.assertNull(snapshotReplicaStore.remove("TestApp"));
+
+        addChunks(snapshotReplicaStore, fullChunks);
+        addChunks(snapshotReplicaStore, createChunks("TestApp", 2L, 1L, 200L, fullSnapshot, deltaSnapshot));
+        SnapshotReplicaStore.SnapshotReplica snapshotReplica = snapshotReplicaStore.remove("TestApp");
+        Assert.assertNotNull(snapshotReplica);
+        Assert.assertEquals(snapshotReplica.getSequenceId(), 200L);
+        Assert.assertEquals(snapshotReplica.getSnapshot(), deltaSnapshot);
+        Assert.assertNull(snapshotReplicaStore.remove("TestApp"));
+
+        // A delta based on a snapshot which was not received is dropped, keeping the last complete snapshot
+        addChunks(snapshotReplicaStore, fullChunks);
+        addChunks(snapshotReplicaStore, createChunks("TestApp", 4L, 3L, 400L, fullSnapshot, deltaSnapshot));
+        snapshotReplica = snapshotReplicaStore.remove("TestApp");
+        Assert.assertNotNull(snapshotReplica);
+        Assert.assertEquals(snapshotReplica.getSequenceId(), 100L);
+        Assert.assertEquals(snapshotReplica.getSnapshot(), fullSnapshot);
+    }
+
+    @Test
+    public void testSnapshotChunksThroughEventSyncChannel() throws IOException, InterruptedException {
+        byte[] snapshot = createSnapshot(5000, 5);
+        EmbeddedChannel clientChannel = new EmbeddedChannel(new MessageEncoder());
+        for (SnapshotChunk snapshotChunk : createChunks("TestApp", 1L, -1L, 300L, null, snapshot)) {
+            clientChannel.writeOutbound(new EventComposite(null, HAConstants.CHANNEL_ID_SNAPSHOT_MESSAGE,
+                    snapshotChunk.toBytes()));
+        }
+
+        BlockingQueue<EventSyncMessage> eventSyncMessageQueue = new LinkedBlockingQueue<>();
+        EmbeddedChannel serverChannel = new EmbeddedChannel(new MessageDecoder(eventSyncMessageQueue));
+        ByteBuf encodedChunk;
+        while ((encodedChunk = clientChannel.readOutbound()) != null) {
+            serverChannel.writeInbound(encodedChunk);
+        }
+        Assert.assertEquals(eventSyncMessageQueue.size(), 3);
+
+        SnapshotReplicaStore snapshotReplicaStore = new SnapshotReplicaStore();
+        while (!eventSyncMessageQueue.isEmpty()) {
+            EventSyncMessage message = eventSyncMessageQueue.take();
+            try {
+                Assert.assertEquals(message.getChannelId(), HAConstants.CHANNEL_ID_SNAPSHOT_MESSAGE);
+                snapshotReplicaStore.addChunk(SnapshotChunk.fromByteBuffer(message.getPayload()));
+            } finally {
+                message.release();
+            }
+        }
+        SnapshotReplicaStore.SnapshotReplica snapshotReplica = snapshotReplicaStore.remove("TestApp");
+        Assert.assertNotNull(snapshotReplica);
+        Assert.assertEquals(snapshotReplica.getSequenceId(), 300L);
+        Assert.assertEquals(snapshotReplica.getSnapshot(), snapshot);
+        clientChannel.finish();
+        serverChannel.finish();
+    }
+
+    @Test
+    public void testSnapshotDeltaOfBlockDigests() {
+        byte[] previousSnapshot = createSnapshot(1000, 6);
+        byte[] snapshot = Arrays.copyOf(previousSnapshot, 1030);
+        snapshot[300]++;
+        byte[] previousBlockDigests = SnapshotDeltaUtil.digestBlocks(previousSnapshot, BLOCK_SIZE);
+        byte[] blockDigests = SnapshotDeltaUtil.digestBlocks(snapshot, BLOCK_SIZE);
+        Assert.assertEquals(SnapshotDeltaUtil.digestBlocks(snapshot, BLOCK_SIZE), blockDigests);
+
+        byte[] delta = SnapshotDeltaUtil.createDelta(previousBlockDigests, blockDigests, snapshot, BLOCK_SIZE);
+        // The changed block, and the partial last block of the previous snapshot which grew
+        Assert.assertEquals(delta.length, 12 + 4 + BLOCK_SIZE + 4 + BLOCK_SIZE + 4 + 1030 - 16 * BLOCK_SIZE);
+        Assert.assertEquals(SnapshotDeltaUtil.applyDelta(previousSnapshot, delta), snapshot);
+    }
+
+    @Test
+    public void testSnapshotReplicator() {
+        StateReplicationConfig config = new StateReplicationConfig();
+        config.setChunkSizeInKB(1);
+        config.setBlockSizeInKB(1);
+        config.setCompression("gzip");
+        RecordingConnection connection = new RecordingConnection();
+        EventSyncConnectionPoolFactory connectionPoolFactory = new EventSyncConnectionPoolFactory("localhost", 0);
+        SnapshotReplicator snapshotReplicator = new SnapshotReplicator(new GenericKeyedObjectPool() {
+            @Override
+            public Object borrowObject(Object key) {
+                return connection;
+            }
+        }, connectionPoolFactory, config);
+        byte[] fullSnapshot = createSnapshot(10000, 7);
+        byte[] deltaSnapshot = Arrays.copyOf(fullSnapshot, fullSnapshot.length);
+        deltaSnapshot[5000]++;
+
+        // Only the snapshot saved as the persisted revision is sent
+        snapshotReplicator.snapshotPersisted("TestApp", "revision-1", fullSnapshot);
+        Assert.assertFalse(snapshotReplicator.replicate("TestApp", "revision-0", 100L));
+        Assert.assertFalse(snapshotReplicator.replicate("TestApp", "revision-1", 100L));
+        Assert.assertTrue(connection.chunks.isEmpty());
+
+        snapshotReplicator.snapshotPersisted("TestApp", "revision-1", fullSnapshot);
+        Assert.assertTrue(snapshotReplicator.replicate("TestApp", "revision-1", 100L));
+        Assert.assertEquals(connection.chunks.get(0).getBaseVersion(), -1L);
+        snapshotReplicator.snapshotPersisted("TestApp", "revision-2", deltaSnapshot);
+        Assert.assertTrue(snapshotReplicator.replicate("TestApp", "revision-2", 200L));
+        SnapshotChunk deltaChunk = connection.chunks.get(connection.chunks.size() - 1);
+        Assert.assertNotEquals(deltaChunk.getBaseVersion(), -1L);
+        Assert.assertTrue(deltaChunk.getChunkCount() < connection.chunks.get(0).getChunkCount());
+        SnapshotReplicaStore snapshotReplicaStore = new SnapshotReplicaStore();
+        addChunks(snapshotReplicaStore, connection.chunks);
+        SnapshotReplicaStore.SnapshotReplica snapshotReplica = snapshotReplicaStore.remove("TestApp");
+        Assert.assertEquals(snapshotReplica.getSequenceId(), 200L);
+        Assert.assertEquals(snapshotReplica.getSnapshot(), deltaSnapshot);
+
+        // A closed connection is found as the passive node restarted, hence the next snapshot is sent in full
+        Assert.assertFalse(connectionPoolFactory.validateObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID,
+                new EventSyncConnection.Connection("localhost:0", null, "closed-session")));
+        connection.chunks.clear();
+        snapshotReplicator.snapshotPersisted("TestApp", "revision-3", fullSnapshot);
+        Assert.assertTrue(snapshotReplicator.replicate("TestApp", "revision-3", 300L));
+        Assert.assertEquals(connection.chunks.get(0).getBaseVersion(), -1L);
+        SnapshotReplicaStore restartedSnapshotReplicaStore = new SnapshotReplicaStore();
+        addChunks(restartedSnapshotReplicaStore, connection.chunks);
+        snapshotReplica = restartedSnapshotReplicaStore.remove("TestApp");
+        Assert.assertEquals(snapshotReplica.getSequenceId(), 300L);
+        Assert.assertEquals(snapshotReplica.getSnapshot(), fullSnapshot);
+        connection.channel.finish();
+    }
+
+    private static byte[] createSnapshot(int length, long seed) {
+        // Random content, so that the compressed snapshot spans multiple chunks
+        byte[] snapshot = new byte[length];
+        new Random(seed).nextBytes(snapshot);
+        return snapshot;
+    }
+
+    private static List<SnapshotChunk> createChunks(String siddhiAppName, long version, long baseVersion,
+                                                    long sequenceId, byte[] previousSnapshot, byte[] snapshot)
+            throws IOException {
+        byte[] payload = CompressionUtil.compress(SnapshotDeltaUtil.createDelta(previousSnapshot, snapshot,
+                BLOCK_SIZE), CompressionUtil.getCompressionCodec("gzip", -1));
+        int chunkCount = 3;
+        int chunkSize = (payload.length + chunkCount - 1) / chunkCount;
+        List<SnapshotChunk> chunks = new ArrayList<>();
+        for (int i = 0; i < chunkCount; i++) {
+            chunks.add(new SnapshotChunk(siddhiAppName, version, baseVersion, sequenceId, i, chunkCount,
+                    Arrays.copyOfRange(payload, Math.min(payload.length, i * chunkSize),
+                            Math.min(payload.length, (i + 1) * chunkSize))));
+        }
+        return chunks;
+    }
+
+    private static void addChunks(SnapshotReplicaStore snapshotReplicaStore, List<SnapshotChunk> chunks) {
+        for (SnapshotChunk chunk : chunks) {
+            snapshotReplicaStore.addChunk(chunk);
+        }
+    }
+
+    /**
+     * Connection which records the sent snapshot chunks instead of sending them to a passive node.
+     */
+    private static class RecordingConnection extends EventSyncConnection.Connection {
+        private final EmbeddedChannel channel = new EmbeddedChannel();
+        private final List<SnapshotChunk> chunks = new ArrayList<>();
+
+        RecordingConnection() {
+            super("localhost:0", null, "test-session");
+        }
+
+        @Override
+        public ChannelFuture send(String channelId, byte[] message) {
+            Assert.assertEquals(channelId, HAConstants.CHANNEL_ID_SNAPSHOT_MESSAGE);
+            chunks.add(SnapshotChunk.fromByteBuffer(ByteBuffer.wrap(message)));
+            return channel.newSucceededFuture();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.util.SpillFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SpillFileTest {
+    private File spillDirectory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        spillDirectory = Files.createTempDirectory("spill").toFile();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        File[] spillFiles = spillDirectory.listFiles();
+        if (spillFiles != null) {
+            for (File spillFile : spillFiles) {
+                spillFile.delete();
+            }
+        }
+        spillDirectory.delete();
+    }
+
+    @Test
+    public void testWriteFirstIntoReadSpace() throws IOException {
+        SpillFile spillFile = new SpillFile(spillDirectory, "test");
+        spillFile.write(toMessages("a", "b", "c", "d"));
+        Assert.assertEquals(readAll(spillFile, 2), Arrays.asList("a", "b"));
+        // Written back into the space of the messages which were read
+        spillFile.writeFirst(toMessages("b"));
+        Assert.assertEquals(spillFile.getMessageCount(), 3);
+        Assert.assertEquals(readAll(spillFile, Integer.MAX_VALUE), Arrays.asList("b", "c", "d"));
+        Assert.assertTrue(spillFile.isEmpty());
+        spillFile.close();
+        Assert.assertFalse(spillFile.getFile().exists());
+    }
+
+    @Test
+    public void testWriteFirstMovesUnreadMessages() throws IOException {
+        SpillFile spillFile = new SpillFile(spillDirectory, "test");
+        StringBuilder longMessage = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            longMessage.append((char) ('a' + i % 26));
+        }
+        spillFile.write(toMessages("a", longMessage.toString(), "c"));
+        Assert.assertEquals(readAll(spillFile, 1), Arrays.asList("a"));
+        // Larger than the space of the read messages, hence the unread messages are moved to make room
+        spillFile.writeFirst(toMessages("x", "y", "z"));
+        spillFile.write(toMessages("d"));
+        Assert.assertEquals(readAll(spillFile, Integer.MAX_VALUE),
+                Arrays.asList("x", "y", "z", longMessage.toString(), "c", "d"));
+        spillFile.writeFirst(toMessages("e"));
+        Assert.assertEquals(readAll(spillFile, Integer.MAX_VALUE), Arrays.asList("e"));
+        spillFile.close();
+    }
+
+    @Test
+    public void testRetainedMessagesAppended() throws IOException {
+        SpillFile spillFile = new SpillFile(spillDirectory, "test");
+        spillFile.write(toMessages("a", "b", "c"));
+        Assert.assertEquals(readAll(spillFile, 1), Arrays.asList("a"));
+        spillFile.writeFirst(toMessages("z"));
+        File retainedFile = spillFile.retain();
+
+        SpillFile nextSpillFile = new SpillFile(spillDirectory, "test");
+        Assert.assertEquals(nextSpillFile.append(retainedFile), 3);
+        Assert.assertFalse(retainedFile.exists());
+        Assert.assertEquals(readAll(nextSpillFile, Integer.MAX_VALUE), Arrays.asList("z", "b", "c"));
+        nextSpillFile.close();
+    }
+
+    private static List<byte[]> toMessages(String... messages) {
+        List<byte[]> messageBytes = new ArrayList<>(messages.length);
+        for (String message : messages) {
+            messageBytes.add(message.getBytes(StandardCharsets.UTF_8));
+        }
+        return messageBytes;
+    }
+
+    private static List<String> readAll(SpillFile spillFile, int limit) throws IOException {
+        List<String> messages = new ArrayList<>();
+        byte[] message;
+        while (messages.size() < limit && (message = spillFile.read()) != null) {
+            messages.add(new String(message, StandardCharsets.UTF_8));
+        }
+        return messages;
+    }
+}